@@ -0,0 +1,102 @@
+/*
+ * #%L
+ * Alfresco Remote API
+ * %%
+ * Copyright (C) 2005 - 2020 Alfresco Software Limited
+ * %%
+ * This file is part of the Alfresco software.
+ * If the software was purchased under a paid Alfresco license, the terms of
+ * the paid license agreement will prevail.  Otherwise, the software is
+ * provided under the following open source license terms:
+ *
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+package org.alfresco.rest.framework.benchmarks;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.alfresco.rest.framework.jacksonextensions.BeanPropertiesFilter;
+import org.alfresco.rest.framework.resource.parameters.Paging;
+import org.alfresco.rest.framework.resource.parameters.SortColumn;
+import org.alfresco.rest.framework.resource.parameters.where.Query;
+import org.alfresco.rest.framework.tools.RecognizedParamsExtractor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Parsing of the query string parameters recognized by every REST call
+ * (the individual parts of {@link RecognizedParamsExtractor#getRecognizedParams}).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RecognizedParamsBenchmark
+{
+    private static final String WHERE = "(isFolder=true AND isFile=false)";
+    private static final String ORDER_BY = "isFolder DESC, name ASC, modifiedAt DESC";
+    private static final String INCLUDE = "properties,aspectNames,path,isFavorite,allowableOperations";
+    private static final String FIELDS = "id,name,nodeType,isFolder,isFile,modifiedAt,properties";
+    private static final String RELATIONS = "comments,tags(id,tag),ratings";
+
+    private final RecognizedParamsExtractor extractor = new RecognizedParamsExtractor() {};
+
+    @Benchmark
+    public Query where()
+    {
+        return extractor.getWhereClause(WHERE);
+    }
+
+    @Benchmark
+    public List<SortColumn> orderBy()
+    {
+        return extractor.getSort(ORDER_BY);
+    }
+
+    @Benchmark
+    public List<String> include()
+    {
+        return extractor.getIncludeClause(INCLUDE);
+    }
+
+    @Benchmark
+    public BeanPropertiesFilter fields()
+    {
+        return extractor.getFilter(FIELDS, extractor.getIncludeClause(INCLUDE));
+    }
+
+    @Benchmark
+    public Map<String, BeanPropertiesFilter> relations()
+    {
+        return extractor.getRelationFilter(RELATIONS);
+    }
+
+    @Benchmark
+    public Paging paging()
+    {
+        return extractor.getPaging("100", "100");
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * #%L
+ * Alfresco Remote API
+ * %%
+ * Copyright (C) 2005 - 2020 Alfresco Software Limited
+ * %%
+ * This file is part of the Alfresco software.
+ * If the software was purchased under a paid Alfresco license, the terms of
+ * the paid license agreement will prevail.  Otherwise, the software is
+ * provided under the following open source license terms:
+ *
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+package org.alfresco.rest.framework.benchmarks;
+
+import static org.mockito.Mockito.mock;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.concurrent.TimeUnit;
+
+import org.alfresco.rest.framework.jacksonextensions.BeanPropertiesFilter;
+import org.alfresco.rest.framework.resource.parameters.CollectionWithPagingInfo;
+import org.alfresco.rest.framework.resource.parameters.Paging;
+import org.alfresco.rest.framework.resource.parameters.Params;
+import org.alfresco.rest.framework.tests.api.mocks.Farmer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.extensions.webscripts.WebScriptRequest;
+import org.springframework.extensions.webscripts.WebScriptResponse;
+
+/**
+ * The response side of a collection GET: embedding (ResourceWebScriptHelper.processAdditionsToTheResponse)
+ * and JSON serialization (JacksonHelper.withWriter with SerializerOfCollectionWithPaging), with and
+ * without "fields" filtering (BeanPropertiesFilter).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ResponsePipelineBenchmark
+{
+    @Param({ "10", "100", "1000" })
+    public int pageSize;
+
+    @Param({ "", "id,name,sheep" })
+    public String fields;
+
+    private RestFrameworkBenchmarkContext context;
+    private WebScriptResponse response;
+    private Params params;
+    private CollectionWithPagingInfo<Farmer> page;
+    private Object processedPage;
+
+    @Setup(Level.Trial)
+    public void setUp()
+    {
+        context = new RestFrameworkBenchmarkContext();
+        response = mock(WebScriptResponse.class);
+        BeanPropertiesFilter filter = fields.isEmpty() ? BeanPropertiesFilter.ALLOW_ALL
+                    : new BeanPropertiesFilter(new HashSet<>(Arrays.asList(fields.split(","))));
+        params = Params.valueOf(filter, null, mock(WebScriptRequest.class));
+        page = CollectionWithPagingInfo.asPaged(Paging.valueOf(0, pageSize), RestFrameworkBenchmarkContext.farmers(pageSize), true, pageSize * 10);
+        processedPage = process();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown()
+    {
+        context.close();
+    }
+
+    @Benchmark
+    public Object process()
+    {
+        return context.getHelper().processAdditionsToTheResponse(response, RestFrameworkBenchmarkContext.API, "farmers", params, page);
+    }
+
+    @Benchmark
+    public void serialize() throws IOException
+    {
+        write(processedPage);
+    }
+
+    @Benchmark
+    public void processAndSerialize() throws IOException
+    {
+        write(process());
+    }
+
+    private void write(Object toSerialize) throws IOException
+    {
+        context.getJsonHelper().withWriter(NullOutputStream.INSTANCE,
+                    (generator, objectMapper) -> objectMapper.writeValue(generator, toSerialize));
+    }
+
+    /**
+     * Discards the JSON, only the cost of producing it is measured.
+     */
+    private static class NullOutputStream extends OutputStream
+    {
+        static final NullOutputStream INSTANCE = new NullOutputStream();
+
+        @Override
+        public void write(int b)
+        {
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len)
+        {
+        }
+    }
+}
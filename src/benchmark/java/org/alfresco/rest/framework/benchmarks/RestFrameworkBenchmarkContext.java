@@ -0,0 +1,121 @@
+/*
+ * #%L
+ * Alfresco Remote API
+ * %%
+ * Copyright (C) 2005 - 2020 Alfresco Software Limited
+ * %%
+ * This file is part of the Alfresco software.
+ * If the software was purchased under a paid Alfresco license, the terms of
+ * the paid license agreement will prevail.  Otherwise, the software is
+ * provided under the following open source license terms:
+ *
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+package org.alfresco.rest.framework.benchmarks;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.alfresco.repo.transaction.RetryingTransactionHelper;
+import org.alfresco.rest.framework.Api;
+import org.alfresco.rest.framework.core.ResourceDictionaryBuilder;
+import org.alfresco.rest.framework.core.ResourceLookupDictionary;
+import org.alfresco.rest.framework.jacksonextensions.JacksonHelper;
+import org.alfresco.rest.framework.resource.EntityResource;
+import org.alfresco.rest.framework.resource.RelationshipResource;
+import org.alfresco.rest.framework.tests.api.mocks.Farmer;
+import org.alfresco.rest.framework.webscripts.AbstractResourceWebScript;
+import org.alfresco.rest.framework.webscripts.ResourceWebScriptHelper;
+import org.alfresco.service.transaction.TransactionService;
+import org.springframework.context.support.ClassPathXmlApplicationContext;
+
+/**
+ * Offline set up for the benchmarks: the REST framework wired with the mock resources
+ * of test-rest-context.xml (no repository, no database) and a pass-through transaction helper.
+ */
+public class RestFrameworkBenchmarkContext
+{
+    public static final Api API = Api.valueOf("alfrescomock", "private", "1");
+
+    private final ClassPathXmlApplicationContext applicationContext;
+    private final ResourceLookupDictionary locator;
+    private final ResourceWebScriptHelper helper;
+    private final JacksonHelper jsonHelper;
+
+    @SuppressWarnings("unchecked")
+    public RestFrameworkBenchmarkContext()
+    {
+        applicationContext = new ClassPathXmlApplicationContext("classpath:test-rest-context.xml");
+        locator = applicationContext.getBean(ResourceLookupDictionary.class);
+        helper = applicationContext.getBean(ResourceWebScriptHelper.class);
+        jsonHelper = applicationContext.getBean(JacksonHelper.class);
+
+        Map<String, Object> entityResourceBeans = applicationContext.getBeansWithAnnotation(EntityResource.class);
+        Map<String, Object> relationResourceBeans = applicationContext.getBeansWithAnnotation(RelationshipResource.class);
+        locator.setDictionary(ResourceDictionaryBuilder.build(entityResourceBeans.values(), relationResourceBeans.values()));
+
+        TransactionService transactionService = mock(TransactionService.class);
+        RetryingTransactionHelper transactionHelper = mock(RetryingTransactionHelper.class);
+        when(transactionService.getRetryingTransactionHelper()).thenReturn(transactionHelper);
+        when(transactionHelper.doInTransaction(any(RetryingTransactionHelper.RetryingTransactionCallback.class), anyBoolean(), anyBoolean()))
+                    .thenAnswer(invocation -> ((RetryingTransactionHelper.RetryingTransactionCallback<?>) invocation.getArguments()[0]).execute());
+        for (String executor : new String[] { "executorOfGets", "executorOfPost", "executorOfPut", "executorOfDelete" })
+        {
+            ((AbstractResourceWebScript) applicationContext.getBean(executor)).setTransactionService(transactionService);
+        }
+    }
+
+    /**
+     * A page of entities that each embed a "sheep" and a "goat".
+     */
+    public static List<Farmer> farmers(int pageSize)
+    {
+        List<Farmer> farmers = new ArrayList<>(pageSize);
+        for (int i = 0; i < pageSize; i++)
+        {
+            Farmer farmer = new Farmer("farmer" + i);
+            farmer.setSheepId("sheep" + i);
+            farmer.setGoatId("goat" + i);
+            farmers.add(farmer);
+        }
+        return farmers;
+    }
+
+    public ResourceLookupDictionary getLocator()
+    {
+        return locator;
+    }
+
+    public ResourceWebScriptHelper getHelper()
+    {
+        return helper;
+    }
+
+    public JacksonHelper getJsonHelper()
+    {
+        return jsonHelper;
+    }
+
+    public void close()
+    {
+        applicationContext.close();
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * #%L
+ * Alfresco Remote API
+ * %%
+ * Copyright (C) 2005 - 2020 Alfresco Software Limited
+ * %%
+ * This file is part of the Alfresco software.
+ * If the software was purchased under a paid Alfresco license, the terms of
+ * the paid license agreement will prevail.  Otherwise, the software is
+ * provided under the following open source license terms:
+ *
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+package org.alfresco.rest.framework.benchmarks;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.alfresco.rest.framework.resource.parameters.where.Query;
+import org.alfresco.rest.framework.resource.parameters.where.QueryHelper;
+import org.alfresco.rest.framework.tools.RecognizedParamsExtractor;
+import org.alfresco.rest.workflow.api.impl.MapBasedQueryWalker;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compiling a where clause (WhereCompiler) and walking the compiled tree (QueryHelper.walk).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WhereClauseBenchmark
+{
+    private static final Set<String> EQUALS_PARAMETERS = new HashSet<>(Arrays.asList("isFolder", "isFile", "nodeType", "isPrimary", "assocType"));
+
+    @Param({ "(isFolder=true)", "(isFolder=true AND isFile=false)", "(nodeType='cm:content' AND isPrimary=true AND assocType='cm:contains')" })
+    public String where;
+
+    private final RecognizedParamsExtractor extractor = new RecognizedParamsExtractor() {};
+
+    private Query query;
+
+    @Setup
+    public void setUp()
+    {
+        query = extractor.getWhereClause(where);
+    }
+
+    @Benchmark
+    public Query compile()
+    {
+        return extractor.getWhereClause(where);
+    }
+
+    @Benchmark
+    public MapBasedQueryWalker walk()
+    {
+        MapBasedQueryWalker walker = new MapBasedQueryWalker(EQUALS_PARAMETERS, null);
+        QueryHelper.walk(query, walker);
+        return walker;
+    }
+
+    @Benchmark
+    public MapBasedQueryWalker compileAndWalk()
+    {
+        MapBasedQueryWalker walker = new MapBasedQueryWalker(EQUALS_PARAMETERS, null);
+        QueryHelper.walk(extractor.getWhereClause(where), walker);
+        return walker;
+    }
+}
@@ -0,0 +1,57 @@
+/*
+ * #%L
+ * Alfresco Remote API
+ * %%
+ * Copyright (C) 2005 - 2020 Alfresco Software Limited
+ * %%
+ * This file is part of the Alfresco software.
+ * If the software was purchased under a paid Alfresco license, the terms of
+ * the paid license agreement will prevail.  Otherwise, the software is
+ * provided under the following open source license terms:
+ *
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+package org.alfresco.rest.api;
+
+import org.alfresco.rest.api.model.BulkNodeJob;
+
+/**
+ * Bulk node jobs API: deletes, moves or copies many nodes asynchronously.
+ */
+public interface BulkNodeJobs
+{
+    /**
+     * Validates and submits a job, which is then run in the background.
+     *
+     * @param job the action, the node ids and (to move or copy) the target parent
+     * @return the job, pending
+     */
+    BulkNodeJob createJob(BulkNodeJob job);
+
+    /**
+     * Get the progress of a job.
+     *
+     * @param jobId
+     * @return the job, with its progress and the errors so far
+     */
+    BulkNodeJob getJob(String jobId);
+
+    /**
+     * Stop a job if still in progress: the nodes that haven't been processed yet are left as they are.
+     *
+     * @param jobId
+     */
+    void cancel(String jobId);
+}
@@ -43,10 +43,12 @@ import org.alfresco.rest.framework.resource.content.BasicContentInfo;
 import org.alfresco.rest.framework.resource.content.BinaryResource;
 import org.alfresco.rest.framework.resource.parameters.CollectionWithPagingInfo;
 import org.alfresco.rest.framework.resource.parameters.Parameters;
+import org.alfresco.rest.framework.webscripts.MultiPartStream;
 import org.alfresco.service.cmr.repository.ChildAssociationRef;
 import org.alfresco.service.cmr.repository.NodeRef;
 import org.alfresco.service.cmr.repository.StoreRef;
 import org.alfresco.service.namespace.QName;
+import org.alfresco.util.Pair;
 import org.springframework.extensions.webscripts.servlet.FormData;
 
 /**
@@ -139,6 +141,18 @@ public interface Nodes
      */
     Node createNode(String parentFolderNodeId, Node nodeInfo, Parameters parameters);
 
+    /**
+     * Create many nodes - folders or (empty) files - in batches, each in its own transaction.
+     * The whole list is validated first, then each node is created as per {@link #createNode(String, Node, Parameters)}.
+     * A node that can't be created doesn't prevent the others from being created.
+     *
+     * @param parentFolderNodeId
+     * @param nodeInfos
+     * @param parameters
+     * @return for each node (in the same order), the created node or the error
+     */
+    List<Pair<Node, RuntimeException>> createNodes(String parentFolderNodeId, List<Node> nodeInfos, Parameters parameters);
+
     /**
      * Move or Copy node
      *
@@ -202,6 +216,17 @@ public interface Nodes
      * @return {@code Node} if successful
      */
     Node upload(String parentFolderNodeId, FormData formData, Parameters parameters);
+
+    /**
+     * Uploads file content and meta-data into the repository, reading the request as it arrives: the file is written
+     * straight into the content store (rather than buffered first), the fields sent before it are checked first.
+     *
+     * @param parentFolderNodeId String id of parent folder node or well-known alias, eg. "-root-" or "-my-"
+     * @param formStream         the {@link MultiPartStream}
+     * @param parameters         the {@link Parameters} object to get the parameters passed into the request
+     * @return the {@code Node} and the (Base64 encoded) SHA-256 digest of its content
+     */
+    Pair<Node, String> upload(String parentFolderNodeId, MultiPartStream formStream, Parameters parameters);
     
 
     NodeRef validateNode(StoreRef storeRef, String nodeId);
@@ -0,0 +1,51 @@
+/*
+ * #%L
+ * Alfresco Remote API
+ * %%
+ * Copyright (C) 2005 - 2020 Alfresco Software Limited
+ * %%
+ * This file is part of the Alfresco software.
+ * If the software was purchased under a paid Alfresco license, the terms of
+ * the paid license agreement will prevail.  Otherwise, the software is
+ * provided under the following open source license terms:
+ *
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+package org.alfresco.rest.api;
+
+import java.util.function.Supplier;
+
+import org.alfresco.service.cmr.security.PersonService;
+
+/**
+ * The people looked up to fill in the UserInfo (eg. createdByUser and modifiedByUser) of the entities, kept across
+ * requests. See {@link org.alfresco.rest.api.model.Node#lookupUserInfo}.
+ */
+public interface PersonInfoCache
+{
+    /**
+     * @param userName the user name
+     * @param loader loads the person as the current user, if not cached or not readable by the current user (returns
+     *               null for an unknown person or a person the current user can't read)
+     * @return the person or null
+     */
+    PersonService.PersonInfo getPerson(String userName, Supplier<PersonService.PersonInfo> loader);
+
+    /**
+     * @param userName the user name
+     * @return true if the person is cached, whoever can read it
+     */
+    boolean isCached(String userName);
+}
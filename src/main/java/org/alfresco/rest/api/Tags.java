@@ -26,6 +26,7 @@
 package org.alfresco.rest.api;
 
 import java.util.List;
+import java.util.Map;
 
 import org.alfresco.rest.api.model.Tag;
 import org.alfresco.rest.framework.resource.parameters.CollectionWithPagingInfo;
@@ -41,4 +42,5 @@ public interface Tags
     public CollectionWithPagingInfo<Tag> getTags(StoreRef storeRef, Parameters params);
     public Tag changeTag(StoreRef storeRef, String tagId, Tag tag);
     public CollectionWithPagingInfo<Tag> getTags(String nodeId, Parameters params);
+    public Map<String, CollectionWithPagingInfo<Tag>> getTags(List<String> nodeIds, Parameters params);
 }
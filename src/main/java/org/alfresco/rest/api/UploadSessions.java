@@ -0,0 +1,84 @@
+/*
+ * #%L
+ * Alfresco Remote API
+ * %%
+ * Copyright (C) 2005 - 2020 Alfresco Software Limited
+ * %%
+ * This file is part of the Alfresco software.
+ * If the software was purchased under a paid Alfresco license, the terms of
+ * the paid license agreement will prevail.  Otherwise, the software is
+ * provided under the following open source license terms:
+ *
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+package org.alfresco.rest.api;
+
+import java.io.InputStream;
+
+import org.alfresco.rest.api.model.Node;
+import org.alfresco.rest.api.model.UploadSession;
+import org.alfresco.rest.framework.resource.parameters.Parameters;
+
+/**
+ * Upload sessions API: uploads the content of a file in chunks, then commits it.
+ */
+public interface UploadSessions
+{
+    String PARAM_OFFSET = "offset";
+
+    /**
+     * Creates a session for the content of an existing file.
+     *
+     * @param session the file node id, the total size and, optionally, the mimetype and encoding
+     * @return the new session
+     */
+    UploadSession createSession(UploadSession session);
+
+    /**
+     * Get the progress of a session.
+     *
+     * @param sessionId
+     * @return the session, with the byte ranges received so far
+     */
+    UploadSession getSession(String sessionId);
+
+    /**
+     * Stores a chunk of the content. Chunks can be sent in parallel and in any order, a chunk sent again (at the same offset)
+     * replaces the previous one.
+     *
+     * @param sessionId
+     * @param offset the position of the first byte of the chunk in the content
+     * @param stream the chunk
+     * @return the session
+     */
+    UploadSession putChunk(String sessionId, long offset, InputStream stream);
+
+    /**
+     * Once all the chunks have been received: sets them, in order, as the new content of the file - as an update of its
+     * content does (eg. with a new version), see {@link Nodes#updateContent}.
+     *
+     * @param sessionId
+     * @param parameters the parameters of a content update, eg. majorVersion, comment or name
+     * @return the updated file
+     */
+    Node commit(String sessionId, Parameters parameters);
+
+    /**
+     * Removes a session and its chunks.
+     *
+     * @param sessionId
+     */
+    void cancel(String sessionId);
+}
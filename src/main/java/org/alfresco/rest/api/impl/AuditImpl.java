@@ -55,6 +55,7 @@ import org.alfresco.rest.framework.core.exceptions.EntityNotFoundException;
 import org.alfresco.rest.framework.core.exceptions.InvalidArgumentException;
 import org.alfresco.rest.framework.resource.parameters.CollectionWithPagingInfo;
 import org.alfresco.rest.framework.resource.parameters.Paging;
+import org.alfresco.rest.framework.resource.parameters.PagingCursor;
 import org.alfresco.rest.framework.resource.parameters.Parameters;
 import org.alfresco.rest.framework.resource.parameters.SortColumn;
 import org.alfresco.rest.framework.resource.parameters.where.Query;
@@ -109,6 +110,8 @@ public class AuditImpl implements Audit
 
     private People people;
 
+    private UserInfoCache userInfoCache;
+
     public void setPeople(People people)
     {
         this.people = people;
@@ -139,6 +142,11 @@ public class AuditImpl implements Audit
         this.personService = personService;
     }
 
+    public void setUserInfoCache(UserInfoCache userInfoCache)
+    {
+        this.userInfoCache = userInfoCache;
+    }
+
     private void checkEnabled()
     {
         if (!auditService.isAuditEnabled())
@@ -269,13 +277,15 @@ public class AuditImpl implements Audit
         int skipCount = paging.getSkipCount();
         int maxItems = paging.getMaxItems();
         int limit = skipCount + maxItems + 1; // to detect hasMoreItems
+        // keyset paging: continue after the last entry id of the previous page
+        Long afterId = PagingCursor.decodeId(paging.getCursor());
 
         if (q != null)
         {
             // filtering via "where" clause
             AuditEntryQueryWalker propertyWalker = new AuditEntryQueryWalker();
             QueryHelper.walk(q, propertyWalker);
-            entriesAudit = getQueryResultAuditEntries(auditApplication, propertyWalker, parameters.getInclude(), limit, forward);
+            entriesAudit = getQueryResultAuditEntries(auditApplication, propertyWalker, parameters.getInclude(), limit, forward, afterId);
         }
 
         // clear null elements
@@ -301,7 +311,10 @@ public class AuditImpl implements Audit
         entriesAudit = (skipCount >= totalRetrievedItems)
                         ? Collections.emptyList()
                         : entriesAudit.subList(skipCount, end);
-        return CollectionWithPagingInfo.asPaged(paging, entriesAudit, hasMoreItems, totalItems);
+        String nextCursor = (hasMoreItems && !entriesAudit.isEmpty())
+                        ? PagingCursor.encode(String.valueOf(entriesAudit.get(entriesAudit.size() - 1).getId()))
+                        : null;
+        return CollectionWithPagingInfo.asPaged(paging, entriesAudit, hasMoreItems, totalItems, null, null, nextCursor);
     }
 
     /**
@@ -425,6 +438,21 @@ public class AuditImpl implements Audit
      */
     public List<AuditEntry> getQueryResultAuditEntries(AuditService.AuditApplication auditApplication, AuditEntryQueryWalker propertyWalker,
             List<String> includeParam, int maxItem, Boolean forward)
+    {
+        return getQueryResultAuditEntries(auditApplication, propertyWalker, includeParam, maxItem, forward, null);
+    }
+
+    /**
+     * @param auditAppId
+     * @param propertyWalker
+     * @param includeParams
+     * @param maxItem
+     * @param forward
+     * @param afterId only return entries after this id (in the order of the query), or null
+     * @return
+     */
+    public List<AuditEntry> getQueryResultAuditEntries(AuditService.AuditApplication auditApplication, AuditEntryQueryWalker propertyWalker,
+            List<String> includeParam, int maxItem, Boolean forward, Long afterId)
     {
         final List<AuditEntry> results = new ArrayList<>();
 
@@ -450,6 +478,19 @@ public class AuditImpl implements Audit
 
         validateWhereBetween(auditAppId, fromTime, toTime);
 
+        if (afterId != null)
+        {
+            // fromId is inclusive, toId is exclusive
+            if (forward == null || forward)
+            {
+                fromId = (fromId == null) ? afterId + 1 : Math.max(fromId, afterId + 1);
+            }
+            else
+            {
+                toId = (toId == null) ? afterId : Math.min(toId, afterId);
+            }
+        }
+
         params.setFromTime(fromTime);
         params.setToTime(toTime);
 
@@ -478,7 +519,7 @@ public class AuditImpl implements Audit
 
             public boolean handleAuditEntry(Long entryId, String applicationName, String userName, long time, Map<String, Serializable> values)
             {
-                UserInfo userInfo = Node.lookupUserInfo(userName, mapUserInfo, personService);
+                UserInfo userInfo = Node.lookupUserInfo(userName, mapUserInfo, personService, false, userInfoCache);
                 AuditEntry auditEntry = new AuditEntry(entryId, auditAppId, userInfo, new Date(time), values);
                 results.add(auditEntry);
                 return true;
@@ -548,7 +589,7 @@ public class AuditImpl implements Audit
 
             public boolean handleAuditEntry(Long entryId, String applicationName, String userName, long time, Map<String, Serializable> values)
             {
-                UserInfo userInfo = Node.lookupUserInfo(userName, new HashMap<>(0), personService);
+                UserInfo userInfo = Node.lookupUserInfo(userName, new HashMap<>(0), personService, false, userInfoCache);
                 AuditEntry auditEntry = new AuditEntry(entryId, auditAppId, userInfo, new Date(time), values);
                 results.add(auditEntry);
                 return true;
@@ -784,7 +825,7 @@ public class AuditImpl implements Audit
 
             public boolean handleAuditEntry(Long entryId, String applicationName, String userName, long time, Map<String, Serializable> values)
             {
-                UserInfo userInfo = Node.lookupUserInfo(userName, new HashMap<>(0), personService);
+                UserInfo userInfo = Node.lookupUserInfo(userName, new HashMap<>(0), personService, false, userInfoCache);
                 AuditEntry auditEntry = new AuditEntry(entryId, auditAppId, userInfo, new Date(time), values);
                 results.add(auditEntry);
                 return true;
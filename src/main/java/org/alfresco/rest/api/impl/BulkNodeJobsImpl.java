@@ -0,0 +1,524 @@
+/*
+ * #%L
+ * Alfresco Remote API
+ * %%
+ * Copyright (C) 2005 - 2020 Alfresco Software Limited
+ * %%
+ * This file is part of the Alfresco software.
+ * If the software was purchased under a paid Alfresco license, the terms of
+ * the paid license agreement will prevail.  Otherwise, the software is
+ * provided under the following open source license terms:
+ *
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+package org.alfresco.rest.api.impl;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.alfresco.repo.batch.BatchProcessor;
+import org.alfresco.repo.security.authentication.AuthenticationUtil;
+import org.alfresco.repo.transaction.AlfrescoTransactionSupport;
+import org.alfresco.repo.transaction.RetryingTransactionHelper;
+import org.alfresco.repo.transaction.TransactionListenerAdapter;
+import org.alfresco.rest.api.BulkNodeJobs;
+import org.alfresco.rest.api.Nodes;
+import org.alfresco.rest.api.model.BulkNodeJob;
+import org.alfresco.rest.api.model.BulkNodeJobError;
+import org.alfresco.rest.framework.core.exceptions.EntityNotFoundException;
+import org.alfresco.rest.framework.core.exceptions.ErrorResponse;
+import org.alfresco.rest.framework.core.exceptions.InvalidArgumentException;
+import org.alfresco.rest.framework.core.exceptions.ServiceUnavailableException;
+import org.alfresco.rest.framework.resource.parameters.Parameters;
+import org.alfresco.rest.framework.resource.parameters.Params;
+import org.alfresco.rest.framework.resource.parameters.Params.RecognizedParams;
+import org.alfresco.rest.framework.tools.ApiAssistant;
+import org.alfresco.service.cmr.security.AuthorityService;
+import org.alfresco.util.GUID;
+import org.alfresco.util.ParameterCheck;
+import org.alfresco.util.TraceableThreadFactory;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * Runs the bulk node jobs in the background, once the request that submitted them has been committed: each job goes through
+ * its nodes with a {@link ChunkedNodeProcessor} (a {@link BatchProcessor}), ie. in chunks, one transaction per chunk, on
+ * worker threads that run as the user who submitted the job. The nodes are deleted, moved or
+ * copied through {@link Nodes}, so they get the same checks (permissions, special nodes, ...) as one by one.
+ * <p>
+ * The jobs are only held in memory, on the server that they were submitted to: the last few of them are kept once done, so
+ * that their outcome can still be read.
+ */
+public class BulkNodeJobsImpl implements BulkNodeJobs
+{
+    private static final Log logger = LogFactory.getLog(BulkNodeJobsImpl.class);
+
+    private static final Set<String> ACTIONS = new LinkedHashSet<>(3);
+    static
+    {
+        ACTIONS.add(BulkNodeJob.ACTION_DELETE);
+        ACTIONS.add(BulkNodeJob.ACTION_MOVE);
+        ACTIONS.add(BulkNodeJob.ACTION_COPY);
+    }
+
+    private Nodes nodes;
+    private AuthorityService authorityService;
+    private RetryingTransactionHelper retryingTransactionHelper;
+    private ApiAssistant assistant;
+
+    private int maxItems = 10000;
+    private int batchSize = 50;
+    private int workerThreads = 4;
+    private int maxRunningJobs = 2;
+    private int maxQueuedJobs = 20;
+    private int maxKeptJobs = 200;
+    private int maxErrors = 100;
+
+    private ThreadPoolExecutor executor;
+
+    // by id, in the order they have been submitted
+    private final Map<String, Job> jobs = new LinkedHashMap<>();
+
+    public void setNodes(Nodes nodes)
+    {
+        this.nodes = nodes;
+    }
+
+    public void setAuthorityService(AuthorityService authorityService)
+    {
+        this.authorityService = authorityService;
+    }
+
+    public void setRetryingTransactionHelper(RetryingTransactionHelper retryingTransactionHelper)
+    {
+        this.retryingTransactionHelper = retryingTransactionHelper;
+    }
+
+    public void setAssistant(ApiAssistant assistant)
+    {
+        this.assistant = assistant;
+    }
+
+    public void setMaxItems(int maxItems)
+    {
+        this.maxItems = maxItems;
+    }
+
+    public void setBatchSize(int batchSize)
+    {
+        this.batchSize = batchSize;
+    }
+
+    public void setWorkerThreads(int workerThreads)
+    {
+        this.workerThreads = workerThreads;
+    }
+
+    public void setMaxRunningJobs(int maxRunningJobs)
+    {
+        this.maxRunningJobs = maxRunningJobs;
+    }
+
+    public void setMaxQueuedJobs(int maxQueuedJobs)
+    {
+        this.maxQueuedJobs = maxQueuedJobs;
+    }
+
+    public void setMaxKeptJobs(int maxKeptJobs)
+    {
+        this.maxKeptJobs = maxKeptJobs;
+    }
+
+    public void setMaxErrors(int maxErrors)
+    {
+        this.maxErrors = maxErrors;
+    }
+
+    public void init()
+    {
+        ParameterCheck.mandatory("nodes", this.nodes);
+        ParameterCheck.mandatory("authorityService", this.authorityService);
+        ParameterCheck.mandatory("retryingTransactionHelper", this.retryingTransactionHelper);
+        ParameterCheck.mandatory("assistant", this.assistant);
+
+        TraceableThreadFactory threadFactory = new TraceableThreadFactory();
+        threadFactory.setThreadDaemon(true);
+        threadFactory.setNamePrefix("RestApiBulkNodeJob");
+
+        executor = new ThreadPoolExecutor(maxRunningJobs, maxRunningJobs, 60L, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<Runnable>(maxQueuedJobs), threadFactory, new ThreadPoolExecutor.AbortPolicy());
+        executor.allowCoreThreadTimeOut(true);
+    }
+
+    public void destroy()
+    {
+        if (executor != null)
+        {
+            executor.shutdownNow();
+        }
+    }
+
+    @Override
+    public BulkNodeJob createJob(BulkNodeJob request)
+    {
+        if (request == null)
+        {
+            throw new InvalidArgumentException("A job is expected");
+        }
+
+        String action = request.getAction();
+        if (! ACTIONS.contains(action))
+        {
+            throw new InvalidArgumentException("Unknown action: "+action+" (expected one of "+ACTIONS+")");
+        }
+
+        List<String> nodeIds = request.getNodeIds();
+        if ((nodeIds == null) || nodeIds.isEmpty())
+        {
+            throw new InvalidArgumentException("Node ids are expected");
+        }
+        if (nodeIds.size() > maxItems)
+        {
+            throw new InvalidArgumentException("Too many nodes: "+nodeIds.size()+" (the maximum is "+maxItems+")");
+        }
+        // note: a node is only processed once, even if listed more than once
+        Set<String> distinctNodeIds = new LinkedHashSet<>(nodeIds.size());
+        for (String nodeId : nodeIds)
+        {
+            if ((nodeId == null) || nodeId.isEmpty())
+            {
+                throw new InvalidArgumentException("Node id is expected");
+            }
+            distinctNodeIds.add(nodeId);
+        }
+
+        String targetParentId = null;
+        if (BulkNodeJob.ACTION_DELETE.equals(action))
+        {
+            if (request.getTargetParentId() != null)
+            {
+                throw new InvalidArgumentException("Unexpected targetParentId for action: "+action);
+            }
+        }
+        else
+        {
+            if (request.getTargetParentId() == null)
+            {
+                throw new InvalidArgumentException("targetParentId is expected for action: "+action);
+            }
+            if (request.getPermanent() != null)
+            {
+                throw new InvalidArgumentException("Unexpected permanent for action: "+action);
+            }
+
+            // check that the target exists - once, the nodes are then moved or copied below its id (rather than resolving
+            // an alias, eg. -my-, again for each node)
+            targetParentId = nodes.validateOrLookupNode(request.getTargetParentId(), null).getId();
+        }
+
+        Job job = new Job(GUID.generate(), AuthenticationUtil.getFullyAuthenticatedUser(), AuthenticationUtil.getRunAsUser(),
+                    action, new ArrayList<>(distinctNodeIds), targetParentId, Boolean.TRUE.equals(request.getPermanent()));
+        synchronized (jobs)
+        {
+            int notDone = 0;
+            for (Job other : jobs.values())
+            {
+                if (other.completedAt == null)
+                {
+                    notDone++;
+                }
+            }
+            if (notDone >= maxRunningJobs + maxQueuedJobs)
+            {
+                throw new ServiceUnavailableException("Too many bulk node jobs in progress, try again later");
+            }
+            jobs.put(job.id, job);
+            removeDoneJobs();
+        }
+
+        // the job only starts once the request has been committed, so that it doesn't run alongside (or see less than) the
+        // request's transaction
+        AlfrescoTransactionSupport.bindListener(new TransactionListenerAdapter()
+        {
+            @Override
+            public void afterCommit()
+            {
+                submit(job);
+            }
+
+            @Override
+            public void afterRollback()
+            {
+                synchronized (jobs)
+                {
+                    jobs.remove(job.id);
+                }
+            }
+        });
+
+        if (logger.isDebugEnabled())
+        {
+            logger.debug("Submitted bulk node job "+job.id+": "+action+" of "+job.nodeIds.size()+" nodes by "+job.runAsUser);
+        }
+        return job.toBulkNodeJob(false);
+    }
+
+    private void submit(final Job job)
+    {
+        try
+        {
+            executor.execute(() -> run(job));
+        }
+        catch (RejectedExecutionException e)
+        {
+            logger.warn("Bulk node job "+job.id+" could not be started: "+e.getMessage());
+            job.cancelled = true;
+            job.completedAt = new Date();
+            job.status = BulkNodeJob.Status.CANCELLED;
+        }
+    }
+
+    @Override
+    public BulkNodeJob getJob(String jobId)
+    {
+        return getOwnJob(jobId).toBulkNodeJob(true);
+    }
+
+    @Override
+    public void cancel(String jobId)
+    {
+        getOwnJob(jobId).cancelled = true;
+    }
+
+    /**
+     * @return the job, if it has been submitted by the current user (or the current user is an admin)
+     */
+    private Job getOwnJob(String jobId)
+    {
+        Job job;
+        synchronized (jobs)
+        {
+            job = jobs.get(jobId);
+        }
+        if ((job == null) || !(job.runAsUser.equals(AuthenticationUtil.getRunAsUser()) || authorityService.hasAdminAuthority()))
+        {
+            throw new EntityNotFoundException(jobId);
+        }
+        return job;
+    }
+
+    // the oldest jobs that are done, beyond the ones that are kept
+    private void removeDoneJobs()
+    {
+        int toRemove = jobs.size() - maxKeptJobs;
+        for (Iterator<Job> it = jobs.values().iterator(); (toRemove > 0) && it.hasNext();)
+        {
+            if (it.next().completedAt != null)
+            {
+                it.remove();
+                toRemove--;
+            }
+        }
+    }
+
+    private void run(final Job job)
+    {
+        job.startedAt = new Date();
+        job.status = BulkNodeJob.Status.IN_PROGRESS;
+        try
+        {
+            AuthenticationUtil.setFullyAuthenticatedUser(job.fullyAuthenticatedUser);
+            AuthenticationUtil.setRunAsUser(job.runAsUser);
+
+            final Parameters parameters = getParameters(job);
+            new ChunkedNodeProcessor<String, Void>("RestApiBulkNodeJob-"+job.action, retryingTransactionHelper, workerThreads,
+                        batchSize, logger)
+            {
+                @Override
+                protected String getIdentifier(String nodeId)
+                {
+                    return job.action+" - "+nodeId;
+                }
+
+                @Override
+                protected Void process(String nodeId)
+                {
+                    processNode(job, nodeId, parameters);
+                    return null;
+                }
+
+                @Override
+                protected void succeeded(String nodeId, Void result)
+                {
+                    job.succeeded.incrementAndGet();
+                }
+
+                @Override
+                protected void failed(String nodeId, RuntimeException error)
+                {
+                    job.addError(nodeId, assistant.resolvePublicException(error), maxErrors);
+                }
+
+                @Override
+                protected boolean isCancelled()
+                {
+                    return job.cancelled;
+                }
+            }.processAll(job.nodeIds);
+        }
+        catch (RuntimeException e)
+        {
+            logger.error("Bulk node job "+job.id+" failed", e);
+        }
+        finally
+        {
+            AuthenticationUtil.clearCurrentSecurityContext();
+            job.completedAt = new Date();
+            job.status = (job.cancelled ? BulkNodeJob.Status.CANCELLED : BulkNodeJob.Status.DONE);
+        }
+
+        if (logger.isDebugEnabled())
+        {
+            logger.debug("Bulk node job "+job.id+" "+job.status+": "+job.succeeded.get()+" succeeded, "+job.failed.get()+" failed");
+        }
+    }
+
+    private void processNode(Job job, String nodeId, Parameters parameters)
+    {
+        switch (job.action)
+        {
+            case BulkNodeJob.ACTION_DELETE:
+                nodes.deleteNode(nodeId, parameters);
+                break;
+            case BulkNodeJob.ACTION_MOVE:
+                nodes.moveOrCopyNode(nodeId, job.targetParentId, null, parameters, false);
+                break;
+            case BulkNodeJob.ACTION_COPY:
+                nodes.moveOrCopyNode(nodeId, job.targetParentId, null, parameters, true);
+                break;
+            default:
+                throw new InvalidArgumentException("Unknown action: "+job.action);
+        }
+    }
+
+    // the parameters of the equivalent single node requests
+    private static Parameters getParameters(Job job)
+    {
+        Map<String, String[]> requestParameters = new HashMap<>(1);
+        if (job.permanent)
+        {
+            requestParameters.put(Nodes.PARAM_PERMANENT, new String[] { Boolean.TRUE.toString() });
+        }
+        RecognizedParams recognizedParams = new RecognizedParams(requestParameters, null, null, null, null, null, null, null, false);
+        return Params.valueOf(recognizedParams, null, null, null);
+    }
+
+    private static class Job
+    {
+        private final String id;
+        private final String fullyAuthenticatedUser;
+        private final String runAsUser;
+        private final String action;
+        private final List<String> nodeIds;
+        private final String targetParentId;
+        private final boolean permanent;
+        private final Date createdAt = new Date();
+
+        private final AtomicInteger succeeded = new AtomicInteger();
+        private final AtomicInteger failed = new AtomicInteger();
+        private final List<BulkNodeJobError> errors = Collections.synchronizedList(new ArrayList<BulkNodeJobError>());
+
+        private volatile BulkNodeJob.Status status = BulkNodeJob.Status.PENDING;
+        private volatile Date startedAt;
+        private volatile Date completedAt;
+        private volatile boolean cancelled;
+
+        private Job(String id, String fullyAuthenticatedUser, String runAsUser, String action, List<String> nodeIds,
+                    String targetParentId, boolean permanent)
+        {
+            this.id = id;
+            this.fullyAuthenticatedUser = fullyAuthenticatedUser;
+            this.runAsUser = runAsUser;
+            this.action = action;
+            this.nodeIds = nodeIds;
+            this.targetParentId = targetParentId;
+            this.permanent = permanent;
+        }
+
+        private void addError(String nodeId, ErrorResponse error, int maxErrors)
+        {
+            failed.incrementAndGet();
+            synchronized (errors)
+            {
+                if (errors.size() < maxErrors)
+                {
+                    errors.add(new BulkNodeJobError(nodeId, error.getStatusCode(), error));
+                }
+            }
+        }
+
+        private BulkNodeJob toBulkNodeJob(boolean withErrors)
+        {
+            BulkNodeJob job = new BulkNodeJob();
+            job.setId(id);
+            job.setAction(action);
+            job.setTargetParentId(targetParentId);
+            if (BulkNodeJob.ACTION_DELETE.equals(action))
+            {
+                job.setPermanent(permanent);
+            }
+            job.setStatus(status);
+            job.setCreatedAt(createdAt);
+
+            Date started = startedAt;
+            Date completed = completedAt;
+            int succeededItems = succeeded.get();
+            int failedItems = failed.get();
+            job.setTotalItems(nodeIds.size());
+            job.setSucceededItems(succeededItems);
+            job.setFailedItems(failedItems);
+            job.setProcessedItems(succeededItems + failedItems);
+            job.setStartedAt(started);
+            job.setCompletedAt(completed);
+            if (started != null)
+            {
+                long end = (completed != null ? completed.getTime() : System.currentTimeMillis());
+                double seconds = Math.max(end - started.getTime(), 1L) / 1000d;
+                job.setItemsPerSecond((succeededItems + failedItems) / seconds);
+            }
+            if (withErrors)
+            {
+                synchronized (errors)
+                {
+                    job.setErrors(new ArrayList<>(errors));
+                }
+            }
+            return job;
+        }
+    }
+}
@@ -0,0 +1,179 @@
+/*
+ * #%L
+ * Alfresco Remote API
+ * %%
+ * Copyright (C) 2005 - 2020 Alfresco Software Limited
+ * %%
+ * This file is part of the Alfresco software.
+ * If the software was purchased under a paid Alfresco license, the terms of
+ * the paid license agreement will prevail.  Otherwise, the software is
+ * provided under the following open source license terms:
+ *
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+package org.alfresco.rest.api.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.alfresco.repo.batch.BatchProcessor;
+import org.alfresco.repo.batch.BatchProcessor.BatchProcessWorkerAdaptor;
+import org.alfresco.repo.security.authentication.AuthenticationUtil;
+import org.alfresco.repo.transaction.AlfrescoTransactionSupport;
+import org.alfresco.repo.transaction.RetryingTransactionHelper;
+import org.alfresco.repo.transaction.TransactionListenerAdapter;
+import org.apache.commons.logging.Log;
+
+/**
+ * Processes a list of items with a {@link BatchProcessor}, ie. in chunks, one transaction per chunk, on worker threads that
+ * run as the current user. An item has only succeeded once its chunk has been committed: the items of a chunk that failed
+ * (and so has been rolled back as a whole) are then processed one by one, each in a transaction of its own, to find out
+ * which of them failed.
+ *
+ * @param <T> the type of the items
+ * @param <R> the type of the result of processing an item
+ */
+abstract class ChunkedNodeProcessor<T, R>
+{
+    private final String processName;
+    private final RetryingTransactionHelper retryingTransactionHelper;
+    private final int workerThreads;
+    private final int batchSize;
+    private final Log logger;
+
+    ChunkedNodeProcessor(String processName, RetryingTransactionHelper retryingTransactionHelper, int workerThreads, int batchSize, Log logger)
+    {
+        this.processName = processName;
+        this.retryingTransactionHelper = retryingTransactionHelper;
+        this.workerThreads = workerThreads;
+        this.batchSize = batchSize;
+        this.logger = logger;
+    }
+
+    /**
+     * @return the identifier of the item, for the logs of the batch processor
+     */
+    protected abstract String getIdentifier(T item);
+
+    /**
+     * Processes the item, in the (read-write) transaction of its chunk or of its own.
+     */
+    protected abstract R process(T item);
+
+    /**
+     * Called once the transaction that processed the item has been committed.
+     */
+    protected void succeeded(T item, R result)
+    {
+    }
+
+    /**
+     * Called when the item failed on its own.
+     */
+    protected void failed(T item, RuntimeException error)
+    {
+    }
+
+    /**
+     * @return true to stop processing the items that are left
+     */
+    protected boolean isCancelled()
+    {
+        return false;
+    }
+
+    void processAll(final List<T> items)
+    {
+        final String fullyAuthenticatedUser = AuthenticationUtil.getFullyAuthenticatedUser();
+        final String runAsUser = AuthenticationUtil.getRunAsUser();
+        final int size = items.size();
+        final Set<Integer> done = ConcurrentHashMap.newKeySet(size);
+        List<Integer> positions = new ArrayList<>(size);
+        for (int i = 0; i < size; i++)
+        {
+            positions.add(i);
+        }
+
+        BatchProcessor<Integer> batchProcessor = new BatchProcessor<>(processName, retryingTransactionHelper, positions,
+                    workerThreads, batchSize, null, logger, batchSize * 10);
+        batchProcessor.process(new BatchProcessWorkerAdaptor<Integer>()
+        {
+            @Override
+            public String getIdentifier(Integer position)
+            {
+                return ChunkedNodeProcessor.this.getIdentifier(items.get(position));
+            }
+
+            @Override
+            public void beforeProcess() throws Throwable
+            {
+                AuthenticationUtil.setFullyAuthenticatedUser(fullyAuthenticatedUser);
+                AuthenticationUtil.setRunAsUser(runAsUser);
+            }
+
+            @Override
+            public void afterProcess() throws Throwable
+            {
+                AuthenticationUtil.clearCurrentSecurityContext();
+            }
+
+            @Override
+            public void process(final Integer position) throws Throwable
+            {
+                if (isCancelled())
+                {
+                    return;
+                }
+                final T item = items.get(position);
+                final R result = ChunkedNodeProcessor.this.process(item);
+
+                // only once the chunk has been committed (rather than rolled back)
+                AlfrescoTransactionSupport.bindListener(new TransactionListenerAdapter()
+                {
+                    @Override
+                    public void afterCommit()
+                    {
+                        done.add(position);
+                        succeeded(item, result);
+                    }
+                });
+            }
+        }, true);
+
+        for (int position = 0; position < size; position++)
+        {
+            if (isCancelled())
+            {
+                break;
+            }
+            if (done.contains(position))
+            {
+                continue;
+            }
+            final T item = items.get(position);
+            try
+            {
+                R result = retryingTransactionHelper.doInTransaction(() -> process(item), false, true);
+                succeeded(item, result);
+            }
+            catch (RuntimeException e)
+            {
+                failed(item, e);
+            }
+        }
+    }
+}
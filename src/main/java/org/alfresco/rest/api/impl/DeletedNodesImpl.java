@@ -73,6 +73,7 @@ public class DeletedNodesImpl implements DeletedNodes, RecognizedParamsExtractor
     private NodeService nodeService;
     private Nodes nodes;
     private Renditions renditions;
+    private UserInfoCache userInfoCache;
 
     public void setNodeArchiveService(NodeArchiveService nodeArchiveService)
     {
@@ -99,6 +100,11 @@ public class DeletedNodesImpl implements DeletedNodes, RecognizedParamsExtractor
         this.renditions = renditions;
     }
 
+    public void setUserInfoCache(UserInfoCache userInfoCache)
+    {
+        this.userInfoCache = userInfoCache;
+    }
+
     /**
      * Sets archived information on the Node
      * @param aNode
@@ -111,7 +117,7 @@ public class DeletedNodesImpl implements DeletedNodes, RecognizedParamsExtractor
         }
         Map<QName, Serializable> nodeProps = nodeService.getProperties(aNode.getNodeRef());
         aNode.setArchivedAt((Date)nodeProps.get(ContentModel.PROP_ARCHIVED_DATE));
-        aNode.setArchivedByUser(aNode.lookupUserInfo((String)nodeProps.get(ContentModel.PROP_ARCHIVED_BY), mapUserInfo, personService));
+        aNode.setArchivedByUser(Node.lookupUserInfo((String)nodeProps.get(ContentModel.PROP_ARCHIVED_BY), mapUserInfo, personService, false, userInfoCache));
 
         //Don't show parent id
         aNode.setParentId(null);
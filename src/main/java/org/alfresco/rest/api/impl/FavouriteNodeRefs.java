@@ -0,0 +1,100 @@
+/*
+ * #%L
+ * Alfresco Remote API
+ * %%
+ * Copyright (C) 2005 - 2020 Alfresco Software Limited
+ * %%
+ * This file is part of the Alfresco software.
+ * If the software was purchased under a paid Alfresco license, the terms of
+ * the paid license agreement will prevail.  Otherwise, the software is
+ * provided under the following open source license terms:
+ *
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+package org.alfresco.rest.api.impl;
+
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.alfresco.repo.transaction.TransactionalResourceHelper;
+import org.alfresco.service.cmr.preference.PreferenceService;
+import org.alfresco.service.cmr.repository.NodeRef;
+
+/**
+ * The node refs a user has marked as favourites, parsed once per transaction (ie. per request) from the user's preferences,
+ * so that include=isFavorite doesn't reload and rescan the preferences for every node of a page.
+ */
+final class FavouriteNodeRefs
+{
+    private static final String FAVOURITE_NODE_REFS_CACHE = "REST_API_FAVOURITE_NODE_REFS_CACHE";
+
+    private FavouriteNodeRefs()
+    {
+    }
+
+    /**
+     * @param preferenceService PreferenceService
+     * @param userName the user
+     * @return the (unmodifiable) favourite node refs of the user
+     */
+    static Set<NodeRef> get(PreferenceService preferenceService, String userName)
+    {
+        Map<String, Set<NodeRef>> favouritesByUser = TransactionalResourceHelper.getMap(FAVOURITE_NODE_REFS_CACHE);
+        Set<NodeRef> favourites = favouritesByUser.get(userName);
+        if (favourites == null)
+        {
+            favourites = parse(preferenceService.getPreferences(userName));
+            favouritesByUser.put(userName, favourites);
+        }
+        return favourites;
+    }
+
+    /**
+     * Forgets the favourites of a user, once they have been changed in the current transaction.
+     *
+     * @param userName the user
+     */
+    static void invalidate(String userName)
+    {
+        Map<String, Set<NodeRef>> favouritesByUser = TransactionalResourceHelper.getMap(FAVOURITE_NODE_REFS_CACHE);
+        favouritesByUser.remove(userName);
+    }
+
+    /**
+     * The favourites are stored as comma separated node refs in the user's (String) preferences.
+     */
+    static Set<NodeRef> parse(Map<String, Serializable> preferences)
+    {
+        Set<NodeRef> favourites = new HashSet<>();
+        for (Serializable nodesFavorites : preferences.values())
+        {
+            if (nodesFavorites instanceof String)
+            {
+                for (String nodeRefStr : ((String) nodesFavorites).split(","))
+                {
+                    nodeRefStr = nodeRefStr.trim();
+                    if (NodeRef.isNodeRef(nodeRefStr))
+                    {
+                        favourites.add(new NodeRef(nodeRefStr));
+                    }
+                }
+            }
+        }
+        return Collections.unmodifiableSet(favourites);
+    }
+}
@@ -289,6 +289,7 @@ public class FavouritesImpl implements Favourites
             ret = getFavourite(personFavourite, parameters);
         }
 
+        FavouriteNodeRefs.invalidate(personId);
         return ret;
     }
 
@@ -322,6 +323,7 @@ public class FavouritesImpl implements Favourites
     	{
     		throw new RelationshipResourceNotFoundException(personId, id);
     	}
+    	FavouriteNodeRefs.invalidate(personId);
     }
 
     @Override
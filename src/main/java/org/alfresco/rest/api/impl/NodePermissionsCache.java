@@ -0,0 +1,75 @@
+/*
+ * #%L
+ * Alfresco Remote API
+ * %%
+ * Copyright (C) 2005 - 2020 Alfresco Software Limited
+ * %%
+ * This file is part of the Alfresco software.
+ * If the software was purchased under a paid Alfresco license, the terms of
+ * the paid license agreement will prevail.  Otherwise, the software is
+ * provided under the following open source license terms:
+ *
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+package org.alfresco.rest.api.impl;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import org.alfresco.rest.api.model.NodePermissions;
+
+/**
+ * The allowable operations and permissions evaluated for the nodes of a page (eg. of listChildren).
+ * <p>
+ * The nodes are grouped by a key (see NodesImpl#getPermissionsKey) made of what the evaluation depends on - the ACL,
+ * the user, the type, aspects and owners of the node - so that siblings sharing the same ACL are only evaluated once.
+ * A null key means the node can't be grouped and it is always evaluated.
+ * <p>
+ * Only meant to be used for the duration of a single request (and by a single thread).
+ */
+class NodePermissionsCache
+{
+    private final Map<Object, List<String>> allowableOperations = new HashMap<>();
+    private final Map<Object, NodePermissions> permissions = new HashMap<>();
+
+    List<String> getAllowableOperations(Object key, Supplier<List<String>> evaluator)
+    {
+        return get(allowableOperations, key, evaluator);
+    }
+
+    NodePermissions getPermissions(Object key, Supplier<NodePermissions> evaluator)
+    {
+        return get(permissions, key, evaluator);
+    }
+
+    private static <T> T get(Map<Object, T> cache, Object key, Supplier<T> evaluator)
+    {
+        if (key == null)
+        {
+            return evaluator.get();
+        }
+
+        // note: null (eg. denied access to the permissions) is a valid result
+        if (cache.containsKey(key))
+        {
+            return cache.get(key);
+        }
+        T result = evaluator.get();
+        cache.put(key, result);
+        return result;
+    }
+}
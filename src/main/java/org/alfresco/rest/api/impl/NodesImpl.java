@@ -32,9 +32,13 @@ import java.io.InputStream;
 import java.io.Serializable;
 import java.math.BigInteger;
 import java.nio.charset.Charset;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.AbstractList;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Base64;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
@@ -46,7 +50,9 @@ import java.util.Map.Entry;
 import java.util.Set;
 import java.util.StringTokenizer;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
 
+import org.alfresco.error.AlfrescoRuntimeException;
 import org.alfresco.model.ApplicationModel;
 import org.alfresco.model.ContentModel;
 import org.alfresco.model.QuickShareModel;
@@ -56,7 +62,9 @@ import org.alfresco.repo.action.executer.ContentMetadataExtracter;
 import org.alfresco.repo.activities.ActivityType;
 import org.alfresco.repo.content.ContentLimitViolationException;
 import org.alfresco.repo.content.MimetypeMap;
+import org.alfresco.repo.content.cleanup.EagerContentStoreCleaner;
 import org.alfresco.repo.domain.node.AuditablePropertiesEntity;
+import org.alfresco.repo.domain.node.NodeDAO;
 import org.alfresco.repo.lock.mem.Lifetime;
 import org.alfresco.repo.model.Repository;
 import org.alfresco.repo.model.filefolder.FileFolderServiceImpl;
@@ -74,7 +82,10 @@ import org.alfresco.repo.security.permissions.AccessDeniedException;
 import org.alfresco.repo.site.SiteModel;
 import org.alfresco.repo.tenant.TenantUtil;
 import org.alfresco.repo.transaction.AlfrescoTransactionSupport;
+import org.alfresco.repo.transaction.AlfrescoTransactionSupport.TxnReadState;
 import org.alfresco.repo.transaction.RetryingTransactionHelper;
+import org.alfresco.repo.transaction.TransactionListenerAdapter;
+import org.alfresco.repo.transaction.TransactionalResourceHelper;
 import org.alfresco.repo.version.VersionModel;
 import org.alfresco.repo.virtual.store.VirtualStore;
 import org.alfresco.rest.antlr.WhereClauseParser;
@@ -113,6 +124,7 @@ import org.alfresco.rest.framework.resource.parameters.Parameters;
 import org.alfresco.rest.framework.resource.parameters.SortColumn;
 import org.alfresco.rest.framework.resource.parameters.where.Query;
 import org.alfresco.rest.framework.resource.parameters.where.QueryHelper;
+import org.alfresco.rest.framework.webscripts.MultiPartStream;
 import org.alfresco.rest.workflow.api.impl.MapBasedQueryWalker;
 import org.alfresco.service.ServiceRegistry;
 import org.alfresco.service.cmr.action.Action;
@@ -163,6 +175,9 @@ import org.alfresco.service.namespace.NamespaceService;
 import org.alfresco.service.namespace.QName;
 import org.alfresco.util.Pair;
 import org.alfresco.util.PropertyCheck;
+import org.apache.commons.fileupload.FileItemIterator;
+import org.apache.commons.fileupload.FileItemStream;
+import org.apache.commons.fileupload.FileUploadException;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -215,6 +230,14 @@ public class NodesImpl implements Nodes
     private LockService lockService;
     private VirtualStore smartStore; // note: remove as part of REPO-1173
     private NodeDefinitionMapper nodeDefinitionMapper;
+    private NodeDAO nodeDAO;
+    private EagerContentStoreCleaner eagerContentStoreCleaner;
+    private UserInfoCache userInfoCache;
+
+    // see createNodes
+    private int bulkCreateMaxItems = 10000;
+    private int bulkCreateBatchSize = 50;
+    private int bulkCreateWorkerThreads = 4;
 
     private enum Activity_Type
     {
@@ -318,12 +341,59 @@ public class NodesImpl implements Nodes
         this.nodeDefinitionMapper = nodeDefinitionMapper;
     }
 
+    public void setBulkCreateMaxItems(int bulkCreateMaxItems)
+    {
+        this.bulkCreateMaxItems = bulkCreateMaxItems;
+    }
+
+    public void setBulkCreateBatchSize(int bulkCreateBatchSize)
+    {
+        this.bulkCreateBatchSize = bulkCreateBatchSize;
+    }
+
+    public void setBulkCreateWorkerThreads(int bulkCreateWorkerThreads)
+    {
+        this.bulkCreateWorkerThreads = bulkCreateWorkerThreads;
+    }
+
+    /**
+     * Optional, used to bulk load the nodes of a page of children.
+     */
+    public void setNodeDAO(NodeDAO nodeDAO)
+    {
+        this.nodeDAO = nodeDAO;
+    }
+
+    /**
+     * Used to remove the content of a streamed upload that has not been used in the end.
+     */
+    public void setEagerContentStoreCleaner(EagerContentStoreCleaner eagerContentStoreCleaner)
+    {
+        this.eagerContentStoreCleaner = eagerContentStoreCleaner;
+    }
+
+    /**
+     * Optional, the people behind the UserInfo cached across requests.
+     */
+    public void setUserInfoCache(UserInfoCache userInfoCache)
+    {
+        this.userInfoCache = userInfoCache;
+    }
+
+    // the transactional resource with the PathInfo of the parents, see lookupPathInfo
+    private static final String PATH_INFO_CACHE = "REST_API_NODES_PATH_INFO_CACHE";
+
     // excluded namespaces (aspects, properties, assoc types)
     private static final List<String> EXCLUDED_NS = Arrays.asList(NamespaceService.SYSTEM_MODEL_1_0_URI);
 
     // excluded aspects
     private static final List<QName> EXCLUDED_ASPECTS = Arrays.asList();
 
+    // includes that can change without the node's txn changing, eg. a permission on an ancestor or a lock expiring
+    private static final List<String> INCLUDES_NOT_VERSIONED_BY_TXN = Arrays.asList(PARAM_INCLUDE_PATH, PARAM_INCLUDE_ISLOCKED,
+                PARAM_INCLUDE_ALLOWABLEOPERATIONS, PARAM_INCLUDE_PERMISSIONS, PARAM_INCLUDE_ISFAVORITE, PARAM_INCLUDE_ASSOCIATION,
+                PARAM_INCLUDE_DEFINITION);
+
     // excluded properties
     private static final List<QName> EXCLUDED_PROPS = Arrays.asList(
             // top-level minimal info
@@ -628,6 +698,27 @@ public class NodesImpl implements Nodes
         }
     }
 
+    /**
+     * Bulk loads the nodes of a page (aspects, properties and parent assocs) into the node caches, so that
+     * building each Node of the page doesn't go back to the database node by node.
+     *
+     * @param page the page of a listing
+     */
+    private void preloadNodes(List<FileInfo> page)
+    {
+        if ((nodeDAO == null) || (page.size() < 2))
+        {
+            return;
+        }
+
+        List<NodeRef> nodeRefs = new ArrayList<>(page.size());
+        for (FileInfo fInfo : page)
+        {
+            nodeRefs.add(fInfo.getNodeRef());
+        }
+        nodeDAO.cacheNodes(nodeRefs);
+    }
+
     private NodeRef getParentNodeRef(NodeRef nodeRef)
     {
         if (repositoryHelper.getCompanyHome().equals(nodeRef))
@@ -810,6 +901,15 @@ public class NodesImpl implements Nodes
         String path = parameters.getParameter(PARAM_RELATIVE_PATH);
         NodeRef nodeRef = validateOrLookupNode(nodeId, path);
         Node node = getFolderOrDocumentFullInfo(nodeRef, null, null, parameters);
+        if (Collections.disjoint(parameters.getInclude(), INCLUDES_NOT_VERSIONED_BY_TXN))
+        {
+            // the node's txn id changes whenever its properties, aspects, content or parent change (used for the ETag)
+            NodeRef.Status status = nodeService.getNodeStatus(nodeRef);
+            if (status != null)
+            {
+                node.setTxnId(status.getDbTxnId());
+            }
+        }
         return node;
 
     }
@@ -837,6 +937,16 @@ public class NodesImpl implements Nodes
 
     @Override
     public Node getFolderOrDocument(final NodeRef nodeRef, NodeRef parentNodeRef, QName nodeTypeQName, List<String> includeParam, Map<String, UserInfo> mapUserInfo)
+    {
+        return getFolderOrDocument(nodeRef, parentNodeRef, nodeTypeQName, null, includeParam, mapUserInfo, null);
+    }
+
+    /**
+     * @param properties the properties of the node, if already loaded (eg. from the FileInfo of a listing), else null
+     * @param permissionsCache the allowable operations and permissions already evaluated for the page, else null
+     */
+    private Node getFolderOrDocument(final NodeRef nodeRef, NodeRef parentNodeRef, QName nodeTypeQName, Map<QName, Serializable> properties,
+                                     List<String> includeParam, Map<String, UserInfo> mapUserInfo, NodePermissionsCache permissionsCache)
     {
         if (mapUserInfo == null)
         {
@@ -849,7 +959,10 @@ public class NodesImpl implements Nodes
         }
 
         Node node;
-        Map<QName, Serializable> properties = nodeService.getProperties(nodeRef);
+        if (properties == null)
+        {
+            properties = nodeService.getProperties(nodeRef);
+        }
 
         PathInfo pathInfo = null;
         if (includeParam.contains(PARAM_INCLUDE_PATH))
@@ -870,6 +983,10 @@ public class NodesImpl implements Nodes
 
         Type type = getType(nodeTypeQName, nodeRef);
 
+        // the node then finds the creator and modifier in mapUserInfo
+        lookupUserInfo((String) properties.get(ContentModel.PROP_CREATOR), mapUserInfo);
+        lookupUserInfo((String) properties.get(ContentModel.PROP_MODIFIER), mapUserInfo);
+
         if (type == null)
         {
             // not direct folder (or file) ...
@@ -921,80 +1038,26 @@ public class NodesImpl implements Nodes
             node.setIsFavorite(isFavorite);
         }
 
-        if (includeParam.contains(PARAM_INCLUDE_ALLOWABLEOPERATIONS))
+        boolean includeAllowableOperations = includeParam.contains(PARAM_INCLUDE_ALLOWABLEOPERATIONS);
+        boolean includePermissions = includeParam.contains(PARAM_INCLUDE_PERMISSIONS);
+        Object permissionsKey = null;
+        if ((permissionsCache != null) && (includeAllowableOperations || includePermissions))
         {
-            // note: refactor when requirements change
-            Map<String, String> mapPermsToOps = new HashMap<>(3);
-            mapPermsToOps.put(PermissionService.DELETE, OP_DELETE);
-            mapPermsToOps.put(PermissionService.ADD_CHILDREN, OP_CREATE);
-            mapPermsToOps.put(PermissionService.WRITE, OP_UPDATE);
-            mapPermsToOps.put(PermissionService.CHANGE_PERMISSIONS, OP_UPDATE_PERMISSIONS);
-            
-
-            List<String> allowableOperations = new ArrayList<>(3);
-            for (Entry<String, String> kv : mapPermsToOps.entrySet())
-            {
-                String perm = kv.getKey();
-                String op = kv.getValue();
-
-                if (perm.equals(PermissionService.ADD_CHILDREN) && Type.DOCUMENT.equals(type))
-                {
-                    // special case: do not return "create" (as an allowable op) for file/content types - note: 'type' can be null
-                    continue;
-                }
-                else if (perm.equals(PermissionService.DELETE) && (isSpecialNode(nodeRef, nodeTypeQName)))
-                {
-                    // special case: do not return "delete" (as an allowable op) for specific system nodes
-                    continue;
-                }
-                else if (permissionService.hasPermission(nodeRef, perm) == AccessStatus.ALLOWED)
-                {
-                    allowableOperations.add(op);
-                }
-            }
-
-            node.setAllowableOperations((allowableOperations.size() > 0 )? allowableOperations : null);
+            permissionsKey = getPermissionsKey(nodeRef, parentNodeRef, nodeTypeQName, properties, aspects);
         }
 
-        if (includeParam.contains(PARAM_INCLUDE_PERMISSIONS))
+        if (includeAllowableOperations)
         {
-            Boolean inherit = permissionService.getInheritParentPermissions(nodeRef);
-
-            List<NodePermissions.NodePermission> inheritedPerms = new ArrayList<>(5);
-            List<NodePermissions.NodePermission> setDirectlyPerms = new ArrayList<>(5);
-            Set<String> settablePerms = null;
-            boolean allowRetrievePermission = true;
-
-            try
-            {
-                for (AccessPermission accessPerm : permissionService.getAllSetPermissions(nodeRef))
-                {
-                    NodePermissions.NodePermission nodePerm = new NodePermissions.NodePermission(accessPerm.getAuthority(), accessPerm.getPermission(), accessPerm.getAccessStatus().toString());
-                    if (accessPerm.isSetDirectly())
-                    {
-                        setDirectlyPerms.add(nodePerm);
-                    } else
-                    {
-                        inheritedPerms.add(nodePerm);
-                    }
-                }
-
-                settablePerms = permissionService.getSettablePermissions(nodeRef);
-            }
-            catch (AccessDeniedException ade)
-            {
-                // ignore - ie. denied access to retrieve permissions, eg. non-admin on root (Company Home)
-                allowRetrievePermission = false;
-            }
+            final QName finalNodeTypeQName = nodeTypeQName;
+            final Type finalType = type;
+            Supplier<List<String>> evaluator = () -> getAllowableOperations(nodeRef, finalNodeTypeQName, finalType);
+            node.setAllowableOperations(permissionsKey != null ? permissionsCache.getAllowableOperations(permissionsKey, evaluator) : evaluator.get());
+        }
 
-            // If the user does not have read permissions at
-            // least on a special node then do not include permissions and
-            // returned only node info that he's allowed to see
-            if (allowRetrievePermission)
-            {
-                NodePermissions nodePerms = new NodePermissions(inherit, inheritedPerms, setDirectlyPerms, settablePerms);
-                node.setPermissions(nodePerms);
-            }
+        if (includePermissions)
+        {
+            Supplier<NodePermissions> evaluator = () -> getNodePermissions(nodeRef);
+            node.setPermissions(permissionsKey != null ? permissionsCache.getPermissions(permissionsKey, evaluator) : evaluator.get());
         }
 
         if (includeParam.contains(PARAM_INCLUDE_ASSOCIATION))
@@ -1043,6 +1106,117 @@ public class NodesImpl implements Nodes
         return node;
     }
 
+    private List<String> getAllowableOperations(NodeRef nodeRef, QName nodeTypeQName, Type type)
+    {
+        // note: refactor when requirements change
+        Map<String, String> mapPermsToOps = new HashMap<>(3);
+        mapPermsToOps.put(PermissionService.DELETE, OP_DELETE);
+        mapPermsToOps.put(PermissionService.ADD_CHILDREN, OP_CREATE);
+        mapPermsToOps.put(PermissionService.WRITE, OP_UPDATE);
+        mapPermsToOps.put(PermissionService.CHANGE_PERMISSIONS, OP_UPDATE_PERMISSIONS);
+        
+
+        List<String> allowableOperations = new ArrayList<>(3);
+        for (Entry<String, String> kv : mapPermsToOps.entrySet())
+        {
+            String perm = kv.getKey();
+            String op = kv.getValue();
+
+            if (perm.equals(PermissionService.ADD_CHILDREN) && Type.DOCUMENT.equals(type))
+            {
+                // special case: do not return "create" (as an allowable op) for file/content types - note: 'type' can be null
+                continue;
+            }
+            else if (perm.equals(PermissionService.DELETE) && (isSpecialNode(nodeRef, nodeTypeQName)))
+            {
+                // special case: do not return "delete" (as an allowable op) for specific system nodes
+                continue;
+            }
+            else if (permissionService.hasPermission(nodeRef, perm) == AccessStatus.ALLOWED)
+            {
+                allowableOperations.add(op);
+            }
+        }
+
+        return (allowableOperations.size() > 0 )? allowableOperations : null;
+    }
+
+    private NodePermissions getNodePermissions(NodeRef nodeRef)
+    {
+        Boolean inherit = permissionService.getInheritParentPermissions(nodeRef);
+
+        List<NodePermissions.NodePermission> inheritedPerms = new ArrayList<>(5);
+        List<NodePermissions.NodePermission> setDirectlyPerms = new ArrayList<>(5);
+        Set<String> settablePerms = null;
+
+        try
+        {
+            for (AccessPermission accessPerm : permissionService.getAllSetPermissions(nodeRef))
+            {
+                NodePermissions.NodePermission nodePerm = new NodePermissions.NodePermission(accessPerm.getAuthority(), accessPerm.getPermission(), accessPerm.getAccessStatus().toString());
+                if (accessPerm.isSetDirectly())
+                {
+                    setDirectlyPerms.add(nodePerm);
+                } else
+                {
+                    inheritedPerms.add(nodePerm);
+                }
+            }
+
+            settablePerms = permissionService.getSettablePermissions(nodeRef);
+        }
+        catch (AccessDeniedException ade)
+        {
+            // ignore - ie. denied access to retrieve permissions, eg. non-admin on root (Company Home)
+            // If the user does not have read permissions at
+            // least on a special node then do not include permissions and
+            // returned only node info that he's allowed to see
+            return null;
+        }
+
+        return new NodePermissions(inherit, inheritedPerms, setDirectlyPerms, settablePerms);
+    }
+
+    /**
+     * The key that groups the nodes whose allowable operations and permissions are the same, ie. the nodes with the same ACL,
+     * parent (deleting a node depends on the parent's permissions), type, aspects, owners (the dynamic authorities) and
+     * special node status, for the same user.
+     *
+     * @return the key or null if the node can't be grouped (eg. a virtual node)
+     */
+    private Object getPermissionsKey(NodeRef nodeRef, NodeRef parentNodeRef, QName nodeTypeQName, Map<QName, Serializable> properties,
+                                     Set<QName> aspects)
+    {
+        if (nodeDAO == null)
+        {
+            return null;
+        }
+
+        Pair<Long, NodeRef> nodePair = nodeDAO.getNodePair(nodeRef);
+        if (nodePair == null)
+        {
+            return null;
+        }
+
+        Long aclId = nodeDAO.getNodeAclId(nodePair.getFirst());
+        if (aclId == null)
+        {
+            return null;
+        }
+
+        return Arrays.asList(
+                aclId,
+                parentNodeRef,
+                AuthenticationUtil.getRunAsUser(),
+                nodeTypeQName,
+                (aspects != null ? aspects : nodeService.getAspects(nodeRef)),
+                properties.get(ContentModel.PROP_OWNER),
+                properties.get(ContentModel.PROP_CREATOR),
+                properties.get(ContentModel.PROP_LOCK_OWNER),
+                properties.get(ContentModel.PROP_WORKING_COPY_OWNER),
+                isSpecialNode(nodeRef, nodeTypeQName));
+    }
+
     private TypeDefinition getTypeDefinition(NodeRef nodeRef)
     {
         QName type = nodeService.getType(nodeRef);
@@ -1054,9 +1228,29 @@ public class NodesImpl implements Nodes
     @Override
     public PathInfo lookupPathInfo(NodeRef nodeRefIn, ChildAssociationRef archivedParentAssoc)
     {
+        // The path of a node is the path of its (primary) parent, so within a read-only transaction (which can't move,
+        // rename or change the permissions of the ancestors) it is only resolved once for all the children of a parent,
+        // eg. for a page of children or the search results in the same folders
+        if ((archivedParentAssoc == null) && (AlfrescoTransactionSupport.getTransactionReadState() == TxnReadState.TXN_READ_ONLY))
+        {
+            ChildAssociationRef primaryParentAssoc = nodeService.getPrimaryParent(nodeRefIn);
+            NodeRef primaryParentRef = (primaryParentAssoc != null ? primaryParentAssoc.getParentRef() : null);
+            if (primaryParentRef != null)
+            {
+                Map<Pair<NodeRef, String>, PathInfo> pathInfos = TransactionalResourceHelper.getMap(PATH_INFO_CACHE);
+                Pair<NodeRef, String> key = new Pair<>(primaryParentRef, AuthenticationUtil.getRunAsUser());
+                PathInfo parentPathInfo = pathInfos.get(key);
+                if (parentPathInfo == null)
+                {
+                    // 1 => the parent is included in the path
+                    parentPathInfo = buildPathInfo(nodeService.getPath(primaryParentRef), 1);
+                    pathInfos.put(key, parentPathInfo);
+                }
+                // note: a copy, as the relativePath of the node's PathInfo can be set
+                return new PathInfo(parentPathInfo.getName(), parentPathInfo.getIsComplete(), parentPathInfo.getElements());
+            }
+        }
 
-        List<ElementInfo> pathElements = new ArrayList<>();
-        Boolean isComplete = Boolean.TRUE;
         final Path nodePath;
         final int pathIndex;
 
@@ -1080,6 +1274,14 @@ public class NodesImpl implements Nodes
             pathIndex = 2; // 2 => as we don't want to include the given node in the path as well.
         }
 
+        return buildPathInfo(nodePath, pathIndex);
+    }
+
+    private PathInfo buildPathInfo(Path nodePath, int pathIndex)
+    {
+        List<ElementInfo> pathElements = new ArrayList<>();
+        Boolean isComplete = Boolean.TRUE;
+
         for (int i = nodePath.size() - pathIndex; i >= 0; i--)
         {
             Element element = nodePath.get(i);
@@ -1224,7 +1426,7 @@ public class NodesImpl implements Nodes
                 {
                     if (PROPS_USERLOOKUP.contains(qName))
                     {
-                        value = Node.lookupUserInfo((String)value, mapUserInfo, sr.getPersonService());
+                        value = lookupUserInfo((String)value, mapUserInfo);
                     }
 
                     // Empty (zero length) string values are considered to be
@@ -1247,6 +1449,11 @@ public class NodesImpl implements Nodes
         return props;
     }
 
+    private UserInfo lookupUserInfo(String userName, Map<String, UserInfo> mapUserInfo)
+    {
+        return Node.lookupUserInfo(userName, mapUserInfo, sr.getPersonService(), false, userInfoCache);
+    }
+
     public List<String> mapFromNodeAspects(Set<QName> nodeAspects, List<String> excludedNS, List<QName> excludedAspects)
     {
         List<String> aspectNames = new ArrayList<>(nodeAspects.size());
@@ -1320,60 +1527,94 @@ public class NodesImpl implements Nodes
         {
             // TODO smart folders (see REPO-1173)
             pagingResults = fileFolderService.list(parentNodeRef, assocTypeQNames, searchTypeQNames, ignoreAspectQNames, sortProps, filterProps, pagingRequest);
+            preloadNodes(pagingResults.getPage());
         }
 
         final Map<String, UserInfo> mapUserInfo = new HashMap<>(10);
+        final NodePermissionsCache permissionsCache = new NodePermissionsCache();
 
         final List<FileInfo> page = pagingResults.getPage();
         List<Node> nodes = new AbstractList<Node>()
         {
+            // only the last built node is kept, so that a streamed page holds one node at a time
+            private int lastIndex = -1;
+            private Node lastNode;
+
+            // the relative path of each (primary) parent of the children, null if not under the listed folder
+            private final Map<NodeRef, String> relativePaths = new HashMap<>(2);
+            private NodeRef rootNodeRef;
+
             @Override
             public Node get(int index)
             {
+                if (index == lastIndex)
+                {
+                    return lastNode;
+                }
+
                 FileInfo fInfo = page.get(index);
 
                 // minimal info by default (unless "include"d otherwise)
                 // (pass in null as parentNodeRef to force loading of primary
                 // parent node as parentId)
-                Node node = getFolderOrDocument(fInfo.getNodeRef(), null, fInfo.getType(), includeParam, mapUserInfo);
+                Node node = getFolderOrDocument(fInfo.getNodeRef(), null, fInfo.getType(), fInfo.getProperties(), includeParam, mapUserInfo, permissionsCache);
                 if (node.getPath() != null)
                 {
                     calculateRelativePath(parentFolderNodeId, node);
                 }
+                lastIndex = index;
+                lastNode = node;
                 return node;
             }
 
             private void calculateRelativePath(String parentFolderNodeId, Node node)
             {
-                NodeRef rootNodeRef = validateOrLookupNode(parentFolderNodeId, null);
-                try
+                NodeRef childParentRef = node.getParentId();
+                if (childParentRef == null)
                 {
-                    // get the path elements
-                    List<String> pathInfos = fileFolderService.getNameOnlyPath(rootNodeRef, node.getNodeRef());
+                    return;
+                }
 
-                    int sizePathInfos = pathInfos.size();
+                // the children (usually) share the same parent, so its path is only computed once
+                if (! relativePaths.containsKey(childParentRef))
+                {
+                    relativePaths.put(childParentRef, getRelativePath(parentFolderNodeId, childParentRef));
+                }
+                String relativePath = relativePaths.get(childParentRef);
+                if (relativePath != null)
+                {
+                    node.getPath().setRelativePath(relativePath);
+                }
+            }
 
-                    if (sizePathInfos > 1)
+            private String getRelativePath(String parentFolderNodeId, NodeRef childParentRef)
+            {
+                if (rootNodeRef == null)
+                {
+                    rootNodeRef = validateOrLookupNode(parentFolderNodeId, null);
+                }
+                try
+                {
+                    // get the path elements (down to the parent, ie. without the child)
+                    List<String> pathInfos = fileFolderService.getNameOnlyPath(rootNodeRef, childParentRef);
+                    if (pathInfos.isEmpty())
                     {
-                        // remove the current child
-                        pathInfos.remove(sizePathInfos - 1);
-
-                        // build the path string
-                        StringBuilder sb = new StringBuilder(pathInfos.size() * 20);
-                        for (String fileInfo : pathInfos)
-                        {
-                            sb.append("/");
-                            sb.append(fileInfo);
-                        }
-
-                        node.getPath().setRelativePath(sb.toString());
+                        return null;
                     }
 
+                    // build the path string
+                    StringBuilder sb = new StringBuilder(pathInfos.size() * 20);
+                    for (String fileInfo : pathInfos)
+                    {
+                        sb.append("/");
+                        sb.append(fileInfo);
+                    }
+                    return sb.toString();
                 }
-
                 catch (FileNotFoundException e)
-                {   
-                 // NOTE: return null as relativePath
+                {
+                    // NOTE: return null as relativePath
+                    return null;
                 }
             }
 
@@ -1889,6 +2130,145 @@ public class NodesImpl implements Nodes
         return newNode;
     }
 
+    @Override
+    public List<Pair<Node, RuntimeException>> createNodes(String parentFolderNodeId, final List<Node> nodeInfos, final Parameters parameters)
+    {
+        if ((nodeInfos == null) || nodeInfos.isEmpty())
+        {
+            throw new InvalidArgumentException("Nodes are expected");
+        }
+        if (nodeInfos.size() > bulkCreateMaxItems)
+        {
+            throw new InvalidArgumentException("Too many nodes: "+nodeInfos.size()+" (the maximum is "+bulkCreateMaxItems+")");
+        }
+
+        // check that requested parent node exists - once, the nodes are then created below its id (rather than resolving
+        // an alias, eg. -my-, again for each node)
+        final String parentNodeId = validateOrLookupNode(parentFolderNodeId, null).getId();
+
+        final int size = nodeInfos.size();
+        final RuntimeException[] errors = new RuntimeException[size];
+        final List<Integer> toCreate = new ArrayList<>(size);
+
+        // validate the whole list up front (each type is only checked once)
+        boolean autoRename = Boolean.valueOf(parameters.getParameter(PARAM_AUTO_RENAME));
+        Map<String, RuntimeException> validatedTypes = new HashMap<>(4);
+        Set<String> names = new HashSet<>(size);
+        for (int i = 0; i < size; i++)
+        {
+            try
+            {
+                validateBulkNode(nodeInfos.get(i), validatedTypes, names, autoRename);
+                toCreate.add(i);
+            }
+            catch (RuntimeException e)
+            {
+                errors[i] = e;
+            }
+        }
+
+        final Map<Integer, Node> created = new ConcurrentHashMap<>(size);
+        if (toCreate.size() > 0)
+        {
+            new ChunkedNodeProcessor<Integer, Node>("RestApiBulkCreateNodes", retryingTransactionHelper, bulkCreateWorkerThreads,
+                        bulkCreateBatchSize, logger)
+            {
+                @Override
+                protected String getIdentifier(Integer index)
+                {
+                    return parentNodeId+" - "+nodeInfos.get(index).getName();
+                }
+
+                @Override
+                protected Node process(Integer index)
+                {
+                    return createNode(parentNodeId, nodeInfos.get(index), parameters);
+                }
+
+                @Override
+                protected void succeeded(Integer index, Node node)
+                {
+                    created.put(index, node);
+                }
+
+                @Override
+                protected void failed(Integer index, RuntimeException error)
+                {
+                    errors[index] = error;
+                }
+            }.processAll(toCreate);
+        }
+
+        List<Pair<Node, RuntimeException>> results = new ArrayList<>(size);
+        for (int i = 0; i < size; i++)
+        {
+            results.add(new Pair<>(created.get(i), errors[i]));
+        }
+        return results;
+    }
+
+    /**
+     * The checks of {@link #createNode(String, Node, Parameters)} that don't need the repository (or only the dictionary),
+     * plus the names that are duplicated in the list.
+     */
+    private void validateBulkNode(Node nodeInfo, Map<String, RuntimeException> validatedTypes, Set<String> names, boolean autoRename)
+    {
+        if (nodeInfo == null)
+        {
+            throw new InvalidArgumentException("Node is expected");
+        }
+        if (nodeInfo.getNodeRef() != null)
+        {
+            throw new InvalidArgumentException("Unexpected id when trying to create a new node: "+nodeInfo.getNodeRef().getId());
+        }
+
+        String nodeName = nodeInfo.getName();
+        if ((nodeName == null) || nodeName.isEmpty())
+        {
+            throw new InvalidArgumentException("Node name is expected");
+        }
+
+        String nodeType = nodeInfo.getNodeType();
+        if ((nodeType == null) || nodeType.isEmpty())
+        {
+            throw new InvalidArgumentException("Node type is expected: "+nodeName);
+        }
+
+        if (! validatedTypes.containsKey(nodeType))
+        {
+            RuntimeException typeError = null;
+            try
+            {
+                QName nodeTypeQName = createQName(nodeType);
+                if (! isSubClass(nodeTypeQName, ContentModel.TYPE_CONTENT))
+                {
+                    validateCmObject(nodeTypeQName);
+                }
+            }
+            catch (RuntimeException e)
+            {
+                typeError = e;
+            }
+            validatedTypes.put(nodeType, typeError);
+        }
+        RuntimeException typeError = validatedTypes.get(nodeType);
+        if (typeError != null)
+        {
+            throw typeError;
+        }
+
+        validateAspects(nodeInfo.getAspectNames(), EXCLUDED_NS, EXCLUDED_ASPECTS);
+        validateProperties(nodeInfo.getProperties(), EXCLUDED_NS, Arrays.asList());
+
+        // note: names are unique (ignoring case) within a folder
+        String relativePath = nodeInfo.getRelativePath();
+        String pathName = ((relativePath != null) ? relativePath : "") + "/" + nodeName;
+        if (!autoRename && !names.add(pathName.toLowerCase()))
+        {
+            throw new ConstraintViolatedException("Duplicate child name not allowed: "+nodeName);
+        }
+    }
+
     public void addCustomAspects(NodeRef nodeRef, List<String> aspectNames, List<QName> excludedAspects)
     {
         if (aspectNames == null)
@@ -2730,17 +3110,17 @@ public class NodesImpl implements Nodes
             fileName = (String)nodeService.getProperty(nodeRef, ContentModel.PROP_NAME);
         }
         
-        return updateExistingFile(null, nodeRef, fileName, contentInfo, stream, parameters, versionMajor, versionComment);
+        return updateExistingFile(null, nodeRef, fileName, (n, f) -> writeContent(n, f, stream, true), parameters, versionMajor, versionComment);
     }
 
-    private Node updateExistingFile(NodeRef parentNodeRef, NodeRef nodeRef, String fileName, BasicContentInfo contentInfo, InputStream stream, Parameters parameters, Boolean versionMajor, String versionComment)
+    private Node updateExistingFile(NodeRef parentNodeRef, NodeRef nodeRef, String fileName, NodeContentWriter contentWriter, Parameters parameters, Boolean versionMajor, String versionComment)
     {
         boolean isVersioned = versionService.isVersioned(nodeRef);
 
         behaviourFilter.disableBehaviour(nodeRef, ContentModel.ASPECT_VERSIONABLE);
         try
         {
-            writeContent(nodeRef, fileName, stream, true);
+            contentWriter.write(nodeRef, fileName);
 
             if ((isVersioned) || (versionMajor != null) || (versionComment != null) )
             {
@@ -2778,11 +3158,14 @@ public class NodesImpl implements Nodes
         return getFolderOrDocumentFullInfo(nodeRef, null, null, parameters);
     }
 
-    private void writeContent(NodeRef nodeRef, String fileName, InputStream stream, boolean guessEncoding)
+    /**
+     * @param nodeRef the node to write the content of - or null for new content that is not set on a node yet
+     */
+    private ContentWriter writeContent(NodeRef nodeRef, String fileName, InputStream stream, boolean guessEncoding)
     {
         try
         {
-            ContentWriter writer = contentService.getWriter(nodeRef, ContentModel.PROP_CONTENT, true);
+            ContentWriter writer = contentService.getWriter(nodeRef, ContentModel.PROP_CONTENT, (nodeRef != null));
 
             String mimeType = mimetypeService.guessMimetype(fileName);
             if ((mimeType != null) && (!mimeType.equals(MimetypeMap.MIMETYPE_BINARY)))
@@ -2818,6 +3201,7 @@ public class NodesImpl implements Nodes
             }
 
             writer.putContent(is);
+            return writer;
         }
         catch (ContentQuotaException cqe)
         {
@@ -2899,115 +3283,197 @@ public class NodesImpl implements Nodes
             throw new InvalidArgumentException("NodeId of folder is expected: " + parentNodeRef.getId());
         }
 
-        String fileName = null;
+        UploadFields fields = new UploadFields();
         Content content = null;
-        boolean autoRename = false;
-        QName nodeTypeQName = ContentModel.TYPE_CONTENT;
-        boolean overwrite = false; // If a fileName clashes for a versionable file
-        Boolean versionMajor = null;
-        String versionComment = null;
-        String relativePath = null;
-        String renditionNames = null;
-
-        Map<String, Object> qnameStrProps = new HashMap<>();
-        Map<QName, Serializable> properties = null;
-        Map<String, String[]> formDataParameters = formData.getParameters();
 
         for (FormData.FormField field : formData.getFields())
         {
-            switch (field.getName().toLowerCase())
+            if (field.getName().equalsIgnoreCase("filedata"))
             {
-                case "name":
-                    String str = getStringOrNull(field.getValue());
-                    if ((str != null) && (! str.isEmpty()))
-                    {
-                        fileName = str;
-                    }
-                    break;
+                if (field.getIsFile())
+                {
+                    fields.setFileNameIfNone(field.getFilename());
+                    content = field.getContent();
+                }
+            }
+            else
+            {
+                fields.setField(field.getName(), field.getValue());
+            }
+        }
 
-                case "filedata":
-                    if (field.getIsFile())
-                    {
-                        fileName = (fileName != null ? fileName : field.getFilename());
-                        content = field.getContent();
-                    }
-                    break;
+        // Ensure mandatory file attributes have been located. Need either
+        // destination, or site + container or updateNodeRef
+        if ((fields.fileName == null) || fields.fileName.isEmpty() || (content == null))
+        {
+            throw new InvalidArgumentException("Required parameters are missing");
+        }
 
-                case "autorename":
-                    autoRename = Boolean.valueOf(field.getValue());
-                    break;
+        final Content uploaded = content;
+        return createUploadedFile(parentNodeRef, fields, (nodeRef, fileName) -> writeContent(nodeRef, fileName, uploaded.getInputStream(), true), parameters);
 
-                case "nodetype":
-                    nodeTypeQName = createQName(getStringOrNull(field.getValue()));
-                    if (! isSubClass(nodeTypeQName, ContentModel.TYPE_CONTENT))
-                    {
-                        throw new InvalidArgumentException("Can only upload type of cm:content: " + nodeTypeQName);
-                    }
-                    break;
+        /*
+         * NOTE: Do not clean formData temp files to allow for retries. It's
+         * possible for a temp file to remain if max retry attempts are
+         * made, but this is rare, so leave to usual temp file cleanup.
+         */
+    }
 
-                case "overwrite":
-                    overwrite = Boolean.valueOf(field.getValue());
-                    break;
+    @Override
+    public Pair<Node, String> upload(String parentFolderNodeId, MultiPartStream formStream, Parameters parameters)
+    {
+        final NodeRef parentNodeRef = validateOrLookupNode(parentFolderNodeId, null);
+        if (!nodeMatches(parentNodeRef, Collections.singleton(ContentModel.TYPE_FOLDER), null, false))
+        {
+            throw new InvalidArgumentException("NodeId of folder is expected: " + parentNodeRef.getId());
+        }
 
-                case "majorversion":
-                    versionMajor = Boolean.valueOf(field.getValue());
-                    break;
+        // note: a transaction retry gets the same upload, rather than reading the request again
+        final StreamedUpload upload = formStream.read(parts -> readUpload(parentNodeRef, formStream, parts));
+        if (upload.contentData == null)
+        {
+            throw new InvalidArgumentException("Required parameters are missing");
+        }
 
-                case "comment":
-                    versionComment = getStringOrNull(field.getValue());
-                    break;
+        Node fileNode = createUploadedFile(parentNodeRef, upload.fields,
+                    (nodeRef, fileName) -> nodeService.setProperty(nodeRef, ContentModel.PROP_CONTENT, upload.contentData), parameters);
 
-                case "relativepath":
-                    relativePath = getStringOrNull(field.getValue());
-                    break;
+        // from now on, the content belongs to the node
+        AlfrescoTransactionSupport.bindListener(new TransactionListenerAdapter()
+        {
+            @Override
+            public void afterCommit()
+            {
+                upload.used = true;
+            }
+        });
 
-                case "renditions":
-                    renditionNames = getStringOrNull(field.getValue());
-                    break;
+        return new Pair<>(fileNode, upload.digest);
+    }
 
-                default:
+    /**
+     * Reads the parts of a streamed upload: the fields that come before the file are checked first, then the file is written
+     * straight into the content store (with its SHA-256 digest computed on the fly), then the fields that come after it.
+     */
+    private StreamedUpload readUpload(NodeRef parentNodeRef, MultiPartStream formStream, FileItemIterator parts) throws IOException, FileUploadException
+    {
+        final StreamedUpload upload = new StreamedUpload();
+        while (parts.hasNext())
+        {
+            FileItemStream part = parts.next();
+            if (part.isFormField())
+            {
+                upload.fields.setField(part.getFieldName(), formStream.getValue(part));
+            }
+            else if (part.getFieldName().equalsIgnoreCase("filedata") && (upload.contentData == null))
+            {
+                upload.fields.setFileNameIfNone(part.getName());
+                checkUpload(parentNodeRef, upload.fields);
+
+                final MessageDigest digest = newSha256Digest();
+                final String fileName = upload.fields.fileName;
+                final InputStream stream = new DigestInputStream(part.openStream(), digest);
+
+                // the content is written in its own transaction: it must not be removed if the request's transaction is
+                // rolled back and then retried (as the request cannot be read again)
+                upload.contentData = retryingTransactionHelper.doInTransaction(
+                            () -> writeContent(null, fileName, stream, true).getContentData(), false, true);
+                upload.digest = Base64.getEncoder().encodeToString(digest.digest());
+
+                // unless it has been used in the end
+                final String contentUrl = upload.contentData.getContentUrl();
+                formStream.addCloseCallback(() ->
                 {
-                    final String propName = field.getName();
-                    if (propName.indexOf(QName.NAMESPACE_PREFIX) > -1 && !qnameStrProps.containsKey(propName))
+                    if (! upload.used)
                     {
-                        String[] fieldValue = formDataParameters.get(propName);
-                        if (fieldValue.length > 1)
+                        retryingTransactionHelper.doInTransaction(() ->
                         {
-                            qnameStrProps.put(propName, Arrays.asList(fieldValue));
-                        }
-                        else
-                        {
-                            qnameStrProps.put(propName, fieldValue[0]);
-                        }
+                            eagerContentStoreCleaner.registerOrphanedContentUrl(contentUrl, true);
+                            return null;
+                        }, false, true);
                     }
-                }
+                });
             }
         }
+        return upload;
+    }
 
-        // Ensure mandatory file attributes have been located. Need either
-        // destination, or site + container or updateNodeRef
-        if ((fileName == null) || fileName.isEmpty() || (content == null))
+    /**
+     * The checks that can be done before the file of a streamed upload is read, with the fields that come before it.
+     * A name clash is only reported here if the fields that can change it (name, autoRename and overwrite) have all
+     * arrived already, otherwise it is left to createUploadedFile.
+     */
+    private void checkUpload(NodeRef parentNodeRef, UploadFields fields)
+    {
+        if ((fields.fileName == null) || fields.fileName.isEmpty())
         {
             throw new InvalidArgumentException("Required parameters are missing");
         }
+        if (fields.autoRename && fields.overwrite)
+        {
+            throw new InvalidArgumentException("Both 'overwrite' and 'autoRename' should not be true when uploading a file");
+        }
+        validateProperties(fields.qnameStrProps, EXCLUDED_NS, Arrays.asList());
 
-        if (autoRename && overwrite)
+        if (fields.relativePath == null)
+        {
+            if (permissionService.hasPermission(parentNodeRef, PermissionService.CREATE_CHILDREN) != AccessStatus.ALLOWED)
+            {
+                throw new PermissionDeniedException("Cannot upload into: " + parentNodeRef.getId());
+            }
+
+            if (! fields.isReceived("name", "autorename", "overwrite"))
+            {
+                return;
+            }
+
+            NodeRef existingFile = nodeService.getChildByName(parentNodeRef, ContentModel.ASSOC_CONTAINS, fields.fileName);
+            if ((existingFile != null) && (! fields.autoRename)
+                        && !(fields.overwrite && nodeService.hasAspect(existingFile, ContentModel.ASPECT_VERSIONABLE)))
+            {
+                throw new ConstraintViolatedException(fields.fileName + " already exists.");
+            }
+        }
+    }
+
+    private static MessageDigest newSha256Digest()
+    {
+        try
+        {
+            return MessageDigest.getInstance("SHA-256");
+        }
+        catch (NoSuchAlgorithmException nsae)
+        {
+            throw new AlfrescoRuntimeException("SHA-256 is not available", nsae);
+        }
+    }
+
+    /**
+     * Creates the uploaded file - or, if requested, a new version of the existing file of the same name.
+     */
+    private Node createUploadedFile(NodeRef parentNodeRef, UploadFields fields, NodeContentWriter contentWriter, Parameters parameters)
+    {
+        String fileName = fields.fileName;
+        Boolean versionMajor = fields.versionMajor;
+        Map<QName, Serializable> properties = null;
+
+        if (fields.autoRename && fields.overwrite)
         {
             throw new InvalidArgumentException("Both 'overwrite' and 'autoRename' should not be true when uploading a file");
         }
 
         // if requested, make (get or create) path
-        parentNodeRef = getOrCreatePath(parentNodeRef, relativePath);
+        parentNodeRef = getOrCreatePath(parentNodeRef, fields.relativePath);
         final QName assocTypeQName = ContentModel.ASSOC_CONTAINS;
-        final Set<String> renditions = getRequestedRenditions(renditionNames);
+        final Set<String> renditions = getRequestedRenditions(fields.renditionNames);
 
-        validateProperties(qnameStrProps, EXCLUDED_NS,  Arrays.asList());
+        validateProperties(fields.qnameStrProps, EXCLUDED_NS,  Arrays.asList());
         try
         {
             // Map the given properties, if any.
-            if (qnameStrProps.size() > 0)
+            if (fields.qnameStrProps.size() > 0)
             {
-                properties = mapToNodeProperties(qnameStrProps);
+                properties = mapToNodeProperties(fields.qnameStrProps);
             }
 
             /*
@@ -3017,18 +3483,17 @@ public class NodesImpl implements Nodes
             if (existingFile != null)
             {
                 // File already exists, decide what to do
-                if (autoRename)
+                if (fields.autoRename)
                 {
                     // attempt to find a unique name
                     fileName = findUniqueName(parentNodeRef, fileName);
 
                     // drop-through !
                 }
-                else if (overwrite && nodeService.hasAspect(existingFile, ContentModel.ASPECT_VERSIONABLE))
+                else if (fields.overwrite && nodeService.hasAspect(existingFile, ContentModel.ASPECT_VERSIONABLE))
                 {
                     // overwrite existing (versionable) file
-                    BasicContentInfo contentInfo = new ContentInfoImpl(content.getMimetype(), content.getEncoding(), -1, null);
-                    return updateExistingFile(parentNodeRef, existingFile, fileName, contentInfo, content.getInputStream(), parameters, versionMajor, versionComment);
+                    return updateExistingFile(parentNodeRef, existingFile, fileName, contentWriter, parameters, versionMajor, fields.versionComment);
                 }
                 else
                 {
@@ -3036,7 +3501,7 @@ public class NodesImpl implements Nodes
                     throw new ConstraintViolatedException(fileName + " already exists.");
                 }
             }
-            
+
             // Note: pending REPO-159, we currently auto-enable versioning on new upload (but not when creating empty file)
             if (versionMajor == null)
             {
@@ -3044,10 +3509,10 @@ public class NodesImpl implements Nodes
             }
 
             // Create a new file.
-            NodeRef nodeRef = createNewFile(parentNodeRef, fileName, nodeTypeQName, content, properties, assocTypeQName, parameters, versionMajor, versionComment);
+            NodeRef nodeRef = createNewFile(parentNodeRef, fileName, fields.nodeTypeQName, contentWriter, properties, assocTypeQName, parameters, versionMajor, fields.versionComment);
             
             // Create the response
-            final Node fileNode = getFolderOrDocumentFullInfo(nodeRef, parentNodeRef, nodeTypeQName, parameters);
+            final Node fileNode = getFolderOrDocumentFullInfo(nodeRef, parentNodeRef, fields.nodeTypeQName, parameters);
 
             checkRenditionNames(renditions);
             requestRenditions(renditions, fileNode);
@@ -3061,20 +3526,126 @@ public class NodesImpl implements Nodes
         {
             throw new PermissionDeniedException(ade.getMessage());
         }
+    }
+
+    /**
+     * The fields of an upload (multipart/form-data) request, other than the file itself.
+     */
+    private class UploadFields
+    {
+        private String fileName = null;
+        private boolean autoRename = false;
+        private QName nodeTypeQName = ContentModel.TYPE_CONTENT;
+        private boolean overwrite = false; // If a fileName clashes for a versionable file
+        private Boolean versionMajor = null;
+        private String versionComment = null;
+        private String relativePath = null;
+        private String renditionNames = null;
+        private final Map<String, Object> qnameStrProps = new HashMap<>();
+        private final Set<String> received = new HashSet<>();
+
+        private void setFileNameIfNone(String fileName)
+        {
+            this.fileName = (this.fileName != null ? this.fileName : fileName);
+        }
 
-        /*
-         * NOTE: Do not clean formData temp files to allow for retries. It's
-         * possible for a temp file to remain if max retry attempts are
-         * made, but this is rare, so leave to usual temp file cleanup.
-         */
+        // whether all the given (lower case) fields have been set so far
+        private boolean isReceived(String... names)
+        {
+            return received.containsAll(Arrays.asList(names));
+        }
+
+        @SuppressWarnings("unchecked")
+        private void setField(String name, String value)
+        {
+            received.add(name.toLowerCase());
+            switch (name.toLowerCase())
+            {
+                case "name":
+                    String str = getStringOrNull(value);
+                    if ((str != null) && (! str.isEmpty()))
+                    {
+                        fileName = str;
+                    }
+                    break;
+
+                case "autorename":
+                    autoRename = Boolean.valueOf(value);
+                    break;
+
+                case "nodetype":
+                    nodeTypeQName = createQName(getStringOrNull(value));
+                    if (! isSubClass(nodeTypeQName, ContentModel.TYPE_CONTENT))
+                    {
+                        throw new InvalidArgumentException("Can only upload type of cm:content: " + nodeTypeQName);
+                    }
+                    break;
+
+                case "overwrite":
+                    overwrite = Boolean.valueOf(value);
+                    break;
+
+                case "majorversion":
+                    versionMajor = Boolean.valueOf(value);
+                    break;
+
+                case "comment":
+                    versionComment = getStringOrNull(value);
+                    break;
+
+                case "relativepath":
+                    relativePath = getStringOrNull(value);
+                    break;
+
+                case "renditions":
+                    renditionNames = getStringOrNull(value);
+                    break;
+
+                default:
+                {
+                    // a property, possibly multi-valued (ie. the same field more than once)
+                    if (name.indexOf(QName.NAMESPACE_PREFIX) > -1)
+                    {
+                        Object values = qnameStrProps.get(name);
+                        if (values == null)
+                        {
+                            qnameStrProps.put(name, value);
+                        }
+                        else if (values instanceof List)
+                        {
+                            ((List<String>) values).add(value);
+                        }
+                        else
+                        {
+                            qnameStrProps.put(name, new ArrayList<>(Arrays.asList((String) values, value)));
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    // the fields and content of a streamed upload, see upload(String, MultiPartStream, Parameters)
+    private class StreamedUpload
+    {
+        private final UploadFields fields = new UploadFields();
+        private ContentData contentData;
+        private String digest;
+        private volatile boolean used;
+    }
+
+    // puts the content of an upload on the (new or existing) file
+    private interface NodeContentWriter
+    {
+        void write(NodeRef nodeRef, String fileName);
     }
 
-    private NodeRef createNewFile(NodeRef parentNodeRef, String fileName, QName nodeType, Content content, Map<QName, Serializable> props, QName assocTypeQName, Parameters params,
+    private NodeRef createNewFile(NodeRef parentNodeRef, String fileName, QName nodeType, NodeContentWriter contentWriter, Map<QName, Serializable> props, QName assocTypeQName, Parameters params,
                                   Boolean versionMajor, String versionComment)
     {
         NodeRef nodeRef = createNodeImpl(parentNodeRef, fileName, nodeType, props, assocTypeQName);
         
-        if (content == null)
+        if (contentWriter == null)
         {
             // Write "empty" content
             writeContent(nodeRef, fileName, new ByteArrayInputStream("".getBytes()), false);
@@ -3082,7 +3653,7 @@ public class NodesImpl implements Nodes
         else
         {
             // Write content
-            writeContent(nodeRef, fileName, content.getInputStream(), true);
+            contentWriter.write(nodeRef, fileName);
         }
         
         if ((versionMajor != null) || (versionComment != null))
@@ -3391,40 +3962,15 @@ public class NodesImpl implements Nodes
     }
     
     /**
-     * 
+     * The current user's favourites are parsed once per request (see {@link FavouriteNodeRefs}).
+     *
      * @param node
      */
     private boolean isFavorite(NodeRef node)
     {
         PreferenceService preferenceService = (PreferenceService) sr.getService(ServiceRegistry.PREFERENCE_SERVICE);
         String currentUserName = AuthenticationUtil.getFullyAuthenticatedUser();
-        Map<String, Serializable> preferences = preferenceService.getPreferences(currentUserName);
-
-        for (Serializable nodesFavorites : preferences.values())
-        {
-            if (nodesFavorites instanceof String)
-            {
-                StringTokenizer st = new StringTokenizer((String) nodesFavorites, ",");
-                while (st.hasMoreTokens())
-                {
-                    String nodeRefStr = st.nextToken();
-                    nodeRefStr = nodeRefStr.trim();
-
-                    if (!NodeRef.isNodeRef((String) nodeRefStr))
-                    {
-                        continue;
-                    }
-
-                    NodeRef nodeRef = new NodeRef((String) nodeRefStr);
-
-                    if (nodeRef.equals(node))
-                    {
-                        return true;
-                    }
-                }
-            }
-        }
-        return false;
+        return FavouriteNodeRefs.get(preferenceService, currentUserName).contains(node);
     }
 
     public void validateAspects(List<String> aspectNames, List<String> excludedNS, List<QName> excludedAspects)
@@ -120,6 +120,7 @@ public class QuickShareLinksImpl implements QuickShareLinks, RecognizedParamsExt
     private QuickShareService quickShareService;
     private Nodes nodes;
     private Renditions renditions;
+    private UserInfoCache userInfoCache;
 
     private NodeService nodeService;
     private PersonService personService;
@@ -160,6 +161,11 @@ public class QuickShareLinksImpl implements QuickShareLinks, RecognizedParamsExt
         this.enabled = enabled;
     }
 
+    public void setUserInfoCache(UserInfoCache userInfoCache)
+    {
+        this.userInfoCache = userInfoCache;
+    }
+
     @Override
     public void afterPropertiesSet()
     {
@@ -570,11 +576,11 @@ public class QuickShareLinksImpl implements QuickShareLinks, RecognizedParamsExt
             // note: if noAuth mode then don't return userids (to limit disclosure and be consistent with v0 internal)
             boolean displayNameOnly = noAuth;
 
-            UserInfo modifiedByUser = Node.lookupUserInfo((String)nodeProps.get(ContentModel.PROP_MODIFIER), mapUserInfo, personService, displayNameOnly);
+            UserInfo modifiedByUser = Node.lookupUserInfo((String)nodeProps.get(ContentModel.PROP_MODIFIER), mapUserInfo, personService, displayNameOnly, userInfoCache);
 
             // TODO review - should we return sharedByUser for authenticated users only ?? (not exposed by V0 but needed for "find")
             String sharedByUserId = (String)nodeProps.get(QuickShareModel.PROP_QSHARE_SHAREDBY);
-            UserInfo sharedByUser = Node.lookupUserInfo(sharedByUserId, mapUserInfo, personService, displayNameOnly);
+            UserInfo sharedByUser = Node.lookupUserInfo(sharedByUserId, mapUserInfo, personService, displayNameOnly, userInfoCache);
 
             QuickShareLink qs = new QuickShareLink(sharedId, nodeRef.getId());
             qs.setName((String) map.get("name"));
@@ -25,13 +25,21 @@
  */
 package org.alfresco.rest.api.impl;
 
+import java.io.Serializable;
 import java.util.AbstractList;
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
-
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.alfresco.model.ContentModel;
+import org.alfresco.query.PagingRequest;
 import org.alfresco.query.PagingResults;
+import org.alfresco.repo.domain.node.NodeDAO;
 import org.alfresco.repo.tagging.NonExistentTagException;
 import org.alfresco.repo.tagging.TagExistsException;
 import org.alfresco.repo.tagging.TaggingException;
@@ -47,6 +55,7 @@ import org.alfresco.rest.framework.resource.parameters.CollectionWithPagingInfo;
 import org.alfresco.rest.framework.resource.parameters.Paging;
 import org.alfresco.rest.framework.resource.parameters.Parameters;
 import org.alfresco.service.cmr.repository.NodeRef;
+import org.alfresco.service.cmr.repository.NodeService;
 import org.alfresco.service.cmr.repository.StoreRef;
 import org.alfresco.service.cmr.tagging.TaggingService;
 import org.alfresco.util.Pair;
@@ -64,6 +73,8 @@ public class TagsImpl implements Tags
     private Nodes nodes;
 	private TaggingService taggingService;
 	private TypeConstraint typeConstraint;
+	private NodeService nodeService;
+	private NodeDAO nodeDAO;
 	
 	public void setTypeConstraint(TypeConstraint typeConstraint)
 	{
@@ -80,6 +91,19 @@ public class TagsImpl implements Tags
 		this.taggingService = taggingService;
 	}
 
+    public void setNodeService(NodeService nodeService)
+    {
+        this.nodeService = nodeService;
+    }
+
+    /**
+     * Optional, used to bulk load the nodes (and their tags) of a page of nodes, see {@link #getTags(List, Parameters)}.
+     */
+    public void setNodeDAO(NodeDAO nodeDAO)
+    {
+        this.nodeDAO = nodeDAO;
+    }
+
 	public List<Tag> addTags(String nodeId, final List<Tag> tags)
 	{
 	        NodeRef nodeRef = nodes.validateNode(nodeId);
@@ -219,8 +243,42 @@ public class TagsImpl implements Tags
     public CollectionWithPagingInfo<Tag> getTags(String nodeId, Parameters params)
     {
 		NodeRef nodeRef = validateTag(nodeId);
+		return getTags(nodeRef, Util.getPagingRequest(params.getPaging()), params.getPaging());
+    }
 
-		PagingResults<Pair<NodeRef, String>> results = taggingService.getTags(nodeRef, Util.getPagingRequest(params.getPaging()));
+    /**
+     * The tags of each node of a page of nodes. The nodes, and then the tags they refer to, are bulk loaded into the
+     * node caches first (when the NodeDAO is set), so that the TaggingService then reads them from there rather than
+     * from the database node by node.
+     */
+    public Map<String, CollectionWithPagingInfo<Tag>> getTags(List<String> nodeIds, Parameters params)
+    {
+        Map<String, NodeRef> nodeRefs = new LinkedHashMap<String, NodeRef>(nodeIds.size());
+        for (String nodeId : nodeIds)
+        {
+            try
+            {
+                nodeRefs.put(nodeId, validateTag(nodeId));
+            }
+            catch (EntityNotFoundException e)
+            {
+                // cannot access the node so it has no tags in the response
+            }
+        }
+        preloadTags(nodeRefs.values());
+
+        PagingRequest pagingRequest = Util.getPagingRequest(params.getPaging());
+        Map<String, CollectionWithPagingInfo<Tag>> tagsByNodeId = new HashMap<String, CollectionWithPagingInfo<Tag>>(nodeRefs.size());
+        for (Map.Entry<String, NodeRef> nodeRef : nodeRefs.entrySet())
+        {
+            tagsByNodeId.put(nodeRef.getKey(), getTags(nodeRef.getValue(), pagingRequest, params.getPaging()));
+        }
+        return tagsByNodeId;
+    }
+
+    private CollectionWithPagingInfo<Tag> getTags(NodeRef nodeRef, PagingRequest pagingRequest, Paging paging)
+    {
+    	PagingResults<Pair<NodeRef, String>> results = taggingService.getTags(nodeRef, pagingRequest);
     	Integer totalItems = results.getTotalResultCount().getFirst();
     	List<Pair<NodeRef, String>> page = results.getPage();
     	List<Tag> tags = new ArrayList<Tag>(page.size());
@@ -229,6 +287,35 @@ public class TagsImpl implements Tags
     		tags.add(new Tag(pair.getFirst(), pair.getSecond()));
     	}
 
-    	return CollectionWithPagingInfo.asPaged(params.getPaging(), tags, results.hasMoreItems(), (totalItems == null ? null : totalItems.intValue()));
+    	return CollectionWithPagingInfo.asPaged(paging, tags, results.hasMoreItems(), (totalItems == null ? null : totalItems.intValue()));
+    }
+
+    private void preloadTags(Collection<NodeRef> nodeRefs)
+    {
+        if ((nodeDAO == null) || (nodeService == null) || (nodeRefs.size() < 2))
+        {
+            return;
+        }
+
+        nodeDAO.cacheNodes(new ArrayList<NodeRef>(nodeRefs));
+        Set<NodeRef> tagNodeRefs = new HashSet<NodeRef>();
+        for (NodeRef nodeRef : nodeRefs)
+        {
+            Serializable tags = nodeService.getProperty(nodeRef, ContentModel.PROP_TAGS);
+            if (tags instanceof Collection)
+            {
+                for (Object tag : (Collection<?>) tags)
+                {
+                    if (tag instanceof NodeRef)
+                    {
+                        tagNodeRefs.add((NodeRef) tag);
+                    }
+                }
+            }
+        }
+        if (!tagNodeRefs.isEmpty())
+        {
+            nodeDAO.cacheNodes(new ArrayList<NodeRef>(tagNodeRefs));
+        }
     }
 }
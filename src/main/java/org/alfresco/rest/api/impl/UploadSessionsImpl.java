@@ -0,0 +1,602 @@
+/*
+ * #%L
+ * Alfresco Remote API
+ * %%
+ * Copyright (C) 2005 - 2020 Alfresco Software Limited
+ * %%
+ * This file is part of the Alfresco software.
+ * If the software was purchased under a paid Alfresco license, the terms of
+ * the paid license agreement will prevail.  Otherwise, the software is
+ * provided under the following open source license terms:
+ *
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+package org.alfresco.rest.api.impl;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.SequenceInputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.Enumeration;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.alfresco.error.AlfrescoRuntimeException;
+import org.alfresco.model.ContentModel;
+import org.alfresco.repo.content.MimetypeMap;
+import org.alfresco.repo.security.authentication.AuthenticationUtil;
+import org.alfresco.repo.transaction.AlfrescoTransactionSupport;
+import org.alfresco.repo.transaction.TransactionListenerAdapter;
+import org.alfresco.rest.api.Nodes;
+import org.alfresco.rest.api.UploadSessions;
+import org.alfresco.rest.api.model.Node;
+import org.alfresco.rest.api.model.UploadSession;
+import org.alfresco.rest.framework.core.exceptions.ConstraintViolatedException;
+import org.alfresco.rest.framework.core.exceptions.EntityNotFoundException;
+import org.alfresco.rest.framework.core.exceptions.InvalidArgumentException;
+import org.alfresco.rest.framework.core.exceptions.PermissionDeniedException;
+import org.alfresco.rest.framework.core.exceptions.RequestEntityTooLargeException;
+import org.alfresco.rest.framework.core.exceptions.ServiceUnavailableException;
+import org.alfresco.rest.framework.resource.content.ContentInfoImpl;
+import org.alfresco.rest.framework.resource.parameters.Parameters;
+import org.alfresco.service.cmr.repository.NodeRef;
+import org.alfresco.service.cmr.security.AccessStatus;
+import org.alfresco.service.cmr.security.AuthorityService;
+import org.alfresco.service.cmr.security.PermissionService;
+import org.alfresco.util.GUID;
+import org.alfresco.util.ParameterCheck;
+import org.alfresco.util.TempFileProvider;
+import org.alfresco.util.TraceableThreadFactory;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * Keeps the chunks of the upload sessions in a spool directory, one file per chunk (named after its offset), until the
+ * session is committed: the chunks are then read in order, as one stream, and written into the file through
+ * {@link Nodes#updateContent}, so the content gets the same checks, versioning and renaming as when uploaded at once.
+ * <p>
+ * The sessions are only held in memory, on the server that they were created on (the chunks of a session must be sent to
+ * that server), and expire if not committed in time. The expired sessions are swept periodically, so that the chunks of
+ * abandoned sessions don't fill the temporary directory, and the spool directory is removed on shutdown.
+ */
+public class UploadSessionsImpl implements UploadSessions
+{
+    private static final Log logger = LogFactory.getLog(UploadSessionsImpl.class);
+
+    private static final String SPOOL_DIRECTORY_NAME = "rest-api-upload-sessions";
+
+    private Nodes nodes;
+    private PermissionService permissionService;
+    private AuthorityService authorityService;
+
+    private long maxSize = 10L * 1024 * 1024 * 1024;
+    private long maxChunkSize = 100L * 1024 * 1024;
+    private int ttlSeconds = 86400;
+    private int maxSessions = 100;
+    private int sweepIntervalSeconds = 600;
+
+    private File spoolDirectory;
+    private final Map<String, Session> sessions = new ConcurrentHashMap<>();
+    private ScheduledExecutorService sweeper;
+
+    public void setNodes(Nodes nodes)
+    {
+        this.nodes = nodes;
+    }
+
+    public void setPermissionService(PermissionService permissionService)
+    {
+        this.permissionService = permissionService;
+    }
+
+    public void setAuthorityService(AuthorityService authorityService)
+    {
+        this.authorityService = authorityService;
+    }
+
+    public void setMaxSize(long maxSize)
+    {
+        this.maxSize = maxSize;
+    }
+
+    public void setMaxChunkSize(long maxChunkSize)
+    {
+        this.maxChunkSize = maxChunkSize;
+    }
+
+    public void setTtlSeconds(int ttlSeconds)
+    {
+        this.ttlSeconds = ttlSeconds;
+    }
+
+    public void setMaxSessions(int maxSessions)
+    {
+        this.maxSessions = maxSessions;
+    }
+
+    /**
+     * @param sweepIntervalSeconds how often the expired sessions are removed, 0 (or less) to only remove them when a session
+     *                             is created or an expired session is accessed
+     */
+    public void setSweepIntervalSeconds(int sweepIntervalSeconds)
+    {
+        this.sweepIntervalSeconds = sweepIntervalSeconds;
+    }
+
+    public void init()
+    {
+        ParameterCheck.mandatory("nodes", this.nodes);
+        ParameterCheck.mandatory("permissionService", this.permissionService);
+        ParameterCheck.mandatory("authorityService", this.authorityService);
+
+        spoolDirectory = TempFileProvider.getLongLifeTempDir(SPOOL_DIRECTORY_NAME);
+
+        // the sessions of a previous run are gone
+        File[] leftovers = spoolDirectory.listFiles();
+        if (leftovers != null)
+        {
+            for (File leftover : leftovers)
+            {
+                deleteDirectory(leftover);
+            }
+        }
+
+        if (sweepIntervalSeconds > 0)
+        {
+            TraceableThreadFactory threadFactory = new TraceableThreadFactory();
+            threadFactory.setThreadDaemon(true);
+            threadFactory.setNamePrefix("RestApiUploadSessionsSweeper");
+
+            sweeper = Executors.newSingleThreadScheduledExecutor(threadFactory);
+            sweeper.scheduleWithFixedDelay(this::sweep, sweepIntervalSeconds, sweepIntervalSeconds, TimeUnit.SECONDS);
+        }
+    }
+
+    public void destroy()
+    {
+        if (sweeper != null)
+        {
+            sweeper.shutdownNow();
+        }
+        for (Session session : new ArrayList<>(sessions.values()))
+        {
+            remove(session);
+        }
+        if (spoolDirectory != null)
+        {
+            deleteDirectory(spoolDirectory);
+        }
+    }
+
+    private void sweep()
+    {
+        try
+        {
+            removeExpiredSessions();
+        }
+        catch (RuntimeException error)
+        {
+            // keep sweeping
+            logger.error("Failed to remove the expired upload sessions", error);
+        }
+    }
+
+    @Override
+    public UploadSession createSession(UploadSession request)
+    {
+        if ((request == null) || (request.getNodeId() == null) || (request.getSize() == null))
+        {
+            throw new InvalidArgumentException("nodeId and size are expected");
+        }
+        long size = request.getSize();
+        if (size < 0)
+        {
+            throw new InvalidArgumentException("Invalid size: " + size);
+        }
+        if (size > maxSize)
+        {
+            throw new RequestEntityTooLargeException("The size of the content is above the maximum of " + maxSize + " bytes");
+        }
+        if ((request.getMimeType() != null) && request.getMimeType().toLowerCase().startsWith("multipart"))
+        {
+            throw new InvalidArgumentException("Cannot upload using " + request.getMimeType());
+        }
+
+        NodeRef nodeRef = nodes.validateNode(request.getNodeId());
+        if (!nodes.nodeMatches(nodeRef, Collections.singleton(ContentModel.TYPE_CONTENT), null))
+        {
+            throw new InvalidArgumentException("NodeId of content is expected: " + nodeRef.getId());
+        }
+        // fail now, rather than once all the chunks have been sent
+        if (permissionService.hasPermission(nodeRef, PermissionService.WRITE_CONTENT) != AccessStatus.ALLOWED)
+        {
+            throw new PermissionDeniedException();
+        }
+
+        removeExpiredSessions();
+        if (sessions.size() >= maxSessions)
+        {
+            throw new ServiceUnavailableException("Too many upload sessions in progress, try again later");
+        }
+
+        Session session = new Session(GUID.generate(), nodeRef.getId(), size, request.getMimeType(), request.getEncoding());
+        if (!session.directory.mkdir())
+        {
+            throw new AlfrescoRuntimeException("Failed to create the spool directory of upload session " + session.id);
+        }
+        sessions.put(session.id, session);
+
+        if (logger.isDebugEnabled())
+        {
+            logger.debug("Created upload session " + session.id + " of " + size + " bytes for node " + session.nodeId + " by " + session.runAsUser);
+        }
+        return session.toUploadSession();
+    }
+
+    @Override
+    public UploadSession getSession(String sessionId)
+    {
+        return getOwnSession(sessionId).toUploadSession();
+    }
+
+    @Override
+    public UploadSession putChunk(String sessionId, long offset, InputStream stream)
+    {
+        Session session = getOwnSession(sessionId);
+        if ((offset < 0) || (offset >= session.size))
+        {
+            throw new InvalidArgumentException("Invalid offset: " + offset);
+        }
+
+        // spool the chunk first (outside of the lock, so that the chunks can be sent in parallel), then put it in place
+        File spooled = new File(session.directory, offset + "-" + GUID.generate() + ".part");
+        try
+        {
+            long length = copy(stream, spooled, Math.min(maxChunkSize, session.size - offset));
+            if (length == 0)
+            {
+                throw new InvalidArgumentException("The chunk is empty");
+            }
+
+            synchronized (session)
+            {
+                session.checkOpen();
+                checkOverlap(session, offset, length);
+                Files.move(spooled.toPath(), session.chunkFile(offset).toPath(), StandardCopyOption.REPLACE_EXISTING);
+                session.chunks.put(offset, length);
+            }
+        }
+        catch (IOException ioe)
+        {
+            throw new AlfrescoRuntimeException("Failed to store chunk " + offset + " of upload session " + sessionId, ioe);
+        }
+        finally
+        {
+            spooled.delete();
+        }
+        return session.toUploadSession();
+    }
+
+    @Override
+    public Node commit(String sessionId, Parameters parameters)
+    {
+        final Session session = getOwnSession(sessionId);
+        synchronized (session)
+        {
+            session.checkOpen();
+            long expected = 0;
+            for (Map.Entry<Long, Long> chunk : session.chunks.entrySet())
+            {
+                if (chunk.getKey() != expected)
+                {
+                    break;
+                }
+                expected += chunk.getValue();
+            }
+            if (expected != session.size)
+            {
+                throw new ConstraintViolatedException("The content is incomplete, missing bytes from " + expected);
+            }
+            session.committing = true;
+        }
+
+        AlfrescoTransactionSupport.bindListener(new TransactionListenerAdapter()
+        {
+            @Override
+            public void afterCommit()
+            {
+                remove(session);
+            }
+
+            @Override
+            public void afterRollback()
+            {
+                // eg. to retry the commit
+                synchronized (session)
+                {
+                    session.committing = false;
+                }
+            }
+        });
+
+        String mimeType = (session.mimeType != null ? session.mimeType : MimetypeMap.MIMETYPE_BINARY);
+        try (InputStream stream = new SequenceInputStream(new ChunkStreams(session)))
+        {
+            return nodes.updateContent(session.nodeId, new ContentInfoImpl(mimeType, session.encoding, session.size, null), stream, parameters);
+        }
+        catch (IOException ioe)
+        {
+            throw new AlfrescoRuntimeException("Failed to read the chunks of upload session " + sessionId, ioe);
+        }
+    }
+
+    @Override
+    public void cancel(String sessionId)
+    {
+        Session session = getOwnSession(sessionId);
+        synchronized (session)
+        {
+            session.checkOpen();
+            remove(session);
+        }
+    }
+
+    /**
+     * @return the session, if it has been created by the current user (or the current user is an admin)
+     */
+    private Session getOwnSession(String sessionId)
+    {
+        Session session = sessions.get(sessionId);
+        if ((session != null) && session.isExpired())
+        {
+            remove(session);
+            session = null;
+        }
+        if ((session == null) || !(session.runAsUser.equals(AuthenticationUtil.getRunAsUser()) || authorityService.hasAdminAuthority()))
+        {
+            throw new EntityNotFoundException(sessionId);
+        }
+        return session;
+    }
+
+    // a chunk may replace the one at the same offset, but must not overlap the others
+    private static void checkOverlap(Session session, long offset, long length)
+    {
+        Map.Entry<Long, Long> before = session.chunks.lowerEntry(offset);
+        Map.Entry<Long, Long> after = session.chunks.higherEntry(offset);
+        if (((before != null) && (before.getKey() + before.getValue() > offset)) ||
+            ((after != null) && (offset + length > after.getKey())))
+        {
+            throw new ConstraintViolatedException("The chunk at " + offset + " overlaps another chunk");
+        }
+    }
+
+    private static long copy(InputStream stream, File file, long maxLength) throws IOException
+    {
+        long length = 0;
+        byte[] buffer = new byte[8192];
+        try (OutputStream out = Files.newOutputStream(file.toPath()))
+        {
+            int read;
+            while ((read = stream.read(buffer)) != -1)
+            {
+                length += read;
+                if (length > maxLength)
+                {
+                    throw new RequestEntityTooLargeException("The chunk is above the maximum of " + maxLength + " bytes (at this offset)");
+                }
+                out.write(buffer, 0, read);
+            }
+        }
+        return length;
+    }
+
+    private void removeExpiredSessions()
+    {
+        for (Iterator<Session> it = sessions.values().iterator(); it.hasNext();)
+        {
+            Session session = it.next();
+            if (session.isExpired() && !session.isCommitting())
+            {
+                remove(session);
+            }
+        }
+    }
+
+    private void remove(Session session)
+    {
+        if (sessions.remove(session.id) != null)
+        {
+            synchronized (session)
+            {
+                session.removed = true;
+                session.chunks.clear();
+            }
+            deleteDirectory(session.directory);
+
+            if (logger.isDebugEnabled())
+            {
+                logger.debug("Removed upload session " + session.id);
+            }
+        }
+    }
+
+    private static void deleteDirectory(File directory)
+    {
+        File[] files = directory.listFiles();
+        if (files != null)
+        {
+            for (File file : files)
+            {
+                file.delete();
+            }
+        }
+        directory.delete();
+    }
+
+    /**
+     * The streams of the chunks, in order: each chunk file is only opened when the previous one has been read.
+     */
+    private static class ChunkStreams implements Enumeration<InputStream>
+    {
+        private final Session session;
+        private final Iterator<Long> offsets;
+
+        ChunkStreams(Session session)
+        {
+            this.session = session;
+            synchronized (session)
+            {
+                this.offsets = new ArrayList<>(session.chunks.keySet()).iterator();
+            }
+        }
+
+        @Override
+        public boolean hasMoreElements()
+        {
+            return offsets.hasNext();
+        }
+
+        @Override
+        public InputStream nextElement()
+        {
+            if (!offsets.hasNext())
+            {
+                throw new NoSuchElementException();
+            }
+            File file = session.chunkFile(offsets.next());
+            try
+            {
+                return new FileInputStream(file);
+            }
+            catch (FileNotFoundException fnfe)
+            {
+                throw new AlfrescoRuntimeException("Missing chunk " + file.getName() + " of upload session " + session.id, fnfe);
+            }
+        }
+    }
+
+    private class Session
+    {
+        private final String id;
+        private final String nodeId;
+        private final long size;
+        private final String mimeType;
+        private final String encoding;
+        private final String runAsUser;
+        private final Date createdAt;
+        private final Date expiresAt;
+        private final File directory;
+
+        // offset -> length
+        private final TreeMap<Long, Long> chunks = new TreeMap<>();
+        private boolean committing;
+        private boolean removed;
+
+        Session(String id, String nodeId, long size, String mimeType, String encoding)
+        {
+            this.id = id;
+            this.nodeId = nodeId;
+            this.size = size;
+            this.mimeType = mimeType;
+            this.encoding = encoding;
+            this.runAsUser = AuthenticationUtil.getRunAsUser();
+            this.createdAt = new Date();
+            this.expiresAt = new Date(createdAt.getTime() + ttlSeconds * 1000L);
+            this.directory = new File(spoolDirectory, id);
+        }
+
+        File chunkFile(long offset)
+        {
+            return new File(directory, Long.toString(offset));
+        }
+
+        boolean isExpired()
+        {
+            return System.currentTimeMillis() > expiresAt.getTime();
+        }
+
+        synchronized boolean isCommitting()
+        {
+            return committing;
+        }
+
+        // must hold the lock
+        void checkOpen()
+        {
+            if (removed)
+            {
+                throw new EntityNotFoundException(id);
+            }
+            if (committing)
+            {
+                throw new ConstraintViolatedException("The upload session is being committed");
+            }
+        }
+
+        synchronized UploadSession toUploadSession()
+        {
+            UploadSession session = new UploadSession();
+            session.setId(id);
+            session.setNodeId(nodeId);
+            session.setSize(size);
+            session.setMimeType(mimeType);
+            session.setEncoding(encoding);
+            session.setCreatedAt(createdAt);
+            session.setExpiresAt(expiresAt);
+
+            // the adjacent chunks as one range
+            List<String> ranges = new ArrayList<>();
+            long received = 0;
+            long start = -1;
+            long end = -1;
+            for (Map.Entry<Long, Long> chunk : chunks.entrySet())
+            {
+                received += chunk.getValue();
+                if (chunk.getKey() != end)
+                {
+                    if (start != -1)
+                    {
+                        ranges.add(start + "-" + (end - 1));
+                    }
+                    start = chunk.getKey();
+                }
+                end = chunk.getKey() + chunk.getValue();
+            }
+            if (start != -1)
+            {
+                ranges.add(start + "-" + (end - 1));
+            }
+            session.setReceivedBytes(received);
+            session.setReceivedRanges(ranges);
+            return session;
+        }
+    }
+}
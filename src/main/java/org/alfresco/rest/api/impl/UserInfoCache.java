@@ -0,0 +1,256 @@
+/*
+ * #%L
+ * Alfresco Remote API
+ * %%
+ * Copyright (C) 2005 - 2020 Alfresco Software Limited
+ * %%
+ * This file is part of the Alfresco software.
+ * If the software was purchased under a paid Alfresco license, the terms of
+ * the paid license agreement will prevail.  Otherwise, the software is
+ * provided under the following open source license terms:
+ *
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+package org.alfresco.rest.api.impl;
+
+import java.io.Serializable;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import org.alfresco.model.ContentModel;
+import org.alfresco.repo.cache.DefaultSimpleCache;
+import org.alfresco.repo.cache.SimpleCache;
+import org.alfresco.repo.node.NodeServicePolicies.BeforeDeleteNodePolicy;
+import org.alfresco.repo.node.NodeServicePolicies.OnUpdatePropertiesPolicy;
+import org.alfresco.repo.policy.JavaBehaviour;
+import org.alfresco.repo.policy.PolicyComponent;
+import org.alfresco.repo.tenant.TenantUtil;
+import org.alfresco.repo.transaction.AlfrescoTransactionSupport;
+import org.alfresco.repo.transaction.TransactionListenerAdapter;
+import org.alfresco.rest.api.PersonInfoCache;
+import org.alfresco.service.cmr.repository.InvalidNodeRefException;
+import org.alfresco.service.cmr.repository.NodeRef;
+import org.alfresco.service.cmr.repository.NodeService;
+import org.alfresco.service.cmr.security.AccessStatus;
+import org.alfresco.service.cmr.security.PermissionService;
+import org.alfresco.service.cmr.security.PersonService;
+import org.alfresco.service.namespace.QName;
+import org.alfresco.util.EqualsHelper;
+import org.alfresco.util.Pair;
+import org.alfresco.util.PropertyCheck;
+
+/**
+ * A bounded cache, shared by all the requests, of the people looked up to fill in the UserInfo (eg. createdByUser and
+ * modifiedByUser) of the REST API entities. See {@link org.alfresco.rest.api.model.Node#lookupUserInfo}.
+ * <p>
+ * The people are keyed by tenant and user name. An entry is removed when the person's user name, first or last name
+ * is updated or the person is deleted, and in any case expires after the configured time to live (so that changes made
+ * on another node of a cluster are eventually seen). Unknown people are not cached.
+ * <p>
+ * The entries are shared by all the users, so a cached person is only returned to a user who can read the person node
+ * (otherwise the person is loaded as that user, which fails as it would without the cache, see SFS-610).
+ */
+public class UserInfoCache implements PersonInfoCache, OnUpdatePropertiesPolicy, BeforeDeleteNodePolicy
+{
+    private PolicyComponent policyComponent;
+    private NodeService nodeService;
+    private PermissionService permissionService;
+    private boolean enabled = true;
+    private int maxItems = 1000;
+    private long ttlMs = 300000;
+
+    private SimpleCache<Pair<String, String>, CachedPerson> people;
+
+    public void init()
+    {
+        PropertyCheck.mandatory(this, "policyComponent", policyComponent);
+        PropertyCheck.mandatory(this, "nodeService", nodeService);
+        PropertyCheck.mandatory(this, "permissionService", permissionService);
+
+        people = new DefaultSimpleCache<>(maxItems, UserInfoCache.class.getName());
+
+        if (enabled)
+        {
+            policyComponent.bindClassBehaviour(OnUpdatePropertiesPolicy.QNAME, ContentModel.TYPE_PERSON,
+                    new JavaBehaviour(this, OnUpdatePropertiesPolicy.QNAME.getLocalName()));
+            policyComponent.bindClassBehaviour(BeforeDeleteNodePolicy.QNAME, ContentModel.TYPE_PERSON,
+                    new JavaBehaviour(this, BeforeDeleteNodePolicy.QNAME.getLocalName()));
+        }
+    }
+
+    @Override
+    public PersonService.PersonInfo getPerson(String userName, Supplier<PersonService.PersonInfo> loader)
+    {
+        if (!enabled)
+        {
+            return loader.get();
+        }
+
+        Pair<String, String> key = new Pair<>(TenantUtil.getCurrentDomain(), userName);
+        CachedPerson cached = people.get(key);
+        if ((cached != null) && !cached.isExpired(ttlMs) && canRead(cached.person))
+        {
+            return cached.person;
+        }
+
+        PersonService.PersonInfo person = loader.get();
+        if (person != null)
+        {
+            people.put(key, new CachedPerson(person));
+        }
+        else if ((cached != null) && cached.isExpired(ttlMs))
+        {
+            // the entry may still be valid for the users who can read the person
+            people.remove(key);
+        }
+        return person;
+    }
+
+    /**
+     * @return true if the person is cached (and not expired), for the current tenant, whoever can read it
+     */
+    @Override
+    public boolean isCached(String userName)
+    {
+        if (!enabled)
+        {
+            return false;
+        }
+        CachedPerson cached = people.get(new Pair<>(TenantUtil.getCurrentDomain(), userName));
+        return (cached != null) && !cached.isExpired(ttlMs);
+    }
+
+    private boolean canRead(PersonService.PersonInfo person)
+    {
+        try
+        {
+            return permissionService.hasReadPermission(person.getNodeRef()) == AccessStatus.ALLOWED;
+        }
+        catch (InvalidNodeRefException inre)
+        {
+            // deleted (eg. on another node of the cluster)
+            return false;
+        }
+    }
+
+    /**
+     * Removes a person from the cache (for the current tenant).
+     *
+     * @param userName the user name
+     */
+    public void invalidate(String userName)
+    {
+        people.remove(new Pair<>(TenantUtil.getCurrentDomain(), userName));
+    }
+
+    /**
+     * Removes all the people from the cache.
+     */
+    public void clear()
+    {
+        people.clear();
+    }
+
+    @Override
+    public void onUpdateProperties(NodeRef nodeRef, Map<QName, Serializable> before, Map<QName, Serializable> after)
+    {
+        if (!EqualsHelper.nullSafeEquals(before.get(ContentModel.PROP_USERNAME), after.get(ContentModel.PROP_USERNAME))
+                || !EqualsHelper.nullSafeEquals(before.get(ContentModel.PROP_FIRSTNAME), after.get(ContentModel.PROP_FIRSTNAME))
+                || !EqualsHelper.nullSafeEquals(before.get(ContentModel.PROP_LASTNAME), after.get(ContentModel.PROP_LASTNAME)))
+        {
+            invalidateOnCommit((String) before.get(ContentModel.PROP_USERNAME));
+            invalidateOnCommit((String) after.get(ContentModel.PROP_USERNAME));
+        }
+    }
+
+    @Override
+    public void beforeDeleteNode(NodeRef nodeRef)
+    {
+        invalidateOnCommit((String) nodeService.getProperty(nodeRef, ContentModel.PROP_USERNAME));
+    }
+
+    /**
+     * Removes the person now and again once the transaction has committed, as a concurrent request may have cached
+     * the old values in the meantime.
+     */
+    private void invalidateOnCommit(final String userName)
+    {
+        if (userName == null)
+        {
+            return;
+        }
+
+        invalidate(userName);
+        final String tenantDomain = TenantUtil.getCurrentDomain();
+        AlfrescoTransactionSupport.bindListener(new TransactionListenerAdapter()
+        {
+            @Override
+            public void afterCommit()
+            {
+                people.remove(new Pair<>(tenantDomain, userName));
+            }
+        });
+    }
+
+    public void setPolicyComponent(PolicyComponent policyComponent)
+    {
+        this.policyComponent = policyComponent;
+    }
+
+    public void setNodeService(NodeService nodeService)
+    {
+        this.nodeService = nodeService;
+    }
+
+    public void setPermissionService(PermissionService permissionService)
+    {
+        this.permissionService = permissionService;
+    }
+
+    public void setEnabled(boolean enabled)
+    {
+        this.enabled = enabled;
+    }
+
+    public void setMaxItems(int maxItems)
+    {
+        this.maxItems = maxItems;
+    }
+
+    /**
+     * @param ttlSeconds how long a person is cached for
+     */
+    public void setTtlSeconds(int ttlSeconds)
+    {
+        this.ttlMs = ttlSeconds * 1000L;
+    }
+
+    private static final class CachedPerson
+    {
+        private final PersonService.PersonInfo person;
+        private final long loadedAt;
+
+        private CachedPerson(PersonService.PersonInfo person)
+        {
+            this.person = person;
+            this.loadedAt = System.currentTimeMillis();
+        }
+
+        private boolean isExpired(long ttlMs)
+        {
+            return System.currentTimeMillis() - loadedAt >= ttlMs;
+        }
+    }
+}
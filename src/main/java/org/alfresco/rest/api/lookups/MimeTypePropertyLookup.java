@@ -29,6 +29,8 @@ import org.alfresco.service.ServiceRegistry;
 import org.alfresco.service.namespace.NamespaceService;
 import org.alfresco.service.namespace.QName;
 
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
@@ -51,6 +53,22 @@ public class MimeTypePropertyLookup implements PropertyLookup<String>
         return mimetypes.get(propertyValue);
     }
 
+    @Override
+    public Map<String, String> lookupAll(Collection<String> propertyValues)
+    {
+        Map<String,String> mimetypes = serviceRegistry.getMimetypeService().getDisplaysByMimetype();
+        Map<String, String> values = new HashMap<>(propertyValues.size());
+        for (String propertyValue : propertyValues)
+        {
+            String display = mimetypes.get(propertyValue);
+            if (display != null)
+            {
+                values.put(propertyValue, display);
+            }
+        }
+        return values;
+    }
+
     @Override
     public Set<String> supports()
     {
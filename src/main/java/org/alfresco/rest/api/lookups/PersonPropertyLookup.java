@@ -26,12 +26,19 @@
 package org.alfresco.rest.api.lookups;
 
 import org.alfresco.model.ContentModel;
+import org.alfresco.repo.domain.node.NodeDAO;
 import org.alfresco.repo.transaction.TransactionalResourceHelper;
+import org.alfresco.rest.api.PersonInfoCache;
 import org.alfresco.rest.api.impl.NodesImpl;
 import org.alfresco.rest.api.model.Node;
 import org.alfresco.rest.api.model.UserInfo;
 import org.alfresco.service.ServiceRegistry;
+import org.alfresco.service.cmr.repository.NodeRef;
+import org.alfresco.service.cmr.security.PersonService;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
@@ -47,16 +54,59 @@ public class PersonPropertyLookup implements PropertyLookup<String>
 {
     private Set<String> supported = new HashSet<>();
     private ServiceRegistry serviceRegistry;
+    private NodeDAO nodeDAO;
+    private PersonInfoCache userInfoCache;
 
     @Override
     public String lookup(String propertyValue)
     {
         Map<String, UserInfo> mapUserInfo = TransactionalResourceHelper.getMap("PERSON_PROPERTY_LOOKUP_USER_INFO_CACHE");
-        UserInfo user = Node.lookupUserInfo(propertyValue, mapUserInfo, serviceRegistry.getPersonService());
+        UserInfo user = Node.lookupUserInfo(propertyValue, mapUserInfo, serviceRegistry.getPersonService(), false, userInfoCache);
         if (user != null) return user.getDisplayName();
         return null;
     }
 
+    /**
+     * Bulk loads the people that are neither in the transaction's nor in the shared cache (see {@link PersonInfoCache}),
+     * then looks them up one by one.
+     */
+    @Override
+    public Map<String, String> lookupAll(Collection<String> propertyValues)
+    {
+        Map<String, UserInfo> mapUserInfo = TransactionalResourceHelper.getMap("PERSON_PROPERTY_LOOKUP_USER_INFO_CACHE");
+        PersonService personService = serviceRegistry.getPersonService();
+        if (nodeDAO != null)
+        {
+            List<NodeRef> toLoad = new ArrayList<>();
+            for (String userName : propertyValues)
+            {
+                if ((userName != null) && !mapUserInfo.containsKey(userName) && ((userInfoCache == null) || !userInfoCache.isCached(userName)))
+                {
+                    NodeRef personRef = personService.getPersonOrNull(userName);
+                    if (personRef != null)
+                    {
+                        toLoad.add(personRef);
+                    }
+                }
+            }
+            if (toLoad.size() > 1)
+            {
+                nodeDAO.cacheNodes(toLoad);
+            }
+        }
+
+        Map<String, String> values = new HashMap<>(propertyValues.size());
+        for (String userName : propertyValues)
+        {
+            UserInfo user = Node.lookupUserInfo(userName, mapUserInfo, personService, false, userInfoCache);
+            if (user != null)
+            {
+                values.put(userName, user.getDisplayName());
+            }
+        }
+        return values;
+    }
+
     @Override
     public Set<String> supports()
     {
@@ -73,4 +123,14 @@ public class PersonPropertyLookup implements PropertyLookup<String>
     {
         this.serviceRegistry = serviceRegistry;
     }
+
+    public void setNodeDAO(NodeDAO nodeDAO)
+    {
+        this.nodeDAO = nodeDAO;
+    }
+
+    public void setUserInfoCache(PersonInfoCache userInfoCache)
+    {
+        this.userInfoCache = userInfoCache;
+    }
 }
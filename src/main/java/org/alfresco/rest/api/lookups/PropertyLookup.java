@@ -27,7 +27,10 @@
 package org.alfresco.rest.api.lookups;
 
 
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 /**
@@ -49,4 +52,24 @@ public interface PropertyLookup<T extends Object>
      * @return a new value or null if the property value isn't found.
      */
     public T lookup(String propertyValue);
+
+    /**
+     * Lookup several property values at once, eg. all the bucket values of a facet field.
+     * By default each value is looked up on its own, implementations can override this to share the work.
+     * @param propertyValues
+     * @return the new values, by property value (without the property values that aren't found)
+     */
+    public default Map<String, T> lookupAll(Collection<String> propertyValues)
+    {
+        Map<String, T> values = new HashMap<>(propertyValues.size());
+        for (String propertyValue : propertyValues)
+        {
+            T value = lookup(propertyValue);
+            if (value != null)
+            {
+                values.put(propertyValue, value);
+            }
+        }
+        return values;
+    }
 }
@@ -34,6 +34,8 @@ import org.springframework.context.ApplicationEvent;
 import org.springframework.context.event.ContextRefreshedEvent;
 import org.springframework.extensions.surf.util.AbstractLifecycleBean;
 
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -85,4 +87,20 @@ public class PropertyLookupRegistry
         }
         return null;
     }
+
+    /**
+     * Looks up several values of a property at once using a PropertyLookup
+     * @param propertyName the property name/type
+     * @param propertyValues the values to lookup
+     * @return the Objects to be serialized as json, by value (empty if the property has no lookup)
+     */
+    public Map<String, Object> lookupAll(String propertyName, Collection<String> propertyValues)
+    {
+        PropertyLookup lookup = propertyLookups.get(propertyName);
+        if ((lookup != null) && !propertyValues.isEmpty())
+        {
+            return lookup.lookupAll(propertyValues);
+        }
+        return Collections.emptyMap();
+    }
 }
@@ -0,0 +1,244 @@
+/*
+ * #%L
+ * Alfresco Remote API
+ * %%
+ * Copyright (C) 2005 - 2020 Alfresco Software Limited
+ * %%
+ * This file is part of the Alfresco software.
+ * If the software was purchased under a paid Alfresco license, the terms of
+ * the paid license agreement will prevail.  Otherwise, the software is
+ * provided under the following open source license terms:
+ *
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+package org.alfresco.rest.api.model;
+
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Represents a bulk node job: the delete, move or copy of many nodes, which is done asynchronously.
+ * <p>
+ * The request is made of the action, the node ids and, to move or copy them, the target parent. The rest is the progress
+ * of the job.
+ */
+public class BulkNodeJob
+{
+    public static final String ACTION_DELETE = "delete";
+    public static final String ACTION_MOVE = "move";
+    public static final String ACTION_COPY = "copy";
+
+    public enum Status
+    {
+        PENDING, IN_PROGRESS, DONE, CANCELLED
+    }
+
+    private String id;
+    private String action;
+    private List<String> nodeIds;
+    private String targetParentId;
+    private Boolean permanent;
+
+    private Status status;
+    private int totalItems;
+    private int processedItems;
+    private int succeededItems;
+    private int failedItems;
+    private Double itemsPerSecond;
+    private Date createdAt;
+    private Date startedAt;
+    private Date completedAt;
+    private List<BulkNodeJobError> errors;
+
+    public String getId()
+    {
+        return id;
+    }
+
+    public void setId(String id)
+    {
+        this.id = id;
+    }
+
+    /**
+     * @return one of {@link #ACTION_DELETE}, {@link #ACTION_MOVE} or {@link #ACTION_COPY}
+     */
+    public String getAction()
+    {
+        return action;
+    }
+
+    public void setAction(String action)
+    {
+        this.action = action;
+    }
+
+    public List<String> getNodeIds()
+    {
+        return nodeIds;
+    }
+
+    public void setNodeIds(List<String> nodeIds)
+    {
+        this.nodeIds = nodeIds;
+    }
+
+    /**
+     * @return the folder that the nodes are moved or copied to
+     */
+    public String getTargetParentId()
+    {
+        return targetParentId;
+    }
+
+    public void setTargetParentId(String targetParentId)
+    {
+        this.targetParentId = targetParentId;
+    }
+
+    /**
+     * @return whether the nodes are deleted without being archived (to the trashcan)
+     */
+    public Boolean getPermanent()
+    {
+        return permanent;
+    }
+
+    public void setPermanent(Boolean permanent)
+    {
+        this.permanent = permanent;
+    }
+
+    public Status getStatus()
+    {
+        return status;
+    }
+
+    public void setStatus(Status status)
+    {
+        this.status = status;
+    }
+
+    public int getTotalItems()
+    {
+        return totalItems;
+    }
+
+    public void setTotalItems(int totalItems)
+    {
+        this.totalItems = totalItems;
+    }
+
+    public int getProcessedItems()
+    {
+        return processedItems;
+    }
+
+    public void setProcessedItems(int processedItems)
+    {
+        this.processedItems = processedItems;
+    }
+
+    public int getSucceededItems()
+    {
+        return succeededItems;
+    }
+
+    public void setSucceededItems(int succeededItems)
+    {
+        this.succeededItems = succeededItems;
+    }
+
+    public int getFailedItems()
+    {
+        return failedItems;
+    }
+
+    public void setFailedItems(int failedItems)
+    {
+        this.failedItems = failedItems;
+    }
+
+    /**
+     * @return the throughput of the job since it started, or null if it hasn't started yet
+     */
+    public Double getItemsPerSecond()
+    {
+        return itemsPerSecond;
+    }
+
+    public void setItemsPerSecond(Double itemsPerSecond)
+    {
+        this.itemsPerSecond = itemsPerSecond;
+    }
+
+    public Date getCreatedAt()
+    {
+        return createdAt;
+    }
+
+    public void setCreatedAt(Date createdAt)
+    {
+        this.createdAt = createdAt;
+    }
+
+    public Date getStartedAt()
+    {
+        return startedAt;
+    }
+
+    public void setStartedAt(Date startedAt)
+    {
+        this.startedAt = startedAt;
+    }
+
+    public Date getCompletedAt()
+    {
+        return completedAt;
+    }
+
+    public void setCompletedAt(Date completedAt)
+    {
+        this.completedAt = completedAt;
+    }
+
+    /**
+     * @return the errors of the nodes that failed (at most the first few of them)
+     */
+    public List<BulkNodeJobError> getErrors()
+    {
+        return errors;
+    }
+
+    public void setErrors(List<BulkNodeJobError> errors)
+    {
+        this.errors = errors;
+    }
+
+    @Override
+    public String toString()
+    {
+        StringBuilder builder = new StringBuilder(150);
+        builder.append("BulkNodeJob [id=").append(id)
+               .append(", action=").append(action)
+               .append(", targetParentId=").append(targetParentId)
+               .append(", status=").append(status)
+               .append(", totalItems=").append(totalItems)
+               .append(", processedItems=").append(processedItems)
+               .append(", failedItems=").append(failedItems)
+               .append("]");
+        return builder.toString();
+    }
+}
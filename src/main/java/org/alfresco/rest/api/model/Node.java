@@ -25,6 +25,7 @@
  */
 package org.alfresco.rest.api.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import java.io.Serializable;
 import java.util.Date;
@@ -35,7 +36,9 @@ import java.util.Map;
 import org.alfresco.model.ContentModel;
 import org.alfresco.repo.security.authentication.AuthenticationUtil;
 import org.alfresco.repo.security.permissions.AccessDeniedException;
+import org.alfresco.rest.api.PersonInfoCache;
 import org.alfresco.rest.api.search.model.SearchEntry;
+import org.alfresco.rest.framework.resource.EntityTag;
 import org.alfresco.rest.framework.resource.UniqueId;
 import org.alfresco.service.ServiceRegistry;
 import org.alfresco.service.cmr.repository.NodeRef;
@@ -102,6 +105,9 @@ public class Node implements Comparable<Node>
     protected String location;
     protected Boolean isFavorite;
 
+    // id of the transaction that last changed the node (only set for a single get that can be conditional)
+    protected Long txnId;
+
     public Node(NodeRef nodeRef, NodeRef parentNodeRef, Map<QName, Serializable> nodeProps, Map<String, UserInfo> mapUserInfo, ServiceRegistry sr)
     {
         if(nodeRef == null)
@@ -150,6 +156,15 @@ public class Node implements Comparable<Node>
     }
 
     public static UserInfo lookupUserInfo(String userName, Map<String, UserInfo> mapUserInfo, PersonService personService, boolean displayNameOnly)
+    {
+        return lookupUserInfo(userName, mapUserInfo, personService, displayNameOnly, null);
+    }
+
+    /**
+     * @param userInfoCache the people cached across requests (optional)
+     */
+    public static UserInfo lookupUserInfo(String userName, Map<String, UserInfo> mapUserInfo, PersonService personService, boolean displayNameOnly,
+                                          PersonInfoCache userInfoCache)
     {
         UserInfo userInfo = mapUserInfo.get(userName);
         if ((userInfo == null) && (userName != null))
@@ -161,24 +176,9 @@ public class Node implements Comparable<Node>
             }
             else
             {
-                PersonService.PersonInfo pInfo = null;
-                try
-                {
-                    NodeRef pNodeRef = personService.getPersonOrNull(userName);
-                    if (pNodeRef != null)
-                    {
-                        pInfo = personService.getPerson(pNodeRef);
-                    }
-                }
-                catch (NoSuchPersonException nspe)
-                {
-                    // drop-through
-                }
-                catch (AccessDeniedException ade)
-                {
-                    // SFS-610
-                    // drop-through
-                }
+                PersonService.PersonInfo pInfo = (userInfoCache != null ?
+                            userInfoCache.getPerson(userName, () -> getPersonInfo(userName, personService)) :
+                            getPersonInfo(userName, personService));
 
                 if (pInfo != null)
                 {
@@ -196,6 +196,29 @@ public class Node implements Comparable<Node>
         return userInfo;
     }
 
+    private static PersonService.PersonInfo getPersonInfo(String userName, PersonService personService)
+    {
+        PersonService.PersonInfo pInfo = null;
+        try
+        {
+            NodeRef pNodeRef = personService.getPersonOrNull(userName);
+            if (pNodeRef != null)
+            {
+                pInfo = personService.getPerson(pNodeRef);
+            }
+        }
+        catch (NoSuchPersonException nspe)
+        {
+            // drop-through
+        }
+        catch (AccessDeniedException ade)
+        {
+            // SFS-610
+            // drop-through
+        }
+        return pInfo;
+    }
+
     // note: nodeRef maps to json "id" (when serializing/deserializng)
 
     @JsonProperty("id")
@@ -480,6 +503,18 @@ public class Node implements Comparable<Node>
         this.definition = definition;
     }
 
+    @JsonIgnore
+    @EntityTag
+    public Long getTxnId()
+    {
+        return txnId;
+    }
+
+    public void setTxnId(Long txnId)
+    {
+        this.txnId = txnId;
+    }
+
     @Override
     public int compareTo(Node node)
     {
@@ -0,0 +1,74 @@
+/*
+ * #%L
+ * Alfresco Remote API
+ * %%
+ * Copyright (C) 2005 - 2020 Alfresco Software Limited
+ * %%
+ * This file is part of the Alfresco software.
+ * If the software was purchased under a paid Alfresco license, the terms of
+ * the paid license agreement will prevail.  Otherwise, the software is
+ * provided under the following open source license terms:
+ *
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+package org.alfresco.rest.api.model;
+
+import org.alfresco.rest.framework.core.exceptions.ErrorResponse;
+
+/**
+ * The result of creating one of the nodes of a {@link NodeBulkCreate}: either the created node or the error.
+ */
+public class NodeBulkCreateResult
+{
+    private int index;
+    private int statusCode;
+    private Node node;
+    private ErrorResponse error;
+
+    public NodeBulkCreateResult()
+    {
+    }
+
+    public NodeBulkCreateResult(int index, int statusCode, Node node, ErrorResponse error)
+    {
+        this.index = index;
+        this.statusCode = statusCode;
+        this.node = node;
+        this.error = error;
+    }
+
+    /**
+     * @return the index of the node in the request
+     */
+    public int getIndex()
+    {
+        return index;
+    }
+
+    public int getStatusCode()
+    {
+        return statusCode;
+    }
+
+    public Node getNode()
+    {
+        return node;
+    }
+
+    public ErrorResponse getError()
+    {
+        return error;
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * #%L
+ * Alfresco Remote API
+ * %%
+ * Copyright (C) 2005 - 2020 Alfresco Software Limited
+ * %%
+ * This file is part of the Alfresco software.
+ * If the software was purchased under a paid Alfresco license, the terms of
+ * the paid license agreement will prevail.  Otherwise, the software is
+ * provided under the following open source license terms:
+ *
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+package org.alfresco.rest.api.model;
+
+/**
+ * Representation of the latency of a phase of a REST operation (eg. the "action" phase of "GET /nodes/{entityId}/children").
+ * All the values are in nanoseconds.
+ */
+public class RequestTiming
+{
+    private final String operation;
+    private final String phase;
+    private final long count;
+    private final long mean;
+    private final long p50;
+    private final long p90;
+    private final long p99;
+    private final long max;
+
+    public RequestTiming(String operation, String phase, long count, long mean, long p50, long p90, long p99, long max)
+    {
+        this.operation = operation;
+        this.phase = phase;
+        this.count = count;
+        this.mean = mean;
+        this.p50 = p50;
+        this.p90 = p90;
+        this.p99 = p99;
+        this.max = max;
+    }
+
+    public String getOperation()
+    {
+        return operation;
+    }
+
+    public String getPhase()
+    {
+        return phase;
+    }
+
+    public long getCount()
+    {
+        return count;
+    }
+
+    public long getMean()
+    {
+        return mean;
+    }
+
+    public long getP50()
+    {
+        return p50;
+    }
+
+    public long getP90()
+    {
+        return p90;
+    }
+
+    public long getP99()
+    {
+        return p99;
+    }
+
+    public long getMax()
+    {
+        return max;
+    }
+}
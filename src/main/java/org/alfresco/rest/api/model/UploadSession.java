@@ -0,0 +1,161 @@
+/*
+ * #%L
+ * Alfresco Remote API
+ * %%
+ * Copyright (C) 2005 - 2020 Alfresco Software Limited
+ * %%
+ * This file is part of the Alfresco software.
+ * If the software was purchased under a paid Alfresco license, the terms of
+ * the paid license agreement will prevail.  Otherwise, the software is
+ * provided under the following open source license terms:
+ *
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+package org.alfresco.rest.api.model;
+
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Represents an upload session: the content of a file, uploaded in chunks (byte ranges) that can be sent in parallel and
+ * in any order, then committed as the new content of the file.
+ * <p>
+ * The request is made of the file node id, the total size and, optionally, the mimetype and encoding. The rest is the
+ * progress of the session.
+ */
+public class UploadSession
+{
+    private String id;
+    private String nodeId;
+    private Long size;
+    private String mimeType;
+    private String encoding;
+
+    private long receivedBytes;
+    private List<String> receivedRanges;
+    private Date createdAt;
+    private Date expiresAt;
+
+    public String getId()
+    {
+        return id;
+    }
+
+    public void setId(String id)
+    {
+        this.id = id;
+    }
+
+    /**
+     * @return the file that the content is uploaded for
+     */
+    public String getNodeId()
+    {
+        return nodeId;
+    }
+
+    public void setNodeId(String nodeId)
+    {
+        this.nodeId = nodeId;
+    }
+
+    /**
+     * @return the total size of the content, in bytes
+     */
+    public Long getSize()
+    {
+        return size;
+    }
+
+    public void setSize(Long size)
+    {
+        this.size = size;
+    }
+
+    public String getMimeType()
+    {
+        return mimeType;
+    }
+
+    public void setMimeType(String mimeType)
+    {
+        this.mimeType = mimeType;
+    }
+
+    public String getEncoding()
+    {
+        return encoding;
+    }
+
+    public void setEncoding(String encoding)
+    {
+        this.encoding = encoding;
+    }
+
+    public long getReceivedBytes()
+    {
+        return receivedBytes;
+    }
+
+    public void setReceivedBytes(long receivedBytes)
+    {
+        this.receivedBytes = receivedBytes;
+    }
+
+    /**
+     * @return the byte ranges received so far, eg. "0-1048575" (first and last byte, inclusive), in order
+     */
+    public List<String> getReceivedRanges()
+    {
+        return receivedRanges;
+    }
+
+    public void setReceivedRanges(List<String> receivedRanges)
+    {
+        this.receivedRanges = receivedRanges;
+    }
+
+    public Date getCreatedAt()
+    {
+        return createdAt;
+    }
+
+    public void setCreatedAt(Date createdAt)
+    {
+        this.createdAt = createdAt;
+    }
+
+    public Date getExpiresAt()
+    {
+        return expiresAt;
+    }
+
+    public void setExpiresAt(Date expiresAt)
+    {
+        this.expiresAt = expiresAt;
+    }
+
+    @Override
+    public String toString()
+    {
+        StringBuilder builder = new StringBuilder(150);
+        builder.append("UploadSession [id=").append(id)
+               .append(", nodeId=").append(nodeId)
+               .append(", size=").append(size)
+               .append(", receivedBytes=").append(receivedBytes)
+               .append("]");
+        return builder.toString();
+    }
+}
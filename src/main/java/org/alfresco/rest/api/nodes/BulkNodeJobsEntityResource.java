@@ -0,0 +1,90 @@
+/*
+ * #%L
+ * Alfresco Remote API
+ * %%
+ * Copyright (C) 2005 - 2020 Alfresco Software Limited
+ * %%
+ * This file is part of the Alfresco software.
+ * If the software was purchased under a paid Alfresco license, the terms of
+ * the paid license agreement will prevail.  Otherwise, the software is
+ * provided under the following open source license terms:
+ *
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+package org.alfresco.rest.api.nodes;
+
+import java.util.Collections;
+import java.util.List;
+
+import javax.servlet.http.HttpServletResponse;
+
+import org.alfresco.rest.api.BulkNodeJobs;
+import org.alfresco.rest.api.model.BulkNodeJob;
+import org.alfresco.rest.framework.WebApiDescription;
+import org.alfresco.rest.framework.WebApiParam;
+import org.alfresco.rest.framework.core.ResourceParameter;
+import org.alfresco.rest.framework.core.exceptions.EntityNotFoundException;
+import org.alfresco.rest.framework.resource.EntityResource;
+import org.alfresco.rest.framework.resource.actions.interfaces.EntityResourceAction;
+import org.alfresco.rest.framework.resource.parameters.Parameters;
+import org.alfresco.util.ParameterCheck;
+import org.springframework.beans.factory.InitializingBean;
+
+/**
+ * An entity resource for bulk node jobs: deletes, moves or copies many nodes asynchronously.
+ */
+@EntityResource(name = "bulk-node-jobs", title = "Bulk Node Jobs")
+public class BulkNodeJobsEntityResource implements EntityResourceAction.Create<BulkNodeJob>, EntityResourceAction.ReadById<BulkNodeJob>,
+            EntityResourceAction.Delete, InitializingBean
+{
+    private BulkNodeJobs bulkNodeJobs;
+
+    public void setBulkNodeJobs(BulkNodeJobs bulkNodeJobs)
+    {
+        this.bulkNodeJobs = bulkNodeJobs;
+    }
+
+    @Override
+    public void afterPropertiesSet()
+    {
+        ParameterCheck.mandatory("bulkNodeJobs", this.bulkNodeJobs);
+    }
+
+    @Override
+    @WebApiDescription(title = "Create bulk node job", description = "Deletes, moves or copies the nodes asynchronously, in batches.",
+                successStatus = HttpServletResponse.SC_ACCEPTED)
+    @WebApiParam(name = "entity", title = "Bulk node job request", description = "The action (delete, move or copy), the node ids and the target parent id (to move or copy).",
+                kind = ResourceParameter.KIND.HTTP_BODY_OBJECT, allowMultiple = false)
+    public List<BulkNodeJob> create(List<BulkNodeJob> entity, Parameters parameters)
+    {
+        BulkNodeJob job = bulkNodeJobs.createJob(entity.get(0));
+        return Collections.singletonList(job);
+    }
+
+    @Override
+    @WebApiDescription(title = "Get bulk node job", description = "Get the progress of the job: the processed items, throughput and errors.")
+    @WebApiParam(name = "jobId", title = "The job id")
+    public BulkNodeJob readById(String jobId, Parameters parameters) throws EntityNotFoundException
+    {
+        return bulkNodeJobs.getJob(jobId);
+    }
+
+    @Override
+    @WebApiDescription(title = "Cancel bulk node job", description = "Stop the job if still in progress.", successStatus = HttpServletResponse.SC_ACCEPTED)
+    public void delete(String jobId, Parameters parameters)
+    {
+        bulkNodeJobs.cancel(jobId);
+    }
+}
@@ -37,7 +37,9 @@ import org.alfresco.rest.framework.resource.actions.interfaces.MultiPartRelation
 import org.alfresco.rest.framework.resource.actions.interfaces.RelationshipResourceAction;
 import org.alfresco.rest.framework.resource.parameters.CollectionWithPagingInfo;
 import org.alfresco.rest.framework.resource.parameters.Parameters;
+import org.alfresco.rest.framework.webscripts.MultiPartStream;
 import org.alfresco.rest.framework.webscripts.WithResponse;
+import org.alfresco.util.Pair;
 import org.alfresco.util.ParameterCheck;
 import org.springframework.beans.factory.InitializingBean;
 import org.springframework.extensions.webscripts.servlet.FormData;
@@ -56,7 +58,8 @@ import org.springframework.extensions.webscripts.servlet.FormData;
 public class NodeChildrenRelation implements
         RelationshipResourceAction.Read<Node>,
         RelationshipResourceAction.Create<Node>,
-        MultiPartRelationshipResourceAction.Create<Node>, InitializingBean
+        MultiPartRelationshipResourceAction.Create<Node>,
+        MultiPartRelationshipResourceAction.CreateStreamed<Node>, InitializingBean
 {
     private Nodes nodes;
 
@@ -128,4 +131,17 @@ public class NodeChildrenRelation implements
         return nodes.upload(parentFolderNodeId, formData, parameters);
     }
 
+    /**
+     * Upload file content and meta-data, with the file written into the repository as it is received. The SHA-256 digest
+     * of the content is returned in the Digest header.
+     */
+    @Override
+    @WebApiDescription(title = "Upload file content and meta-data into the repository, as it is received.")
+    public Node createStreamed(String parentFolderNodeId, MultiPartStream formStream, Parameters parameters, WithResponse withResponse)
+    {
+        Pair<Node, String> uploaded = nodes.upload(parentFolderNodeId, formStream, parameters);
+        withResponse.setHeader("Digest", "SHA-256=" + uploaded.getSecond());
+        return uploaded.getFirst();
+    }
+
 }
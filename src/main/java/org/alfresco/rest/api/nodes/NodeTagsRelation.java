@@ -26,6 +26,7 @@
 package org.alfresco.rest.api.nodes;
 
 import java.util.List;
+import java.util.Map;
 
 import org.alfresco.rest.api.Tags;
 import org.alfresco.rest.api.model.Tag;
@@ -38,7 +39,8 @@ import org.alfresco.util.ParameterCheck;
 import org.springframework.beans.factory.InitializingBean;
 
 @RelationshipResource(name = "tags", entityResource = NodesEntityResource.class, title = "Document or folder tags")
-public class NodeTagsRelation implements RelationshipResourceAction.Create<Tag>, RelationshipResourceAction.Delete, RelationshipResourceAction.Read<Tag>, InitializingBean
+public class NodeTagsRelation implements RelationshipResourceAction.Create<Tag>, RelationshipResourceAction.Delete, RelationshipResourceAction.Read<Tag>,
+		RelationshipResourceAction.ReadForEntities<Tag>, InitializingBean
 {
 	private Tags tags;
 
@@ -77,5 +79,14 @@ public class NodeTagsRelation implements RelationshipResourceAction.Create<Tag>,
 	{
 		return tags.getTags(nodeId, params);
 	}
+
+	/**
+	 * The tags of each node in a page of nodes, eg. when listing children with relations=tags.
+	 */
+	@Override
+	public Map<String, CollectionWithPagingInfo<Tag>> readAllForEntities(List<String> nodeIds, Parameters params)
+	{
+		return tags.getTags(nodeIds, params);
+	}
 	
 }
\ No newline at end of file
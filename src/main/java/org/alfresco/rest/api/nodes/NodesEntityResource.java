@@ -26,25 +26,35 @@
 package org.alfresco.rest.api.nodes;
 
 import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
 
 import javax.servlet.http.HttpServletResponse;
 
 import org.alfresco.rest.api.Nodes;
 import org.alfresco.rest.api.model.LockInfo;
 import org.alfresco.rest.api.model.Node;
+import org.alfresco.rest.api.model.NodeBulkCreate;
+import org.alfresco.rest.api.model.NodeBulkCreateResult;
 import org.alfresco.rest.api.model.NodeTarget;
 import org.alfresco.rest.framework.BinaryProperties;
 import org.alfresco.rest.framework.Operation;
 import org.alfresco.rest.framework.WebApiDescription;
 import org.alfresco.rest.framework.WebApiParam;
 import org.alfresco.rest.framework.core.exceptions.EntityNotFoundException;
+import org.alfresco.rest.framework.core.exceptions.ErrorResponse;
+import org.alfresco.rest.framework.core.exceptions.InvalidArgumentException;
 import org.alfresco.rest.framework.resource.EntityResource;
 import org.alfresco.rest.framework.resource.actions.interfaces.BinaryResourceAction;
 import org.alfresco.rest.framework.resource.actions.interfaces.EntityResourceAction;
 import org.alfresco.rest.framework.resource.content.BasicContentInfo;
 import org.alfresco.rest.framework.resource.content.BinaryResource;
+import org.alfresco.rest.framework.resource.parameters.CollectionWithPagingInfo;
+import org.alfresco.rest.framework.resource.parameters.Paging;
 import org.alfresco.rest.framework.resource.parameters.Parameters;
+import org.alfresco.rest.framework.tools.ApiAssistant;
 import org.alfresco.rest.framework.webscripts.WithResponse;
+import org.alfresco.util.Pair;
 import org.alfresco.util.ParameterCheck;
 import org.springframework.beans.factory.InitializingBean;
 
@@ -61,16 +71,23 @@ public class NodesEntityResource implements
         BinaryResourceAction.Read, BinaryResourceAction.Update<Node>, InitializingBean
 {
     private Nodes nodes;
+    private ApiAssistant assistant;
 
     public void setNodes(Nodes nodes)
     {
         this.nodes = nodes;
     }
 
+    public void setAssistant(ApiAssistant assistant)
+    {
+        this.assistant = assistant;
+    }
+
 	@Override
     public void afterPropertiesSet()
     {
         ParameterCheck.mandatory("nodes", this.nodes);
+        ParameterCheck.mandatory("assistant", this.assistant);
     }
 	
     /**
@@ -81,7 +98,7 @@ public class NodesEntityResource implements
      * Optional parameters:
      * - path
      */
-    @WebApiDescription(title = "Get Node Information", description = "Get information for the node with id 'nodeId'")
+    @WebApiDescription(title = "Get Node Information", description = "Get information for the node with id 'nodeId'", conditional = true)
     @WebApiParam(name = "nodeId", title = "The node id")
     public Node readById(String nodeId, Parameters parameters)
     {
@@ -180,6 +197,36 @@ public class NodesEntityResource implements
         return nodes.lock(nodeId, lockInfo, parameters);
     }
     
+    @Operation("create-children")
+    @WebApiDescription(title = "Create Children in Bulk",
+            description="Creates many nodes (folders or empty files) below the folder, in batches. Returns the created node or the error for each node.",
+            successStatus = HttpServletResponse.SC_OK)
+    public CollectionWithPagingInfo<NodeBulkCreateResult> createChildren(String parentFolderNodeId, NodeBulkCreate bulkCreate, Parameters parameters,
+                                                                         WithResponse withResponse)
+    {
+        if (bulkCreate == null)
+        {
+            throw new InvalidArgumentException("Nodes are expected");
+        }
+
+        List<Pair<Node, RuntimeException>> created = nodes.createNodes(parentFolderNodeId, bulkCreate.getNodes(), parameters);
+        List<NodeBulkCreateResult> results = new ArrayList<>(created.size());
+        for (int i = 0; i < created.size(); i++)
+        {
+            Pair<Node, RuntimeException> result = created.get(i);
+            if (result.getSecond() == null)
+            {
+                results.add(new NodeBulkCreateResult(i, HttpServletResponse.SC_CREATED, result.getFirst(), null));
+            }
+            else
+            {
+                ErrorResponse error = assistant.resolvePublicException(result.getSecond());
+                results.add(new NodeBulkCreateResult(i, error.getStatusCode(), null, error));
+            }
+        }
+        return CollectionWithPagingInfo.asPaged(Paging.DEFAULT, results);
+    }
+
     @Operation("unlock")
     @WebApiDescription(title = "Unlock Node",
             description="Removes a lock on a node.",
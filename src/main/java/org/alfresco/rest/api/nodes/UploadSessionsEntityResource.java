@@ -0,0 +1,125 @@
+/*
+ * #%L
+ * Alfresco Remote API
+ * %%
+ * Copyright (C) 2005 - 2020 Alfresco Software Limited
+ * %%
+ * This file is part of the Alfresco software.
+ * If the software was purchased under a paid Alfresco license, the terms of
+ * the paid license agreement will prevail.  Otherwise, the software is
+ * provided under the following open source license terms:
+ *
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+package org.alfresco.rest.api.nodes;
+
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.List;
+
+import org.alfresco.rest.api.UploadSessions;
+import org.alfresco.rest.api.model.Node;
+import org.alfresco.rest.api.model.UploadSession;
+import org.alfresco.rest.framework.BinaryProperties;
+import org.alfresco.rest.framework.Operation;
+import org.alfresco.rest.framework.WebApiDescription;
+import org.alfresco.rest.framework.WebApiParam;
+import org.alfresco.rest.framework.core.ResourceParameter;
+import org.alfresco.rest.framework.core.exceptions.EntityNotFoundException;
+import org.alfresco.rest.framework.core.exceptions.InvalidArgumentException;
+import org.alfresco.rest.framework.resource.EntityResource;
+import org.alfresco.rest.framework.resource.actions.interfaces.BinaryResourceAction;
+import org.alfresco.rest.framework.resource.actions.interfaces.EntityResourceAction;
+import org.alfresco.rest.framework.resource.content.BasicContentInfo;
+import org.alfresco.rest.framework.resource.parameters.Parameters;
+import org.alfresco.rest.framework.webscripts.WithResponse;
+import org.alfresco.util.ParameterCheck;
+import org.springframework.beans.factory.InitializingBean;
+
+/**
+ * An entity resource for upload sessions: uploads the content of a file in chunks (in parallel, in any order), then commits it.
+ */
+@EntityResource(name = "upload-sessions", title = "Upload Sessions")
+public class UploadSessionsEntityResource implements EntityResourceAction.Create<UploadSession>, EntityResourceAction.ReadById<UploadSession>,
+            EntityResourceAction.Delete, BinaryResourceAction.Update<UploadSession>, InitializingBean
+{
+    private UploadSessions uploadSessions;
+
+    public void setUploadSessions(UploadSessions uploadSessions)
+    {
+        this.uploadSessions = uploadSessions;
+    }
+
+    @Override
+    public void afterPropertiesSet()
+    {
+        ParameterCheck.mandatory("uploadSessions", this.uploadSessions);
+    }
+
+    @Override
+    @WebApiDescription(title = "Create upload session", description = "Starts the upload of the content of a file, in chunks.")
+    @WebApiParam(name = "entity", title = "Upload session request", description = "The file node id, the size of the content and, optionally, its mimetype and encoding.",
+                kind = ResourceParameter.KIND.HTTP_BODY_OBJECT, allowMultiple = false)
+    public List<UploadSession> create(List<UploadSession> entity, Parameters parameters)
+    {
+        UploadSession session = uploadSessions.createSession(entity.get(0));
+        return Collections.singletonList(session);
+    }
+
+    @Override
+    @WebApiDescription(title = "Get upload session", description = "Get the progress of the session: the byte ranges received so far.")
+    @WebApiParam(name = "sessionId", title = "The session id")
+    public UploadSession readById(String sessionId, Parameters parameters) throws EntityNotFoundException
+    {
+        return uploadSessions.getSession(sessionId);
+    }
+
+    /**
+     * Uploads a chunk, at the position given by the "offset" parameter.
+     */
+    @Override
+    @WebApiDescription(title = "Upload chunk", description = "Upload a chunk of the content, at the given offset.")
+    @BinaryProperties({"content"})
+    public UploadSession updateProperty(String sessionId, BasicContentInfo contentInfo, InputStream stream, Parameters parameters)
+    {
+        String offset = parameters.getParameter(UploadSessions.PARAM_OFFSET);
+        if (offset == null)
+        {
+            throw new InvalidArgumentException("The offset of the chunk is expected");
+        }
+        try
+        {
+            return uploadSessions.putChunk(sessionId, Long.parseLong(offset), stream);
+        }
+        catch (NumberFormatException nfe)
+        {
+            throw new InvalidArgumentException("Invalid offset: " + offset);
+        }
+    }
+
+    @Operation("commit")
+    @WebApiDescription(title = "Commit upload session", description = "Sets the chunks as the new content of the file.")
+    public Node commit(String sessionId, Void ignore, Parameters parameters, WithResponse withResponse)
+    {
+        return uploadSessions.commit(sessionId, parameters);
+    }
+
+    @Override
+    @WebApiDescription(title = "Cancel upload session", description = "Removes the session and the chunks received so far.")
+    public void delete(String sessionId, Parameters parameters)
+    {
+        uploadSessions.cancel(sessionId);
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * #%L
+ * Alfresco Remote API
+ * %%
+ * Copyright (C) 2005 - 2020 Alfresco Software Limited
+ * %%
+ * This file is part of the Alfresco software.
+ * If the software was purchased under a paid Alfresco license, the terms of
+ * the paid license agreement will prevail.  Otherwise, the software is
+ * provided under the following open source license terms:
+ *
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+package org.alfresco.rest.api.probes;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.alfresco.rest.api.model.RequestTiming;
+import org.alfresco.rest.framework.WebApiDescription;
+import org.alfresco.rest.framework.core.exceptions.PermissionDeniedException;
+import org.alfresco.rest.framework.resource.EntityResource;
+import org.alfresco.rest.framework.resource.actions.interfaces.EntityResourceAction;
+import org.alfresco.rest.framework.resource.parameters.CollectionWithPagingInfo;
+import org.alfresco.rest.framework.resource.parameters.Paging;
+import org.alfresco.rest.framework.resource.parameters.Parameters;
+import org.alfresco.rest.framework.tools.LatencyHistogram;
+import org.alfresco.rest.framework.tools.RequestPhaseMetrics;
+import org.alfresco.rest.framework.tools.RequestPhaseTimings.Phase;
+import org.alfresco.service.cmr.security.AuthorityService;
+
+/**
+ * An implementation of an Entity Resource for the latency, per phase, of the REST operations
+ * (see alfresco.restApi.phaseTimings.enabled). Only available to administrators.
+ */
+@EntityResource(name="request-timings", title = "Request timings")
+public class RequestTimingsEntityResource implements EntityResourceAction.Read<RequestTiming>
+{
+    private RequestPhaseMetrics phaseMetrics;
+    private AuthorityService authorityService;
+
+    public void setPhaseMetrics(RequestPhaseMetrics phaseMetrics)
+    {
+        this.phaseMetrics = phaseMetrics;
+    }
+
+    public void setAuthorityService(AuthorityService authorityService)
+    {
+        this.authorityService = authorityService;
+    }
+
+    @Override
+    @WebApiDescription(title="Get the request timings", description = "Returns the latency histograms of each phase of the REST operations")
+    public CollectionWithPagingInfo<RequestTiming> readAll(Parameters parameters)
+    {
+        if (!authorityService.hasAdminAuthority())
+        {
+            throw new PermissionDeniedException();
+        }
+
+        List<RequestTiming> timings = new ArrayList<>();
+        for (String operation : phaseMetrics.getOperations())
+        {
+            for (Phase phase : Phase.values())
+            {
+                LatencyHistogram histogram = phaseMetrics.getHistogram(operation, phase);
+                if (histogram != null && histogram.getCount() > 0)
+                {
+                    timings.add(new RequestTiming(operation, phase.getMetricName(), histogram.getCount(), histogram.getMean(),
+                                histogram.getValueAtPercentile(50), histogram.getValueAtPercentile(90), histogram.getValueAtPercentile(99),
+                                histogram.getMax()));
+                }
+            }
+        }
+
+        Paging paging = parameters.getPaging();
+        int skipCount = Math.min(paging.getSkipCount(), timings.size());
+        int end = (int) Math.min((long) skipCount + paging.getMaxItems(), timings.size());
+        return CollectionWithPagingInfo.asPaged(paging, timings.subList(skipCount, end), end < timings.size(), timings.size());
+    }
+}
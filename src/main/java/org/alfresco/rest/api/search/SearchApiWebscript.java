@@ -29,6 +29,7 @@ import org.alfresco.rest.api.model.Node;
 import org.alfresco.rest.api.search.context.SearchRequestContext;
 import org.alfresco.rest.api.search.impl.ResultMapper;
 import org.alfresco.rest.api.search.impl.SearchMapper;
+import org.alfresco.rest.api.search.impl.SearchResultsCache;
 import org.alfresco.rest.api.search.model.SearchQuery;
 import org.alfresco.rest.framework.jacksonextensions.BeanPropertiesFilter;
 import org.alfresco.rest.framework.resource.parameters.CollectionWithPagingInfo;
@@ -62,10 +63,11 @@ import java.util.List;
 public class SearchApiWebscript extends AbstractWebScript implements RecognizedParamsExtractor, RequestReader, ResponseWriter,
                                                                 InitializingBean
 {
-    private ServiceRegistry serviceRegistry;
-    private SearchService searchService;
-    private SearchMapper searchMapper;
-    private ResultMapper resultMapper;
+    protected ServiceRegistry serviceRegistry;
+    protected SearchService searchService;
+    protected SearchMapper searchMapper;
+    protected ResultMapper resultMapper;
+    private SearchResultsCache searchResultsCache;
     protected ApiAssistant assistant;
     protected ResourceWebScriptHelper helper;
 
@@ -96,8 +98,9 @@ public class SearchApiWebscript extends AbstractWebScript implements RecognizedP
             //Turn the SearchQuery json into the Java SearchParameters object
             SearchParameters searchParams = searchMapper.toSearchParameters(params, searchQuery, searchRequestContext);
 
-            //Call searchService
-            ResultSet results = searchService.query(searchParams);
+            //Call searchService (unless the same query has just been made with the same authorities)
+            ResultSet results = (searchResultsCache != null ? searchResultsCache.query(searchQuery, () -> searchService.query(searchParams))
+                                                            : searchService.query(searchParams));
 
             //Turn solr results into JSON
             CollectionWithPagingInfo<Node> resultJson = resultMapper.toCollectionWithPagingInfo(params, searchRequestContext, searchQuery, results);
@@ -153,6 +156,11 @@ public class SearchApiWebscript extends AbstractWebScript implements RecognizedP
         this.resultMapper = resultMapper;
     }
 
+    public void setSearchResultsCache(SearchResultsCache searchResultsCache)
+    {
+        this.searchResultsCache = searchResultsCache;
+    }
+
     public void setAssistant(ApiAssistant assistant) {
         this.assistant = assistant;
     }
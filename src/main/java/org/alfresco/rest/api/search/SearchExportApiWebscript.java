@@ -0,0 +1,302 @@
+/*
+ * #%L
+ * Alfresco Remote API
+ * %%
+ * Copyright (C) 2005 - 2020 Alfresco Software Limited
+ * %%
+ * This file is part of the Alfresco software.
+ * If the software was purchased under a paid Alfresco license, the terms of
+ * the paid license agreement will prevail.  Otherwise, the software is
+ * provided under the following open source license terms:
+ *
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+package org.alfresco.rest.api.search;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.alfresco.model.ContentModel;
+import org.alfresco.repo.security.permissions.impl.acegi.FilteringResultSet;
+import org.alfresco.repo.transaction.RetryingTransactionHelper.RetryingTransactionCallback;
+import org.alfresco.rest.api.model.Node;
+import org.alfresco.rest.api.search.context.SearchRequestContext;
+import org.alfresco.rest.api.search.impl.StoreMapper;
+import org.alfresco.rest.api.search.model.SearchQuery;
+import org.alfresco.rest.framework.core.exceptions.InvalidArgumentException;
+import org.alfresco.rest.framework.resource.parameters.CollectionWithPagingInfo;
+import org.alfresco.rest.framework.resource.parameters.Paging;
+import org.alfresco.rest.framework.resource.parameters.Params;
+import org.alfresco.service.cmr.repository.InvalidNodeRefException;
+import org.alfresco.service.cmr.search.ResultSet;
+import org.alfresco.service.cmr.search.ResultSetRow;
+import org.alfresco.service.cmr.search.SearchParameters;
+import org.alfresco.service.cmr.search.SearchParameters.SortDefinition;
+import org.alfresco.service.cmr.search.SearchService;
+import org.alfresco.service.transaction.TransactionService;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.json.simple.JSONObject;
+import org.springframework.extensions.webscripts.WebScriptRequest;
+import org.springframework.extensions.webscripts.WebScriptResponse;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * An implementation of the {{baseUrl}}/{{networkId}}/public/search/versions/1/export endpoint: returns all the nodes
+ * matching a query as newline-delimited JSON (one entry per line), written as they are found.
+ * <p>
+ * Rather than paging with skipCount (that gets slower with each page), the results are read in batches in db id order:
+ * each batch only asks for the nodes after the last db id of the previous batch (or, if none of its nodes exist any more,
+ * skips past it). Each batch is searched and its nodes
+ * built in a read-only transaction of its own, then written and flushed, so that the memory used doesn't grow with the
+ * number of results. The export stops when the client goes away (ie. as soon as a batch can't be written).
+ */
+public class SearchExportApiWebscript extends SearchApiWebscript
+{
+    private static final Log logger = LogFactory.getLog(SearchExportApiWebscript.class);
+
+    public static final String MIMETYPE_NDJSON = "application/x-ndjson";
+
+    private static final String DBID_FIELD = "sys:node-dbid";
+
+    private int batchSize = 500;
+
+    public void setBatchSize(int batchSize)
+    {
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public void execute(WebScriptRequest webScriptRequest, WebScriptResponse webScriptResponse) throws IOException
+    {
+        final SearchQuery searchQuery;
+        final Params params;
+        try
+        {
+            searchQuery = extractJsonContent(webScriptRequest, assistant.getJsonHelper(), SearchQuery.class);
+            if ((searchQuery.getSort() != null) && !searchQuery.getSort().isEmpty())
+            {
+                throw new InvalidArgumentException(InvalidArgumentException.DEFAULT_MESSAGE_ID,
+                            new Object[] { ": sort {} not allowed with an export, the nodes are exported in db id order" });
+            }
+            params = getParams(webScriptRequest, searchQuery.getFields(), searchQuery.getInclude(), Paging.valueOf(0, batchSize));
+
+            // check the query before the response starts
+            SearchRequestContext searchRequestContext = SearchRequestContext.from(searchQuery);
+            SearchParameters searchParams = searchMapper.toSearchParameters(params, searchQuery, searchRequestContext);
+            if (SearchService.LANGUAGE_CMIS_ALFRESCO.equals(searchParams.getLanguage()))
+            {
+                throw new InvalidArgumentException(InvalidArgumentException.DEFAULT_MESSAGE_ID,
+                            new Object[] { ": cmis language not allowed with an export" });
+            }
+            for (String store : searchRequestContext.getStores())
+            {
+                if (!StoreMapper.LIVE_NODES.equals(store))
+                {
+                    throw new InvalidArgumentException(InvalidArgumentException.DEFAULT_MESSAGE_ID,
+                                new Object[] { ": only live nodes can be exported" });
+                }
+            }
+        }
+        catch (Exception exception)
+        {
+            renderException(exception, webScriptResponse, assistant);
+            return;
+        }
+
+        export(webScriptResponse, searchQuery, params);
+    }
+
+    /**
+     * Writes the export as the response, or the error if the first batch can't be searched (as nothing has been written then).
+     */
+    void export(WebScriptResponse webScriptResponse, final SearchQuery searchQuery, final Params params) throws IOException
+    {
+        setResponse(webScriptResponse, DEFAULT_SUCCESS);
+        webScriptResponse.setContentType(MIMETYPE_NDJSON);
+        try
+        {
+            export(webScriptResponse.getOutputStream(), searchQuery, params);
+        }
+        catch (RuntimeException exception)
+        {
+            renderException(exception, webScriptResponse, assistant);
+        }
+    }
+
+    /**
+     * Writes the nodes matching the query, a batch at a time. If a batch can't be searched once the response has started
+     * (ie. after the first flush) then the export ends with a line holding the error, so that it can't be taken for a
+     * complete export.
+     */
+    void export(OutputStream out, final SearchQuery searchQuery, final Params params) throws IOException
+    {
+        assistant.getJsonHelper().withWriter(out, (generator, objectMapper) ->
+        {
+            generator.setRootValueSeparator(new SerializedString("\n"));
+            Long lastDbid = null;
+            int skipCount = 0;
+            int exported = 0;
+            boolean flushed = false;
+            while (true)
+            {
+                Batch batch;
+                try
+                {
+                    batch = searchBatch(searchQuery, params, lastDbid, skipCount);
+                }
+                catch (RuntimeException error)
+                {
+                    if (!flushed)
+                    {
+                        throw error;
+                    }
+                    logger.warn("Search export failed after " + exported + " nodes: " + error.getMessage());
+                    writeError(generator, objectMapper, error);
+                    return;
+                }
+                try
+                {
+                    for (Object entry : batch.entries)
+                    {
+                        objectMapper.writeValue(generator, entry);
+                    }
+                    generator.flush();
+                    flushed = true;
+                }
+                catch (IOException ioe)
+                {
+                    logger.debug("Search export cancelled after " + exported + " nodes: " + ioe.getMessage());
+                    return;
+                }
+                exported += batch.entries.size();
+
+                if (batch.numberFound <= skipCount + batchSize)
+                {
+                    break;
+                }
+                if (batch.lastDbid != null)
+                {
+                    lastDbid = batch.lastDbid;
+                    skipCount = 0;
+                }
+                else
+                {
+                    // none of the nodes of the batch exist any more, so there is no db id to continue from
+                    skipCount += batchSize;
+                }
+            }
+            generator.writeRaw('\n');
+            generator.flush();
+
+            if (logger.isDebugEnabled())
+            {
+                logger.debug("Search export done: " + exported + " nodes");
+            }
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private void writeError(JsonGenerator generator, ObjectMapper objectMapper, Exception error)
+    {
+        try
+        {
+            JSONObject obj = new JSONObject();
+            obj.put("error", toPublicErrorResponse(assistant.resolveException(error)));
+            objectMapper.writeValue(generator, obj);
+            generator.writeRaw('\n');
+            generator.flush();
+        }
+        catch (IOException ioe)
+        {
+            logger.debug("Failed to write the search export error: " + ioe.getMessage());
+        }
+    }
+
+    /**
+     * Searches the nodes after the given db id and builds them, in a read-only transaction.
+     */
+    private Batch searchBatch(final SearchQuery searchQuery, final Params params, final Long afterDbid, final int skipCount)
+    {
+        TransactionService transactionService = serviceRegistry.getTransactionService();
+        RetryingTransactionCallback<Batch> callback = () ->
+        {
+            SearchRequestContext searchRequestContext = SearchRequestContext.from(searchQuery);
+            SearchParameters searchParams = searchMapper.toSearchParameters(params, searchQuery, searchRequestContext);
+            searchParams.addSort(new SortDefinition(SortDefinition.SortType.FIELD, DBID_FIELD, true));
+            if (afterDbid != null)
+            {
+                searchParams.addFilterQuery(DBID_FIELD + ":[" + (afterDbid + 1) + " TO MAX]");
+            }
+            searchParams.setSkipCount(skipCount);
+
+            ResultSet results = searchService.query(searchParams);
+
+            // the position of the batch is that of all its rows, including the ones that the user can't read
+            ResultSet unfiltered = results;
+            if (results instanceof FilteringResultSet)
+            {
+                unfiltered = ((FilteringResultSet) results).getUnFilteredResultSet();
+            }
+            Batch batch = new Batch();
+            batch.numberFound = unfiltered.getNumberFound();
+            for (ResultSetRow row : unfiltered)
+            {
+                Long dbid = getDbid(row);
+                if ((dbid != null) && ((batch.lastDbid == null) || (dbid > batch.lastDbid)))
+                {
+                    batch.lastDbid = dbid;
+                }
+            }
+
+            CollectionWithPagingInfo<Node> nodes = resultMapper.toCollectionWithPagingInfo(params, searchRequestContext, searchQuery, results);
+            for (Node node : nodes.getCollection())
+            {
+                batch.entries.add(helper.processAdditionsToTheResponse(null, null, null, params, node));
+            }
+            return batch;
+        };
+        return transactionService.getRetryingTransactionHelper().doInTransaction(callback, true, true);
+    }
+
+    /**
+     * @return the db id of the row's node (the field that the results are sorted and filtered by) or null if it has gone
+     */
+    private static Long getDbid(ResultSetRow row)
+    {
+        try
+        {
+            Serializable dbid = row.getValue(ContentModel.PROP_NODE_DBID);
+            return (dbid instanceof Number ? ((Number) dbid).longValue() : null);
+        }
+        catch (InvalidNodeRefException error)
+        {
+            return null;
+        }
+    }
+
+    private static class Batch
+    {
+        private final List<Object> entries = new ArrayList<>();
+        private long numberFound;
+        private Long lastDbid;
+    }
+}
@@ -25,6 +25,7 @@
  */
 package org.alfresco.rest.api.search;
 import java.io.IOException;
+import java.io.StringReader;
 import java.util.Locale;
 
 import org.alfresco.error.AlfrescoRuntimeException;
@@ -34,8 +35,6 @@ import org.alfresco.repo.security.permissions.impl.acegi.FilteringResultSet;
 import org.alfresco.rest.api.search.impl.ResultMapper;
 import org.alfresco.rest.api.search.impl.SearchMapper;
 import org.alfresco.rest.api.search.model.SearchSQLQuery;
-import org.alfresco.rest.api.search.model.TupleList;
-import org.alfresco.rest.framework.resource.parameters.CollectionWithPagingInfo;
 import org.alfresco.rest.framework.tools.ApiAssistant;
 import org.alfresco.rest.framework.tools.RecognizedParamsExtractor;
 import org.alfresco.rest.framework.tools.RequestReader;
@@ -49,6 +48,8 @@ import org.alfresco.service.cmr.search.SearchService;
 import org.alfresco.util.ParameterCheck;
 import org.alfresco.util.PropertyCheck;
 import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
 import org.springframework.beans.factory.InitializingBean;
 import org.springframework.extensions.webscripts.AbstractWebScript;
 import org.springframework.extensions.webscripts.WebScriptException;
@@ -67,6 +68,8 @@ public class SearchSQLApiWebscript extends AbstractWebScript implements Recogniz
                                                                         ResponseWriter,
                                                                         InitializingBean
 {
+    private static final Log logger = LogFactory.getLog(SearchSQLApiWebscript.class);
+
     private ServiceRegistry serviceRegistry;
     private SearchService searchService;
     private SearchMapper searchMapper;
@@ -77,6 +80,7 @@ public class SearchSQLApiWebscript extends AbstractWebScript implements Recogniz
     @Override
     public void execute(WebScriptRequest webScriptRequest, WebScriptResponse res) throws IOException
     {
+        boolean streaming = false;
         try
         {
             //Turn JSON into a Java object representation
@@ -90,17 +94,25 @@ public class SearchSQLApiWebscript extends AbstractWebScript implements Recogniz
             if(searchQuery.getFormat().equalsIgnoreCase("solr"))
             {
                 res.getWriter().write(ssjr.getSolrResponse());
+                setResponse(res, DEFAULT_SUCCESS);
             }
             else
             {
-                CollectionWithPagingInfo<TupleList> nodes = resultMapper.toCollectionWithPagingInfo(ssjr.getDocs(), searchQuery);
-                renderJsonResponse(res, nodes, assistant.getJsonHelper());
+                //Write each tuple as it is parsed
+                streaming = true;
+                setResponse(res, DEFAULT_SUCCESS);
+                assistant.getJsonHelper().withWriter(res.getOutputStream(), (generator, objectMapper) ->
+                            resultMapper.writeTupleList(new StringReader(ssjr.getSolrResponse()), searchQuery, generator, objectMapper));
             }
-            setResponse(res, DEFAULT_SUCCESS);
         }
         catch (Exception exception) 
         {
-            if (exception instanceof LuceneQueryParserException)
+            if (streaming)
+            {
+                //The status and part of the entries have been sent, an error response can't be rendered anymore
+                logger.error("Failed to write the SQL search response, it has been truncated", exception);
+            }
+            else if (exception instanceof LuceneQueryParserException)
             {
                 renderException(exception,res,assistant);
             }
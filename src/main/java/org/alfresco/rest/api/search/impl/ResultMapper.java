@@ -31,19 +31,33 @@ import static org.alfresco.rest.api.search.impl.StoreMapper.HISTORY;
 import static org.alfresco.rest.api.search.impl.StoreMapper.LIVE_NODES;
 import static org.alfresco.rest.api.search.impl.StoreMapper.VERSIONS;
 
+import java.io.IOException;
+import java.io.Reader;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.stream.Collectors;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.alfresco.error.AlfrescoRuntimeException;
+import org.alfresco.repo.domain.node.NodeDAO;
 import org.alfresco.repo.search.impl.lucene.SolrJSONResultSet;
 import org.alfresco.repo.search.impl.solr.facet.facetsresponse.GenericBucket;
 import org.alfresco.repo.search.impl.solr.facet.facetsresponse.GenericFacetResponse;
@@ -52,7 +66,10 @@ import org.alfresco.repo.search.impl.solr.facet.facetsresponse.Metric;
 import org.alfresco.repo.search.impl.solr.facet.facetsresponse.Metric.METRIC_TYPE;
 import org.alfresco.repo.search.impl.solr.facet.facetsresponse.RangeResultMapper;
 import org.alfresco.repo.search.impl.solr.facet.facetsresponse.SimpleMetric;
+import org.alfresco.repo.security.authentication.AuthenticationUtil;
 import org.alfresco.repo.security.permissions.impl.acegi.FilteringResultSet;
+import org.alfresco.repo.tenant.TenantUtil;
+import org.alfresco.repo.transaction.RetryingTransactionHelper.RetryingTransactionCallback;
 import org.alfresco.repo.version.Version2Model;
 import org.alfresco.rest.api.DeletedNodes;
 import org.alfresco.rest.api.Nodes;
@@ -78,6 +95,7 @@ import org.alfresco.rest.framework.core.exceptions.EntityNotFoundException;
 import org.alfresco.rest.framework.resource.parameters.CollectionWithPagingInfo;
 import org.alfresco.rest.framework.resource.parameters.Paging;
 import org.alfresco.rest.framework.resource.parameters.Params;
+import org.alfresco.rest.framework.tools.RecognizedParamsExtractor;
 import org.alfresco.service.ServiceRegistry;
 import org.alfresco.service.cmr.repository.InvalidNodeRefException;
 import org.alfresco.service.cmr.repository.NodeRef;
@@ -89,6 +107,7 @@ import org.alfresco.service.cmr.search.ResultSetRow;
 import org.alfresco.service.cmr.search.SpellCheckResult;
 import org.alfresco.service.cmr.version.Version;
 import org.alfresco.service.namespace.QName;
+import org.alfresco.service.transaction.TransactionService;
 import org.alfresco.util.Pair;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -109,6 +128,10 @@ public class ResultMapper
     private PropertyLookupRegistry propertyLookup;
     private StoreMapper storeMapper;
     private DeletedNodes deletedNodes;
+    private NodeDAO nodeDAO;
+    private TransactionService transactionService;
+    private ExecutorService hydrationExecutor;
+    private int hydrationThreads = 1;
     private static Log logger = LogFactory.getLog(ResultMapper.class);
 
     public ResultMapper()
@@ -145,6 +168,30 @@ public class ResultMapper
         this.propertyLookup = propertyLookup;
     }
 
+    public void setNodeDAO(NodeDAO nodeDAO)
+    {
+        this.nodeDAO = nodeDAO;
+    }
+
+    public void setTransactionService(TransactionService transactionService)
+    {
+        this.transactionService = transactionService;
+    }
+
+    public void setHydrationExecutor(ExecutorService hydrationExecutor)
+    {
+        this.hydrationExecutor = hydrationExecutor;
+    }
+
+    /**
+     * @param hydrationThreads the number of threads that build the nodes of a page of results, 1 to build them on the
+     *                         request thread only
+     */
+    public void setHydrationThreads(int hydrationThreads)
+    {
+        this.hydrationThreads = Math.max(1, hydrationThreads);
+    }
+
     /**
      * Turns the results into a CollectionWithPagingInfo
      * @param params
@@ -156,14 +203,22 @@ public class ResultMapper
         SearchContext context = null;
         Integer total = null;
         List<Node> noderesults = new ArrayList<Node>();
-        Map<String, UserInfo> mapUserInfo = new HashMap<>(10);
+        Map<String, UserInfo> mapUserInfo = Collections.synchronizedMap(new HashMap<>(10));
         Map<NodeRef, List<Pair<String, List<String>>>> hightLighting = results.getHighlighting();
         int notFound = 0;
         boolean isHistory = searchRequestContext.getStores().contains(StoreMapper.HISTORY);
 
+        List<ResultSetRow> rows = new ArrayList<>();
         for (ResultSetRow row:results)
         {
-            Node aNode = getNode(row, params, mapUserInfo, isHistory);
+            rows.add(row);
+        }
+        Node[] hydrated = hydrate(rows, params, mapUserInfo, isHistory);
+
+        for (int i = 0; i < rows.size(); i++)
+        {
+            ResultSetRow row = rows.get(i);
+            Node aNode = hydrated[i];
 
             if (aNode != null)
             {
@@ -202,6 +257,128 @@ public class ResultMapper
         return CollectionWithPagingInfo.asPaged(params.getPaging(), noderesults, results.hasMore(), total, null, context);
     }
 
+    /**
+     * Builds the nodes of the rows, in the order of the rows (null for a row whose node can't be found).
+     * <p>
+     * The rows are split into contiguous slices, one per hydration thread: the request thread builds the first slice,
+     * the others are built on the hydration executor, as the current user in the current tenant, each in its own
+     * read-only transaction (the search doesn't write anything before, so they see what the request sees). The nodes
+     * of each slice are bulk loaded first, rather than one by one while building them.
+     *
+     * @param rows the rows of the page of results
+     * @return the nodes, indexed as the rows
+     */
+    private Node[] hydrate(final List<ResultSetRow> rows, final Params params, final Map<String, UserInfo> mapUserInfo, final boolean isHistory)
+    {
+        final Node[] hydrated = new Node[rows.size()];
+        int slices = (canHydrateInParallel(rows.size()) ? Math.min(hydrationThreads, rows.size()) : 1);
+        if (slices == 1)
+        {
+            hydrateSlice(rows, 0, rows.size(), hydrated, params, mapUserInfo, isHistory);
+            return hydrated;
+        }
+
+        final String runAsUser = AuthenticationUtil.getRunAsUser();
+        final String tenantDomain = TenantUtil.getCurrentDomain();
+        int sliceSize = (rows.size() + slices - 1) / slices;
+        List<Future<Void>> submitted = new ArrayList<>(slices - 1);
+        try
+        {
+            for (int from = sliceSize; from < rows.size(); from += sliceSize)
+            {
+                final int start = from;
+                final int end = Math.min(from + sliceSize, rows.size());
+                try
+                {
+                    submitted.add(hydrationExecutor.submit(() -> TenantUtil.runAsUserTenant(() ->
+                    {
+                        RetryingTransactionCallback<Void> callback = () ->
+                        {
+                            hydrateSlice(rows, start, end, hydrated, params, mapUserInfo, isHistory);
+                            return null;
+                        };
+                        return transactionService.getRetryingTransactionHelper().doInTransaction(callback, true, true);
+                    }, runAsUser, tenantDomain)));
+                }
+                catch (RejectedExecutionException ree)
+                {
+                    logger.debug("Hydration executor is full, building the search results on the request thread.");
+                    hydrateSlice(rows, start, end, hydrated, params, mapUserInfo, isHistory);
+                }
+            }
+
+            hydrateSlice(rows, 0, sliceSize, hydrated, params, mapUserInfo, isHistory);
+
+            for (Future<Void> future : submitted)
+            {
+                future.get();
+            }
+        }
+        catch (ExecutionException ee)
+        {
+            // as if built on the request thread
+            if (ee.getCause() instanceof RuntimeException)
+            {
+                throw (RuntimeException) ee.getCause();
+            }
+            throw new AlfrescoRuntimeException("Failed to build the search results", ee.getCause());
+        }
+        catch (InterruptedException ie)
+        {
+            Thread.currentThread().interrupt();
+            throw new AlfrescoRuntimeException("Interrupted while building the search results", ie);
+        }
+        finally
+        {
+            for (Future<Void> future : submitted)
+            {
+                future.cancel(true);
+            }
+        }
+        return hydrated;
+    }
+
+    private boolean canHydrateInParallel(int rowCount)
+    {
+        return hydrationThreads > 1 && hydrationExecutor != null && transactionService != null
+                    && rowCount > 1
+                    && AuthenticationUtil.getRunAsUser() != null;
+    }
+
+    private void hydrateSlice(List<ResultSetRow> rows, int from, int to, Node[] hydrated, Params params, Map<String, UserInfo> mapUserInfo, boolean isHistory)
+    {
+        preloadNodes(rows.subList(from, to), isHistory);
+        for (int i = from; i < to; i++)
+        {
+            hydrated[i] = getNode(rows.get(i), params, mapUserInfo, isHistory);
+        }
+    }
+
+    /**
+     * Bulk loads the live nodes of the rows (aspects, properties and parent assocs) into the node caches, so that
+     * building each node doesn't go back to the database node by node.
+     */
+    private void preloadNodes(List<ResultSetRow> rows, boolean isHistory)
+    {
+        if ((nodeDAO == null) || (rows.size() < 2))
+        {
+            return;
+        }
+
+        List<NodeRef> nodeRefs = new ArrayList<>(rows.size());
+        for (ResultSetRow row : rows)
+        {
+            if (isHistory || LIVE_NODES.equals(storeMapper.getStore(row.getNodeRef())))
+            {
+                nodeRefs.add(row.getNodeRef());
+            }
+        }
+        if (nodeRefs.size() > 1)
+        {
+            nodeDAO.cacheNodes(nodeRefs);
+        }
+    }
+
     /**
      * Builds a node representation based on a ResultSetRow;
      * @param searchRequestContext
@@ -453,8 +630,10 @@ public class ResultMapper
                    bucks.add(foundStat.get().getBuckets().get(0));
                    stats.remove(foundStat.get());
                 }
+                Map<String, Object> displays = propertyLookup.lookupAll(aFacet.getLabel(),
+                            aFacet.getBuckets().stream().map(GenericBucket::getLabel).filter(Objects::nonNull).collect(Collectors.toSet()));
                 bucks.addAll(aFacet.getBuckets().stream().map(genericBucket -> {
-                    Object display = propertyLookup.lookup(aFacet.getLabel(), genericBucket.getLabel());
+                    Object display = displays.get(genericBucket.getLabel());
                     return new GenericBucket(genericBucket.getLabel(), genericBucket.getFilterQuery(),
                                 display,genericBucket.getMetrics(), getPivots(searchRequest, genericBucket.getFacets(), stats));
                 }).collect(Collectors.toList()));
@@ -475,27 +654,12 @@ public class ResultMapper
                 if (facet.getValue() != null && !facet.getValue().isEmpty())
                 {
                     List<GenericBucket> buckets = new ArrayList<>(facet.getValue().size());
+                    Optional<FacetField> found = findFacetField(facet.getKey(), searchQuery);
+                    Map<String, Object> displays = found.isPresent() ? lookupBucketLabels(found.get().getField(), facet.getValue()) : Collections.emptyMap();
                     for (Pair<String, Integer> buck:facet.getValue())
                     {
-                        Object display = null;
-                        String filterQuery = null;
-                        if (searchQuery != null
-                                    && searchQuery.getFacetFields() != null
-                                    && searchQuery.getFacetFields().getFacets() != null
-                                    && !searchQuery.getFacetFields().getFacets().isEmpty())
-                        {
-                            Optional<FacetField> found = searchQuery.getFacetFields().getFacets().stream().filter(
-                                        queryable -> facet.getKey().equals(queryable.getLabel()!=null?queryable.getLabel():queryable.getField())).findFirst();
-                            if (found.isPresent())
-                            {
-                                display = propertyLookup.lookup(found.get().getField(), buck.getFirst());
-                                String fq = found.get().toFilterQuery(buck.getFirst());
-                                if (fq != null)
-                                {
-                                    filterQuery = fq;
-                                }
-                            }
-                        }
+                        Object display = displays.get(buck.getFirst());
+                        String filterQuery = found.isPresent() ? found.get().toFilterQuery(buck.getFirst()) : null;
                         GenericBucket bucket = new GenericBucket(buck.getFirst(), filterQuery, display, new HashSet<Metric>(Arrays.asList(new SimpleMetric(METRIC_TYPE.count,String.valueOf(buck.getSecond())))), null, null);
                         buckets.add(bucket);
                     }
@@ -516,27 +680,12 @@ public class ResultMapper
                 if (facet.getValue() != null && !facet.getValue().isEmpty())
                 {
                     List<Bucket> buckets = new ArrayList<>(facet.getValue().size());
+                    Optional<FacetField> found = findFacetField(facet.getKey(), searchQuery);
+                    Map<String, Object> displays = found.isPresent() ? lookupBucketLabels(found.get().getField(), facet.getValue()) : Collections.emptyMap();
                     for (Pair<String, Integer> buck:facet.getValue())
                     {
-                        Object display = null;
-                        String filterQuery = null;
-                        if (searchQuery != null
-                                    && searchQuery.getFacetFields() != null
-                                    && searchQuery.getFacetFields().getFacets() != null
-                                    && !searchQuery.getFacetFields().getFacets().isEmpty())
-                        {
-                            Optional<FacetField> found = searchQuery.getFacetFields().getFacets().stream().filter(
-                                        queryable -> facet.getKey().equals(queryable.getLabel()!=null?queryable.getLabel():queryable.getField())).findFirst();
-                            if (found.isPresent())
-                            {
-                                display = propertyLookup.lookup(found.get().getField(), buck.getFirst());
-                                String fq = found.get().toFilterQuery(buck.getFirst());
-                                if (fq != null)
-                                {
-                                    filterQuery = fq;
-                                }
-                            }
-                        }
+                        Object display = displays.get(buck.getFirst());
+                        String filterQuery = found.isPresent() ? found.get().toFilterQuery(buck.getFirst()) : null;
                         buckets.add(new Bucket(buck.getFirst(), filterQuery,buck.getSecond(),display));
                     }
                     ffcs.add(new FacetFieldContext(facet.getKey(), buckets));
@@ -547,6 +696,38 @@ public class ResultMapper
         }
         return Collections.emptyList();
     }
+
+    /**
+     * Finds the facet field requested for a facet (by label or else by field).
+     */
+    private static Optional<FacetField> findFacetField(String facetKey, SearchQuery searchQuery)
+    {
+        if (searchQuery != null
+                    && searchQuery.getFacetFields() != null
+                    && searchQuery.getFacetFields().getFacets() != null
+                    && !searchQuery.getFacetFields().getFacets().isEmpty())
+        {
+            return searchQuery.getFacetFields().getFacets().stream().filter(
+                        queryable -> facetKey.equals(queryable.getLabel()!=null?queryable.getLabel():queryable.getField())).findFirst();
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Looks up the display values of all the buckets of a facet field in one go.
+     */
+    private Map<String, Object> lookupBucketLabels(String field, List<Pair<String, Integer>> buckets)
+    {
+        Set<String> labels = new LinkedHashSet<>(buckets.size());
+        for (Pair<String, Integer> buck:buckets)
+        {
+            if (buck.getFirst() != null)
+            {
+                labels.add(buck.getFirst());
+            }
+        }
+        return propertyLookup.lookupAll(field, labels);
+    }
     /**
      * Returns generic faceting responses for Intervals
      * @param facetFields
@@ -669,4 +850,95 @@ public class ResultMapper
         Paging paging  = Paging.valueOf(0, searchQuery.getItemLimit());
         return CollectionWithPagingInfo.asPaged(paging, entries);
     }
+
+    /**
+     * Writes the tuples of a Solr SQL response as they are parsed, one at a time, rather than mapping all the docs
+     * (see {@link #toCollectionWithPagingInfo(JSONArray, SearchSQLQuery)}) before writing them.
+     * <p>
+     * The response is the same list of TupleList, except that the pagination comes after the entries (as the number of
+     * entries is only known once they have all been written).
+     *
+     * @param solrResponse the Solr SQL response, ie. a "docs" array whose last doc is the EOF marker
+     * @param searchQuery the query
+     * @param generator where to write the response
+     * @param objectMapper the mapper of the REST API
+     */
+    public void writeTupleList(Reader solrResponse, SearchSQLQuery searchQuery, JsonGenerator generator, ObjectMapper objectMapper) throws IOException
+    {
+        if(solrResponse == null )
+        {
+            throw new RuntimeException("A reader of the Solr response is required" );
+        }
+        if(searchQuery == null )
+        {
+            throw new RuntimeException("SearchSQLQuery is required" );
+        }
+
+        int count = 0;
+        generator.writeStartObject();
+        generator.writeFieldName("list");
+        generator.writeStartObject();
+        generator.writeFieldName("entries");
+        generator.writeStartArray();
+        try (JsonParser parser = objectMapper.getFactory().createParser(solrResponse))
+        {
+            if (findDocs(parser))
+            {
+                // one doc behind, as the last one is the EOF marker
+                TupleList previous = null;
+                while (parser.nextToken() == JsonToken.START_OBJECT)
+                {
+                    TupleList tuple = readTuple(parser);
+                    if (previous != null)
+                    {
+                        objectMapper.writeValue(generator, previous);
+                        count++;
+                    }
+                    previous = tuple;
+                }
+            }
+        }
+        generator.writeEndArray();
+
+        generator.writeFieldName("pagination");
+        generator.writeStartObject();
+        generator.writeNumberField("count", count);
+        generator.writeBooleanField("hasMoreItems", false);
+        generator.writeNumberField("totalItems", count);
+        generator.writeNumberField(RecognizedParamsExtractor.PARAM_PAGING_SKIP, 0);
+        generator.writeNumberField(RecognizedParamsExtractor.PARAM_PAGING_MAX, searchQuery.getItemLimit());
+        generator.writeEndObject();
+
+        generator.writeEndObject();
+        generator.writeEndObject();
+        generator.flush();
+    }
+
+    // moves the parser to the start of the "docs" array
+    private static boolean findDocs(JsonParser parser) throws IOException
+    {
+        JsonToken token;
+        while ((token = parser.nextToken()) != null)
+        {
+            if ((token == JsonToken.FIELD_NAME) && "docs".equals(parser.getCurrentName()) && (parser.nextToken() == JsonToken.START_ARRAY))
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // reads the fields of a doc, as the strings that the JSONObject of the doc would give
+    private static TupleList readTuple(JsonParser parser) throws IOException
+    {
+        List<TupleEntry> row = new ArrayList<TupleEntry>();
+        while (parser.nextToken() == JsonToken.FIELD_NAME)
+        {
+            String label = parser.getCurrentName();
+            JsonToken token = parser.nextToken();
+            String value = (token.isScalarValue() ? parser.getText() : parser.readValueAsTree().toString());
+            row.add(new TupleEntry(label, value));
+        }
+        return new TupleList(row);
+    }
 }
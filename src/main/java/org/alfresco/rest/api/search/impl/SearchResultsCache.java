@@ -0,0 +1,240 @@
+/*
+ * #%L
+ * Alfresco Remote API
+ * %%
+ * Copyright (C) 2005 - 2020 Alfresco Software Limited
+ * %%
+ * This file is part of the Alfresco software.
+ * If the software was purchased under a paid Alfresco license, the terms of
+ * the paid license agreement will prevail.  Otherwise, the software is
+ * provided under the following open source license terms:
+ *
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+package org.alfresco.rest.api.search.impl;
+
+import java.util.Arrays;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Supplier;
+
+import org.alfresco.repo.cache.DefaultSimpleCache;
+import org.alfresco.repo.cache.SimpleCache;
+import org.alfresco.repo.domain.node.NodeDAO;
+import org.alfresco.repo.search.impl.lucene.SolrJSONResultSet;
+import org.alfresco.repo.security.permissions.impl.acegi.FilteringResultSet;
+import org.alfresco.repo.tenant.TenantUtil;
+import org.alfresco.rest.api.search.model.SearchQuery;
+import org.alfresco.service.cmr.search.ResultSet;
+import org.alfresco.service.cmr.security.AuthorityService;
+import org.alfresco.util.PropertyCheck;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.extensions.surf.util.I18NUtil;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MapperFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * A short lived cache, shared by all the requests, of the search results (ie. the rows, scores, highlighting and facets
+ * returned by the search service) - the nodes are still built for each request, see {@link ResultMapper}.
+ * <p>
+ * The results are keyed by the canonical form of the query (its JSON, with the properties in alphabetical order, without
+ * the fields that only change how the nodes are rendered), the tenant, the locale and the authorities of the current
+ * user, as the results are filtered by permissions. Only the results of Solr are cached: they are dropped after the
+ * configured time to live, or once the repository has gone more than maxTxnLag transactions beyond the transactions
+ * that the index had tracked (and they are not cached at all when the index is already that far behind).
+ */
+public class SearchResultsCache
+{
+    private static final Log logger = LogFactory.getLog(SearchResultsCache.class);
+
+    // only change how the nodes are rendered, not the results
+    private static final String[] RENDERING_FIELDS = { "fields", "include", "includeRequest" };
+
+    private AuthorityService authorityService;
+    private NodeDAO nodeDAO;
+    private boolean enabled = false;
+    private int maxItems = 500;
+    private long ttlMs = 10000;
+    private long maxTxnLag = 0;
+
+    private final ObjectMapper canonicalMapper = new ObjectMapper();
+    private SimpleCache<String, CachedResults> results;
+
+    public void init()
+    {
+        PropertyCheck.mandatory(this, "authorityService", authorityService);
+        PropertyCheck.mandatory(this, "nodeDAO", nodeDAO);
+
+        canonicalMapper.setSerializationInclusion(JsonInclude.Include.NON_NULL);
+        canonicalMapper.configure(MapperFeature.SORT_PROPERTIES_ALPHABETICALLY, true);
+        canonicalMapper.configure(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS, true);
+        results = new DefaultSimpleCache<>(maxItems, SearchResultsCache.class.getName());
+    }
+
+    /**
+     * @param searchQuery the query
+     * @param search runs the query, if its results are not cached
+     * @return the results of the query for the current user
+     */
+    public ResultSet query(SearchQuery searchQuery, Supplier<ResultSet> search)
+    {
+        if (!enabled)
+        {
+            return search.get();
+        }
+
+        String key = toKey(searchQuery);
+        if (key == null)
+        {
+            return search.get();
+        }
+
+        CachedResults cached = results.get(key);
+        if (cached != null)
+        {
+            if (isValid(cached))
+            {
+                return cached.resultSet;
+            }
+            results.remove(key);
+        }
+
+        ResultSet resultSet = search.get();
+        SolrJSONResultSet solrResultSet = findSolrResultSet(resultSet);
+        if (solrResultSet != null)
+        {
+            Long lastIndexedTxId = solrResultSet.getLastIndexedTxId();
+            Long maxTxnId = nodeDAO.getMaxTxnId();
+            if ((lastIndexedTxId != null) && (maxTxnId != null) && (maxTxnId - lastIndexedTxId <= maxTxnLag))
+            {
+                results.put(key, new CachedResults(resultSet, maxTxnId));
+            }
+            else if (logger.isDebugEnabled())
+            {
+                logger.debug("Not caching search results, the index is behind: last indexed txn " + lastIndexedTxId + ", last txn " + maxTxnId);
+            }
+        }
+        return resultSet;
+    }
+
+    /**
+     * Removes all the results from the cache.
+     */
+    public void clear()
+    {
+        results.clear();
+    }
+
+    private boolean isValid(CachedResults cached)
+    {
+        if (System.currentTimeMillis() - cached.cachedAt >= ttlMs)
+        {
+            return false;
+        }
+        Long maxTxnId = nodeDAO.getMaxTxnId();
+        return (maxTxnId != null) && (maxTxnId - cached.maxTxnId <= maxTxnLag);
+    }
+
+    private String toKey(SearchQuery searchQuery)
+    {
+        String query;
+        try
+        {
+            ObjectNode tree = canonicalMapper.valueToTree(searchQuery);
+            tree.remove(Arrays.asList(RENDERING_FIELDS));
+            query = canonicalMapper.writeValueAsString(tree);
+        }
+        catch (IllegalArgumentException | JsonProcessingException error)
+        {
+            logger.debug("Not caching search results, the query can't be serialized: " + error.getMessage());
+            return null;
+        }
+
+        Set<String> authorities = new TreeSet<>(authorityService.getAuthorities());
+        StringBuilder key = new StringBuilder(query.length() + 200);
+        key.append(TenantUtil.getCurrentDomain()).append('\n')
+           .append(I18NUtil.getLocale()).append('\n')
+           .append(authorities).append('\n')
+           .append(query);
+        return key.toString();
+    }
+
+    private static SolrJSONResultSet findSolrResultSet(ResultSet resultSet)
+    {
+        ResultSet theResultSet = resultSet;
+        if (resultSet instanceof FilteringResultSet)
+        {
+            theResultSet = ((FilteringResultSet) resultSet).getUnFilteredResultSet();
+        }
+        return (theResultSet instanceof SolrJSONResultSet ? (SolrJSONResultSet) theResultSet : null);
+    }
+
+    public void setAuthorityService(AuthorityService authorityService)
+    {
+        this.authorityService = authorityService;
+    }
+
+    public void setNodeDAO(NodeDAO nodeDAO)
+    {
+        this.nodeDAO = nodeDAO;
+    }
+
+    public void setEnabled(boolean enabled)
+    {
+        this.enabled = enabled;
+    }
+
+    public void setMaxItems(int maxItems)
+    {
+        this.maxItems = maxItems;
+    }
+
+    /**
+     * @param ttlSeconds how long results are cached for
+     */
+    public void setTtlSeconds(int ttlSeconds)
+    {
+        this.ttlMs = ttlSeconds * 1000L;
+    }
+
+    /**
+     * @param maxTxnLag how many transactions the repository may be ahead of the index (when the results are cached) or
+     *                  of the results (when they are read from the cache)
+     */
+    public void setMaxTxnLag(long maxTxnLag)
+    {
+        this.maxTxnLag = maxTxnLag;
+    }
+
+    private static final class CachedResults
+    {
+        private final ResultSet resultSet;
+        private final long maxTxnId;
+        private final long cachedAt;
+
+        private CachedResults(ResultSet resultSet, long maxTxnId)
+        {
+            this.resultSet = resultSet;
+            this.maxTxnId = maxTxnId;
+            this.cachedAt = System.currentTimeMillis();
+        }
+    }
+}
@@ -45,5 +45,11 @@ public @interface WebApiDescription {
     String title();
     String description() default "";
     int successStatus() default ResourceOperation.UNSET_STATUS;
+
+    /**
+     * For a GET of a single entity, whether a (weak) ETag is returned and If-None-Match is answered with 304 (Not Modified).
+     * The entity class must have a method annotated with {@link org.alfresco.rest.framework.resource.EntityTag}.
+     */
+    boolean conditional() default false;
 }
 
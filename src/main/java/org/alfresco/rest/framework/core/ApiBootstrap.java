@@ -31,6 +31,7 @@ import org.alfresco.rest.framework.resource.EntityResource;
 import org.alfresco.rest.framework.resource.RelationshipResource;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.BeanUtils;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.ApplicationEvent;
 import org.springframework.context.event.ContextRefreshedEvent;
@@ -56,7 +57,38 @@ public class ApiBootstrap extends AbstractLifecycleBean
         ApplicationContext ac = refreshEvent.getApplicationContext();
         Map<String, Object> entityResourceBeans = ac.getBeansWithAnnotation(EntityResource.class);
         Map<String, Object> relationResourceBeans = ac.getBeansWithAnnotation(RelationshipResource.class);
-        apiDictionary.setDictionary(ResourceDictionaryBuilder.build(entityResourceBeans.values(), relationResourceBeans.values()));
+        ResourceDictionary dictionary = ResourceDictionaryBuilder.build(entityResourceBeans.values(), relationResourceBeans.values());
+        apiDictionary.setDictionary(dictionary);
+        primeClassMetadata(dictionary);
+    }
+
+    /**
+     * Builds the annotation metadata for the entity classes used by the resources up front,
+     * rather than on the first request that returns them.
+     */
+    private void primeClassMetadata(ResourceDictionary dictionary)
+    {
+        int primed = 0;
+        for (Map<String, ResourceWithMetadata> apiResources : dictionary.getAllResources().values())
+        {
+            for (ResourceWithMetadata resource : apiResources.values())
+            {
+                ResourceMetadata metaData = resource.getMetaData();
+                for (ResourceOperation operation : metaData.getOperations())
+                {
+                    Class<?> objectType = metaData.getObjectType(operation);
+                    if (objectType != null && !BeanUtils.isSimpleProperty(objectType))
+                    {
+                        ResourceClassMetadata.forClass(objectType);
+                        primed++;
+                    }
+                }
+            }
+        }
+        if (logger.isDebugEnabled())
+        {
+            logger.debug("Primed the class metadata for " + primed + " resource operations");
+        }
     }
 
     @Override
@@ -0,0 +1,238 @@
+/*
+ * #%L
+ * Alfresco Remote API
+ * %%
+ * Copyright (C) 2005 - 2020 Alfresco Software Limited
+ * %%
+ * This file is part of the Alfresco software.
+ * If the software was purchased under a paid Alfresco license, the terms of
+ * the paid license agreement will prevail.  Otherwise, the software is
+ * provided under the following open source license terms:
+ *
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+package org.alfresco.rest.framework.core;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.invoke.WrongMethodTypeException;
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.alfresco.rest.framework.resource.EntityTag;
+import org.alfresco.rest.framework.resource.UniqueId;
+import org.alfresco.util.Pair;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * Annotation metadata about an entity class (the @UniqueId method, the @EntityTag method and the @EmbeddedEntityResource methods).
+ * <p>
+ * The metadata is computed once per class, the first time the class is seen by the {@link ResourceInspector}
+ * (or when it is primed by the {@link ApiBootstrap}), and the annotated getters are compiled into
+ * {@link MethodHandle}s so that the response path doesn't have to scan the class or use reflection again.
+ */
+public class ResourceClassMetadata
+{
+    private static Log logger = LogFactory.getLog(ResourceClassMetadata.class);
+
+    private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+
+    private static final ClassValue<ResourceClassMetadata> CLASS_METADATA = new ClassValue<ResourceClassMetadata>()
+    {
+        @Override
+        protected ResourceClassMetadata computeValue(Class<?> type)
+        {
+            return new ResourceClassMetadata(type);
+        }
+    };
+
+    private final Class<?> objClass;
+    private final Method uniqueIdMethod;
+    private final MethodHandle uniqueIdHandle;
+    private final String uniqueIdError;
+    private final Method entityTagMethod;
+    private final MethodHandle entityTagHandle;
+    private final Map<String, Pair<String, Method>> embedded;
+    private final Map<String, MethodHandle> embeddedHandles;
+
+    private ResourceClassMetadata(Class<?> objClass)
+    {
+        this.objClass = objClass;
+
+        Method idMethod = null;
+        String idError = null;
+        List<Method> idMethods = ResourceInspectorUtil.findMethodsByAnnotation(objClass, UniqueId.class);
+        if (idMethods.size() == 1)
+        {
+            idMethod = idMethods.get(0);
+        }
+        else if (idMethods.size() > 1)
+        {
+            //There should only ever be 1 annotated method for unique id
+            idError = "There should only ever be one UniqueId annotation on a class but " + objClass + " has " + idMethods.size();
+        }
+        this.uniqueIdMethod = idMethod;
+        this.uniqueIdHandle = toGetterHandle(idMethod);
+        this.uniqueIdError = idError;
+
+        List<Method> tagMethods = ResourceInspectorUtil.findMethodsByAnnotation(objClass, EntityTag.class);
+        this.entityTagMethod = (tagMethods.isEmpty() ? null : tagMethods.get(0));
+        this.entityTagHandle = toGetterHandle(entityTagMethod);
+
+        Map<String, Pair<String, Method>> embeds = ResourceInspector.inspectEmbeddedResources(objClass);
+        Map<String, MethodHandle> handles = new HashMap<String, MethodHandle>(embeds.size());
+        for (Map.Entry<String, Pair<String, Method>> embed : embeds.entrySet())
+        {
+            handles.put(embed.getKey(), toGetterHandle(embed.getValue().getSecond()));
+        }
+        this.embedded = Collections.unmodifiableMap(embeds);
+        this.embeddedHandles = handles;
+    }
+
+    /**
+     * Gets the (cached) metadata for the class.
+     *
+     * @param objClass any object class
+     * @return ResourceClassMetadata
+     */
+    public static ResourceClassMetadata forClass(Class<?> objClass)
+    {
+        return CLASS_METADATA.get(objClass);
+    }
+
+    /**
+     * The single method annotated with @UniqueId
+     *
+     * @return the Method or null if there isn't one
+     * @throws IllegalArgumentException if there is is more than 1 method annotated with @UniqueId
+     */
+    public Method getUniqueIdMethod() throws IllegalArgumentException
+    {
+        if (uniqueIdError != null)
+        {
+            throw new IllegalArgumentException(uniqueIdError);
+        }
+        return uniqueIdMethod;
+    }
+
+    /**
+     * A read-only map of the property name key and a Pair of the entity path name and the annotated Method.
+     *
+     * @return Map, never null
+     */
+    public Map<String, Pair<String, Method>> getEmbeddedResources()
+    {
+        return embedded;
+    }
+
+    /**
+     * Invokes the @UniqueId method on the object.
+     *
+     * @param obj an instance of this class
+     * @return the raw (unformatted) id or null
+     * @throws IllegalArgumentException if there is is more than 1 method annotated with @UniqueId
+     */
+    public Object invokeUniqueId(Object obj) throws IllegalArgumentException
+    {
+        return invokeGetter(getUniqueIdMethod(), uniqueIdHandle, obj);
+    }
+
+    /**
+     * Whether the class has a method annotated with @EntityTag
+     *
+     * @return boolean
+     */
+    public boolean hasEntityTag()
+    {
+        return entityTagMethod != null;
+    }
+
+    /**
+     * Invokes the @EntityTag method on the object.
+     *
+     * @param obj an instance of this class
+     * @return the value or null if there isn't one
+     */
+    public Object invokeEntityTag(Object obj)
+    {
+        if (entityTagMethod == null)
+        {
+            return null;
+        }
+        return invokeGetter(entityTagMethod, entityTagHandle, obj);
+    }
+
+    /**
+     * Invokes the @EmbeddedEntityResource method for the property key on the object.
+     *
+     * @param key the embedded property name
+     * @param obj an instance of this class
+     * @return the id of the embedded entity or null
+     */
+    public Object invokeEmbedded(String key, Object obj)
+    {
+        Pair<String, Method> embed = embedded.get(key);
+        if (embed == null)
+        {
+            return null;
+        }
+        return invokeGetter(embed.getSecond(), embeddedHandles.get(key), obj);
+    }
+
+    private Object invokeGetter(Method method, MethodHandle handle, Object obj)
+    {
+        if (handle == null)
+        {
+            // Not accessible through a public lookup (eg. a non-public class) so fall back to reflection
+            return ResourceInspectorUtil.invokeMethod(method, obj);
+        }
+
+        try
+        {
+            return handle.invokeExact(obj);
+        }
+        catch (Throwable error)
+        {
+            logger.error("Invocation failure", error);
+            return null;
+        }
+    }
+
+    private MethodHandle toGetterHandle(Method method)
+    {
+        if (method == null)
+        {
+            return null;
+        }
+
+        try
+        {
+            return MethodHandles.publicLookup().unreflect(method).asType(GETTER_TYPE);
+        }
+        catch (IllegalAccessException | IllegalArgumentException | WrongMethodTypeException error)
+        {
+            if (logger.isDebugEnabled())
+            {
+                logger.debug("Unable to create a MethodHandle for " + method + " on " + objClass.getName() + ", using reflection instead.");
+            }
+            return null;
+        }
+    }
+}
@@ -179,7 +179,7 @@ public class ResourceInspector
             if (!helper.apiDeleted.isEmpty() || !helper.operations.isEmpty())
             {
                 metainfo.add(new ResourceMetadata(ResourceDictionary.resourceKey(urlPath,null), RESOURCE_TYPE.ENTITY,
-                                                  helper.operations, api, helper.apiDeleted, apiNoAuth, null));
+                                                  helper.operations, api, helper.apiDeleted, apiNoAuth, helper.apiConditional, null));
             }
         }
 
@@ -301,7 +301,8 @@ public class ResourceInspector
         }
         else 
         {
-            metainfo.add(new ResourceMetadata(relationshipKey, RESOURCE_TYPE.RELATIONSHIP, helper.operations, inspectApi(resource), helper.apiDeleted, apiNoAuth, entityPath));
+            metainfo.add(new ResourceMetadata(relationshipKey, RESOURCE_TYPE.RELATIONSHIP, helper.operations, inspectApi(resource), helper.apiDeleted, apiNoAuth,
+                                              helper.apiConditional, entityPath));
         }
 
         inspectAddressedProperties(api, resource, relationshipKey, metainfo);
@@ -329,6 +330,10 @@ public class ResourceInspector
             else 
             {
                 helper.whenNewOperation(operation, aMethod);
+                if (operation.isConditional() && httpMethod.equals(HttpMethod.GET))
+                {
+                    helper.whenOperationConditional(resourceInterfaceWithOneMethod, aMethod);
+                }
             }
 
             if (isNoAuth(aMethod))
@@ -361,7 +366,8 @@ public class ResourceInspector
             String title = String.valueOf(annotAttribs.get("title"));
             String desc = String.valueOf(annotAttribs.get("description"));
             Integer success = (Integer) annotAttribs.get("successStatus");
-            return new ResourceOperation(httpMethod, title, desc, parameters, validSuccessCode(httpMethod,success));
+            boolean conditional = Boolean.TRUE.equals(annotAttribs.get("conditional"));
+            return new ResourceOperation(httpMethod, title, desc, parameters, validSuccessCode(httpMethod,success), conditional);
         }
         else {
             return new ResourceOperation(httpMethod, 
@@ -640,6 +646,15 @@ public class ResourceInspector
      * @return A map of property key name and a value of the entity path name
      */
     public static Map<String,Pair<String,Method>> findEmbeddedResources(Class<?> anyClass)
+    {
+        return ResourceClassMetadata.forClass(anyClass).getEmbeddedResources();
+    }
+
+    /**
+     * Scans the class for @EmbeddedEntityResource annotations, the result is cached by {@link ResourceClassMetadata}
+     * @return A map of property key name and a value of the entity path name
+     */
+    static Map<String,Pair<String,Method>> inspectEmbeddedResources(Class<?> anyClass)
     {
         Map<String, Pair<String,Method>> embeds = new HashMap<String, Pair<String,Method>>();
         List<Method> annotatedMethods = ResourceInspectorUtil.findMethodsByAnnotation(anyClass, EmbeddedEntityResource.class);
@@ -764,11 +779,7 @@ public class ResourceInspector
      */
     public static String findUniqueId(Object obj)
     {
-        @SuppressWarnings("rawtypes")
-        Class objClass = obj.getClass();
-
-        Method annotatedMethod = findUniqueIdMethod(objClass);
-        Object id = ResourceInspectorUtil.invokeMethod(annotatedMethod, obj);
+        Object id = ResourceClassMetadata.forClass(obj.getClass()).invokeUniqueId(obj);
         if (id != null)
         {
             if (id instanceof NodeRef)
@@ -794,18 +805,7 @@ public class ResourceInspector
      */
     public static Method findUniqueIdMethod(Class<?> objClass) throws IllegalArgumentException
     {
-        List<Method> annotatedMethods = ResourceInspectorUtil.findMethodsByAnnotation(objClass, UniqueId.class);
-        if (annotatedMethods != null && !annotatedMethods.isEmpty())
-        {
-            if (annotatedMethods.size() != 1)
-            {
-                //There should only ever be 1 annotated method for unique id
-                throw new IllegalArgumentException("There should only ever be one UniqueId annotation on a class but "+objClass+" has "+annotatedMethods.size());
-            }
-            return annotatedMethods.get(0);
-        }
-
-        return null;
+        return ResourceClassMetadata.forClass(objClass).getUniqueIdMethod();
     }
 
     /**
@@ -901,12 +901,19 @@ public class ResourceInspector
 
         private Set<Class<? extends ResourceAction>> apiDeleted = new HashSet<Class<? extends ResourceAction>>();
         private Set<Class<? extends ResourceAction>> apiNoAuth = new HashSet<Class<? extends ResourceAction>>();
+        private Set<Class<? extends ResourceAction>> apiConditional = new HashSet<Class<? extends ResourceAction>>();
         
         @Override
         public void whenNewOperation(ResourceOperation operation, Method aMethod)
         {
             operations.add(operation);
         }
+
+        @Override
+        public void whenOperationConditional(Class<? extends ResourceAction> conditional, Method aMethod)
+        {
+            apiConditional.add(conditional);
+        }
         
         @Override
         public void whenOperationDeleted(Class<? extends ResourceAction> deleted, Method aMethod)
@@ -939,6 +946,10 @@ public class ResourceInspector
         public abstract void whenNewOperation(ResourceOperation operation, Method aMethod);
         public abstract void whenOperationDeleted(Class<? extends ResourceAction> deleted, Method aMethod);
         public abstract void whenOperationNoAuth(Class<? extends ResourceAction> noAuth, Method aMethod);
+
+        public void whenOperationConditional(Class<? extends ResourceAction> conditional, Method aMethod)
+        {
+        }
     }
 
 }
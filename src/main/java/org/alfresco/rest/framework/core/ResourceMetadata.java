@@ -55,11 +55,21 @@ public class ResourceMetadata
 
     private final Set<Class<? extends ResourceAction>> apiDeleted;
     private Set<Class<? extends ResourceAction>> apiNoAuth;
+    private final Set<Class<? extends ResourceAction>> apiConditional;
+
+    public ResourceMetadata(String uniqueId, RESOURCE_TYPE type, List<ResourceOperation> operations, Api api,
+                            Set<Class<? extends ResourceAction>> apiDeleted,
+                            Set<Class<? extends ResourceAction>> apiNoAuth,
+                            String parentResource)
+    {
+        this(uniqueId, type, operations, api, apiDeleted, apiNoAuth, null, parentResource);
+    }
 
     @SuppressWarnings("unchecked")
     public ResourceMetadata(String uniqueId, RESOURCE_TYPE type, List<ResourceOperation> operations, Api api,
                             Set<Class<? extends ResourceAction>> apiDeleted,
                             Set<Class<? extends ResourceAction>> apiNoAuth,
+                            Set<Class<? extends ResourceAction>> apiConditional,
                             String parentResource)
     {
         super();
@@ -69,6 +79,7 @@ public class ResourceMetadata
         this.api = api;
         this.apiDeleted  = (Set<Class<? extends ResourceAction>>) (apiDeleted==null?Collections.emptySet():apiDeleted);
         this.apiNoAuth  = (Set<Class<? extends ResourceAction>>) (apiNoAuth==null?Collections.emptySet():apiNoAuth);
+        this.apiConditional  = (Set<Class<? extends ResourceAction>>) (apiConditional==null?Collections.emptySet():apiConditional);
         this.parentResource = parentResource!=null?(parentResource.startsWith("/")?parentResource:"/"+parentResource):null;
     }
 
@@ -123,6 +134,16 @@ public class ResourceMetadata
         return apiNoAuth.contains(resourceAction);
     }
 
+    /**
+     * Indicates if this resource action supports conditional GETs (ETag / If-None-Match).
+     * @param resourceAction
+     * @return true if it has been described as conditional
+     */
+    public boolean isConditional(Class<? extends ResourceAction> resourceAction)
+    {
+        return apiConditional.contains(resourceAction);
+    }
+
     /**
      * URL uniqueId to the resource
      * 
@@ -42,6 +42,7 @@ public class ResourceOperation
     private final String description;
     private final List<ResourceParameter> parameters;
     private final int successStatus;
+    private final boolean conditional;
     
     /**
      * @param httpMethod HttpMethod
@@ -50,6 +51,19 @@ public class ResourceOperation
      * @param successStatus HTTP status
      */
     public ResourceOperation(HttpMethod httpMethod, String title, String description, List<ResourceParameter> parameters, int successStatus)
+    {
+        this(httpMethod, title, description, parameters, successStatus, false);
+    }
+
+    /**
+     * @param httpMethod HttpMethod
+     * @param title String
+     * @param description String
+     * @param successStatus HTTP status
+     * @param conditional true if the operation supports conditional GETs (ETag / If-None-Match)
+     */
+    public ResourceOperation(HttpMethod httpMethod, String title, String description, List<ResourceParameter> parameters, int successStatus,
+                             boolean conditional)
     {
         super();
         this.httpMethod = httpMethod;
@@ -57,6 +71,7 @@ public class ResourceOperation
         this.description = description;
         this.parameters = parameters;
         this.successStatus = successStatus;
+        this.conditional = conditional;
     }
 
     public HttpMethod getHttpMethod()
@@ -84,6 +99,11 @@ public class ResourceOperation
         return successStatus;
     }
 
+    public boolean isConditional()
+    {
+        return conditional;
+    }
+
     @Override
     public String toString()
     {
@@ -71,4 +71,13 @@ public interface SerializablePagedCollection<T>
      * The search context for the collection
      */
     SearchContext getContext();
+
+    /**
+     * The opaque continuation token for the next page (see {@link org.alfresco.rest.framework.resource.parameters.PagingCursor})
+     * @return String or null if the collection isn't paged by cursor or there are no more items
+     */
+    default String getNextCursor()
+    {
+        return null;
+    }
 }
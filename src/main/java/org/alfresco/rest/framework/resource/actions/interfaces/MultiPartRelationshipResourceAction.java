@@ -27,6 +27,7 @@
 package org.alfresco.rest.framework.resource.actions.interfaces;
 
 import org.alfresco.rest.framework.resource.parameters.Parameters;
+import org.alfresco.rest.framework.webscripts.MultiPartStream;
 import org.alfresco.rest.framework.webscripts.WithResponse;
 import org.springframework.extensions.webscripts.servlet.FormData;
 
@@ -43,4 +44,13 @@ public interface MultiPartRelationshipResourceAction
     {
         public E create(String entityResourceId, FormData formData, Parameters parameters, WithResponse withResponse);
     }
+
+    /**
+     * HTTP POST - Upload file content and meta-data into repository, reading the request as it arrives rather than
+     * buffering it first (when enabled, otherwise see {@link Create})
+     */
+    public static interface CreateStreamed<E> extends ResourceAction
+    {
+        public E createStreamed(String entityResourceId, MultiPartStream formStream, Parameters parameters, WithResponse withResponse);
+    }
 }
@@ -26,6 +26,7 @@
 package org.alfresco.rest.framework.resource.actions.interfaces;
 
 import java.util.List;
+import java.util.Map;
 
 import org.alfresco.rest.framework.core.exceptions.RelationshipResourceNotFoundException;
 import org.alfresco.rest.framework.resource.parameters.CollectionWithPagingInfo;
@@ -56,6 +57,24 @@ public interface RelationshipResourceAction
         public CollectionWithPagingInfo<E> readAll(String entityResourceId, Parameters params);
     }
 
+    /**
+     * Optional companion to {@link Read}, used when the relationship is requested for a whole collection of entities (eg. ?relations=tags).
+     * It is not an HTTP operation of its own; if a relationship resource implements it then the relationship is read once for the page of
+     * entities instead of once per entity.
+     */
+    public static interface ReadForEntities<E> extends ResourceAction
+    {
+        /**
+         * Reads the relationship entities for each of the related entityResourceIds.
+         *
+         * @param entityResourceIds Entity resource contexts for this relationship, in the order they appear in the response
+         * @param params - will never be null and will have the PAGING default values
+         * @return a map of entityResourceId to its relationship entities. An entity without an entry is left without the relationship
+         *         (eg. because it can't be accessed).
+         */
+        public Map<String, CollectionWithPagingInfo<E>> readAllForEntities(List<String> entityResourceIds, Parameters params);
+    }
+
     /**
      * HTTP GET - Retrieve list of related entities by its related entityResource Id
      */
@@ -40,6 +40,7 @@ import java.util.Collections;
  * collection - The collection
  * hasMoreItems - Indicates the total number of items available. Can be greater than the number of items returned in the list.
  * totalItems - Indicates the total number of items available. Can be greater than the number of items returned in the list.
+ * nextCursor - An opaque continuation token for the next page, for collections that support paging by cursor.
  * 
  * @author Gethin James.
  */
@@ -52,6 +53,7 @@ public class CollectionWithPagingInfo<T> implements SerializablePagedCollection
     private final Paging paging;
     private final Object sourceEntity;
     private final SearchContext context;
+    private final String nextCursor;
         
     /**
      * Constructs a new CollectionWithPagingInfo.
@@ -61,6 +63,20 @@ public class CollectionWithPagingInfo<T> implements SerializablePagedCollection
      * @param totalItems - The total number of items available.
      */
     protected CollectionWithPagingInfo(Collection<T> collection, Paging paging, boolean hasMoreItems, Integer totalItems, Object sourceEntity, SearchContext context)
+    {
+        this(collection, paging, hasMoreItems, totalItems, sourceEntity, context, null);
+    }
+
+    /**
+     * Constructs a new CollectionWithPagingInfo.
+     * @param collection - the collection that needs to be paged.
+     * @param paging - Paging request info
+     * @param hasMoreItems - Are there more items after this Collection?
+     * @param totalItems - The total number of items available.
+     * @param nextCursor - The continuation token for the next page or null
+     */
+    protected CollectionWithPagingInfo(Collection<T> collection, Paging paging, boolean hasMoreItems, Integer totalItems, Object sourceEntity, SearchContext context,
+                                       String nextCursor)
     {
         super();
         this.hasMoreItems = hasMoreItems;
@@ -78,6 +94,7 @@ public class CollectionWithPagingInfo<T> implements SerializablePagedCollection
         }
         this.sourceEntity = sourceEntity;
         this.context = context;
+        this.nextCursor = nextCursor;
     }
 
     /**
@@ -153,6 +170,24 @@ public class CollectionWithPagingInfo<T> implements SerializablePagedCollection
     {
         return new CollectionWithPagingInfo<T>(aCollection, paging, hasMoreItems, totalItems, sourceEntity, context);
     }
+
+    /**
+     * Constructs a new CollectionWithPagingInfo for a collection that can be paged by cursor.
+     *
+     * @param paging - Paging request info
+     * @param aCollection - the collection that needs to be paged.
+     * @param hasMoreItems - Are there more items after this Collection?
+     * @param totalItems - The total number of items available.
+     * @param sourceEntity - The parent/source entity responsible for the collection
+     * @param context - The search context
+     * @param nextCursor - The continuation token for the next page (see {@link PagingCursor}) or null
+     * @return CollectionWithPagingInfo
+     */
+    public static <T> CollectionWithPagingInfo<T> asPaged(Paging paging, Collection<T> aCollection, boolean hasMoreItems, Integer totalItems, Object sourceEntity, SearchContext context,
+                                                          String nextCursor)
+    {
+        return new CollectionWithPagingInfo<T>(aCollection, paging, hasMoreItems, totalItems, sourceEntity, context, nextCursor);
+    }
     
     /**
      * Returns the Collection object
@@ -209,4 +244,13 @@ public class CollectionWithPagingInfo<T> implements SerializablePagedCollection
         return context;
     }
 
+    /**
+     * The continuation token for the next page
+     */
+    @Override
+    public String getNextCursor()
+    {
+        return nextCursor;
+    }
+
 }
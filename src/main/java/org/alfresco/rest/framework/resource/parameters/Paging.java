@@ -32,7 +32,8 @@ import org.alfresco.rest.framework.core.exceptions.InvalidArgumentException;
 /**
  * Represents paging of collections of resources. Set by the client request.<br/>
  * skipCount - How many entries exist in the entire collection before those included in the list<br/>
- * maxItems - The maximum number of items the client requires. Defaults to 100.
+ * maxItems - The maximum number of items the client requires. Defaults to 100.<br/>
+ * cursor - An opaque continuation token (see {@link PagingCursor}) returned as nextCursor by the previous page, used instead of skipCount.
  * 
  * @author Gethin James, Martin Muller (mmuller)
  */
@@ -45,8 +46,14 @@ public class Paging
         
     private final int skipCount;
     private final int maxItems;
+    private final String cursor;
 
     private Paging(int skipCount, int maxItems)
+    {
+        this(skipCount, maxItems, null);
+    }
+
+    private Paging(int skipCount, int maxItems, String cursor)
     {
         super();
         if(skipCount < 0)
@@ -57,8 +64,13 @@ public class Paging
         {
         	throw new InvalidArgumentException("Only positive values supported for maxItems.");
         }
+        if (cursor != null && skipCount > 0)
+        {
+            throw new InvalidArgumentException("skipCount can't be used with a cursor.");
+        }
         this.skipCount = skipCount;
         this.maxItems = maxItems;
+        this.cursor = cursor;
     }
 
     /**
@@ -79,12 +91,26 @@ public class Paging
         return this.maxItems;
     }
 
+    /**
+     * The opaque continuation token returned as nextCursor by the previous page, if the client is walking the collection by cursor.
+     * @return String or null
+     */
+    public String getCursor()
+    {
+        return this.cursor;
+    }
+
     @JsonCreator
     public static Paging valueOf(@JsonProperty("skipCount") int skipCount, @JsonProperty("maxItems") int maxItems)
     {
         return new Paging(skipCount,maxItems);
     }
 
+    public static Paging valueOf(int skipCount, int maxItems, String cursor)
+    {
+        return new Paging(skipCount, maxItems, cursor);
+    }
+
     @Override
     public String toString()
     {
@@ -93,6 +119,11 @@ public class Paging
         builder.append(this.skipCount);
         builder.append(", maxItems=");
         builder.append(this.maxItems);
+        if (this.cursor != null)
+        {
+            builder.append(", cursor=");
+            builder.append(this.cursor);
+        }
         builder.append("]");
         return builder.toString();
     }
@@ -0,0 +1,128 @@
+/*
+ * #%L
+ * Alfresco Remote API
+ * %%
+ * Copyright (C) 2005 - 2020 Alfresco Software Limited
+ * %%
+ * This file is part of the Alfresco software.
+ * If the software was purchased under a paid Alfresco license, the terms of
+ * the paid license agreement will prevail.  Otherwise, the software is
+ * provided under the following open source license terms:
+ *
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+package org.alfresco.rest.framework.resource.parameters;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+
+import org.alfresco.rest.framework.core.exceptions.InvalidArgumentException;
+
+/**
+ * Encodes and decodes the opaque continuation token used to page a collection by keyset rather than by skipCount.
+ * <p>
+ * A resource decides what the cursor holds, typically the sort key(s) and id of the last item on the page,
+ * and returns it as the nextCursor of the {@link CollectionWithPagingInfo}. The client passes it back
+ * unchanged as the "cursor" parameter and the resource decodes it from {@link Paging#getCursor()}
+ * to continue after that position, so deep pages cost the same as the first one.
+ */
+public final class PagingCursor
+{
+    private static final char SEPARATOR = '\n';
+
+    private PagingCursor()
+    {
+    }
+
+    /**
+     * Encodes the keyset position as an opaque cursor.
+     *
+     * @param values the position values, eg. the last sort key and id (null values are encoded as empty)
+     * @return String the cursor
+     */
+    public static String encode(String... values)
+    {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < values.length; i++)
+        {
+            if (i > 0)
+            {
+                builder.append(SEPARATOR);
+            }
+            if (values[i] != null)
+            {
+                builder.append(values[i]);
+            }
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(builder.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodes the cursor back into the keyset position it was encoded from.
+     *
+     * @param cursor the cursor
+     * @return the position values, or an empty list if there is no cursor
+     * @throws InvalidArgumentException if the cursor is not valid
+     */
+    public static List<String> decode(String cursor)
+    {
+        if (cursor == null || cursor.isEmpty())
+        {
+            return Collections.emptyList();
+        }
+
+        try
+        {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            return new ArrayList<>(Arrays.asList(decoded.split(String.valueOf(SEPARATOR), -1)));
+        }
+        catch (IllegalArgumentException error)
+        {
+            throw new InvalidArgumentException("Invalid cursor: " + cursor);
+        }
+    }
+
+    /**
+     * Decodes a cursor that holds a single numeric id (eg. the id of the last audit entry on the page).
+     *
+     * @param cursor the cursor
+     * @return the id, or null if there is no cursor
+     * @throws InvalidArgumentException if the cursor is not valid
+     */
+    public static Long decodeId(String cursor)
+    {
+        List<String> values = decode(cursor);
+        if (values.isEmpty())
+        {
+            return null;
+        }
+        if (values.size() != 1)
+        {
+            throw new InvalidArgumentException("Invalid cursor: " + cursor);
+        }
+        try
+        {
+            return Long.valueOf(values.get(0));
+        }
+        catch (NumberFormatException error)
+        {
+            throw new InvalidArgumentException("Invalid cursor: " + cursor);
+        }
+    }
+}
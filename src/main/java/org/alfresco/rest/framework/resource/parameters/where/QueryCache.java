@@ -0,0 +1,86 @@
+/*
+ * #%L
+ * Alfresco Remote API
+ * %%
+ * Copyright (C) 2005 - 2020 Alfresco Software Limited
+ * %%
+ * This file is part of the Alfresco software.
+ * If the software was purchased under a paid Alfresco license, the terms of
+ * the paid license agreement will prevail.  Otherwise, the software is
+ * provided under the following open source license terms:
+ *
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+package org.alfresco.rest.framework.resource.parameters.where;
+
+import org.alfresco.repo.cache.DefaultSimpleCache;
+import org.alfresco.repo.cache.SimpleCache;
+
+/**
+ * A bounded cache of the parsed WHERE clauses, keyed by the raw where parameter.
+ * <p>
+ * Clients tend to send the same few WHERE clauses over and over, this saves lexing and parsing them on every request.
+ * Only valid clauses are cached, and only if the where parameter is no longer than {@link #MAX_KEY_LENGTH} characters
+ * (so that large client supplied strings aren't kept in memory). A {@link QueryImpl} is not changed once it has been parsed, so the same instance
+ * is handed to every request (and its compiled callbacks, see {@link QueryHelper#compile(Query)}, are shared too).
+ */
+public final class QueryCache
+{
+    private static final int MAX_ITEMS = 1000;
+    public static final int MAX_KEY_LENGTH = 1024;
+    private static final SimpleCache<String, Query> QUERIES = new DefaultSimpleCache<String, Query>(MAX_ITEMS, QueryCache.class.getName());
+
+    private QueryCache()
+    {
+    }
+
+    /**
+     * @param whereParam the raw where parameter
+     * @return the cached Query or null
+     */
+    public static Query get(String whereParam)
+    {
+        if (!isCacheable(whereParam))
+        {
+            return null;
+        }
+        return QUERIES.get(whereParam);
+    }
+
+    /**
+     * @param whereParam the raw where parameter
+     * @param query the Query parsed from it
+     */
+    public static void put(String whereParam, Query query)
+    {
+        if (isCacheable(whereParam))
+        {
+            QUERIES.put(whereParam, query);
+        }
+    }
+
+    private static boolean isCacheable(String whereParam)
+    {
+        return (whereParam != null) && (whereParam.length() <= MAX_KEY_LENGTH);
+    }
+
+    /**
+     * Removes all the cached queries.
+     */
+    public static void clear()
+    {
+        QUERIES.clear();
+    }
+}
@@ -29,6 +29,7 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.function.Consumer;
 
 import org.alfresco.rest.antlr.WhereClauseParser;
 import org.antlr.runtime.tree.CommonTree;
@@ -119,12 +120,107 @@ public abstract class QueryHelper
         public void or() {throw UNSUPPORTED;}
     }
 
+    /**
+     * A query that has been walked once and recorded as the sequence of callbacks it makes, so that it can be
+     * replayed on any callback without walking the tree again.
+     */
+    public static final class CompiledQuery
+    {
+        private final List<Consumer<WalkerCallback>> calls;
+
+        private CompiledQuery(List<Consumer<WalkerCallback>> calls)
+        {
+            this.calls = calls;
+        }
+
+        /**
+         * Makes the same calls, in the same order, as walking the query tree would.
+         * @param callback a callback
+         */
+        public void walk(WalkerCallback callback)
+        {
+            for (Consumer<WalkerCallback> call : calls)
+            {
+                call.accept(callback);
+            }
+        }
+    }
+
+    /**
+     * Compiles the query into the sequence of callbacks that walking it makes.
+     * @param query the query
+     * @return CompiledQuery
+     */
+    public static CompiledQuery compile(Query query)
+    {
+        final List<Consumer<WalkerCallback>> calls = new ArrayList<Consumer<WalkerCallback>>();
+        walkTree(query, new WalkerCallback()
+        {
+            @Override
+            public void exists(String propertyName, boolean negated)
+            {
+                calls.add(callback -> callback.exists(propertyName, negated));
+            }
+
+            @Override
+            public void between(String propertyName, String firstValue, String secondValue, boolean negated)
+            {
+                calls.add(callback -> callback.between(propertyName, firstValue, secondValue, negated));
+            }
+
+            @Override
+            public void comparison(int type, String propertyName, String propertyValue, boolean negated)
+            {
+                calls.add(callback -> callback.comparison(type, propertyName, propertyValue, negated));
+            }
+
+            @Override
+            public void in(String property, boolean negated, String... propertyValues)
+            {
+                calls.add(callback -> callback.in(property, negated, propertyValues.clone()));
+            }
+
+            @Override
+            public void matches(String property, String propertyValue, boolean negated)
+            {
+                calls.add(callback -> callback.matches(property, propertyValue, negated));
+            }
+
+            @Override
+            public void and()
+            {
+                calls.add(callback -> callback.and());
+            }
+
+            @Override
+            public void or()
+            {
+                calls.add(callback -> callback.or());
+            }
+        });
+        return new CompiledQuery(Collections.unmodifiableList(calls));
+    }
+
     /**
      * Walks a query with a callback for each operation
      * @param query the query
      * @param callback a callback
      */
     public static void walk(Query query, WalkerCallback callback)
+    {
+        if (query instanceof QueryImpl)
+        {
+            CompiledQuery compiled = ((QueryImpl) query).getCompiledQuery();
+            if (compiled != null)
+            {
+                compiled.walk(callback);
+                return;
+            }
+        }
+        walkTree(query, callback);
+    }
+
+    private static void walkTree(Query query, WalkerCallback callback)
     {
         CommonTree tree = query.getTree();
         if (tree != null)
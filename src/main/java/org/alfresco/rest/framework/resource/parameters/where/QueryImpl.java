@@ -25,6 +25,7 @@
  */
 package org.alfresco.rest.framework.resource.parameters.where;
 
+import org.alfresco.rest.framework.resource.parameters.where.QueryHelper.CompiledQuery;
 import org.antlr.runtime.tree.CommonTree;
 
 /**
@@ -35,6 +36,7 @@ public class QueryImpl implements Query
 {
     public static final Query EMPTY = new QueryImpl();
     private final CommonTree tree;
+    private volatile CompiledQuery compiledQuery;
     
     private QueryImpl()
     {
@@ -52,6 +54,31 @@ public class QueryImpl implements Query
 		return tree;
 	}
 
+    /**
+     * The query compiled into the callbacks that walking it makes, compiled the first time it is walked.
+     * The tree isn't changed once it has been parsed so the same (eg. cached) query can be walked by many requests.
+     *
+     * @return CompiledQuery or null if the query can't be compiled (it is then walked as a tree)
+     */
+    CompiledQuery getCompiledQuery()
+    {
+        CompiledQuery compiled = compiledQuery;
+        if (compiled == null)
+        {
+            try
+            {
+                compiled = QueryHelper.compile(this);
+            }
+            catch (RuntimeException error)
+            {
+                // Leave it to the walk of the tree to fail at the same point
+                return null;
+            }
+            compiledQuery = compiled;
+        }
+        return compiled;
+    }
+
 	@Override
 	public String toString() {
 		return "QueryImpl [tree=" + tree + "]";
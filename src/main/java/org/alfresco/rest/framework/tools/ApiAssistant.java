@@ -46,6 +46,9 @@ public class ApiAssistant {
 
     private static Log logger = LogFactory.getLog(ApiAssistant.class);
 
+    // for the errors that aren't written as the response itself (see resolvePublicException)
+    private static final ResponseWriter ERROR_WRITER = new ResponseWriter() {};
+
     private ExceptionResolver<Exception> defaultResolver = new DefaultExceptionResolver();
     private ExceptionResolver<WebScriptException> webScriptExceptionResolver;
     private ExceptionResolver<Exception> resolver;
@@ -88,6 +91,17 @@ public class ApiAssistant {
         return error;
     }
 
+    /**
+     * Resolves an exception as the json error that can be returned to a client, ie. without the stack trace
+     * (see {@link ResponseWriter#toPublicErrorResponse(ErrorResponse)}). Eg. for the error of one item of a bulk request.
+     * @param ex
+     * @return ErrorResponse
+     */
+    public ErrorResponse resolvePublicException(Exception ex)
+    {
+        return ERROR_WRITER.toPublicErrorResponse(resolveException(ex));
+    }
+
     public JacksonHelper getJsonHelper() {
         return jsonHelper;
     }
@@ -34,6 +34,7 @@ import org.alfresco.rest.framework.resource.parameters.Params;
 import org.alfresco.rest.framework.resource.parameters.SortColumn;
 import org.alfresco.rest.framework.resource.parameters.where.InvalidQueryException;
 import org.alfresco.rest.framework.resource.parameters.where.Query;
+import org.alfresco.rest.framework.resource.parameters.where.QueryCache;
 import org.alfresco.rest.framework.resource.parameters.where.QueryImpl;
 import org.alfresco.rest.framework.resource.parameters.where.WhereCompiler;
 import org.antlr.runtime.RecognitionException;
@@ -70,6 +71,7 @@ public interface RecognizedParamsExtractor
 
     public static final String PARAM_PAGING_SKIP = "skipCount";
     public static final String PARAM_PAGING_MAX = "maxItems";
+    public static final String PARAM_PAGING_CURSOR = "cursor";
     public static final String PARAM_ORDERBY = "orderBy";
     public static final String PARAM_WHERE = "where";
     public static final String PARAM_SELECT = "select";
@@ -258,6 +260,12 @@ public interface RecognizedParamsExtractor
         if (whereParam == null)
             return QueryImpl.EMPTY;
 
+        Query cached = QueryCache.get(whereParam);
+        if (cached != null)
+        {
+            return cached;
+        }
+
         try
         {
             CommonTree whereTree = WhereCompiler.compileWhereClause(whereParam);
@@ -266,7 +274,9 @@ public interface RecognizedParamsExtractor
                 rpeLogger().debug("Error parsing the WHERE clause " + whereTree);
                 throw new InvalidQueryException(whereTree);
             }
-            return new QueryImpl(whereTree);
+            Query query = new QueryImpl(whereTree);
+            QueryCache.put(whereParam, query);
+            return query;
         }
         catch (RewriteCardinalityException re)
         {  //Catch any error so it doesn't get thrown up the stack
@@ -344,8 +354,9 @@ public interface RecognizedParamsExtractor
     {
         String skip = req.getParameter(PARAM_PAGING_SKIP);
         String maxItems = req.getParameter(PARAM_PAGING_MAX);
+        String cursor = req.getParameter(PARAM_PAGING_CURSOR);
 
-        return getPaging(skip,maxItems);
+        return getPaging(skip, maxItems, cursor);
     }
 
     /**
@@ -393,6 +404,23 @@ public interface RecognizedParamsExtractor
         return Paging.valueOf(skipped, max);
     }
 
+    /**
+     * Gets the paging object, with the (opaque) cursor if there is one
+     * @param skip
+     * @param maxItems
+     * @param cursor
+     * @return
+     */
+    default Paging getPaging(String skip, String maxItems, String cursor)
+    {
+        Paging paging = getPaging(skip, maxItems);
+        if (cursor == null || cursor.isEmpty())
+        {
+            return paging;
+        }
+        return Paging.valueOf(paging.getSkipCount(), paging.getMaxItems(), cursor);
+    }
+
     /**
      * Takes the web request and looks for a "fields" parameter  (otherwise deprecated "properties" parameter).
      * Parses the parameter and produces a list of bean properties to use as a filter A
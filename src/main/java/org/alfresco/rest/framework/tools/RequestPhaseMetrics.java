@@ -0,0 +1,125 @@
+/*
+ * #%L
+ * Alfresco Remote API
+ * %%
+ * Copyright (C) 2005 - 2020 Alfresco Software Limited
+ * %%
+ * This file is part of the Alfresco software.
+ * If the software was purchased under a paid Alfresco license, the terms of
+ * the paid license agreement will prevail.  Otherwise, the software is
+ * provided under the following open source license terms:
+ *
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+package org.alfresco.rest.framework.tools;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.alfresco.rest.framework.tools.RequestPhaseTimings.Phase;
+
+/**
+ * Latency histograms, per operation (eg. "GET /nodes/{entityId}/children") and per {@link Phase}, of the REST requests.
+ * <p>
+ * The histograms are lock-free ({@link LatencyHistogram}) so recording doesn't contend between requests.
+ */
+public class RequestPhaseMetrics
+{
+    private static final Phase[] PHASES = Phase.values();
+
+    private final Map<String, LatencyHistogram[]> operations = new ConcurrentHashMap<>();
+    private boolean enabled = false;
+
+    /**
+     * Whether the phase timings of the requests are recorded.
+     *
+     * @param enabled boolean
+     */
+    public void setEnabled(boolean enabled)
+    {
+        this.enabled = enabled;
+    }
+
+    public boolean isEnabled()
+    {
+        return enabled;
+    }
+
+    /**
+     * Records the timings of a request.
+     *
+     * @param operation the operation, eg. "GET /nodes/{entityId}/children"
+     * @param timings the timings of the request
+     */
+    public void record(String operation, RequestPhaseTimings timings)
+    {
+        if (!enabled || !timings.isEnabled())
+        {
+            return;
+        }
+
+        LatencyHistogram[] histograms = operations.computeIfAbsent(operation, key -> newHistograms());
+        for (Phase phase : PHASES)
+        {
+            long nanos = timings.getNanos(phase);
+            if (nanos > 0 || phase == Phase.TOTAL)
+            {
+                histograms[phase.ordinal()].record(nanos);
+            }
+        }
+    }
+
+    /**
+     * @param operation the operation
+     * @param phase the phase
+     * @return the histogram or null if the operation hasn't been recorded
+     */
+    public LatencyHistogram getHistogram(String operation, Phase phase)
+    {
+        LatencyHistogram[] histograms = operations.get(operation);
+        return (histograms == null ? null : histograms[phase.ordinal()]);
+    }
+
+    /**
+     * @return the recorded operations, sorted
+     */
+    public List<String> getOperations()
+    {
+        List<String> names = new ArrayList<>(operations.keySet());
+        Collections.sort(names);
+        return names;
+    }
+
+    /**
+     * Forgets all the recorded timings.
+     */
+    public void reset()
+    {
+        operations.clear();
+    }
+
+    private static LatencyHistogram[] newHistograms()
+    {
+        LatencyHistogram[] histograms = new LatencyHistogram[PHASES.length];
+        for (int i = 0; i < histograms.length; i++)
+        {
+            histograms[i] = new LatencyHistogram();
+        }
+        return histograms;
+    }
+}
@@ -0,0 +1,176 @@
+/*
+ * #%L
+ * Alfresco Remote API
+ * %%
+ * Copyright (C) 2005 - 2020 Alfresco Software Limited
+ * %%
+ * This file is part of the Alfresco software.
+ * If the software was purchased under a paid Alfresco license, the terms of
+ * the paid license agreement will prevail.  Otherwise, the software is
+ * provided under the following open source license terms:
+ *
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+package org.alfresco.rest.framework.tools;
+
+import java.util.Locale;
+
+/**
+ * The time (in nanoseconds) a single REST request spends in each phase of the request pipeline.
+ * <p>
+ * Used by the thread executing the request only, it is not thread safe. {@link #NONE} is used when the
+ * timings aren't wanted, it records nothing.
+ */
+public class RequestPhaseTimings
+{
+    /**
+     * The phases of the request pipeline.
+     */
+    public enum Phase
+    {
+        /** Finding the resource for the URL */
+        LOCATE("locate"),
+        /** Extracting the params, including parsing the body */
+        PARAMS("params"),
+        /** Beginning and committing (or retrying) the transactions */
+        TRANSACTION("txn"),
+        /** Executing the action on the resource */
+        ACTION("action"),
+        /** Resolving the embedded entities and relations */
+        ADDITIONS("additions"),
+        /** Serializing (or streaming) the response */
+        SERIALIZE("serialize"),
+        /** The whole request */
+        TOTAL("total");
+
+        private final String metricName;
+
+        Phase(String metricName)
+        {
+            this.metricName = metricName;
+        }
+
+        public String getMetricName()
+        {
+            return metricName;
+        }
+    }
+
+    private static final Phase[] PHASES = Phase.values();
+
+    public static final RequestPhaseTimings NONE = new RequestPhaseTimings(false);
+
+    private final boolean enabled;
+    private final long[] nanos = new long[PHASES.length];
+
+    public RequestPhaseTimings()
+    {
+        this(true);
+    }
+
+    private RequestPhaseTimings(boolean enabled)
+    {
+        this.enabled = enabled;
+    }
+
+    /**
+     * @return the start time of a phase, to pass to {@link #record(Phase, long)}
+     */
+    public long start()
+    {
+        return (enabled ? System.nanoTime() : 0);
+    }
+
+    /**
+     * Adds the time since the start to the phase (a phase can be entered more than once, eg. when a transaction is retried).
+     *
+     * @param phase the phase
+     * @param start the value returned by {@link #start()}
+     */
+    public void record(Phase phase, long start)
+    {
+        if (enabled)
+        {
+            nanos[phase.ordinal()] += System.nanoTime() - start;
+        }
+    }
+
+    /**
+     * Adds the time since the start, less the time recorded for the other phases since then, to the phase.
+     * Used for a phase (eg. the transaction) that wraps others.
+     *
+     * @param phase the phase
+     * @param start the value returned by {@link #start()}
+     * @param recordedAtStart the value returned by {@link #getRecorded()} at the start
+     */
+    public void recordRemainder(Phase phase, long start, long recordedAtStart)
+    {
+        if (enabled)
+        {
+            long elapsed = System.nanoTime() - start;
+            nanos[phase.ordinal()] += Math.max(0, elapsed - (getRecorded() - recordedAtStart));
+        }
+    }
+
+    /**
+     * @return the total time recorded for all the phases (except the TOTAL)
+     */
+    public long getRecorded()
+    {
+        long recorded = 0;
+        for (Phase phase : PHASES)
+        {
+            if (phase != Phase.TOTAL)
+            {
+                recorded += nanos[phase.ordinal()];
+            }
+        }
+        return recorded;
+    }
+
+    public boolean isEnabled()
+    {
+        return enabled;
+    }
+
+    public long getNanos(Phase phase)
+    {
+        return nanos[phase.ordinal()];
+    }
+
+    /**
+     * The phases recorded so far, as the value of a Server-Timing header, eg. "locate;dur=0.052, params;dur=0.310, ...".
+     * The durations are in milliseconds.
+     *
+     * @return String
+     */
+    public String toServerTiming()
+    {
+        StringBuilder header = new StringBuilder();
+        for (Phase phase : PHASES)
+        {
+            long phaseNanos = nanos[phase.ordinal()];
+            if (phaseNanos > 0)
+            {
+                if (header.length() > 0)
+                {
+                    header.append(", ");
+                }
+                header.append(phase.getMetricName()).append(";dur=").append(String.format(Locale.ENGLISH, "%.3f", phaseNanos / 1000000.0));
+            }
+        }
+        return header.toString();
+    }
+}
@@ -193,19 +193,7 @@ public interface ResponseWriter
     default void renderErrorResponse(final ErrorResponse errorResponse, final WebScriptResponse res, final JacksonHelper jsonHelper)
                 throws IOException
     {
-
-        String logId = "";
-
-        if (Status.STATUS_INTERNAL_SERVER_ERROR == errorResponse.getStatusCode() || resWriterLogger().isDebugEnabled())
-        {
-            logId = org.alfresco.util.GUID.generate();
-            resWriterLogger().error(logId + " : " + errorResponse.getStackTrace());
-        }
-
-        String stackMessage = I18NUtil.getMessage(DefaultExceptionResolver.STACK_MESSAGE_ID);
-
-        final ErrorResponse errorToWrite = new ErrorResponse(errorResponse.getErrorKey(), errorResponse.getStatusCode(),
-                    errorResponse.getBriefSummary(), stackMessage, logId, errorResponse.getAdditionalState(), DefaultExceptionResolver.ERROR_URL);
+        final ErrorResponse errorToWrite = toPublicErrorResponse(errorResponse);
 
         setContentInfoOnResponse(res, DEFAULT_JSON_CONTENT);
 
@@ -227,6 +215,28 @@ public interface ResponseWriter
         });
     }
 
+    /**
+     * Logs the error (if it is a server error) and replaces its stack trace with the public stack message and the log id.
+     *
+     * @param errorResponse The error
+     * @return ErrorResponse the error that can be written to the response
+     */
+    default ErrorResponse toPublicErrorResponse(final ErrorResponse errorResponse)
+    {
+        String logId = "";
+
+        if (Status.STATUS_INTERNAL_SERVER_ERROR == errorResponse.getStatusCode() || resWriterLogger().isDebugEnabled())
+        {
+            logId = org.alfresco.util.GUID.generate();
+            resWriterLogger().error(logId + " : " + errorResponse.getStackTrace());
+        }
+
+        String stackMessage = I18NUtil.getMessage(DefaultExceptionResolver.STACK_MESSAGE_ID);
+
+        return new ErrorResponse(errorResponse.getErrorKey(), errorResponse.getStatusCode(),
+                    errorResponse.getBriefSummary(), stackMessage, logId, errorResponse.getAdditionalState(), DefaultExceptionResolver.ERROR_URL);
+    }
+
     /**
      * Renders an exception to the output stream as Json.
      *
@@ -28,6 +28,7 @@ package org.alfresco.rest.framework.webscripts;
 import java.io.IOException;
 import java.util.Collections;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.alfresco.error.AlfrescoRuntimeException;
 import org.alfresco.metrics.rest.RestMetricsReporter;
@@ -42,6 +43,7 @@ import org.alfresco.rest.framework.core.ResourceLocator;
 import org.alfresco.rest.framework.core.ResourceOperation;
 import org.alfresco.rest.framework.core.ResourceWithMetadata;
 import org.alfresco.rest.framework.core.exceptions.ApiException;
+import org.alfresco.rest.framework.core.exceptions.UnsupportedResourceOperationException;
 import org.alfresco.rest.framework.resource.actions.ActionExecutor;
 import org.alfresco.rest.framework.resource.actions.interfaces.BinaryResourceAction;
 import org.alfresco.rest.framework.resource.actions.interfaces.RelationshipResourceBinaryAction;
@@ -50,11 +52,16 @@ import org.alfresco.rest.framework.resource.content.CacheDirective;
 import org.alfresco.rest.framework.resource.content.ContentInfo;
 import org.alfresco.rest.framework.resource.content.FileBinaryResource;
 import org.alfresco.rest.framework.resource.content.NodeBinaryResource;
+import org.alfresco.rest.framework.resource.parameters.CollectionWithPagingInfo;
 import org.alfresco.rest.framework.resource.parameters.Params;
+import org.alfresco.rest.framework.tools.RequestPhaseMetrics;
+import org.alfresco.rest.framework.tools.RequestPhaseTimings;
+import org.alfresco.rest.framework.tools.RequestPhaseTimings.Phase;
 import org.alfresco.rest.framework.tools.ResponseWriter;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.springframework.extensions.webscripts.Status;
 import org.springframework.extensions.webscripts.WebScriptException;
 import org.springframework.extensions.webscripts.WebScriptRequest;
 import org.springframework.extensions.webscripts.WebScriptResponse;
@@ -77,27 +84,46 @@ import org.springframework.http.HttpMethod;
 public abstract class AbstractResourceWebScript extends ApiWebScript implements HttpMethodSupport, ActionExecutor, ResponseWriter
 {
     private static Log logger = LogFactory.getLog(AbstractResourceWebScript.class);
+    private static final String HEADER_ETAG = "ETag";
+    private static final String HEADER_IF_NONE_MATCH = "If-None-Match";
+    private static final String HEADER_SERVER_TIMING = "Server-Timing";
 
     protected ResourceLocator locator;
     private HttpMethod httpMethod;
     private ParamsExtractor paramsExtractor;
     private ContentStreamer streamer;
     protected ResourceWebScriptHelper helper;
+    private boolean streamCollections = false;
+    private RequestPhaseMetrics phaseMetrics;
+    private boolean serverTiming = false;
 
     @SuppressWarnings("rawtypes")
     @Override
     public void execute(final Api api, final WebScriptRequest req, final WebScriptResponse res) throws IOException
     {
         long startTime = System.currentTimeMillis();
+        final RequestPhaseTimings timings = isTimed() ? new RequestPhaseTimings() : RequestPhaseTimings.NONE;
+        final long totalStart = timings.start();
+        ResourceWithMetadata locatedResource = null;
+        final AtomicBoolean streamed = new AtomicBoolean();
         
         try
         {
             final Map<String, String> templateVars = req.getServiceMatch().getTemplateVars();
+            long locateStart = timings.start();
             final ResourceWithMetadata resource = locator.locateResource(api,templateVars, httpMethod);
+            timings.record(Phase.LOCATE, locateStart);
+            locatedResource = resource;
             final boolean isReadOnly = HttpMethod.GET==httpMethod;
+            final boolean isStreaming = isReadOnly && streamCollections;
 
             // MNT-20308 - allow write transactions for authentication api
             RetryingTransactionHelper transHelper = getTransactionHelper(resource.getMetaData().getApi().getName());
+            if (isStreaming)
+            {
+                // a retry would write the response again, after what has already been written
+                transHelper.setMaxRetries(0);
+            }
 
             // encapsulate script within transaction
             RetryingTransactionHelper.RetryingTransactionCallback<Object> work = new RetryingTransactionHelper.RetryingTransactionCallback<Object>()
@@ -107,8 +133,21 @@ public abstract class AbstractResourceWebScript extends ApiWebScript implements
                 {
                     try
                     {
+                        long paramsStart = timings.start();
                         final Params params = paramsExtractor.extractParams(resource.getMetaData(), req);
-                        return AbstractResourceWebScript.this.execute(resource, params, res, isReadOnly);
+                        timings.record(Phase.PARAMS, paramsStart);
+                        Object result = AbstractResourceWebScript.this.execute(resource, params, res, isReadOnly, isStreaming, timings);
+                        if (isStreaming && result instanceof CollectionWithPagingInfo)
+                        {
+                            // The entries are wrapped as they are written so the response is rendered inside the transaction
+                            setServerTiming(res, timings);
+                            long serializeStart = timings.start();
+                            streamed.set(true);
+                            renderJsonResponse(res, result, assistant.getJsonHelper());
+                            timings.record(Phase.SERIALIZE, serializeStart);
+                            return null;
+                        }
+                        return result;
                     }
                     catch (Exception e)
                     {
@@ -125,11 +164,16 @@ public abstract class AbstractResourceWebScript extends ApiWebScript implements
             };
 
             //This execution usually takes place in a Retrying Transaction (see subclasses)
+            long transactionStart = timings.start();
+            long recordedAtTransactionStart = timings.getRecorded();
             final Object toSerialize = transHelper.doInTransaction(work, isReadOnly, true);
+            timings.recordRemainder(Phase.TRANSACTION, transactionStart, recordedAtTransactionStart);
 
             //Outside the transaction.
             if (toSerialize != null)
             {
+                setServerTiming(res, timings);
+                long serializeStart = timings.start();
                 if (toSerialize instanceof BinaryResource)
                 {
                     // TODO review (experimental) - can we move earlier & wrap complete execute ? Also for QuickShare (in MT/Cloud) needs to be tenant for the nodeRef (TBC).
@@ -170,24 +214,54 @@ public abstract class AbstractResourceWebScript extends ApiWebScript implements
                 {
                     renderJsonResponse(res, toSerialize, assistant.getJsonHelper());
                 }
+                timings.record(Phase.SERIALIZE, serializeStart);
             }
 
         }
         catch (AlfrescoRuntimeException | ApiException | WebScriptException xception )
         {
-            renderException(xception, res, assistant);
+            renderException(xception, res, streamed.get());
         }
         catch (RuntimeException runtimeException)
         {
-            renderException(runtimeException, res, assistant);
+            renderException(runtimeException, res, streamed.get());
         }
         finally
         {
             reportExecutionTimeMetric(startTime, req.getServicePath());
+            reportPhaseTimings(locatedResource, timings, totalStart);
+        }
+    }
+
+    /**
+     * Renders the exception, unless the response has already been streamed: then it is too late to replace it with an error
+     * response, so the exception is only logged.
+     */
+    private void renderException(Exception exception, WebScriptResponse res, boolean streamed) throws IOException
+    {
+        if (streamed)
+        {
+            logger.error("Failed after the response has been streamed, it can't be replaced with an error response.", exception);
+        }
+        else
+        {
+            renderException(exception, res, assistant);
         }
     }
 
     public Object execute(final ResourceWithMetadata resource, final Params params, final WebScriptResponse res, boolean isReadOnly)
+    {
+        return execute(resource, params, res, isReadOnly, false);
+    }
+
+    protected Object execute(final ResourceWithMetadata resource, final Params params, final WebScriptResponse res, boolean isReadOnly,
+                             final boolean isStreaming)
+    {
+        return execute(resource, params, res, isReadOnly, isStreaming, RequestPhaseTimings.NONE);
+    }
+
+    private Object execute(final ResourceWithMetadata resource, final Params params, final WebScriptResponse res, boolean isReadOnly,
+                           final boolean isStreaming, final RequestPhaseTimings timings)
     {
         final String entityCollectionName = ResourceInspector.findEntityCollectionNameName(resource.getMetaData());
         final ResourceOperation operation = resource.getMetaData().getOperation(getHttpMethod());
@@ -203,18 +277,92 @@ public abstract class AbstractResourceWebScript extends ApiWebScript implements
                     public Object execute() throws Throwable
                     {
 
+                        long actionStart = timings.start();
                         Object result = executeAction(resource, params, callBack);
+                        timings.record(Phase.ACTION, actionStart);
                         if (result instanceof BinaryResource)
                         {
                             return result; //don't postprocess it.
                         }
-        return helper.processAdditionsToTheResponse(res, resource.getMetaData().getApi(), entityCollectionName, params, result);
+                        if (isReadOnly && isConditional(resource, params) && isNotModified(params, result, callBack))
+                        {
+                            return null; //304, there is nothing to serialize
+                        }
+                        long additionsStart = timings.start();
+                        Object processed = helper.processAdditionsToTheResponse(res, resource.getMetaData().getApi(), entityCollectionName, params,
+                                    result, isStreaming);
+                        timings.record(Phase.ADDITIONS, additionsStart);
+                        return processed;
                     }
                 }, isReadOnly, false);
         setResponse(res,callBack);
         return toReturn;
     }
 
+    /**
+     * Executes a request that is part of a batch (see {@link org.alfresco.rest.framework.webscripts.batch.BatchWebScript}).
+     * The request is located, its params extracted and the action executed in the caller's transaction, the result
+     * is processed for embedded and related resources but not rendered.
+     *
+     * @param api the Api of the batch
+     * @param req the sub-request, its service match holds the resource template vars
+     * @param withResponse receives the success status (and any headers) of the action
+     * @return the result to serialize or null
+     */
+    public Object executeBatched(final Api api, final WebScriptRequest req, final WithResponse withResponse) throws Throwable
+    {
+        final ResourceWithMetadata resource = locator.locateResource(api, req.getServiceMatch().getTemplateVars(), httpMethod);
+        final Params params = paramsExtractor.extractParams(resource.getMetaData(), req);
+        final ResourceOperation operation = resource.getMetaData().getOperation(httpMethod);
+        if (operation != null)
+        {
+            withResponse.setStatus(operation.getSuccessStatus());
+        }
+
+        Object result = executeAction(resource, params, withResponse);
+        if (result instanceof BinaryResource)
+        {
+            throw new UnsupportedResourceOperationException("Binary content can't be part of a batch: " + resource.getMetaData().getUniqueId());
+        }
+        final String entityCollectionName = ResourceInspector.findEntityCollectionNameName(resource.getMetaData());
+        return helper.processAdditionsToTheResponse(null, api, entityCollectionName, params, result);
+    }
+
+    /**
+     * Whether the action executed for these params has been described as conditional (see WebApiDescription.conditional).
+     *
+     * @param resource ResourceWithMetadata
+     * @param params Params
+     * @return boolean
+     */
+    protected boolean isConditional(ResourceWithMetadata resource, Params params)
+    {
+        return false;
+    }
+
+    /**
+     * Sets the ETag of the result on the response and, if it matches the request's If-None-Match header, the 304 (Not Modified) status.
+     *
+     * @return true if the result has not been modified
+     */
+    private boolean isNotModified(Params params, Object result, WithResponse callBack)
+    {
+        String etag = helper.getEntityTag(params, result);
+        if (etag == null)
+        {
+            return false;
+        }
+
+        callBack.setHeader(HEADER_ETAG, etag);
+        WebScriptRequest req = params.getRequest();
+        if (req != null && ResourceWebScriptHelper.matchesEntityTag(req.getHeader(HEADER_IF_NONE_MATCH), etag))
+        {
+            callBack.setStatus(Status.STATUS_NOT_MODIFIED);
+            return true;
+        }
+        return false;
+    }
+
     protected RetryingTransactionHelper getTransactionHelper(String api)
     {
         RetryingTransactionHelper transHelper = transactionService.getRetryingTransactionHelper();
@@ -248,6 +396,28 @@ public abstract class AbstractResourceWebScript extends ApiWebScript implements
 
     }
 
+    private boolean isTimed()
+    {
+        return serverTiming || (phaseMetrics != null && phaseMetrics.isEnabled());
+    }
+
+    private void setServerTiming(final WebScriptResponse res, final RequestPhaseTimings timings)
+    {
+        if (serverTiming && timings.isEnabled())
+        {
+            res.setHeader(HEADER_SERVER_TIMING, timings.toServerTiming());
+        }
+    }
+
+    private void reportPhaseTimings(final ResourceWithMetadata resource, final RequestPhaseTimings timings, final long totalStart)
+    {
+        if (phaseMetrics != null && resource != null && timings.isEnabled())
+        {
+            timings.record(Phase.TOTAL, totalStart);
+            phaseMetrics.record(httpMethod + " " + resource.getMetaData().getUniqueId(), timings);
+        }
+    }
+
     private void reportExecutionTimeMetric(final long startTime, final String servicePath)
     {
         try
@@ -297,6 +467,41 @@ public abstract class AbstractResourceWebScript extends ApiWebScript implements
         this.helper = helper;
     }
 
+    /**
+     * Whether a collection returned by a GET is wrapped and written one entity at a time, inside the read-only transaction,
+     * rather than being copied and processed in full before it is serialized. This keeps the memory used by large pages
+     * down but, as the response is committed while it is written, an error part way through a page can't be reported
+     * as an error response.
+     *
+     * @param streamCollections boolean
+     */
+    public void setStreamCollections(boolean streamCollections)
+    {
+        this.streamCollections = streamCollections;
+    }
+
+    /**
+     * The latency histograms that the phase timings (locate, params, transaction, action, additions and serialize)
+     * of each request are recorded in.
+     *
+     * @param phaseMetrics RequestPhaseMetrics
+     */
+    public void setPhaseMetrics(RequestPhaseMetrics phaseMetrics)
+    {
+        this.phaseMetrics = phaseMetrics;
+    }
+
+    /**
+     * Whether the phase timings are returned in a Server-Timing header. As the header is set before the response is
+     * written it doesn't include the serialization.
+     *
+     * @param serverTiming boolean
+     */
+    public void setServerTiming(boolean serverTiming)
+    {
+        this.serverTiming = serverTiming;
+    }
+
     public HttpMethod getHttpMethod()
     {
         return this.httpMethod;
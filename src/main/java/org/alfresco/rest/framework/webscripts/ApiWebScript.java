@@ -119,6 +119,8 @@ public abstract class ApiWebScript extends AbstractWebScript
             {
                 bufferedReq.close();
             }
+            // and of any content that has been streamed but not used
+            MultiPartStream.close(req);
 		}
 
         // Ensure a response is always flushed after successful execution
@@ -0,0 +1,205 @@
+/*
+ * #%L
+ * Alfresco Remote API
+ * %%
+ * Copyright (C) 2005 - 2020 Alfresco Software Limited
+ * %%
+ * This file is part of the Alfresco software.
+ * If the software was purchased under a paid Alfresco license, the terms of
+ * the paid license agreement will prevail.  Otherwise, the software is
+ * provided under the following open source license terms:
+ *
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+package org.alfresco.rest.framework.webscripts;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.servlet.http.HttpServletRequest;
+
+import org.alfresco.rest.framework.core.exceptions.ApiException;
+import org.alfresco.rest.framework.core.exceptions.InvalidArgumentException;
+import org.alfresco.rest.framework.resource.actions.interfaces.MultiPartRelationshipResourceAction;
+import org.apache.commons.fileupload.FileItemIterator;
+import org.apache.commons.fileupload.FileItemStream;
+import org.apache.commons.fileupload.FileUploadException;
+import org.apache.commons.fileupload.servlet.ServletFileUpload;
+import org.apache.commons.fileupload.util.Streams;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.extensions.webscripts.WebScriptRequest;
+import org.springframework.extensions.webscripts.servlet.FormData;
+import org.springframework.extensions.webscripts.servlet.WebScriptServletRuntime;
+
+/**
+ * A multipart/form-data request that is read as it arrives, part by part (see
+ * {@link MultiPartRelationshipResourceAction.CreateStreamed}), rather than parsed - and its files buffered to temp files -
+ * up front.
+ * <p>
+ * The request can only be read once. The result of reading it is kept, so that a transaction retry gets the same result
+ * rather than an (already consumed) request. A resource that doesn't stream gets the {@link FormData} instead, as long as
+ * the request hasn't been read.
+ */
+public class MultiPartStream
+{
+    private static final Log logger = LogFactory.getLog(MultiPartStream.class);
+
+    private static final String ATTRIBUTE_NAME = MultiPartStream.class.getName();
+    private static final String DEFAULT_ENCODING = "UTF-8";
+
+    /**
+     * Reads the parts of a request, in the order they were sent.
+     */
+    public interface PartsReader<T>
+    {
+        T read(FileItemIterator parts) throws IOException, FileUploadException;
+    }
+
+    private final WebScriptRequest req;
+    private final HttpServletRequest httpReq;
+    private final List<Runnable> closeCallbacks = new ArrayList<>(1);
+
+    private boolean parsed;
+    private boolean read;
+    private Object result;
+    private RuntimeException error;
+
+    private MultiPartStream(WebScriptRequest req, HttpServletRequest httpReq)
+    {
+        this.req = req;
+        this.httpReq = httpReq;
+    }
+
+    /**
+     * @return the stream of the request - the same one for each (retried) attempt - or null if it isn't a servlet request
+     */
+    public static MultiPartStream valueOf(WebScriptRequest req)
+    {
+        HttpServletRequest httpReq = WebScriptServletRuntime.getHttpServletRequest(req);
+        if (httpReq == null)
+        {
+            return null;
+        }
+
+        MultiPartStream stream = (MultiPartStream) httpReq.getAttribute(ATTRIBUTE_NAME);
+        if (stream == null)
+        {
+            stream = new MultiPartStream(req, httpReq);
+            httpReq.setAttribute(ATTRIBUTE_NAME, stream);
+        }
+        return stream;
+    }
+
+    /**
+     * Once the request has been done: runs the close callbacks of its stream, if any.
+     */
+    public static void close(WebScriptRequest req)
+    {
+        HttpServletRequest httpReq = WebScriptServletRuntime.getHttpServletRequest(req);
+        MultiPartStream stream = (httpReq != null ? (MultiPartStream) httpReq.getAttribute(ATTRIBUTE_NAME) : null);
+        if (stream != null)
+        {
+            httpReq.removeAttribute(ATTRIBUTE_NAME);
+            stream.close();
+        }
+    }
+
+    /**
+     * Reads the request, the first time only: the next times return the same result (or throw the same error).
+     */
+    @SuppressWarnings("unchecked")
+    public synchronized <T> T read(PartsReader<T> reader)
+    {
+        if (! read)
+        {
+            if (parsed)
+            {
+                throw new IllegalStateException("The request has already been parsed");
+            }
+            read = true;
+
+            try
+            {
+                result = reader.read(new ServletFileUpload().getItemIterator(httpReq));
+            }
+            catch (FileUploadException fue)
+            {
+                error = new InvalidArgumentException("Failed to read the multipart request: " + fue.getMessage());
+            }
+            catch (IOException ioe)
+            {
+                error = new ApiException("Failed to read the multipart request", ioe);
+            }
+            catch (RuntimeException re)
+            {
+                error = re;
+            }
+        }
+
+        if (error != null)
+        {
+            throw error;
+        }
+        return (T) result;
+    }
+
+    /**
+     * @return the whole (parsed) request, for a resource that doesn't stream it
+     */
+    public synchronized FormData getFormData()
+    {
+        if (read)
+        {
+            throw new IllegalStateException("The request has already been read");
+        }
+        parsed = true;
+        return (FormData) req.parseContent();
+    }
+
+    /**
+     * @return the value of a form field (rather than a file) part
+     */
+    public String getValue(FileItemStream part) throws IOException
+    {
+        String encoding = httpReq.getCharacterEncoding();
+        return Streams.asString(part.openStream(), (encoding != null ? encoding : DEFAULT_ENCODING));
+    }
+
+    /**
+     * Adds something to be done once the request has been done, eg. to remove content that has been read but not used.
+     */
+    public synchronized void addCloseCallback(Runnable callback)
+    {
+        closeCallbacks.add(callback);
+    }
+
+    private synchronized void close()
+    {
+        for (Runnable callback : closeCallbacks)
+        {
+            try
+            {
+                callback.run();
+            }
+            catch (RuntimeException e)
+            {
+                logger.warn("Failed to close the multipart request: " + e.getMessage(), e);
+            }
+        }
+        closeCallbacks.clear();
+    }
+}
@@ -133,6 +133,25 @@ public class ResourceWebScriptGet extends AbstractResourceWebScript implements P
         }
     }
 
+    @Override
+    protected boolean isConditional(ResourceWithMetadata resource, Params params)
+    {
+        ResourceMetadata metaData = resource.getMetaData();
+        switch (metaData.getType())
+        {
+            case ENTITY:
+                return StringUtils.isNotBlank(params.getEntityId()) && !params.isCollectionResource()
+                            && (metaData.isConditional(EntityResourceAction.ReadById.class)
+                                        || metaData.isConditional(EntityResourceAction.ReadByIdWithResponse.class));
+            case RELATIONSHIP:
+                return StringUtils.isNotBlank(params.getRelationshipId()) && !params.isCollectionResource()
+                            && (metaData.isConditional(RelationshipResourceAction.ReadById.class)
+                                        || metaData.isConditional(RelationshipResourceAction.ReadByIdWithResponse.class));
+            default:
+                return false;
+        }
+    }
+
     /**
      * Executes the action on the resource
      * @param resource ResourceWithMetadata
@@ -29,15 +29,38 @@ package org.alfresco.rest.framework.webscripts;
 import java.beans.PropertyDescriptor;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractCollection;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
 
+import org.alfresco.repo.security.authentication.AuthenticationUtil;
+import org.alfresco.repo.tenant.TenantUtil;
+import org.alfresco.repo.transaction.AlfrescoTransactionSupport;
+import org.alfresco.repo.transaction.AlfrescoTransactionSupport.TxnReadState;
+import org.alfresco.repo.transaction.RetryingTransactionHelper.RetryingTransactionCallback;
 import org.alfresco.rest.framework.Api;
+import org.alfresco.rest.framework.core.ResourceClassMetadata;
 import org.alfresco.rest.framework.core.ResourceInspector;
-import org.alfresco.rest.framework.core.ResourceInspectorUtil;
 import org.alfresco.rest.framework.core.ResourceLocator;
 import org.alfresco.rest.framework.core.ResourceWithMetadata;
 import org.alfresco.rest.framework.core.exceptions.NotFoundException;
@@ -45,17 +68,22 @@ import org.alfresco.rest.framework.core.exceptions.PermissionDeniedException;
 import org.alfresco.rest.framework.jacksonextensions.BeanPropertiesFilter;
 import org.alfresco.rest.framework.jacksonextensions.ExecutionResult;
 import org.alfresco.rest.framework.resource.actions.ActionExecutor;
+import org.alfresco.rest.framework.resource.actions.interfaces.RelationshipResourceAction;
 import org.alfresco.rest.framework.resource.parameters.CollectionWithPagingInfo;
 import org.alfresco.rest.framework.resource.parameters.Params;
 import org.alfresco.rest.framework.tools.ResponseWriter;
+import org.alfresco.service.transaction.TransactionService;
 import org.alfresco.util.Pair;
 import org.alfresco.util.PropertyCheck;
+import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.springframework.beans.BeanUtils;
 import org.springframework.extensions.webscripts.Status;
+import org.springframework.extensions.webscripts.WebScriptRequest;
 import org.springframework.extensions.webscripts.WebScriptResponse;
 import org.springframework.http.HttpMethod;
+import org.springframework.util.DigestUtils;
 
 /**
  * Helps a Webscript with various tasks
@@ -66,10 +94,18 @@ import org.springframework.http.HttpMethod;
 public class ResourceWebScriptHelper
 {
     private static Log logger = LogFactory.getLog(ResourceWebScriptHelper.class);
+    private static final String PARAM_TICKET = "alf_ticket";
     private ResourceLocator locator;
 
     private ActionExecutor executor;
 
+    private static final ThreadLocal<Boolean> IN_PARALLEL_TASK = new ThreadLocal<Boolean>();
+    private boolean parallelResources = false;
+    private ExecutorService parallelResourcesExecutor;
+    private int parallelResourcesPerRequest = 4;
+    private long parallelResourcesTimeout = 30000L;
+    private TransactionService transactionService;
+
     /**
      * Set the id of theObj to the uniqueId. Attempts to find a set method and
      * invoke it. If it fails it just swallows the exceptions and doesn't throw
@@ -132,55 +168,204 @@ public class ResourceWebScriptHelper
      * @return Object - Either ExecutionResult or CollectionWithPagingInfo<ExecutionResult>
      */
     public Object processAdditionsToTheResponse(WebScriptResponse res, Api api, String entityCollectionName, Params params, Object objectToWrap)
+    {
+        return processAdditionsToTheResponse(res, api, entityCollectionName, params, objectToWrap, false);
+    }
+
+    /**
+     * As {@link #processAdditionsToTheResponse(WebScriptResponse, Api, String, Params, Object)} but, if streaming is true, the entities of a
+     * CollectionWithPagingInfo are not copied into a new collection. Instead each entity is wrapped (and its embedded and related resources
+     * resolved) as it is iterated, ie. while it is being serialized, so only one entity is processed at a time.
+     * <p>
+     * When streaming the caller must serialize the result within the same transaction.
+     * <p>
+     * If the embedded and related resources are executed concurrently then the timeout and the number of resources executed at the same
+     * time apply to the whole response, not to each of its entities.
+     *
+     * @param api Api
+     * @param entityCollectionName String
+     * @param params  Params
+     * @param objectToWrap Object
+     * @param streaming true to wrap the entities of a collection lazily
+     * @return Object - Either ExecutionResult or CollectionWithPagingInfo<ExecutionResult>
+     */
+    public Object processAdditionsToTheResponse(WebScriptResponse res, Api api, String entityCollectionName, Params params, Object objectToWrap,
+                                                boolean streaming)
+    {
+        return processAdditionsToTheResponse(res, api, entityCollectionName, params, objectToWrap, streaming,
+                                             new ParallelResourcesBudget(System.currentTimeMillis() + parallelResourcesTimeout, parallelResourcesPerRequest));
+    }
+
+    private Object processAdditionsToTheResponse(WebScriptResponse res, Api api, String entityCollectionName, Params params, Object objectToWrap,
+                                                 boolean streaming, ParallelResourcesBudget budget)
     {
         PropertyCheck.mandatory(this, null, params);
         if (objectToWrap == null ) return null;
         if (objectToWrap instanceof CollectionWithPagingInfo<?>)
         {
             CollectionWithPagingInfo<?> collectionToWrap = (CollectionWithPagingInfo<?>) objectToWrap;
-            Object sourceEntity = executeIncludedSource(api, params, entityCollectionName, collectionToWrap);
-            Collection<Object> resultCollection = new ArrayList(collectionToWrap.getCollection().size());
-            if (!collectionToWrap.getCollection().isEmpty())
+            Object sourceEntity = executeIncludedSource(api, params, entityCollectionName, collectionToWrap, budget);
+            Collection<Object> resultCollection;
+            if (streaming)
             {
-                for (Object obj : collectionToWrap.getCollection())
+                resultCollection = new StreamingCollection(res, api, entityCollectionName, params, collectionToWrap.getCollection(), budget);
+            }
+            else
+            {
+                resultCollection = new ArrayList(collectionToWrap.getCollection().size());
+                if (!collectionToWrap.getCollection().isEmpty())
                 {
-                    resultCollection.add(processAdditionsToTheResponse(res, api,entityCollectionName,params,obj));
+                    Map<String, Map<String, Object>> batchedRelations = executeRelatedResourcesForEntities(api, entityCollectionName, params,
+                                                                                                            collectionToWrap.getCollection(), budget);
+                    for (Object obj : collectionToWrap.getCollection())
+                    {
+                        if (batchedRelations == null || obj == null || obj instanceof CollectionWithPagingInfo<?>)
+                        {
+                            resultCollection.add(processAdditionsToTheResponse(res, api, entityCollectionName, params, obj, false, budget));
+                        }
+                        else
+                        {
+                            resultCollection.add(wrapEntity(api, entityCollectionName, params, obj, batchedRelations, budget));
+                        }
+                    }
                 }
             }
             return CollectionWithPagingInfo.asPaged(collectionToWrap.getPaging(), resultCollection, collectionToWrap.hasMoreItems(),
-                                                    collectionToWrap.getTotalItems(), sourceEntity, collectionToWrap.getContext());
+                                                    collectionToWrap.getTotalItems(), sourceEntity, collectionToWrap.getContext(),
+                                                    collectionToWrap.getNextCursor());
         }
         else
         {           
-            if (BeanUtils.isSimpleProperty(objectToWrap.getClass())  || objectToWrap instanceof Collection)
-            {
-                //Simple property or Collection that can't be embedded so just return it.
-                return objectToWrap;
-            }
+            return wrapEntity(api, entityCollectionName, params, objectToWrap, null, budget);
+        }
+    }
+
+    /**
+     * Wraps a single entity in an ExecutionResult with its embedded and related resources.
+     *
+     * @param api Api
+     * @param entityCollectionName String
+     * @param params  Params
+     * @param objectToWrap Object
+     * @param batchedRelations related resources already read for a collection of entities (keyed by relation then entity id) or null
+     * @param budget the limits on the parallel execution of resources for the response
+     * @return Object - ExecutionResult or the object itself if it can't be wrapped
+     */
+    private Object wrapEntity(Api api, String entityCollectionName, Params params, Object objectToWrap,
+                              Map<String, Map<String, Object>> batchedRelations, ParallelResourcesBudget budget)
+    {
+        if (BeanUtils.isSimpleProperty(objectToWrap.getClass())  || objectToWrap instanceof Collection)
+        {
+            //Simple property or Collection that can't be embedded so just return it.
+            return objectToWrap;
+        }
+
+        final ExecutionResult execRes = new ExecutionResult(objectToWrap, params.getFilter());
+        
+        ResourceClassMetadata classMetadata = ResourceClassMetadata.forClass(objectToWrap.getClass());
+        Map<String,Pair<String,Method>> embeddded = classMetadata.getEmbeddedResources();
+        if (!embeddded.isEmpty())
+        {
+            Map<String, Object> results = executeEmbeddedResources(api, params, objectToWrap, classMetadata, budget);
+            execRes.addEmbedded(results);
+        }
+        
+        if (params.getRelationsFilter() != null && !params.getRelationsFilter().isEmpty())
+        {
+            Map<String, ResourceWithMetadata> relationshipResources = locator.locateRelationResource(api,entityCollectionName, params.getRelationsFilter().keySet(), HttpMethod.GET);
+            String uniqueEntityId = ResourceInspector.findUniqueId(objectToWrap);
+            Map<String,Object> relatedResources = executeRelatedResources(api, params, relationshipResources, uniqueEntityId, batchedRelations, budget);
+            execRes.addRelated(relatedResources);
+        }
+
+        return execRes; 
+    }
 
-            final ExecutionResult execRes = new ExecutionResult(objectToWrap, params.getFilter());
-            
-            Map<String,Pair<String,Method>> embeddded = ResourceInspector.findEmbeddedResources(objectToWrap.getClass());
-            if (embeddded != null && !embeddded.isEmpty())
+    /**
+     * Computes a weak ETag for an entity, for a conditional GET.  The ETag is derived from the entity's class, its unique id,
+     * the value of its @EntityTag method and the (sorted) request parameters, eg. include and fields.
+     *
+     * It can't be computed if the class has no @EntityTag method (or it returns null) or if the response would include
+     * embedded or related resources, as their changes aren't reflected in the entity's value.
+     *
+     * @param params Params
+     * @param entity the result of the read
+     * @return the ETag, eg. W/"...", or null
+     */
+    public String getEntityTag(Params params, Object entity)
+    {
+        if (entity == null || entity instanceof CollectionWithPagingInfo<?> || entity instanceof Collection
+                    || BeanUtils.isSimpleProperty(entity.getClass()))
+        {
+            return null;
+        }
+        if (params.getRelationsFilter() != null && !params.getRelationsFilter().isEmpty())
+        {
+            return null;
+        }
+
+        ResourceClassMetadata classMetadata = ResourceClassMetadata.forClass(entity.getClass());
+        if (!classMetadata.hasEntityTag() || !classMetadata.getEmbeddedResources().isEmpty())
+        {
+            return null;
+        }
+        Object tag = classMetadata.invokeEntityTag(entity);
+        if (tag == null)
+        {
+            return null;
+        }
+
+        StringBuilder value = new StringBuilder(128);
+        value.append(entity.getClass().getName()).append('\n').append(ResourceInspector.findUniqueId(entity)).append('\n').append(tag);
+        WebScriptRequest req = params.getRequest();
+        String[] names = (req == null ? null : req.getParameterNames());
+        if (names != null)
+        {
+            names = names.clone();
+            Arrays.sort(names);
+            for (String name : names)
             {
-                Map<String, Object> results = executeEmbeddedResources(api, params,objectToWrap, embeddded);
-                execRes.addEmbedded(results);
+                if (!PARAM_TICKET.equals(name))
+                {
+                    value.append('\n').append(name).append('=').append(StringUtils.join(req.getParameterValues(name), ','));
+                }
             }
-            
-            if (params.getRelationsFilter() != null && !params.getRelationsFilter().isEmpty())
+        }
+        return "W/\"" + DigestUtils.md5DigestAsHex(value.toString().getBytes(StandardCharsets.UTF_8)) + "\"";
+    }
+
+    /**
+     * Whether the If-None-Match header matches the ETag (using the weak comparison).
+     *
+     * @param ifNoneMatch the If-None-Match header value, may be null
+     * @param etag the current ETag
+     * @return true if the client's representation is current
+     */
+    public static boolean matchesEntityTag(String ifNoneMatch, String etag)
+    {
+        if (ifNoneMatch == null || etag == null)
+        {
+            return false;
+        }
+        String opaqueTag = stripWeak(etag);
+        for (String candidate : ifNoneMatch.split(","))
+        {
+            candidate = candidate.trim();
+            if ("*".equals(candidate) || opaqueTag.equals(stripWeak(candidate)))
             {
-                Map<String, ResourceWithMetadata> relationshipResources = locator.locateRelationResource(api,entityCollectionName, params.getRelationsFilter().keySet(), HttpMethod.GET);
-                String uniqueEntityId = ResourceInspector.findUniqueId(objectToWrap);
-                Map<String,Object> relatedResources = executeRelatedResources(api, params, relationshipResources, uniqueEntityId);
-                execRes.addRelated(relatedResources);
+                return true;
             }
-
-            return execRes; 
-
         }
+        return false;
+    }
+
+    private static String stripWeak(String etag)
+    {
+        return (etag.startsWith("W/") ? etag.substring(2) : etag);
     }
 
-    private Object executeIncludedSource(Api api, Params params, String entityCollectionName, CollectionWithPagingInfo<?> collectionToWrap)
+    private Object executeIncludedSource(Api api, Params params, String entityCollectionName, CollectionWithPagingInfo<?> collectionToWrap,
+                                         ParallelResourcesBudget budget)
     {
         if (params.includeSource())
         {
@@ -193,7 +378,7 @@ public class ResourceWebScriptHelper
             ResourceWithMetadata res = locator.locateEntityResource(api, entityCollectionName, HttpMethod.GET);
             if (res != null)
             {
-                Object result = executeResource(api, params, params.getEntityId(), null, res);
+                Object result = executeResource(api, params, params.getEntityId(), null, res, budget);
                 if (result!=null && result instanceof ExecutionResult) return ((ExecutionResult) result).getRoot();
             }
         }
@@ -207,29 +392,37 @@ public class ResourceWebScriptHelper
      * @param api Api
      * @param params Params
      * @param objectToWrap Object
-     * @param embeddded Map<String, Pair<String, Method>>
+     * @param classMetadata the (cached) annotation metadata of the object's class
+     * @param budget the limits on the parallel execution of resources for the response
      * @return Map
      */
-    private Map<String, Object> executeEmbeddedResources(Api api, Params params, Object objectToWrap, Map<String, Pair<String, Method>> embeddded)
+    private Map<String, Object> executeEmbeddedResources(final Api api, final Params params, Object objectToWrap, ResourceClassMetadata classMetadata,
+                                                         final ParallelResourcesBudget budget)
     {
-        final Map<String,Object> results = new HashMap<String,Object>(embeddded.size());
+        Map<String, Pair<String, Method>> embeddded = classMetadata.getEmbeddedResources();
+        final Map<String, Callable<Object>> tasks = new LinkedHashMap<String, Callable<Object>>(embeddded.size());
         for (Entry<String, Pair<String,Method>> embeddedEntry : embeddded.entrySet())
         {
-            ResourceWithMetadata res = locator.locateEntityResource(api, embeddedEntry.getValue().getFirst(), HttpMethod.GET);
+            final ResourceWithMetadata res = locator.locateEntityResource(api, embeddedEntry.getValue().getFirst(), HttpMethod.GET);
             if (res != null)
             {
-                Object id = ResourceInspectorUtil.invokeMethod(embeddedEntry.getValue().getSecond(), objectToWrap);
+                final Object id = classMetadata.invokeEmbedded(embeddedEntry.getKey(), objectToWrap);
                 if (id != null)
                 {
-                    Object execEmbeddedResult = executeResource(api, params, String.valueOf(id), embeddedEntry.getKey(), res);
-                    if (execEmbeddedResult != null)
+                    final String key = embeddedEntry.getKey();
+                    tasks.put(key, new Callable<Object>()
                     {
-                        if (execEmbeddedResult instanceof ExecutionResult)
+                        @Override
+                        public Object call()
                         {
-                           ((ExecutionResult) execEmbeddedResult).setAnEmbeddedEntity(true);
+                            Object execEmbeddedResult = executeResource(api, params, String.valueOf(id), key, res, budget);
+                            if (execEmbeddedResult instanceof ExecutionResult)
+                            {
+                                ((ExecutionResult) execEmbeddedResult).setAnEmbeddedEntity(true);
+                            }
+                            return execEmbeddedResult;
                         }
-                        results.put(embeddedEntry.getKey(), execEmbeddedResult);
-                    }
+                    });
                 }
                 else
                 {
@@ -238,7 +431,7 @@ public class ResourceWebScriptHelper
                 }
             }
         }
-        return results;
+        return executeAll(tasks, budget);
     }
 
     /**
@@ -249,24 +442,333 @@ public class ResourceWebScriptHelper
      * @param params Params
      * @param relatedResources Map<String, ResourceWithMetadata>
      * @param uniqueEntityId String
+     * @param batchedRelations related resources already read for a collection of entities (keyed by relation then entity id) or null
+     * @param budget the limits on the parallel execution of resources for the response
      * @return Map
      */
-    private Map<String,Object> executeRelatedResources(final Api api, Params params,
+    private Map<String,Object> executeRelatedResources(final Api api, final Params params,
                                                        Map<String, ResourceWithMetadata> relatedResources,
-                                                       String uniqueEntityId)
+                                                       final String uniqueEntityId,
+                                                       Map<String, Map<String, Object>> batchedRelations,
+                                                       final ParallelResourcesBudget budget)
     {
         final Map<String,Object> results = new HashMap<String,Object>(relatedResources.size());
+        final Map<String, Callable<Object>> tasks = new LinkedHashMap<String, Callable<Object>>(relatedResources.size());
         for (final Entry<String, ResourceWithMetadata> relation : relatedResources.entrySet())
         {
-            Object execResult = executeResource(api, params, uniqueEntityId, relation.getKey(), relation.getValue());
-            if (execResult != null)
+            if (batchedRelations != null && batchedRelations.containsKey(relation.getKey()))
             {
-              results.put(relation.getKey(), execResult);
+                Object execResult = batchedRelations.get(relation.getKey()).get(uniqueEntityId);
+                if (execResult != null)
+                {
+                  results.put(relation.getKey(), execResult);
+                }
+            }
+            else
+            {
+                tasks.put(relation.getKey(), new Callable<Object>()
+                {
+                    @Override
+                    public Object call()
+                    {
+                        return executeResource(api, params, uniqueEntityId, relation.getKey(), relation.getValue(), budget);
+                    }
+                });
             }
         }
+        results.putAll(executeAll(tasks, budget));
         return results;
     }
 
+    /**
+     * Executes the (embedded or related) resource tasks, concurrently if parallel execution is enabled and the
+     * request is read-only, otherwise one after another.
+     * <p>
+     * A task is only submitted when the response has a free permit, otherwise it waits for one of the tasks of the entity
+     * to complete or, if none of them is running, is executed by the calling thread.  Once the deadline of the response
+     * has passed the remaining tasks are left out of the response.
+     *
+     * @param tasks Map of the result key to the task that executes the resource
+     * @param budget the limits on the parallel execution of resources for the response
+     * @return Map of the result key to the non-null results
+     */
+    private Map<String, Object> executeAll(Map<String, Callable<Object>> tasks, ParallelResourcesBudget budget)
+    {
+        final Map<String, Object> results = new HashMap<String, Object>(tasks.size());
+        if (!canExecuteInParallel(tasks.size()))
+        {
+            for (Entry<String, Callable<Object>> task : tasks.entrySet())
+            {
+                putResult(results, task.getKey(), callTask(task.getValue()));
+            }
+            return results;
+        }
+        if (budget.getRemaining() <= 0)
+        {
+            budget.timedOut();
+            return results;
+        }
+
+        final String runAsUser = AuthenticationUtil.getRunAsUser();
+        final String tenantDomain = TenantUtil.getCurrentDomain();
+        final CompletionService<Pair<String, Object>> completionService = new ExecutorCompletionService<Pair<String, Object>>(parallelResourcesExecutor);
+        final List<Future<Pair<String, Object>>> submitted = new ArrayList<Future<Pair<String, Object>>>(tasks.size());
+        final Iterator<Entry<String, Callable<Object>>> pending = tasks.entrySet().iterator();
+        int running = 0;
+        try
+        {
+            while (running > 0 || pending.hasNext())
+            {
+                while (pending.hasNext() && budget.tryAcquire())
+                {
+                    running += submitTask(completionService, submitted, results, pending.next(), runAsUser, tenantDomain, budget);
+                }
+                if (running == 0)
+                {
+                    if (pending.hasNext())
+                    {
+                        //every permit is held by a resource that is still running, eg. one left out of an earlier entity
+                        Entry<String, Callable<Object>> task = pending.next();
+                        putResult(results, task.getKey(), callTask(task.getValue()));
+                    }
+                    continue;
+                }
+
+                long wait = budget.getRemaining();
+                Future<Pair<String, Object>> done = (wait > 0 ? completionService.poll(wait, TimeUnit.MILLISECONDS) : null);
+                if (done == null)
+                {
+                    budget.timedOut();
+                    break;
+                }
+                running--;
+                try
+                {
+                    Pair<String, Object> result = done.get();
+                    putResult(results, result.getFirst(), result.getSecond());
+                }
+                catch (ExecutionException error)
+                {
+                    logger.warn("Failed to execute an embedded or related resource " + error.getCause());
+                }
+            }
+        }
+        catch (InterruptedException error)
+        {
+            Thread.currentThread().interrupt();
+        }
+        finally
+        {
+            for (Future<Pair<String, Object>> future : submitted)
+            {
+                future.cancel(true);
+            }
+        }
+        return results;
+    }
+
+    private boolean canExecuteInParallel(int taskCount)
+    {
+        return parallelResources && parallelResourcesExecutor != null && transactionService != null
+                    && taskCount > 1
+                    && !Boolean.TRUE.equals(IN_PARALLEL_TASK.get())
+                    && AuthenticationUtil.getRunAsUser() != null
+                    && AlfrescoTransactionSupport.getTransactionReadState() == TxnReadState.TXN_READ_ONLY;
+    }
+
+    /**
+     * Submits the task to run as the current user, in the current tenant, in its own read-only transaction.  The task
+     * releases the permit, already acquired from the budget, when it completes.
+     * If the executor is full then the permit is released and the task is run by the calling thread.
+     *
+     * @return 1 if the task was submitted, 0 if it was run by the calling thread
+     */
+    private int submitTask(CompletionService<Pair<String, Object>> completionService, List<Future<Pair<String, Object>>> submitted,
+                           Map<String, Object> results, Entry<String, Callable<Object>> task, final String runAsUser, final String tenantDomain,
+                           final ParallelResourcesBudget budget)
+    {
+        final String key = task.getKey();
+        final Callable<Object> work = task.getValue();
+        try
+        {
+            submitted.add(completionService.submit(new Callable<Pair<String, Object>>()
+            {
+                @Override
+                public Pair<String, Object> call() throws Exception
+                {
+                    try
+                    {
+                        return TenantUtil.runAsUserTenant(new TenantUtil.TenantRunAsWork<Pair<String, Object>>()
+                        {
+                            @Override
+                            public Pair<String, Object> doWork() throws Exception
+                            {
+                                RetryingTransactionCallback<Pair<String, Object>> callback = new RetryingTransactionCallback<Pair<String, Object>>()
+                                {
+                                    @Override
+                                    public Pair<String, Object> execute() throws Throwable
+                                    {
+                                        IN_PARALLEL_TASK.set(Boolean.TRUE);
+                                        try
+                                        {
+                                            return new Pair<String, Object>(key, callTask(work));
+                                        }
+                                        finally
+                                        {
+                                            IN_PARALLEL_TASK.remove();
+                                        }
+                                    }
+                                };
+                                return transactionService.getRetryingTransactionHelper().doInTransaction(callback, true, true);
+                            }
+                        }, runAsUser, tenantDomain);
+                    }
+                    finally
+                    {
+                        budget.release();
+                    }
+                }
+            }));
+            return 1;
+        }
+        catch (RejectedExecutionException error)
+        {
+            budget.release();
+            if (logger.isDebugEnabled())
+            {
+                logger.debug("Executor is full, executing " + key + " on the request thread.");
+            }
+            putResult(results, key, callTask(work));
+            return 0;
+        }
+    }
+
+    private static Object callTask(Callable<Object> task)
+    {
+        try
+        {
+            return task.call();
+        }
+        catch (Exception error)
+        {
+            //executeResource doesn't throw, it logs any error and returns null
+            logger.warn("Failed to execute an embedded or related resource " + error.getMessage());
+            return null;
+        }
+    }
+
+    private static void putResult(Map<String, Object> results, String key, Object result)
+    {
+        if (result != null)
+        {
+            results.put(key, result);
+        }
+    }
+
+    /**
+     * Reads the related Resources that implement {@link RelationshipResourceAction.ReadForEntities} once for a whole collection of entities,
+     * rather than once per entity.
+     *
+     * @param api Api
+     * @param entityCollectionName String
+     * @param params Params
+     * @param entities the entities of the collection
+     * @param budget the limits on the parallel execution of resources for the response
+     * @return Map of relation key to a Map of entity id to the (processed) related result, or null if no relation was read this way
+     */
+    private Map<String, Map<String, Object>> executeRelatedResourcesForEntities(final Api api, String entityCollectionName, Params params,
+                                                                              Collection<?> entities, ParallelResourcesBudget budget)
+    {
+        if (params.getRelationsFilter() == null || params.getRelationsFilter().isEmpty())
+        {
+            return null;
+        }
+
+        Map<String, ResourceWithMetadata> relationshipResources = locator.locateRelationResource(api, entityCollectionName, params.getRelationsFilter().keySet(), HttpMethod.GET);
+        Map<String, Map<String, Object>> results = null;
+        List<String> entityIds = null;
+        for (Entry<String, ResourceWithMetadata> relation : relationshipResources.entrySet())
+        {
+            ResourceWithMetadata resource = relation.getValue();
+            if (!RelationshipResourceAction.ReadForEntities.class.isAssignableFrom(resource.getResource().getClass())
+                        || resource.getMetaData().isDeleted(RelationshipResourceAction.Read.class))
+            {
+                continue;
+            }
+
+            if (entityIds == null)
+            {
+                Set<String> uniqueIds = new LinkedHashSet<String>(entities.size());
+                for (Object entity : entities)
+                {
+                    String uniqueEntityId = entity == null ? null : ResourceInspector.findUniqueId(entity);
+                    if (uniqueEntityId != null)
+                    {
+                        uniqueIds.add(uniqueEntityId);
+                    }
+                }
+                entityIds = new ArrayList<String>(uniqueIds);
+            }
+
+            Map<String, Object> related = executeResourceForEntities(api, params, entityIds, relation.getKey(), resource, budget);
+            if (related != null)
+            {
+                if (results == null)
+                {
+                    results = new HashMap<String, Map<String, Object>>();
+                }
+                results.put(relation.getKey(), related);
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Executes a single related Resource for a collection of entities.  If it fails then null is returned so that the relation is
+     * read for each entity instead (where inaccessible entities are handled individually).
+     *
+     * @param api Api
+     * @param params Params
+     * @param entityIds the unique ids of the entities
+     * @param resourceKey String
+     * @param resource ResourceWithMetadata
+     * @param budget the limits on the parallel execution of resources for the response
+     * @return Map of entity id to the (processed) related result or null
+     */
+    private Map<String, Object> executeResourceForEntities(final Api api, Params params, final List<String> entityIds,
+                                                           final String resourceKey, final ResourceWithMetadata resource,
+                                                           ParallelResourcesBudget budget)
+    {
+        try
+        {
+            BeanPropertiesFilter paramFilter = params.getRelationsFilter().get(resourceKey);
+            final Params executionParams = Params.valueOf(paramFilter, null, params.getRequest());
+            RelationshipResourceAction.ReadForEntities<?> relationGetter = (RelationshipResourceAction.ReadForEntities<?>) resource.getResource();
+            Map<String, ? extends CollectionWithPagingInfo<?>> relations = relationGetter.readAllForEntities(entityIds, executionParams);
+
+            final Map<String, Object> results = new HashMap<String, Object>(entityIds.size());
+            if (relations != null)
+            {
+                for (String entityId : entityIds)
+                {
+                    CollectionWithPagingInfo<?> related = relations.get(entityId);
+                    if (related != null)
+                    {
+                        results.put(entityId, processAdditionsToTheResponse(null, api, null, Params.valueOf(paramFilter, entityId, params.getRequest()), related,
+                                                                              false, budget));
+                    }
+                }
+            }
+            return results;
+        }
+        catch (Throwable throwable)
+        {
+            logger.warn("Failed to execute a RelatedResource for "+resourceKey+" for multiple entities, reading it per entity instead. "+throwable.getMessage());
+        }
+
+        return null;
+    }
+
     /**
      * Executes a single related Resource.  The results are added to list of embedded results used by
      * the ExecutionResult object.
@@ -276,10 +778,12 @@ public class ResourceWebScriptHelper
      * @param uniqueEntityId String
      * @param resourceKey String
      * @param resource ResourceWithMetadata
+     * @param budget the limits on the parallel execution of resources for the response
      * @return Object
      */
     private Object executeResource(final Api api, Params params,
-                                   final String uniqueEntityId, final String resourceKey, final ResourceWithMetadata resource)
+                                   final String uniqueEntityId, final String resourceKey, final ResourceWithMetadata resource,
+                                   ParallelResourcesBudget budget)
     {
         try
         {
@@ -294,7 +798,7 @@ public class ResourceWebScriptHelper
             final WithResponse callBack = new WithResponse(Status.STATUS_OK, ResponseWriter.DEFAULT_JSON_CONTENT,ResponseWriter.CACHE_NEVER);
             //Read only because this only occurs for GET requests
             Object result = executor.executeAction(resource, executionParams, callBack);
-            return processAdditionsToTheResponse(null, api, null, executionParams, result);
+            return processAdditionsToTheResponse(null, api, null, executionParams, result, false, budget);
         }
         catch(NotFoundException e)
         {
@@ -319,6 +823,127 @@ public class ResourceWebScriptHelper
         return null; //default
     }
 
+    /**
+     * A read-only view of a collection of entities that wraps each entity as it is iterated.
+     * <p>
+     * It is iterated while the response is written, so an entity that fails to be read or wrapped can no longer be turned
+     * into an error response: instead the error is logged and rethrown, which aborts the writing of the response. The entries
+     * (and the json) are then left unterminated, so that the truncated page can't be taken for a complete one.
+     */
+    private class StreamingCollection extends AbstractCollection<Object>
+    {
+        private final WebScriptResponse res;
+        private final Api api;
+        private final String entityCollectionName;
+        private final Params params;
+        private final Collection<?> entities;
+        private final ParallelResourcesBudget budget;
+
+        private StreamingCollection(WebScriptResponse res, Api api, String entityCollectionName, Params params, Collection<?> entities,
+                                    ParallelResourcesBudget budget)
+        {
+            this.res = res;
+            this.api = api;
+            this.entityCollectionName = entityCollectionName;
+            this.params = params;
+            this.entities = entities;
+            this.budget = budget;
+        }
+
+        @Override
+        public Iterator<Object> iterator()
+        {
+            final Iterator<?> entityIterator = entities.iterator();
+            return new Iterator<Object>()
+            {
+                private Object next;
+                private boolean fetched;
+
+                @Override
+                public boolean hasNext()
+                {
+                    if (!fetched)
+                    {
+                        try
+                        {
+                            if (entityIterator.hasNext())
+                            {
+                                next = processAdditionsToTheResponse(res, api, entityCollectionName, params, entityIterator.next(), false, budget);
+                                fetched = true;
+                            }
+                        }
+                        catch (RuntimeException error)
+                        {
+                            logger.error("Failed to stream the entities of " + entityCollectionName + ", the response has been aborted.", error);
+                            throw error;
+                        }
+                    }
+                    return fetched;
+                }
+
+                @Override
+                public Object next()
+                {
+                    if (!hasNext())
+                    {
+                        throw new NoSuchElementException();
+                    }
+                    fetched = false;
+                    Object entity = next;
+                    next = null;
+                    return entity;
+                }
+            };
+        }
+
+        @Override
+        public int size()
+        {
+            return entities.size();
+        }
+    }
+
+    /**
+     * The limits on the parallel execution of the embedded and related resources of a response, shared by all of its entities:
+     * the time by which they must have completed and the number of them that may be executing at the same time.
+     */
+    private static class ParallelResourcesBudget
+    {
+        private final long deadline;
+        private final Semaphore inFlight;
+        private volatile boolean timedOut;
+
+        private ParallelResourcesBudget(long deadline, int maxInFlight)
+        {
+            this.deadline = deadline;
+            this.inFlight = new Semaphore(maxInFlight);
+        }
+
+        private long getRemaining()
+        {
+            return deadline - System.currentTimeMillis();
+        }
+
+        private boolean tryAcquire()
+        {
+            return inFlight.tryAcquire();
+        }
+
+        private void release()
+        {
+            inFlight.release();
+        }
+
+        private void timedOut()
+        {
+            if (!timedOut)
+            {
+                timedOut = true;
+                logger.warn("Timed out waiting for embedded or related resources, they are left out of the response.");
+            }
+        }
+    }
+
     public void setLocator(ResourceLocator locator)
     {
         this.locator = locator;
@@ -328,5 +953,44 @@ public class ResourceWebScriptHelper
     {
         this.executor = executor;
     }
+
+    /**
+     * Whether the embedded and related resources of an entity are executed concurrently, rather than one after
+     * another. Only applies to read-only requests, each resource is executed as the current user, in the current
+     * tenant and in its own read-only transaction.
+     *
+     * @param parallelResources boolean
+     */
+    public void setParallelResources(boolean parallelResources)
+    {
+        this.parallelResources = parallelResources;
+    }
+
+    public void setParallelResourcesExecutor(ExecutorService parallelResourcesExecutor)
+    {
+        this.parallelResourcesExecutor = parallelResourcesExecutor;
+    }
+
+    /**
+     * @param parallelResourcesPerRequest the maximum number of resources executed at the same time for a response
+     */
+    public void setParallelResourcesPerRequest(int parallelResourcesPerRequest)
+    {
+        this.parallelResourcesPerRequest = Math.max(1, parallelResourcesPerRequest);
+    }
+
+    /**
+     * @param parallelResourcesTimeout the time (ms) to wait for the resources of all the entities of a response, resources
+     *                                 that haven't completed by then are left out of the response
+     */
+    public void setParallelResourcesTimeout(long parallelResourcesTimeout)
+    {
+        this.parallelResourcesTimeout = parallelResourcesTimeout;
+    }
+
+    public void setTransactionService(TransactionService transactionService)
+    {
+        this.transactionService = transactionService;
+    }
         
 }
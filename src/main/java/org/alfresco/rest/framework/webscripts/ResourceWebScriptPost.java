@@ -62,6 +62,7 @@ import org.springframework.http.HttpMethod;
 public class ResourceWebScriptPost extends AbstractResourceWebScript implements ParamsExtractor,
                                                                                 RecognizedParamsExtractor, RequestReader
 {
+    private boolean streamMultiPart = false;
 
     public ResourceWebScriptPost()
     {
@@ -69,6 +70,15 @@ public class ResourceWebScriptPost extends AbstractResourceWebScript implements
        setHttpMethod(HttpMethod.POST);
        setParamsExtractor(this);
     }
+
+    /**
+     * Whether a multipart/form-data request to a relationship is read as it arrives (see {@link MultiPartStream}),
+     * rather than parsed up front.
+     */
+    public void setStreamMultiPart(boolean streamMultiPart)
+    {
+        this.streamMultiPart = streamMultiPart;
+    }
     
     @Override
     public Params extractParams(ResourceMetadata resourceMeta, WebScriptRequest req)
@@ -141,6 +151,15 @@ public class ResourceWebScriptPost extends AbstractResourceWebScript implements
     {
         if (WebScriptRequestImpl.MULTIPART_FORM_DATA.equals(req.getContentType()))
         {
+            if (streamMultiPart && ResourceMetadata.RESOURCE_TYPE.RELATIONSHIP.equals(resourceMeta.getType()))
+            {
+                // not read yet, see executeAction
+                MultiPartStream formStream = MultiPartStream.valueOf(req);
+                if (formStream != null)
+                {
+                    return formStream;
+                }
+            }
             return (FormData) req.parseContent();
         }
 
@@ -318,7 +337,18 @@ public class ResourceWebScriptPost extends AbstractResourceWebScript implements
                 }
 
             case RELATIONSHIP:
-                if (resObj instanceof MultiPartRelationshipResourceAction.Create<?> && params.getPassedIn() instanceof FormData)
+                if (resObj instanceof MultiPartRelationshipResourceAction.CreateStreamed<?> && params.getPassedIn() instanceof MultiPartStream)
+                {
+                    MultiPartRelationshipResourceAction.CreateStreamed<Object> creator = (MultiPartRelationshipResourceAction.CreateStreamed<Object>) resObj;
+                    return creator.createStreamed(params.getEntityId(), (MultiPartStream) params.getPassedIn(), params, withResponse);
+                }
+                else if (resObj instanceof MultiPartRelationshipResourceAction.Create<?> && params.getPassedIn() instanceof MultiPartStream)
+                {
+                    // the resource doesn't stream, so the request is parsed (as it hasn't been read)
+                    MultiPartRelationshipResourceAction.Create<Object> creator = (MultiPartRelationshipResourceAction.Create<Object>) resObj;
+                    return creator.create(params.getEntityId(), ((MultiPartStream) params.getPassedIn()).getFormData(), params, withResponse);
+                }
+                else if (resObj instanceof MultiPartRelationshipResourceAction.Create<?> && params.getPassedIn() instanceof FormData)
                 {
                     MultiPartRelationshipResourceAction.Create<Object> creator = (MultiPartRelationshipResourceAction.Create<Object>) resObj;
                     return creator.create(params.getEntityId(), (FormData) params.getPassedIn(), params, withResponse);
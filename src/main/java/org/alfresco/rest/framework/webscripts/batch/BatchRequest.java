@@ -0,0 +1,104 @@
+/*
+ * #%L
+ * Alfresco Remote API
+ * %%
+ * Copyright (C) 2005 - 2020 Alfresco Software Limited
+ * %%
+ * This file is part of the Alfresco software.
+ * If the software was purchased under a paid Alfresco license, the terms of
+ * the paid license agreement will prevail.  Otherwise, the software is
+ * provided under the following open source license terms:
+ *
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+package org.alfresco.rest.framework.webscripts.batch;
+
+import java.util.Map;
+
+/**
+ * A sub-request of a batch.
+ * <p>
+ * The path is relative to the Api of the batch, eg. "/nodes/-my-/children", and the query holds the request
+ * parameters (eg. "include", "where", "skipCount"). The body, if there is one, is the JSON the resource would
+ * receive on its own.
+ */
+public class BatchRequest
+{
+    private String id;
+    private String method;
+    private String path;
+    private Map<String, String> query;
+    private Object body;
+
+    public BatchRequest()
+    {
+    }
+
+    public String getId()
+    {
+        return id;
+    }
+
+    public void setId(String id)
+    {
+        this.id = id;
+    }
+
+    public String getMethod()
+    {
+        return method;
+    }
+
+    public void setMethod(String method)
+    {
+        this.method = method;
+    }
+
+    public String getPath()
+    {
+        return path;
+    }
+
+    public void setPath(String path)
+    {
+        this.path = path;
+    }
+
+    public Map<String, String> getQuery()
+    {
+        return query;
+    }
+
+    public void setQuery(Map<String, String> query)
+    {
+        this.query = query;
+    }
+
+    public Object getBody()
+    {
+        return body;
+    }
+
+    public void setBody(Object body)
+    {
+        this.body = body;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "BatchRequest [id=" + id + ", method=" + method + ", path=" + path + ", query=" + query + "]";
+    }
+}
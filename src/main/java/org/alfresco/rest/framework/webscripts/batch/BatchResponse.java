@@ -0,0 +1,65 @@
+/*
+ * #%L
+ * Alfresco Remote API
+ * %%
+ * Copyright (C) 2005 - 2020 Alfresco Software Limited
+ * %%
+ * This file is part of the Alfresco software.
+ * If the software was purchased under a paid Alfresco license, the terms of
+ * the paid license agreement will prevail.  Otherwise, the software is
+ * provided under the following open source license terms:
+ *
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+package org.alfresco.rest.framework.webscripts.batch;
+
+/**
+ * The response to a sub-request of a batch: its HTTP status and the JSON body it would have returned on its own
+ * (for an error, the "error" object).
+ */
+public class BatchResponse
+{
+    private final String id;
+    private final int status;
+    private final Object body;
+
+    public BatchResponse(String id, int status, Object body)
+    {
+        this.id = id;
+        this.status = status;
+        this.body = body;
+    }
+
+    public String getId()
+    {
+        return id;
+    }
+
+    public int getStatus()
+    {
+        return status;
+    }
+
+    public Object getBody()
+    {
+        return body;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "BatchResponse [id=" + id + ", status=" + status + "]";
+    }
+}
@@ -0,0 +1,307 @@
+/*
+ * #%L
+ * Alfresco Remote API
+ * %%
+ * Copyright (C) 2005 - 2020 Alfresco Software Limited
+ * %%
+ * This file is part of the Alfresco software.
+ * If the software was purchased under a paid Alfresco license, the terms of
+ * the paid license agreement will prevail.  Otherwise, the software is
+ * provided under the following open source license terms:
+ *
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+package org.alfresco.rest.framework.webscripts.batch;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Map;
+
+import org.springframework.extensions.surf.util.Content;
+import org.springframework.extensions.webscripts.Description.FormatStyle;
+import org.springframework.extensions.webscripts.Match;
+import org.springframework.extensions.webscripts.Runtime;
+import org.springframework.extensions.webscripts.WebScriptRequest;
+import org.springframework.extensions.webscripts.WrappingWebScriptRequest;
+
+/**
+ * A sub-request of a batch, as seen by the resource executors.
+ * <p>
+ * The service match, parameters and (JSON) content are those of the sub-request, everything else
+ * (eg. the runtime, the agent and the other headers) comes from the batch request.
+ */
+public class BatchSubRequest implements WrappingWebScriptRequest
+{
+    private static final String HEADER_CONTENT_LENGTH = "content-length";
+    private static final String HEADER_CONTENT_TYPE = "content-type";
+    private static final String JSON_CONTENT_TYPE = "application/json";
+
+    private final WebScriptRequest req;
+    private final Match match;
+    private final Map<String, String> parameters;
+    private final byte[] content;
+
+    /**
+     * @param req the batch request
+     * @param match the match of the sub-request path, holding the resource template vars
+     * @param parameters the sub-request parameters
+     * @param content the JSON body of the sub-request or null
+     */
+    public BatchSubRequest(WebScriptRequest req, Match match, Map<String, String> parameters, String content)
+    {
+        this.req = req;
+        this.match = match;
+        this.parameters = (parameters == null ? Collections.<String, String>emptyMap() : parameters);
+        this.content = (content == null ? new byte[0] : content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public WebScriptRequest getNext()
+    {
+        return req;
+    }
+
+    @Override
+    public Match getServiceMatch()
+    {
+        return match;
+    }
+
+    @Override
+    public String getServicePath()
+    {
+        return req.getServicePath();
+    }
+
+    @Override
+    public String getServiceContextPath()
+    {
+        return req.getServiceContextPath();
+    }
+
+    @Override
+    public String getServerPath()
+    {
+        return req.getServerPath();
+    }
+
+    @Override
+    public String getContextPath()
+    {
+        return req.getContextPath();
+    }
+
+    @Override
+    public String getPathInfo()
+    {
+        return match.getPath();
+    }
+
+    @Override
+    public String getExtensionPath()
+    {
+        return req.getExtensionPath();
+    }
+
+    @Override
+    public String getURL()
+    {
+        String queryString = getQueryString();
+        return req.getServiceContextPath() + match.getPath() + (queryString == null ? "" : "?" + queryString);
+    }
+
+    @Override
+    public String getQueryString()
+    {
+        if (parameters.isEmpty())
+        {
+            return null;
+        }
+
+        StringBuilder queryString = new StringBuilder();
+        for (Map.Entry<String, String> parameter : parameters.entrySet())
+        {
+            if (queryString.length() > 0)
+            {
+                queryString.append('&');
+            }
+            queryString.append(encode(parameter.getKey())).append('=').append(encode(parameter.getValue()));
+        }
+        return queryString.toString();
+    }
+
+    @Override
+    public String[] getParameterNames()
+    {
+        return parameters.keySet().toArray(new String[parameters.size()]);
+    }
+
+    @Override
+    public String getParameter(String name)
+    {
+        return parameters.get(name);
+    }
+
+    @Override
+    public String[] getParameterValues(String name)
+    {
+        String value = parameters.get(name);
+        return (value == null ? null : new String[] { value });
+    }
+
+    @Override
+    public String[] getHeaderNames()
+    {
+        return req.getHeaderNames();
+    }
+
+    @Override
+    public String getHeader(String name)
+    {
+        if (HEADER_CONTENT_LENGTH.equalsIgnoreCase(name))
+        {
+            return String.valueOf(content.length);
+        }
+        if (HEADER_CONTENT_TYPE.equalsIgnoreCase(name))
+        {
+            return getContentType();
+        }
+        return req.getHeader(name);
+    }
+
+    @Override
+    public String[] getHeaderValues(String name)
+    {
+        String value = getHeader(name);
+        return (value == null ? null : new String[] { value });
+    }
+
+    @Override
+    public Content getContent()
+    {
+        return new Content()
+        {
+            @Override
+            public String getContent()
+            {
+                return new String(content, StandardCharsets.UTF_8);
+            }
+
+            @Override
+            public String getMimetype()
+            {
+                return JSON_CONTENT_TYPE;
+            }
+
+            @Override
+            public String getEncoding()
+            {
+                return StandardCharsets.UTF_8.name();
+            }
+
+            @Override
+            public long getSize()
+            {
+                return content.length;
+            }
+
+            @Override
+            public InputStream getInputStream()
+            {
+                return new ByteArrayInputStream(content);
+            }
+
+            @Override
+            public BufferedReader getReader()
+            {
+                return new BufferedReader(new InputStreamReader(getInputStream(), StandardCharsets.UTF_8));
+            }
+        };
+    }
+
+    @Override
+    public Object parseContent()
+    {
+        // Only JSON content is supported in a batch
+        return null;
+    }
+
+    @Override
+    public boolean isGuest()
+    {
+        return req.isGuest();
+    }
+
+    @Override
+    public String getFormat()
+    {
+        return req.getFormat();
+    }
+
+    @Override
+    public FormatStyle getFormatStyle()
+    {
+        return req.getFormatStyle();
+    }
+
+    @Override
+    public String getContentType()
+    {
+        return JSON_CONTENT_TYPE;
+    }
+
+    @Override
+    public String getAgent()
+    {
+        return req.getAgent();
+    }
+
+    @Override
+    public String getJSONCallback()
+    {
+        return null;
+    }
+
+    @Override
+    public boolean forceSuccessStatus()
+    {
+        return false;
+    }
+
+    @Override
+    public Runtime getRuntime()
+    {
+        return req.getRuntime();
+    }
+
+    private static String encode(String value)
+    {
+        try
+        {
+            return URLEncoder.encode(value, StandardCharsets.UTF_8.name());
+        }
+        catch (UnsupportedEncodingException error)
+        {
+            // UTF-8 is always supported
+            throw new IllegalStateException(error);
+        }
+    }
+}
@@ -0,0 +1,386 @@
+/*
+ * #%L
+ * Alfresco Remote API
+ * %%
+ * Copyright (C) 2005 - 2020 Alfresco Software Limited
+ * %%
+ * This file is part of the Alfresco software.
+ * If the software was purchased under a paid Alfresco license, the terms of
+ * the paid license agreement will prevail.  Otherwise, the software is
+ * provided under the following open source license terms:
+ *
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+package org.alfresco.rest.framework.webscripts.batch;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.alfresco.error.AlfrescoRuntimeException;
+import org.alfresco.metrics.rest.RestMetricsReporter;
+import org.alfresco.repo.transaction.RetryingTransactionHelper;
+import org.alfresco.repo.transaction.RetryingTransactionHelper.RetryingTransactionCallback;
+import org.alfresco.rest.framework.Api;
+import org.alfresco.rest.framework.core.ResourceLocator;
+import org.alfresco.rest.framework.core.exceptions.ApiException;
+import org.alfresco.rest.framework.core.exceptions.ErrorResponse;
+import org.alfresco.rest.framework.core.exceptions.InvalidArgumentException;
+import org.alfresco.rest.framework.core.exceptions.UnsupportedResourceOperationException;
+import org.alfresco.rest.framework.jacksonextensions.JacksonHelper;
+import org.alfresco.rest.framework.resource.parameters.CollectionWithPagingInfo;
+import org.alfresco.rest.framework.resource.parameters.Paging;
+import org.alfresco.rest.framework.tools.RequestReader;
+import org.alfresco.rest.framework.tools.ResponseWriter;
+import org.alfresco.rest.framework.webscripts.AbstractResourceWebScript;
+import org.alfresco.rest.framework.webscripts.ApiWebScript;
+import org.alfresco.rest.framework.webscripts.WithResponse;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.extensions.webscripts.Match;
+import org.springframework.extensions.webscripts.WebScriptException;
+import org.springframework.extensions.webscripts.WebScriptRequest;
+import org.springframework.extensions.webscripts.WebScriptResponse;
+import org.springframework.http.HttpMethod;
+
+/**
+ * Executes an ordered list of sub-requests (method, path, query and body) of an Api in one HTTP request.
+ * <p>
+ * Each sub-request is dispatched to the resource executor for its method, so it is located, its params extracted
+ * and its action executed exactly as it would be on its own. Consecutive GET sub-requests share one read-only
+ * transaction, the other sub-requests each run in their own read-write transaction. A failing sub-request doesn't
+ * stop the batch, its error becomes its response. The responses are returned, in order, in a single 207 (Multi-Status)
+ * response:
+ * <pre>
+ * {"list":{"pagination":{...},"entries":[{"entry":{"id":"1","status":200,"body":{"entry":{...}}}}, ...]}}
+ * </pre>
+ */
+public class BatchWebScript extends ApiWebScript implements RequestReader, ResponseWriter
+{
+    private static Log logger = LogFactory.getLog(BatchWebScript.class);
+
+    private static final int STATUS_MULTI_STATUS = 207;
+    private static final String[] PATH_TEMPLATE_VARS = new String[] { ResourceLocator.COLLECTION_RESOURCE, ResourceLocator.ENTITY_ID,
+                ResourceLocator.RELATIONSHIP_RESOURCE, ResourceLocator.RELATIONSHIP_ID, ResourceLocator.PROPERTY, ResourceLocator.LEFTOVER };
+
+    private final Map<HttpMethod, AbstractResourceWebScript> executors = new HashMap<>();
+    private int maxRequests = 25;
+
+    public void setExecutors(List<AbstractResourceWebScript> executors)
+    {
+        for (AbstractResourceWebScript executor : executors)
+        {
+            this.executors.put(executor.getHttpMethod(), executor);
+        }
+    }
+
+    /**
+     * The maximum number of sub-requests in a batch.
+     *
+     * @param maxRequests int
+     */
+    public void setMaxRequests(int maxRequests)
+    {
+        this.maxRequests = maxRequests;
+    }
+
+    @Override
+    public void execute(final Api api, final WebScriptRequest req, final WebScriptResponse res) throws IOException
+    {
+        long startTime = System.currentTimeMillis();
+
+        try
+        {
+            final List<BatchRequest> requests = extractJsonContentAsList(req, assistant.getJsonHelper(), BatchRequest.class);
+            if (requests.size() > maxRequests)
+            {
+                throw new InvalidArgumentException("A batch can't have more than " + maxRequests + " requests.");
+            }
+
+            final List<BatchResponse> responses = new ArrayList<>(requests.size());
+            int start = 0;
+            while (start < requests.size())
+            {
+                if (isRead(requests.get(start)))
+                {
+                    // The consecutive reads share a read-only transaction
+                    int end = start + 1;
+                    while (end < requests.size() && isRead(requests.get(end)))
+                    {
+                        end++;
+                    }
+                    responses.addAll(executeInTransaction(api, req, requests.subList(start, end), true));
+                    start = end;
+                }
+                else
+                {
+                    responses.addAll(executeInTransaction(api, req, requests.subList(start, start + 1), false));
+                    start++;
+                }
+            }
+
+            setContentInfoOnResponse(res, DEFAULT_JSON_CONTENT);
+            res.setStatus(STATUS_MULTI_STATUS);
+            renderJsonResponse(res, CollectionWithPagingInfo.asPaged(Paging.DEFAULT, responses), assistant.getJsonHelper());
+        }
+        catch (AlfrescoRuntimeException | ApiException | WebScriptException xception)
+        {
+            renderException(xception, res, assistant);
+        }
+        catch (RuntimeException runtimeException)
+        {
+            renderException(runtimeException, res, assistant);
+        }
+        finally
+        {
+            reportExecutionTimeMetric(startTime, req.getServicePath());
+        }
+    }
+
+    private List<BatchResponse> executeInTransaction(final Api api, final WebScriptRequest req, final List<BatchRequest> requests,
+                                                     final boolean isReadOnly)
+    {
+        RetryingTransactionHelper transHelper = transactionService.getRetryingTransactionHelper();
+        try
+        {
+            return transHelper.doInTransaction(new RetryingTransactionCallback<List<BatchResponse>>()
+            {
+                @Override
+                public List<BatchResponse> execute() throws Throwable
+                {
+                    List<BatchResponse> responses = new ArrayList<>(requests.size());
+                    for (BatchRequest request : requests)
+                    {
+                        if (isReadOnly)
+                        {
+                            // A read doesn't change anything so its failure is reported without affecting the others
+                            responses.add(executeRequestSafely(api, req, request));
+                        }
+                        else
+                        {
+                            // Let a write failure roll back (or retry) its transaction
+                            responses.add(executeRequest(api, req, request));
+                        }
+                    }
+                    return responses;
+                }
+            }, isReadOnly, true);
+        }
+        catch (RuntimeException error)
+        {
+            return Collections.singletonList(toErrorResponse(requests.get(0), error));
+        }
+    }
+
+    private BatchResponse executeRequestSafely(Api api, WebScriptRequest req, BatchRequest request)
+    {
+        try
+        {
+            return executeRequest(api, req, request);
+        }
+        catch (RuntimeException error)
+        {
+            return toErrorResponse(request, error);
+        }
+    }
+
+    private BatchResponse executeRequest(Api api, WebScriptRequest req, BatchRequest request)
+    {
+        if (logger.isDebugEnabled())
+        {
+            logger.debug("Executing " + request);
+        }
+
+        HttpMethod httpMethod = getHttpMethod(request);
+        AbstractResourceWebScript executor = executors.get(httpMethod);
+        if (executor == null)
+        {
+            throw new UnsupportedResourceOperationException("The method " + httpMethod + " can't be part of a batch");
+        }
+
+        Map<String, String> parameters = new LinkedHashMap<>();
+        String path = parseQueryString(request.getPath(), parameters);
+        if (request.getQuery() != null)
+        {
+            parameters.putAll(request.getQuery());
+        }
+
+        Match match = new Match(null, getTemplateVars(req, path), path);
+        WebScriptRequest subRequest = new BatchSubRequest(req, match, parameters, toJson(request.getBody()));
+        WithResponse withResponse = new WithResponse(200, DEFAULT_JSON_CONTENT, CACHE_NEVER);
+        try
+        {
+            Object result = executor.executeBatched(api, subRequest, withResponse);
+            return new BatchResponse(request.getId(), withResponse.getStatus(), result);
+        }
+        catch (RuntimeException error)
+        {
+            throw error;
+        }
+        catch (Throwable error)
+        {
+            throw new AlfrescoRuntimeException("Failed to execute " + request, error);
+        }
+    }
+
+    private BatchResponse toErrorResponse(BatchRequest request, RuntimeException error)
+    {
+        ErrorResponse errorResponse = toPublicErrorResponse(assistant.resolveException(error));
+        return new BatchResponse(request.getId(), errorResponse.getStatusCode(), Collections.singletonMap("error", errorResponse));
+    }
+
+    private static boolean isRead(BatchRequest request)
+    {
+        return HttpMethod.GET.name().equalsIgnoreCase(request.getMethod());
+    }
+
+    private static HttpMethod getHttpMethod(BatchRequest request)
+    {
+        if (StringUtils.isBlank(request.getMethod()))
+        {
+            return HttpMethod.GET;
+        }
+
+        HttpMethod httpMethod = HttpMethod.resolve(request.getMethod().toUpperCase());
+        if (httpMethod == null)
+        {
+            throw new InvalidArgumentException("Unknown method: " + request.getMethod());
+        }
+        return httpMethod;
+    }
+
+    /**
+     * The template vars of the sub-request: those of the Api (from the batch request) and those of its path.
+     */
+    private static Map<String, String> getTemplateVars(WebScriptRequest req, String path)
+    {
+        Map<String, String> batchVars = req.getServiceMatch().getTemplateVars();
+        Map<String, String> templateVars = new HashMap<>();
+        templateVars.put("apiScope", batchVars.get("apiScope"));
+        templateVars.put("apiName", batchVars.get("apiName"));
+        templateVars.put("apiVersion", batchVars.get("apiVersion"));
+
+        String[] segments = StringUtils.split(path, '/');
+        if (segments.length == 0 || segments.length > PATH_TEMPLATE_VARS.length)
+        {
+            throw new InvalidArgumentException("Invalid path: " + path);
+        }
+        for (int i = 0; i < segments.length; i++)
+        {
+            templateVars.put(PATH_TEMPLATE_VARS[i], decode(segments[i]));
+        }
+        return templateVars;
+    }
+
+    /**
+     * Adds the parameters of the query string of the path (if there is one) and returns the path without it.
+     */
+    private static String parseQueryString(String path, Map<String, String> parameters)
+    {
+        if (StringUtils.isBlank(path))
+        {
+            throw new InvalidArgumentException("A path is required for each request of a batch.");
+        }
+
+        int queryStart = path.indexOf('?');
+        if (queryStart < 0)
+        {
+            return path;
+        }
+
+        for (String parameter : StringUtils.split(path.substring(queryStart + 1), '&'))
+        {
+            int equals = parameter.indexOf('=');
+            if (equals < 0)
+            {
+                parameters.put(decode(parameter), "");
+            }
+            else
+            {
+                parameters.put(decode(parameter.substring(0, equals)), decode(parameter.substring(equals + 1)));
+            }
+        }
+        return path.substring(0, queryStart);
+    }
+
+    private static String decode(String value)
+    {
+        try
+        {
+            return URLDecoder.decode(value, StandardCharsets.UTF_8.name());
+        }
+        catch (UnsupportedEncodingException | IllegalArgumentException error)
+        {
+            throw new InvalidArgumentException("Invalid path: " + value);
+        }
+    }
+
+    private String toJson(final Object body)
+    {
+        if (body == null)
+        {
+            return null;
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try
+        {
+            assistant.getJsonHelper().withWriter(out, new JacksonHelper.Writer()
+            {
+                @Override
+                public void writeContents(JsonGenerator generator, ObjectMapper objectMapper) throws IOException
+                {
+                    objectMapper.writeValue(generator, body);
+                }
+            });
+        }
+        catch (IOException error)
+        {
+            throw new InvalidArgumentException("Could not read the body of the request: " + error.getMessage());
+        }
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    private void reportExecutionTimeMetric(final long startTime, final String servicePath)
+    {
+        try
+        {
+            final RestMetricsReporter restMetricsReporter = assistant.getRestMetricsReporter();
+            if (restMetricsReporter != null)
+            {
+                long delta = System.currentTimeMillis() - startTime;
+                restMetricsReporter.reportRestRequestExecutionTime(delta, HttpMethod.POST.toString(), servicePath);
+            }
+        }
+        catch (Exception e)
+        {
+            if (logger.isDebugEnabled())
+            {
+                logger.debug("Could not report rest api metric:" + e.getMessage(), e);
+            }
+        }
+    }
+}
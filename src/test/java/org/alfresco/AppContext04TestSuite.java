@@ -76,6 +76,7 @@ import org.junit.runners.Suite;
     org.alfresco.repo.web.scripts.site.SurfConfigTest.class,
     org.alfresco.repo.web.scripts.node.NodeWebScripTest.class,
     org.alfresco.rest.api.impl.CommentsImplUnitTest.class,
+    org.alfresco.rest.api.impl.UserInfoCacheUnitTest.class,
 })
 public class AppContext04TestSuite
 {
@@ -48,16 +48,20 @@ import org.junit.runners.Suite;
     org.alfresco.repo.webdav.WebDAVLockServiceImplTest.class,
     org.alfresco.rest.api.search.ResultMapperTests.class,
     org.alfresco.rest.api.search.SearchApiWebscriptTests.class,
+    org.alfresco.rest.api.search.SearchExportApiWebscriptTests.class,
     org.alfresco.rest.api.search.SearchMapperTests.class,
     org.alfresco.rest.api.search.SearchQuerySerializerTests.class,
+    org.alfresco.rest.api.search.SearchResultsCacheTests.class,
     org.alfresco.rest.api.search.StoreMapperTests.class,
     org.alfresco.rest.api.tests.ModulePackageTest.class,
     org.alfresco.rest.framework.tests.core.InspectorTests.class,
     org.alfresco.rest.framework.tests.core.JsonJacksonTests.class,
+    org.alfresco.rest.framework.tests.core.ParallelResourcesTest.class,
     org.alfresco.rest.framework.tests.core.ParamsExtractorTests.class,
     org.alfresco.rest.framework.tests.core.WhereTests.class,
     org.alfresco.rest.framework.tests.core.WithResponseTest.class,
     org.alfresco.rest.framework.tools.RecognizedParamsExtractorTest.class,
+    org.alfresco.rest.framework.tools.RequestPhaseMetricsTest.class,
         // add applicationContext_02_part2 as it is compatible with the rest of the tests in this test suite
         // and because it balances the load of the build jobs
     
@@ -0,0 +1,216 @@
+/*
+ * #%L
+ * Alfresco Remote API
+ * %%
+ * Copyright (C) 2005 - 2020 Alfresco Software Limited
+ * %%
+ * This file is part of the Alfresco software.
+ * If the software was purchased under a paid Alfresco license, the terms of
+ * the paid license agreement will prevail.  Otherwise, the software is
+ * provided under the following open source license terms:
+ *
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+package org.alfresco.rest.api.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.alfresco.model.ContentModel;
+import org.alfresco.repo.policy.PolicyComponent;
+import org.alfresco.repo.security.authentication.AuthenticationUtil;
+import org.alfresco.service.cmr.repository.NodeRef;
+import org.alfresco.service.cmr.repository.NodeService;
+import org.alfresco.service.cmr.repository.StoreRef;
+import org.alfresco.service.cmr.security.AccessStatus;
+import org.alfresco.service.cmr.security.PermissionService;
+import org.alfresco.service.cmr.security.PersonService.PersonInfo;
+import org.alfresco.service.namespace.QName;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Unit tests for {@link UserInfoCache} class.
+ */
+public class UserInfoCacheUnitTest
+{
+    private static final String USER_NAME = "jbloggs";
+    private static final NodeRef PERSON_REF = new NodeRef(StoreRef.STORE_REF_WORKSPACE_SPACESSTORE, "jbloggs-person");
+
+    private UserInfoCache userInfoCache;
+    private NodeService nodeService;
+    private PermissionService permissionService;
+    private AtomicInteger loads;
+    private PersonInfo person;
+
+    @Before
+    public void setUp()
+    {
+        nodeService = mock(NodeService.class);
+        permissionService = mock(PermissionService.class);
+        when(permissionService.hasReadPermission(any(NodeRef.class))).thenReturn(AccessStatus.ALLOWED);
+
+        userInfoCache = new UserInfoCache();
+        userInfoCache.setPolicyComponent(mock(PolicyComponent.class));
+        userInfoCache.setNodeService(nodeService);
+        userInfoCache.setPermissionService(permissionService);
+        userInfoCache.init();
+
+        loads = new AtomicInteger();
+        person = new PersonInfo(PERSON_REF, USER_NAME, "Joe", "Bloggs");
+
+        AuthenticationUtil.setRunAsUserSystem();
+        TransactionSynchronizationManager.initSynchronization();
+    }
+
+    @After
+    public void tearDown()
+    {
+        TransactionSynchronizationManager.clearSynchronization();
+        for (Object key : new ArrayList<>(TransactionSynchronizationManager.getResourceMap().keySet()))
+        {
+            TransactionSynchronizationManager.unbindResource(key);
+        }
+        AuthenticationUtil.clearCurrentSecurityContext();
+    }
+
+    @Test
+    public void testCacheHit()
+    {
+        assertSame(person, userInfoCache.getPerson(USER_NAME, loader()));
+        assertSame(person, userInfoCache.getPerson(USER_NAME, loader()));
+        assertEquals(1, loads.get());
+        assertTrue(userInfoCache.isCached(USER_NAME));
+
+        // unknown people are not cached
+        assertNull(userInfoCache.getPerson("unknown", () -> null));
+        assertFalse(userInfoCache.isCached("unknown"));
+    }
+
+    @Test
+    public void testAccessDenied()
+    {
+        assertSame(person, userInfoCache.getPerson(USER_NAME, loader()));
+
+        // a user who can't read the person doesn't get the cached person, the person is loaded as that user instead
+        when(permissionService.hasReadPermission(PERSON_REF)).thenReturn(AccessStatus.DENIED);
+        AtomicInteger deniedLoads = new AtomicInteger();
+        assertNull(userInfoCache.getPerson(USER_NAME, () -> {
+            deniedLoads.incrementAndGet();
+            return null;
+        }));
+        assertEquals(1, deniedLoads.get());
+
+        // which leaves the person cached for the users who can read it
+        when(permissionService.hasReadPermission(PERSON_REF)).thenReturn(AccessStatus.ALLOWED);
+        assertSame(person, userInfoCache.getPerson(USER_NAME, loader()));
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    public void testInvalidateOnUpdateProperties()
+    {
+        userInfoCache.getPerson(USER_NAME, loader());
+
+        Map<QName, Serializable> before = personProperties("Joe");
+        Map<QName, Serializable> after = personProperties("Joe");
+        after.put(ContentModel.PROP_EMAIL, "jbloggs@example.com");
+        userInfoCache.onUpdateProperties(PERSON_REF, before, after);
+        assertTrue("Only the user name, first and last names are cached", userInfoCache.isCached(USER_NAME));
+
+        userInfoCache.onUpdateProperties(PERSON_REF, before, personProperties("Joseph"));
+        assertFalse(userInfoCache.isCached(USER_NAME));
+
+        // cached again by a concurrent request before the commit, removed again after the commit
+        userInfoCache.getPerson(USER_NAME, loader());
+        assertEquals(2, loads.get());
+        afterCommit();
+        assertFalse(userInfoCache.isCached(USER_NAME));
+        userInfoCache.getPerson(USER_NAME, loader());
+        assertEquals(3, loads.get());
+    }
+
+    @Test
+    public void testInvalidateOnDelete()
+    {
+        userInfoCache.getPerson(USER_NAME, loader());
+        when(nodeService.getProperty(PERSON_REF, ContentModel.PROP_USERNAME)).thenReturn(USER_NAME);
+
+        userInfoCache.beforeDeleteNode(PERSON_REF);
+        assertFalse(userInfoCache.isCached(USER_NAME));
+        assertNull(userInfoCache.getPerson(USER_NAME, () -> null));
+    }
+
+    @Test
+    public void testExpiry()
+    {
+        userInfoCache.setTtlSeconds(0);
+        userInfoCache.getPerson(USER_NAME, loader());
+        assertFalse(userInfoCache.isCached(USER_NAME));
+        userInfoCache.getPerson(USER_NAME, loader());
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    public void testDisabled()
+    {
+        userInfoCache.setEnabled(false);
+        userInfoCache.getPerson(USER_NAME, loader());
+        userInfoCache.getPerson(USER_NAME, loader());
+        assertEquals(2, loads.get());
+        assertFalse(userInfoCache.isCached(USER_NAME));
+    }
+
+    private Supplier<PersonInfo> loader()
+    {
+        return () -> {
+            loads.incrementAndGet();
+            return person;
+        };
+    }
+
+    private static Map<QName, Serializable> personProperties(String firstName)
+    {
+        Map<QName, Serializable> properties = new HashMap<>();
+        properties.put(ContentModel.PROP_USERNAME, USER_NAME);
+        properties.put(ContentModel.PROP_FIRSTNAME, firstName);
+        properties.put(ContentModel.PROP_LASTNAME, "Bloggs");
+        return properties;
+    }
+
+    private static void afterCommit()
+    {
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations())
+        {
+            synchronization.afterCommit();
+        }
+    }
+}
@@ -36,7 +36,8 @@ import org.junit.runners.Suite.SuiteClasses;
  */
 @RunWith(Suite.class)
 @SuiteClasses({ SearchMapperTests.class, ResultMapperTests.class,SearchQuerySerializerTests.class,
-              SearchApiWebscriptTests.class, StoreMapperTests.class})
+              SearchApiWebscriptTests.class, StoreMapperTests.class, SearchResultsCacheTests.class,
+              SearchExportApiWebscriptTests.class})
 public class AllSearchApiTests
 {
 }
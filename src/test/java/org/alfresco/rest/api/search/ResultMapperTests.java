@@ -30,26 +30,41 @@ import static junit.framework.TestCase.assertFalse;
 import static junit.framework.TestCase.assertNotNull;
 import static junit.framework.TestCase.assertNull;
 import static junit.framework.TestCase.assertTrue;
+import static junit.framework.TestCase.fail;
 import static org.mockito.ArgumentMatchers.nullable;
 import static org.mockito.Mockito.any;
 import static org.mockito.Mockito.anyBoolean;
 import static org.mockito.Mockito.anyString;
 import static org.mockito.Mockito.notNull;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.io.IOException;
 import java.io.Serializable;
+import java.io.StringReader;
+import java.io.StringWriter;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.alfresco.repo.domain.node.NodeDAO;
 import org.alfresco.repo.search.EmptyResultSet;
 import org.alfresco.repo.search.impl.lucene.SolrJSONResultSet;
 import org.alfresco.repo.search.impl.solr.facet.facetsresponse.GenericBucket;
@@ -61,6 +76,8 @@ import org.alfresco.repo.search.impl.solr.facet.facetsresponse.Metric.METRIC_TYP
 import org.alfresco.repo.search.impl.solr.facet.facetsresponse.PercentileMetric;
 import org.alfresco.repo.search.impl.solr.facet.facetsresponse.SimpleMetric;
 import org.alfresco.repo.security.authentication.AuthenticationUtil;
+import org.alfresco.repo.transaction.RetryingTransactionHelper;
+import org.alfresco.repo.transaction.RetryingTransactionHelper.RetryingTransactionCallback;
 import org.alfresco.repo.version.Version2Model;
 import org.alfresco.repo.version.common.VersionImpl;
 import org.alfresco.rest.api.DeletedNodes;
@@ -99,6 +116,7 @@ import org.alfresco.service.cmr.version.Version;
 import org.alfresco.service.cmr.version.VersionHistory;
 import org.alfresco.service.cmr.version.VersionService;
 import org.alfresco.service.namespace.QName;
+import org.alfresco.service.transaction.TransactionService;
 import org.alfresco.util.GUID;
 import org.json.JSONArray;
 import org.json.JSONException;
@@ -237,6 +255,15 @@ public class ResultMapperTests
             if ("mjackson".equals(value)) return "Michael Jackson";
             return null;
         });
+        when(propertyLookups.lookupAll(any())).thenAnswer(invocation -> {
+            Map<String, String> displays = new HashMap<>();
+            for (String value : (Collection<String>) invocation.getArguments()[0])
+            {
+                String display = propertyLookups.lookup(value);
+                if (display != null) displays.put(value, display);
+            }
+            return displays;
+        });
         PropertyLookupRegistry propertyLookupRegistry = new PropertyLookupRegistry();
         propertyLookupRegistry.setLookups(Arrays.asList(propertyLookups));
         mapper = new ResultMapper();
@@ -295,6 +322,141 @@ public class ResultMapperTests
         assertEquals(1l, collectionWithPage.getCollection().stream().filter(node -> StoreMapper.VERSIONS.equals(node.getLocation())).count());
     }
 
+    @Test
+    public void testPreloadLiveNodes() throws Exception
+    {
+        ResultSet results = mockResultset(Arrays.asList(514l), Arrays.asList(566l, VERSIONED_ID));
+        SearchRequestContext searchRequest = SearchRequestContext.from(SearchQuery.EMPTY);
+        NodeDAO nodeDAO = mock(NodeDAO.class);
+        mapper.setNodeDAO(nodeDAO);
+        try
+        {
+            CollectionWithPagingInfo<Node> collectionWithPage = mapper.toCollectionWithPagingInfo(EMPTY_PARAMS, searchRequest, SearchQuery.EMPTY, results);
+            List<NodeRef> liveNodes = collectionWithPage.getCollection().stream()
+                        .filter(node -> StoreMapper.LIVE_NODES.equals(node.getLocation()))
+                        .map(node -> new NodeRef(StoreRef.STORE_REF_WORKSPACE_SPACESSTORE, node.getNodeId()))
+                        .collect(Collectors.toList());
+
+            // the live nodes are loaded at once, in the order of the results
+            verify(nodeDAO, times(1)).cacheNodes(liveNodes);
+        }
+        finally
+        {
+            mapper.setNodeDAO(null);
+        }
+    }
+
+    @Test
+    public void testParallelHydration() throws Exception
+    {
+        ResultSet results = mockResultset(Arrays.asList(514l), Arrays.asList(566l, VERSIONED_ID));
+        SearchRequestContext searchRequest = SearchRequestContext.from(SearchQuery.EMPTY);
+        List<String> expected = describe(mapper.toCollectionWithPagingInfo(EMPTY_PARAMS, searchRequest, SearchQuery.EMPTY, results));
+
+        List<String> sliceUsers = Collections.synchronizedList(new ArrayList<>());
+        RetryingTransactionHelper txnHelper = mock(RetryingTransactionHelper.class);
+        when(txnHelper.doInTransaction(any(), anyBoolean(), anyBoolean())).thenAnswer(invocation -> {
+            sliceUsers.add(AuthenticationUtil.getRunAsUser());
+            return ((RetryingTransactionCallback<?>) invocation.getArguments()[0]).execute();
+        });
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        AuthenticationUtil.setRunAsUserSystem();
+        try
+        {
+            withParallelHydration(3, executor, txnHelper);
+            CollectionWithPagingInfo<Node> collectionWithPage = mapper.toCollectionWithPagingInfo(EMPTY_PARAMS, searchRequest, SearchQuery.EMPTY, results);
+
+            // 6 rows in 3 slices, the first one is built on the request thread
+            assertEquals(Arrays.asList(AuthenticationUtil.getSystemUserName(), AuthenticationUtil.getSystemUserName()), sliceUsers);
+            // same nodes, in the same order, and the same rows left out as when built on the request thread only
+            assertEquals(expected, describe(collectionWithPage));
+            assertEquals(5, collectionWithPage.getCollection().size());
+            assertEquals(results.getNumberFound(), collectionWithPage.getTotalItems().longValue());
+        }
+        finally
+        {
+            withParallelHydration(1, null, null);
+            AuthenticationUtil.clearCurrentSecurityContext();
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testParallelHydrationFailure() throws Exception
+    {
+        ResultSet results = mockResultset(Arrays.asList(514l), Arrays.asList(566l, VERSIONED_ID));
+        SearchRequestContext searchRequest = SearchRequestContext.from(SearchQuery.EMPTY);
+        RetryingTransactionHelper txnHelper = mock(RetryingTransactionHelper.class);
+        when(txnHelper.doInTransaction(any(), anyBoolean(), anyBoolean())).thenThrow(new IllegalStateException("slice failed"));
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        AuthenticationUtil.setRunAsUserSystem();
+        try
+        {
+            withParallelHydration(3, executor, txnHelper);
+            mapper.toCollectionWithPagingInfo(EMPTY_PARAMS, searchRequest, SearchQuery.EMPTY, results);
+            fail("The failure of a slice should be thrown as if the slice was built on the request thread");
+        }
+        catch (IllegalStateException expected)
+        {
+            assertEquals("slice failed", expected.getMessage());
+        }
+        finally
+        {
+            withParallelHydration(1, null, null);
+            AuthenticationUtil.clearCurrentSecurityContext();
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testParallelHydrationRejected() throws Exception
+    {
+        ResultSet results = mockResultset(Arrays.asList(514l), Arrays.asList(566l, VERSIONED_ID));
+        SearchRequestContext searchRequest = SearchRequestContext.from(SearchQuery.EMPTY);
+        List<String> expected = describe(mapper.toCollectionWithPagingInfo(EMPTY_PARAMS, searchRequest, SearchQuery.EMPTY, results));
+
+        RetryingTransactionHelper txnHelper = mock(RetryingTransactionHelper.class);
+        ExecutorService executor = mock(ExecutorService.class);
+        when(executor.submit(any(Callable.class))).thenThrow(new RejectedExecutionException("full"));
+        AuthenticationUtil.setRunAsUserSystem();
+        try
+        {
+            withParallelHydration(3, executor, txnHelper);
+            CollectionWithPagingInfo<Node> collectionWithPage = mapper.toCollectionWithPagingInfo(EMPTY_PARAMS, searchRequest, SearchQuery.EMPTY, results);
+
+            // all the slices are built on the request thread instead
+            verify(executor, times(2)).submit(any(Callable.class));
+            verify(txnHelper, never()).doInTransaction(any(), anyBoolean(), anyBoolean());
+            assertEquals(expected, describe(collectionWithPage));
+        }
+        finally
+        {
+            withParallelHydration(1, null, null);
+            AuthenticationUtil.clearCurrentSecurityContext();
+        }
+    }
+
+    private void withParallelHydration(int threads, ExecutorService executor, RetryingTransactionHelper txnHelper)
+    {
+        TransactionService transactionService = null;
+        if (txnHelper != null)
+        {
+            transactionService = mock(TransactionService.class);
+            when(transactionService.getRetryingTransactionHelper()).thenReturn(txnHelper);
+        }
+        mapper.setHydrationThreads(threads);
+        mapper.setHydrationExecutor(executor);
+        mapper.setTransactionService(transactionService);
+    }
+
+    // the location and id of each node (the ids of the versions are generated on each lookup)
+    private static List<String> describe(CollectionWithPagingInfo<Node> collectionWithPage)
+    {
+        return collectionWithPage.getCollection().stream()
+                    .map(node -> node.getLocation() + (StoreMapper.VERSIONS.equals(node.getLocation()) ? "" : " " + node.getNodeId()))
+                    .collect(Collectors.toList());
+    }
+
     @Test
     public void testToSearchContext() throws Exception
     {
@@ -766,7 +928,10 @@ public class ResultMapperTests
         assertEquals(124,searchContext.getFacetsFields().get(0).getBuckets().get(0).getCount());
         assertEquals("creator:\"System\"",searchContext.getFacetsFields().get(0).getBuckets().get(0).getFilterQuery());
         assertEquals("System",searchContext.getFacetsFields().get(0).getBuckets().get(0).getLabel());
+        assertNull(searchContext.getFacetsFields().get(0).getBuckets().get(0).getDisplay());
+        assertEquals("Michael Jackson",searchContext.getFacetsFields().get(0).getBuckets().get(1).getDisplay());
         assertEquals("modifier",searchContext.getFacetsFields().get(1).getLabel());
+        assertEquals("Michael Jackson",searchContext.getFacetsFields().get(1).getBuckets().get(1).getDisplay());
         jsonQuery = jsonQuery.replace("V1", "V2");
         searchQuery = helper.extractFromJson(jsonQuery);
         searchContext = mapper.toSearchContext((SolrJSONResultSet) results, searchRequest, searchQuery, 0);
@@ -886,4 +1051,43 @@ public class ResultMapperTests
             assertEquals("SearchSQLQuery is required", e.getMessage());
         }
     }
+
+    @Test
+    public void testSqlResponseStreamed() throws IOException
+    {
+        String response = "{\"result-set\":{\"docs\":[{\"SITE\":\"_REPOSITORY_\",\"EXPR$1\":2},{\"SITE\":\"swsdp\",\"EXPR$1\":1.5},"
+                    + "{\"SITE\":\"surf-config\",\"TAGS\":[\"a\",\"b\"]},{\"EOF\":true,\"RESPONSE_TIME\":96}]}}";
+        SearchSQLQuery query = new SearchSQLQuery("select SITE from alfresco group by SITE", null, null, 100, false, null, null);
+        ObjectMapper objectMapper = new ObjectMapper();
+
+        StringWriter out = new StringWriter();
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out))
+        {
+            mapper.writeTupleList(new StringReader(response), query, generator, objectMapper);
+        }
+        JsonNode list = objectMapper.readTree(out.toString()).get("list");
+        assertEquals(3, list.get("pagination").get("count").asInt());
+        assertEquals(100, list.get("pagination").get("maxItems").asInt());
+        assertEquals(0, list.get("pagination").get("skipCount").asInt());
+
+        JsonNode entries = list.get("entries");
+        assertEquals(3, entries.size());
+        JsonNode first = entries.get(0).get("entry");
+        assertEquals("SITE", first.get(0).get("label").asText());
+        assertEquals("_REPOSITORY_", first.get(0).get("value").asText());
+        assertEquals("EXPR$1", first.get(1).get("label").asText());
+        assertEquals("2", first.get(1).get("value").asText());
+        assertEquals("1.5", entries.get(1).get("entry").get(1).get("value").asText());
+        assertEquals("[\"a\",\"b\"]", entries.get(2).get("entry").get(1).get("value").asText());
+
+        // no docs
+        out = new StringWriter();
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out))
+        {
+            mapper.writeTupleList(new StringReader("{\"result-set\":{\"docs\":[]}}"), query, generator, objectMapper);
+        }
+        list = objectMapper.readTree(out.toString()).get("list");
+        assertEquals(0, list.get("pagination").get("count").asInt());
+        assertEquals(0, list.get("entries").size());
+    }
 }
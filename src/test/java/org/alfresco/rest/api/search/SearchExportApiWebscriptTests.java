@@ -0,0 +1,332 @@
+/*
+ * #%L
+ * Alfresco Remote API
+ * %%
+ * Copyright (C) 2005 - 2020 Alfresco Software Limited
+ * %%
+ * This file is part of the Alfresco software.
+ * If the software was purchased under a paid Alfresco license, the terms of
+ * the paid license agreement will prevail.  Otherwise, the software is
+ * provided under the following open source license terms:
+ *
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+package org.alfresco.rest.api.search;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.alfresco.model.ContentModel;
+import org.alfresco.repo.security.permissions.impl.acegi.FilteringResultSet;
+import org.alfresco.repo.transaction.RetryingTransactionHelper;
+import org.alfresco.repo.transaction.RetryingTransactionHelper.RetryingTransactionCallback;
+import org.alfresco.rest.api.model.Node;
+import org.alfresco.rest.api.search.context.SearchRequestContext;
+import org.alfresco.rest.api.search.impl.ResultMapper;
+import org.alfresco.rest.api.search.impl.SearchMapper;
+import org.alfresco.rest.api.search.model.SearchQuery;
+import org.alfresco.rest.framework.core.exceptions.ErrorResponse;
+import org.alfresco.rest.framework.resource.parameters.CollectionWithPagingInfo;
+import org.alfresco.rest.framework.resource.parameters.Paging;
+import org.alfresco.rest.framework.resource.parameters.Params;
+import org.alfresco.rest.framework.tools.ApiAssistant;
+import org.alfresco.rest.framework.webscripts.ResourceWebScriptHelper;
+import org.alfresco.service.ServiceRegistry;
+import org.alfresco.service.cmr.repository.NodeRef;
+import org.alfresco.service.cmr.repository.StoreRef;
+import org.alfresco.service.cmr.search.ResultSet;
+import org.alfresco.service.cmr.search.ResultSetRow;
+import org.alfresco.service.cmr.search.SearchParameters;
+import org.alfresco.service.cmr.search.SearchService;
+import org.alfresco.service.transaction.TransactionService;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.extensions.webscripts.WebScriptResponse;
+
+/**
+ * Tests the keyset walk of the SearchExportApiWebscript class, against an index of db ids
+ */
+public class SearchExportApiWebscriptTests
+{
+    private static final int BATCH_SIZE = 3;
+    private static final Pattern DBID_FILTER = Pattern.compile("sys:node-dbid:\\[(\\d+) TO MAX\\]");
+
+    private SerializerTestHelper serializer = new SerializerTestHelper();
+    private SearchExportApiWebscript webscript;
+    private SearchService searchService;
+    private SearchQuery searchQuery;
+    private Params params;
+
+    /** The db ids in the index, those whose node has been deleted and those that the user can't read */
+    private final Set<Long> index = new TreeSet<>();
+    private final Set<Long> deleted = new HashSet<>();
+    private final Set<Long> unreadable = new HashSet<>();
+    /** The search parameters of each batch */
+    private final List<SearchParameters> searches = new ArrayList<>();
+    private final Map<ResultSet, List<Node>> readableNodes = new IdentityHashMap<>();
+    private int failAtSearch = -1;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        searchService = mock(SearchService.class);
+        when(searchService.query(any(SearchParameters.class))).thenAnswer(invocation -> search((SearchParameters) invocation.getArguments()[0]));
+
+        SearchMapper searchMapper = mock(SearchMapper.class);
+        when(searchMapper.toSearchParameters(any(Params.class), any(SearchQuery.class), any(SearchRequestContext.class)))
+                    .thenAnswer(invocation -> new SearchParameters());
+
+        ResultMapper resultMapper = mock(ResultMapper.class);
+        when(resultMapper.toCollectionWithPagingInfo(any(Params.class), any(SearchRequestContext.class), any(SearchQuery.class), any(ResultSet.class)))
+                    .thenAnswer(invocation -> CollectionWithPagingInfo.asPaged(null, readableNodes.get(invocation.getArguments()[3])));
+
+        ResourceWebScriptHelper helper = mock(ResourceWebScriptHelper.class);
+        when(helper.processAdditionsToTheResponse(isNull(), isNull(), isNull(), any(Params.class), any(Node.class)))
+                    .thenAnswer(invocation -> Collections.singletonMap("id", ((Node) invocation.getArguments()[4]).getNodeRef().getId()));
+
+        RetryingTransactionHelper txnHelper = mock(RetryingTransactionHelper.class);
+        when(txnHelper.doInTransaction(any(RetryingTransactionCallback.class), anyBoolean(), anyBoolean()))
+                    .thenAnswer(invocation -> ((RetryingTransactionCallback<?>) invocation.getArguments()[0]).execute());
+        TransactionService transactionService = mock(TransactionService.class);
+        when(transactionService.getRetryingTransactionHelper()).thenReturn(txnHelper);
+        ServiceRegistry serviceRegistry = mock(ServiceRegistry.class);
+        when(serviceRegistry.getSearchService()).thenReturn(searchService);
+        when(serviceRegistry.getTransactionService()).thenReturn(transactionService);
+
+        ApiAssistant assistant = mock(ApiAssistant.class);
+        when(assistant.getJsonHelper()).thenReturn(serializer.jsonHelper);
+        when(assistant.resolveException(any(Exception.class)))
+                    .thenAnswer(invocation -> new ErrorResponse("framework.exception.ApiDefault", 500, ((Exception) invocation.getArguments()[0]).getMessage(),
+                                                                new StackTraceElement[0], null));
+
+        webscript = new SearchExportApiWebscript();
+        webscript.setServiceRegistry(serviceRegistry);
+        webscript.setAssistant(assistant);
+        webscript.setHelper(helper);
+        webscript.setSearchMapper(searchMapper);
+        webscript.setResultMapper(resultMapper);
+        webscript.setBatchSize(BATCH_SIZE);
+        webscript.afterPropertiesSet();
+
+        searchQuery = serializer.searchQueryFromJson();
+        params = webscript.getParams(null, null, null, Paging.valueOf(0, BATCH_SIZE));
+    }
+
+    @Test
+    public void testSeveralBatches() throws IOException
+    {
+        addToIndex(1, 8);
+
+        List<String> lines = export();
+        assertEquals(Arrays.asList("1", "2", "3", "4", "5", "6", "7", "8"), lines);
+        assertEquals("The last batch is short", 3, searches.size());
+        assertEquals(Collections.emptyList(), searches.get(0).getFilterQueries());
+        assertEquals(Arrays.asList("sys:node-dbid:[4 TO MAX]"), searches.get(1).getFilterQueries());
+        assertEquals(Arrays.asList("sys:node-dbid:[7 TO MAX]"), searches.get(2).getFilterQueries());
+    }
+
+    @Test
+    public void testExactBatches() throws IOException
+    {
+        addToIndex(1, 6);
+
+        assertEquals(Arrays.asList("1", "2", "3", "4", "5", "6"), export());
+        assertEquals("There is nothing after the second batch", 2, searches.size());
+    }
+
+    @Test
+    public void testPermissionFilteredRows() throws IOException
+    {
+        addToIndex(1, 10);
+        unreadable.addAll(Arrays.asList(2L, 4L, 5L, 6L, 9L));
+
+        assertEquals(Arrays.asList("1", "3", "7", "8", "10"), export());
+        assertEquals(Arrays.asList("sys:node-dbid:[4 TO MAX]"), searches.get(1).getFilterQueries());
+        assertEquals("The rows that can't be read still move the cursor on", Arrays.asList("sys:node-dbid:[7 TO MAX]"),
+                     searches.get(2).getFilterQueries());
+    }
+
+    @Test
+    public void testDeletedBatch() throws IOException
+    {
+        addToIndex(1, 9);
+        deleted.addAll(Arrays.asList(4L, 5L, 6L));
+
+        assertEquals("Must carry on past a batch whose nodes have all been deleted", Arrays.asList("1", "2", "3", "7", "8", "9"), export());
+        assertEquals(Arrays.asList("sys:node-dbid:[4 TO MAX]"), searches.get(2).getFilterQueries());
+        assertEquals(BATCH_SIZE, searches.get(2).getSkipCount());
+    }
+
+    @Test
+    public void testClientWriteFailure() throws IOException
+    {
+        addToIndex(1, 9);
+
+        OutputStream gone = new OutputStream()
+        {
+            @Override
+            public void write(int b) throws IOException
+            {
+                throw new IOException("Broken pipe");
+            }
+        };
+        webscript.export(gone, searchQuery, params);
+        assertEquals("The export stops as soon as a batch can't be written", 1, searches.size());
+    }
+
+    @Test
+    public void testSearchFailureAfterFirstBatch() throws IOException
+    {
+        addToIndex(1, 9);
+        failAtSearch = 1;
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        webscript.export(out, searchQuery, params);
+        String[] lines = out.toString("UTF-8").split("\n");
+        assertEquals(4, lines.length);
+        assertEquals("{\"id\":\"3\"}", lines[2]);
+        assertTrue("The export must end with the error: " + lines[3], lines[3].startsWith("{\"error\":{"));
+        assertTrue(lines[3].contains("\"statusCode\":500"));
+    }
+
+    @Test
+    public void testSearchFailureBeforeFirstBatch() throws IOException
+    {
+        addToIndex(1, 9);
+        failAtSearch = 0;
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        WebScriptResponse res = mock(WebScriptResponse.class);
+        when(res.getOutputStream()).thenReturn(out);
+
+        webscript.export(res, searchQuery, params);
+
+        // nothing has been written, so the response is the error
+        verify(res).setStatus(500);
+        verify(res).setContentType("application/json");
+        String body = out.toString("UTF-8");
+        assertTrue("The response must be the error: " + body, body.startsWith("{\"error\":{"));
+        assertTrue(body.contains("\"statusCode\":500"));
+        assertTrue(body.contains("Search failed"));
+        assertEquals(1, searches.size());
+    }
+
+    private void addToIndex(long from, long to)
+    {
+        for (long dbid = from; dbid <= to; dbid++)
+        {
+            index.add(dbid);
+        }
+    }
+
+    private List<String> export() throws IOException
+    {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        webscript.export(out, searchQuery, params);
+        String ndjson = out.toString("UTF-8");
+        assertTrue("Each line ends with a newline", ndjson.endsWith("\n"));
+
+        List<String> ids = new ArrayList<>();
+        for (String line : ndjson.split("\n"))
+        {
+            assertTrue("Unexpected line " + line, line.startsWith("{\"id\":\""));
+            ids.add(line.substring(7, line.length() - 2));
+        }
+        return ids;
+    }
+
+    /**
+     * Searches the index as Solr would: the filter and skip count apply to all the db ids, the rows of deleted nodes are
+     * dropped from the result set and the unreadable rows from the filtered result set.
+     */
+    private ResultSet search(SearchParameters searchParameters)
+    {
+        if (searches.size() == failAtSearch)
+        {
+            searches.add(searchParameters);
+            throw new IllegalStateException("Search failed");
+        }
+        searches.add(searchParameters);
+        assertEquals(SearchParameters.SortDefinition.SortType.FIELD, searchParameters.getSortDefinitions().get(0).getSortType());
+
+        long from = 0;
+        for (String filterQuery : searchParameters.getFilterQueries())
+        {
+            Matcher matcher = DBID_FILTER.matcher(filterQuery);
+            assertTrue(filterQuery, matcher.matches());
+            from = Long.parseLong(matcher.group(1));
+        }
+        List<Long> matching = new ArrayList<>();
+        for (Long dbid : index)
+        {
+            if (dbid >= from)
+            {
+                matching.add(dbid);
+            }
+        }
+
+        List<ResultSetRow> rows = new ArrayList<>();
+        List<Node> nodes = new ArrayList<>();
+        int end = Math.min(matching.size(), searchParameters.getSkipCount() + BATCH_SIZE);
+        for (Long dbid : matching.subList(Math.min(searchParameters.getSkipCount(), end), end))
+        {
+            if (deleted.contains(dbid))
+            {
+                continue;
+            }
+            NodeRef nodeRef = new NodeRef(StoreRef.STORE_REF_WORKSPACE_SPACESSTORE, String.valueOf(dbid));
+            ResultSetRow row = mock(ResultSetRow.class);
+            when(row.getNodeRef()).thenReturn(nodeRef);
+            when(row.getValue(eq(ContentModel.PROP_NODE_DBID))).thenReturn(dbid);
+            rows.add(row);
+            if (!unreadable.contains(dbid))
+            {
+                Node node = new Node();
+                node.setNodeRef(nodeRef);
+                nodes.add(node);
+            }
+        }
+
+        ResultSet unfiltered = mock(ResultSet.class);
+        when(unfiltered.getNumberFound()).thenReturn((long) matching.size());
+        when(unfiltered.iterator()).thenAnswer(invocation -> rows.iterator());
+        FilteringResultSet filtered = mock(FilteringResultSet.class);
+        when(filtered.getUnFilteredResultSet()).thenReturn(unfiltered);
+        readableNodes.put(filtered, nodes);
+        return filtered;
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ * #%L
+ * Alfresco Remote API
+ * %%
+ * Copyright (C) 2005 - 2020 Alfresco Software Limited
+ * %%
+ * This file is part of the Alfresco software.
+ * If the software was purchased under a paid Alfresco license, the terms of
+ * the paid license agreement will prevail.  Otherwise, the software is
+ * provided under the following open source license terms:
+ *
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+package org.alfresco.rest.api.search;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.alfresco.repo.domain.node.NodeDAO;
+import org.alfresco.repo.search.impl.lucene.SolrJSONResultSet;
+import org.alfresco.rest.api.search.impl.SearchResultsCache;
+import org.alfresco.rest.api.search.model.SearchQuery;
+import org.alfresco.service.cmr.search.ResultSet;
+import org.alfresco.service.cmr.security.AuthorityService;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests the SearchResultsCache class
+ */
+public class SearchResultsCacheTests
+{
+    private static final String QUERY = "{ \"query\": {\"query\": \"cm:name:test\"}, \"paging\": {\"maxItems\": \"10\", \"skipCount\": \"0\"}";
+
+    private SerializerTestHelper helper = new SerializerTestHelper();
+    private AuthorityService authorityService;
+    private NodeDAO nodeDAO;
+    private SearchResultsCache cache;
+    private AtomicInteger searches = new AtomicInteger();
+
+    @Before
+    public void setUp()
+    {
+        authorityService = mock(AuthorityService.class);
+        when(authorityService.getAuthorities()).thenReturn(new HashSet<>(Arrays.asList("user1", "GROUP_EVERYONE")));
+        nodeDAO = mock(NodeDAO.class);
+        when(nodeDAO.getMaxTxnId()).thenReturn(100L);
+
+        cache = new SearchResultsCache();
+        cache.setAuthorityService(authorityService);
+        cache.setNodeDAO(nodeDAO);
+        cache.setEnabled(true);
+        cache.setMaxTxnLag(5);
+        cache.init();
+    }
+
+    @Test
+    public void testSameQueryIsCached() throws Exception
+    {
+        ResultSet first = cache.query(helper.extractFromJson(QUERY + "}"), solrSearch(100L));
+        // same results, with other fields and properties in another order
+        ResultSet second = cache.query(helper.extractFromJson("{ \"paging\": {\"skipCount\": \"0\", \"maxItems\": \"10\"}, \"query\": {\"query\": \"cm:name:test\"}, "
+                    + "\"fields\": [\"id\"], \"include\": [\"properties\"]}"), solrSearch(100L));
+        assertSame(first, second);
+        assertEquals(1, searches.get());
+
+        // another page
+        cache.query(helper.extractFromJson(QUERY.replace("\"skipCount\": \"0\"", "\"skipCount\": \"10\"") + "}"), solrSearch(100L));
+        assertEquals(2, searches.get());
+    }
+
+    @Test
+    public void testOtherAuthorities() throws Exception
+    {
+        SearchQuery searchQuery = helper.extractFromJson(QUERY + "}");
+        ResultSet first = cache.query(searchQuery, solrSearch(100L));
+        when(authorityService.getAuthorities()).thenReturn(new HashSet<>(Arrays.asList("user2", "GROUP_EVERYONE")));
+        assertNotSame(first, cache.query(searchQuery, solrSearch(100L)));
+        assertEquals(2, searches.get());
+    }
+
+    @Test
+    public void testIndexLag() throws Exception
+    {
+        SearchQuery searchQuery = helper.extractFromJson(QUERY + "}");
+
+        // the index is too far behind, not cached
+        cache.query(searchQuery, solrSearch(90L));
+        cache.query(searchQuery, solrSearch(90L));
+        assertEquals(2, searches.get());
+
+        // within the lag
+        ResultSet cached = cache.query(searchQuery, solrSearch(98L));
+        assertEquals(3, searches.get());
+        when(nodeDAO.getMaxTxnId()).thenReturn(105L);
+        assertSame(cached, cache.query(searchQuery, solrSearch(105L)));
+
+        // the repository has moved on
+        when(nodeDAO.getMaxTxnId()).thenReturn(106L);
+        assertNotSame(cached, cache.query(searchQuery, solrSearch(106L)));
+        assertEquals(4, searches.get());
+    }
+
+    @Test
+    public void testDisabled() throws Exception
+    {
+        cache.setEnabled(false);
+        SearchQuery searchQuery = helper.extractFromJson(QUERY + "}");
+        cache.query(searchQuery, solrSearch(100L));
+        cache.query(searchQuery, solrSearch(100L));
+        assertEquals(2, searches.get());
+    }
+
+    private Supplier<ResultSet> solrSearch(Long lastIndexedTxId)
+    {
+        return () ->
+        {
+            searches.incrementAndGet();
+            SolrJSONResultSet resultSet = mock(SolrJSONResultSet.class);
+            when(resultSet.getLastIndexedTxId()).thenReturn(lastIndexedTxId);
+            return resultSet;
+        };
+    }
+}
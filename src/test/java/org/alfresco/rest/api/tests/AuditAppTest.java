@@ -34,6 +34,8 @@ import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
@@ -391,6 +393,7 @@ public class AuditAppTest extends AbstractSingleNetworkSiteTest
         testAuditEntriesWhereId(auditAppsProxy, auditApp);
         testAuditEntriesWithInclude(auditAppsProxy, auditApp);
         testAuditEntriesSkipCount(auditAppsProxy, auditApp);
+        testAuditEntriesCursor(auditAppsProxy, auditApp);
         testRetrieveAuditEntry(auditAppsProxy, auditApp);
         testDeleteAuditEntry(auditAppsProxy, auditApp);
         testDeleteAuditEntries(auditAppsProxy, auditApp);
@@ -589,6 +592,64 @@ public class AuditAppTest extends AbstractSingleNetworkSiteTest
         checkList(expectedSublist, sublistResponse.getPaging(), sublistResponse);
     }
 
+    private void testAuditEntriesCursor(AuditApps auditAppsProxy, AuditApp auditApp) throws Exception
+    {
+        // the entries to walk (by skipCount), restricted to their id range so that new entries don't affect the walk
+        Map<String, String> otherParams = new HashMap<>();
+        otherParams.put("omitTotalItems", "true");
+        ListResponse<AuditEntry> resp = auditAppsProxy.getAuditAppEntries(auditApp.getId(),
+                createParams(getPaging(0, 10), otherParams), HttpServletResponse.SC_OK);
+        List<Long> expectedIds = new ArrayList<>();
+        for (AuditEntry ae : resp.getList())
+        {
+            expectedIds.add(ae.getId());
+        }
+        assertTrue("audit entry size more than 3", expectedIds.size() > 3);
+        otherParams.put("where", "(" + org.alfresco.rest.api.Audit.ID + " between ('" + expectedIds.get(0) + "' , '"
+                + expectedIds.get(expectedIds.size() - 1) + "'))");
+
+        // walk forwards, by cursor
+        assertEquals(expectedIds, walkAuditEntries(auditAppsProxy, auditApp, otherParams));
+
+        // walk backwards, by cursor
+        addOrderBy(otherParams, org.alfresco.rest.api.Audit.CREATED_AT, false);
+        List<Long> reversedIds = new ArrayList<>(expectedIds);
+        Collections.reverse(reversedIds);
+        assertEquals(reversedIds, walkAuditEntries(auditAppsProxy, auditApp, otherParams));
+
+        // -ve test - skipCount can't be used with a cursor
+        resp = auditAppsProxy.getAuditAppEntries(auditApp.getId(), createParams(getPaging(0, 1), otherParams), HttpServletResponse.SC_OK);
+        assertNotNull(resp.getPaging().getNextCursor());
+        otherParams.put("cursor", resp.getPaging().getNextCursor());
+        auditAppsProxy.getAuditAppEntries(auditApp.getId(), createParams(getPaging(2, 3), otherParams), HttpServletResponse.SC_BAD_REQUEST);
+    }
+
+    private List<Long> walkAuditEntries(AuditApps auditAppsProxy, AuditApp auditApp, Map<String, String> otherParams) throws Exception
+    {
+        List<Long> walkedIds = new ArrayList<>();
+        Map<String, String> params = new HashMap<>(otherParams);
+        params.put("maxItems", "3");
+        while (true)
+        {
+            ListResponse<AuditEntry> resp = auditAppsProxy.getAuditAppEntries(auditApp.getId(), params, HttpServletResponse.SC_OK);
+            assertTrue(resp.getList().size() <= 3);
+            for (AuditEntry ae : resp.getList())
+            {
+                assertFalse("duplicate audit entry " + ae.getId(), walkedIds.contains(ae.getId()));
+                walkedIds.add(ae.getId());
+            }
+
+            String nextCursor = resp.getPaging().getNextCursor();
+            if (! resp.getPaging().getHasMoreItems())
+            {
+                assertNull(nextCursor);
+                return walkedIds;
+            }
+            assertNotNull(nextCursor);
+            params.put("cursor", nextCursor);
+        }
+    }
+
     private void testRetrieveAuditEntry(AuditApps auditAppsProxy, AuditApp auditApp) throws Exception
     {
         int skipCount = 0;
@@ -34,15 +34,19 @@ import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.RandomAccessFile;
 import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.security.MessageDigest;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Base64;
 import java.util.Collections;
+import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
@@ -61,6 +65,7 @@ import org.alfresco.repo.tenant.TenantService;
 import org.alfresco.repo.tenant.TenantUtil;
 import org.alfresco.rest.AbstractSingleNetworkSiteTest;
 import org.alfresco.rest.api.Nodes;
+import org.alfresco.rest.api.model.AssocChild;
 import org.alfresco.rest.api.model.LockInfo;
 import org.alfresco.rest.api.model.NodeDefinition;
 import org.alfresco.rest.api.model.NodeDefinitionConstraint;
@@ -77,6 +82,9 @@ import org.alfresco.rest.api.tests.client.PublicApiHttpClient.BinaryPayload;
 import org.alfresco.rest.api.tests.client.data.Association;
 import org.alfresco.rest.api.tests.client.data.ContentInfo;
 import org.alfresco.rest.api.tests.client.data.Document;
+import org.alfresco.rest.api.tests.client.data.Favourite;
+import org.alfresco.rest.api.tests.client.data.FavouriteDocument;
+import org.alfresco.rest.api.tests.client.data.FileFavouriteTarget;
 import org.alfresco.rest.api.tests.client.data.Folder;
 import org.alfresco.rest.api.tests.client.data.Node;
 import org.alfresco.rest.api.tests.client.data.PathInfo;
@@ -87,6 +95,7 @@ import org.alfresco.rest.api.tests.util.MultiPartBuilder;
 import org.alfresco.rest.api.tests.util.MultiPartBuilder.FileData;
 import org.alfresco.rest.api.tests.util.MultiPartBuilder.MultiPartRequest;
 import org.alfresco.rest.api.tests.util.RestApiUtil;
+import org.alfresco.rest.framework.webscripts.ResourceWebScriptPost;
 import org.alfresco.service.cmr.lock.LockType;
 import org.alfresco.service.cmr.repository.NodeRef;
 import org.alfresco.service.cmr.repository.NodeService;
@@ -128,6 +137,8 @@ public class NodeApiTest extends AbstractSingleNetworkSiteTest
     private static final String PROP_OWNER = "cm:owner";
 
     private static final String URL_DELETED_NODES = "deleted-nodes";
+    private static final String URL_BULK_NODE_JOBS = "bulk-node-jobs";
+    private static final String URL_UPLOAD_SESSIONS = "upload-sessions";
     private static final String EMPTY_BODY = "{}";
 
     protected PermissionService permissionService;
@@ -551,6 +562,238 @@ public class NodeApiTest extends AbstractSingleNetworkSiteTest
         
     }
 
+    /**
+     * Tests that isFavorite follows the user's favourites from one listing to the next.
+     * <p>GET:</p>
+     * {@literal <host>:<port>/alfresco/api/<networkId>/public/alfresco/versions/1/nodes/<parentId>/children?include=isFavorite}
+     */
+    @Test
+    public void testListChildrenIsFavorite() throws Exception
+    {
+        setRequestContext(user1);
+
+        PublicApiClient.Favourites favouritesProxy = publicApiClient.favourites();
+
+        String folderId = createFolder(Nodes.PATH_MY, "folder" + RUNID + "_fav").getId();
+        String d1Id = createTextFile(folderId, "content" + RUNID + "_1", "The quick brown fox jumps over the lazy dog 1.").getId();
+        String d2Id = createTextFile(folderId, "content" + RUNID + "_2", "The quick brown fox jumps over the lazy dog 2.").getId();
+        String d3Id = createTextFile(folderId, "content" + RUNID + "_3", "The quick brown fox jumps over the lazy dog 3.").getId();
+
+        assertListedFavorites(folderId, Arrays.asList(d1Id, d2Id, d3Id), Collections.emptySet());
+
+        favouritesProxy.createFavourite(user1, new Favourite(new Date(), null, new FileFavouriteTarget(new FavouriteDocument(d1Id)), null), null);
+        assertListedFavorites(folderId, Arrays.asList(d1Id, d2Id, d3Id), Collections.singleton(d1Id));
+
+        favouritesProxy.createFavourite(user1, new Favourite(new Date(), null, new FileFavouriteTarget(new FavouriteDocument(d2Id)), null), null);
+        assertListedFavorites(folderId, Arrays.asList(d1Id, d2Id, d3Id), new HashSet<>(Arrays.asList(d1Id, d2Id)));
+
+        favouritesProxy.removeFavourite(user1, d1Id);
+        assertListedFavorites(folderId, Arrays.asList(d1Id, d2Id, d3Id), Collections.singleton(d2Id));
+
+        // some cleanup
+        favouritesProxy.removeFavourite(user1, d2Id);
+        deleteNode(folderId, true, 204);
+    }
+
+    private void assertListedFavorites(String folderId, List<String> childIds, Set<String> favoriteIds) throws Exception
+    {
+        Map<String, String> params = Collections.singletonMap("include", "isFavorite");
+        HttpResponse response = getAll(getNodeChildrenUrl(folderId), getPaging(0, 100), params, 200);
+        List<Node> nodes = RestApiUtil.parseRestApiEntries(response.getJsonResponse(), Node.class);
+        assertEquals(childIds.size(), nodes.size());
+        for (Node node : nodes)
+        {
+            assertTrue(childIds.contains(node.getId()));
+            assertEquals(node.getId(), favoriteIds.contains(node.getId()), node.getIsFavorite());
+
+            // same as the single GET
+            response = getSingle(NodesEntityResource.class, node.getId(), params, 200);
+            Node single = RestApiUtil.parseRestApiEntry(response.getJsonResponse(), Node.class);
+            assertEquals(node.getId(), single.getIsFavorite(), node.getIsFavorite());
+        }
+    }
+
+    /**
+     * Tests that each listed child has the same info as the single GET, including for (secondary) children
+     * whose primary parents are different sub-folders.
+     * <p>GET:</p>
+     * {@literal <host>:<port>/alfresco/api/<networkId>/public/alfresco/versions/1/nodes/<parentId>/children}
+     */
+    @Test
+    public void testListChildrenMatchesGetNode() throws Exception
+    {
+        setRequestContext(user1);
+
+        // folder0 - with folderA, folderB and content0 as primary children, contentA and contentB as secondary children
+        String folder0Id = createFolder(Nodes.PATH_MY, "folder" + RUNID + "_0").getId();
+        String folderAId = createFolder(folder0Id, "folder" + RUNID + "_A").getId();
+        String folderBId = createFolder(folder0Id, "folder" + RUNID + "_B").getId();
+        String content0Id = createTextFile(folder0Id, "content" + RUNID + "_0", "The quick brown fox jumps over the lazy dog 0.").getId();
+        String contentAId = createTextFile(folderAId, "content" + RUNID + "_A", "The quick brown fox jumps over the lazy dog A.").getId();
+        String contentBId = createTextFile(folderBId, "content" + RUNID + "_B", "The quick brown fox jumps over the lazy dog B.").getId();
+
+        String secondaryChildrenUrl = URL_NODES + "/" + folder0Id + "/secondary-children";
+        post(secondaryChildrenUrl, toJsonAsStringNonNull(new AssocChild(contentAId, ASSOC_TYPE_CM_CONTAINS)), 201);
+        post(secondaryChildrenUrl, toJsonAsStringNonNull(new AssocChild(contentBId, ASSOC_TYPE_CM_CONTAINS)), 201);
+
+        Map<String, String> params = new HashMap<>();
+        params.put("include", "aspectNames,properties,isLink,isLocked");
+
+        Map<String, String> listParams = new HashMap<>(params);
+        listParams.put("include", params.get("include") + ",association");
+
+        HttpResponse response = getAll(getNodeChildrenUrl(folder0Id), getPaging(0, 100), listParams, 200);
+        List<Node> nodes = RestApiUtil.parseRestApiEntries(response.getJsonResponse(), Node.class);
+        assertEquals(5, nodes.size());
+
+        Set<String> secondaryIds = new HashSet<>(Arrays.asList(contentAId, contentBId));
+        Set<String> listedIds = new HashSet<>();
+        for (Node listed : nodes)
+        {
+            listedIds.add(listed.getId());
+            assertEquals(listed.getId(), ! secondaryIds.contains(listed.getId()), listed.getAssociation().getIsPrimary());
+
+            response = getSingle(NodesEntityResource.class, listed.getId(), params, 200);
+            Node single = RestApiUtil.parseRestApiEntry(response.getJsonResponse(), Node.class);
+            single.expected(listed);
+        }
+        assertEquals(new HashSet<>(Arrays.asList(folderAId, folderBId, content0Id, contentAId, contentBId)), listedIds);
+
+        // the secondary children keep their own (primary) parents
+        assertEquals(folderAId, getListedNode(nodes, contentAId).getParentId());
+        assertEquals(folderBId, getListedNode(nodes, contentBId).getParentId());
+
+        // some cleanup
+        deleteNode(folder0Id, true, 204);
+    }
+
+    /**
+     * Tests the relativePath of listed children whose primary parents are different sub-folders, when listing
+     * via relativePath and filtering via where clause.
+     * <p>GET:</p>
+     * {@literal <host>:<port>/alfresco/api/<networkId>/public/alfresco/versions/1/nodes/<parentId>/children?relativePath=...&where=(isPrimary=false)&include=path}
+     */
+    @Test
+    public void testListChildrenRelativePathAcrossSubFolders() throws Exception
+    {
+        setRequestContext(user1);
+
+        // folder0 - with folderA and folderB as primary children, contentA and contentB as secondary children
+        String folder0 = "folder" + RUNID + "_0";
+        String folderA = "folder" + RUNID + "_A";
+        String folderB = "folder" + RUNID + "_B";
+        String folder0Id = createFolder(Nodes.PATH_MY, folder0).getId();
+        String folderAId = createFolder(folder0Id, folderA).getId();
+        String folderBId = createFolder(folder0Id, folderB).getId();
+        String contentAId = createTextFile(folderAId, "content" + RUNID + "_A", "The quick brown fox jumps over the lazy dog A.").getId();
+        String contentBId = createTextFile(folderBId, "content" + RUNID + "_B", "The quick brown fox jumps over the lazy dog B.").getId();
+
+        String secondaryChildrenUrl = URL_NODES + "/" + folder0Id + "/secondary-children";
+        post(secondaryChildrenUrl, toJsonAsStringNonNull(new AssocChild(contentAId, ASSOC_TYPE_CM_CONTAINS)), 201);
+        post(secondaryChildrenUrl, toJsonAsStringNonNull(new AssocChild(contentBId, ASSOC_TYPE_CM_CONTAINS)), 201);
+
+        // the path of "My Files", to derive the relative paths from the single GETs
+        Map<String, String> params = Collections.singletonMap("include", "path");
+        HttpResponse response = getSingle(NodesEntityResource.class, Nodes.PATH_MY, params, 200);
+        Node myNode = RestApiUtil.parseRestApiEntry(response.getJsonResponse(), Node.class);
+        String myPath = myNode.getPath().getName() + "/" + myNode.getName();
+
+        // list the secondary children of folder0 via relativePath (from "My Files")
+        Paging paging = getPaging(0, 100);
+        params = new HashMap<>();
+        params.put(Nodes.PARAM_RELATIVE_PATH, folder0);
+        params.put("where", "(" + Nodes.PARAM_ISPRIMARY + "=false)");
+        params.put("include", "path");
+        response = getAll(getNodeChildrenUrl(Nodes.PATH_MY), paging, params, 200);
+        List<Node> nodes = RestApiUtil.parseRestApiEntries(response.getJsonResponse(), Node.class);
+        assertEquals(2, nodes.size());
+
+        assertEquals("/" + folder0 + "/" + folderA, getListedNode(nodes, contentAId).getPath().getRelativePath());
+        assertEquals("/" + folder0 + "/" + folderB, getListedNode(nodes, contentBId).getPath().getRelativePath());
+        for (Node listed : nodes)
+        {
+            response = getSingle(NodesEntityResource.class, listed.getId(), Collections.singletonMap("include", "path"), 200);
+            Node single = RestApiUtil.parseRestApiEntry(response.getJsonResponse(), Node.class);
+            assertEquals(single.getPath().getName().substring(myPath.length()), listed.getPath().getRelativePath());
+        }
+
+        // list all the children of folder0 via relativePath (from "My Files")
+        params.remove("where");
+        response = getAll(getNodeChildrenUrl(Nodes.PATH_MY), paging, params, 200);
+        nodes = RestApiUtil.parseRestApiEntries(response.getJsonResponse(), Node.class);
+        assertEquals(4, nodes.size());
+
+        assertEquals("/" + folder0, getListedNode(nodes, folderAId).getPath().getRelativePath());
+        assertEquals("/" + folder0, getListedNode(nodes, folderBId).getPath().getRelativePath());
+        assertEquals("/" + folder0 + "/" + folderA, getListedNode(nodes, contentAId).getPath().getRelativePath());
+        assertEquals("/" + folder0 + "/" + folderB, getListedNode(nodes, contentBId).getPath().getRelativePath());
+
+        // some cleanup
+        deleteNode(folder0Id, true, 204);
+    }
+
+    /**
+     * Tests that the path of listed children whose primary parents are different sub-folders is the same
+     * as the single GET, also after one of those sub-folders is renamed.
+     * <p>GET:</p>
+     * {@literal <host>:<port>/alfresco/api/<networkId>/public/alfresco/versions/1/nodes/<parentId>/children?include=path}
+     */
+    @Test
+    public void testListChildrenPathAcrossSubFolders() throws Exception
+    {
+        setRequestContext(user1);
+
+        // folder0 - with content0, folderA and folderB as primary children, contentA, contentB and contentA1 as secondary children
+        String folder0Id = createFolder(Nodes.PATH_MY, "folder" + RUNID + "_0").getId();
+        String folderAId = createFolder(folder0Id, "folder" + RUNID + "_A").getId();
+        String folderBId = createFolder(folder0Id, "folder" + RUNID + "_B").getId();
+        String folderA1Id = createFolder(folderAId, "folder" + RUNID + "_A1").getId();
+        String content0Id = createTextFile(folder0Id, "content" + RUNID + "_0", "The quick brown fox jumps over the lazy dog 0.").getId();
+        String contentAId = createTextFile(folderAId, "content" + RUNID + "_A", "The quick brown fox jumps over the lazy dog A.").getId();
+        String contentBId = createTextFile(folderBId, "content" + RUNID + "_B", "The quick brown fox jumps over the lazy dog B.").getId();
+        String contentA1Id = createTextFile(folderA1Id, "content" + RUNID + "_A1", "The quick brown fox jumps over the lazy dog A1.").getId();
+
+        String secondaryChildrenUrl = URL_NODES + "/" + folder0Id + "/secondary-children";
+        post(secondaryChildrenUrl, toJsonAsStringNonNull(new AssocChild(contentAId, ASSOC_TYPE_CM_CONTAINS)), 201);
+        post(secondaryChildrenUrl, toJsonAsStringNonNull(new AssocChild(contentBId, ASSOC_TYPE_CM_CONTAINS)), 201);
+        post(secondaryChildrenUrl, toJsonAsStringNonNull(new AssocChild(contentA1Id, ASSOC_TYPE_CM_CONTAINS)), 201);
+
+        List<Node> nodes = assertListedPaths(folder0Id, 6);
+        String folderAName = getListedNode(nodes, folderAId).getName();
+        assertTrue(getListedNode(nodes, contentA1Id).getPath().getName().endsWith("/" + folderAName + "/folder" + RUNID + "_A1"));
+        assertEquals(getListedNode(nodes, content0Id).getPath().getName(), getListedNode(nodes, folderBId).getPath().getName());
+
+        // rename folderA - the paths below it change
+        Node nUpdate = new Node();
+        nUpdate.setName("folder" + RUNID + "_A_renamed");
+        put(URL_NODES, folderAId, toJsonAsStringNonNull(nUpdate), null, 200);
+
+        nodes = assertListedPaths(folder0Id, 6);
+        assertTrue(getListedNode(nodes, contentAId).getPath().getName().endsWith("/folder" + RUNID + "_A_renamed"));
+        assertTrue(getListedNode(nodes, contentA1Id).getPath().getName().endsWith("/folder" + RUNID + "_A_renamed/folder" + RUNID + "_A1"));
+
+        // some cleanup
+        deleteNode(folder0Id, true, 204);
+    }
+
+    private List<Node> assertListedPaths(String folderId, int expectedCount) throws Exception
+    {
+        Map<String, String> params = Collections.singletonMap("include", "path");
+        HttpResponse response = getAll(getNodeChildrenUrl(folderId), getPaging(0, 100), params, 200);
+        List<Node> nodes = RestApiUtil.parseRestApiEntries(response.getJsonResponse(), Node.class);
+        assertEquals(expectedCount, nodes.size());
+        for (Node listed : nodes)
+        {
+            response = getSingle(NodesEntityResource.class, listed.getId(), params, 200);
+            Node single = RestApiUtil.parseRestApiEntry(response.getJsonResponse(), Node.class);
+
+            assertNotNull(listed.getPath());
+            assertEquals(listed.getId(), single.getPath().getElements().size(), listed.getPath().getElements().size());
+            single.getPath().expected(listed.getPath());
+        }
+        return nodes;
+    }
+
     /**
      * Tests get node with path information.
      * <p>GET:</p>
@@ -2144,6 +2387,357 @@ public class NodeApiTest extends AbstractSingleNetworkSiteTest
         post(getNodeChildrenUrl(myNodeId), RestApiUtil.toJsonAsStringNonNull(n), 400);
     }
 
+    /**
+     * Tests bulk creation of children, with an error per node.
+     *
+     * <p>POST:</p>
+     * {@literal <host>:<port>/alfresco/api/-default-/public/alfresco/versions/1/nodes/<nodeId>/create-children}
+     */
+    @Test
+    public void testCreateChildrenInBulk() throws Exception
+    {
+        setRequestContext(user1);
+
+        String folderId = createFolder(Nodes.PATH_MY, "bulk" + RUNID).getId();
+        createFolder(folderId, "existing");
+
+        List<Map<String, Object>> nodes = new ArrayList<>();
+        for (int i = 0; i < 120; i++)
+        {
+            nodes.add(bulkNode("f" + i, TYPE_CM_FOLDER));
+        }
+        nodes.add(bulkNode("doc", TYPE_CM_CONTENT));
+        nodes.add(bulkNode("existing", TYPE_CM_FOLDER)); // already exists => 409 (when created)
+        nodes.add(bulkNode("F0", TYPE_CM_FOLDER)); // duplicate in the list => 409 (when validated)
+        nodes.add(bulkNode("unknownType", "cm:unknownType")); // => 400
+        nodes.add(bulkNode("", TYPE_CM_FOLDER)); // => 400
+
+        Map<String, Object> body = new HashMap<>();
+        body.put("nodes", nodes);
+        HttpResponse response = post(getNodeOperationUrl(folderId, "create-children"), toJsonAsStringNonNull(body), null, 200);
+        List<Map> results = RestApiUtil.parseRestApiEntries(response.getJsonResponse(), Map.class);
+
+        assertEquals(nodes.size(), results.size());
+        for (int i = 0; i < 121; i++)
+        {
+            Map<?, ?> result = results.get(i);
+            assertEquals(i, result.get("index"));
+            assertEquals(201, result.get("statusCode"));
+            assertEquals(nodes.get(i).get("name"), ((Map<?, ?>) result.get("node")).get("name"));
+            assertEquals(folderId, ((Map<?, ?>) result.get("node")).get("parentId"));
+        }
+        assertEquals(409, results.get(121).get("statusCode"));
+        assertNotNull(results.get(121).get("error"));
+        assertNull(results.get(121).get("node"));
+        assertEquals(409, results.get(122).get("statusCode"));
+        assertEquals(400, results.get(123).get("statusCode"));
+        assertEquals(400, results.get(124).get("statusCode"));
+
+        Paging paging = getPaging(0, 1000);
+        response = getAll(getNodeChildrenUrl(folderId), paging, 200);
+        assertEquals(122, RestApiUtil.parseRestApiEntries(response.getJsonResponse(), Node.class).size());
+
+        // -ve tests
+        post(getNodeOperationUrl(folderId, "create-children"), toJsonAsStringNonNull(new HashMap<>()), null, 400);
+        post(getNodeOperationUrl("fakeId", "create-children"), toJsonAsStringNonNull(body), null, 404);
+
+        deleteNode(folderId, true, 204);
+    }
+
+    private Map<String, Object> bulkNode(String name, String nodeType)
+    {
+        Map<String, Object> node = new HashMap<>();
+        node.put("name", name);
+        node.put("nodeType", nodeType);
+        return node;
+    }
+
+    /**
+     * Tests bulk node jobs: moves, copies and deletes nodes asynchronously, with an error per node that failed.
+     *
+     * <p>POST:</p>
+     * {@literal <host>:<port>/alfresco/api/-default-/public/alfresco/versions/1/bulk-node-jobs}
+     *
+     * <p>GET:</p>
+     * {@literal <host>:<port>/alfresco/api/-default-/public/alfresco/versions/1/bulk-node-jobs/<jobId>}
+     */
+    @Test
+    public void testBulkNodeJobs() throws Exception
+    {
+        setRequestContext(user1);
+
+        String sourceId = createFolder(Nodes.PATH_MY, "bulkSource" + RUNID).getId();
+        String targetId = createFolder(Nodes.PATH_MY, "bulkTarget" + RUNID).getId();
+        List<String> nodeIds = new ArrayList<>();
+        for (int i = 0; i < 60; i++)
+        {
+            nodeIds.add(createFolder(sourceId, "f" + i).getId());
+        }
+
+        // move half of them, plus an unknown node => 404
+        List<String> toMove = new ArrayList<>(nodeIds.subList(0, 30));
+        toMove.add("fakeId");
+        Map<String, Object> job = runBulkNodeJob("move", toMove, targetId);
+        assertEquals(31, job.get("totalItems"));
+        assertEquals(31, job.get("processedItems"));
+        assertEquals(30, job.get("succeededItems"));
+        assertEquals(1, job.get("failedItems"));
+        List<?> errors = (List<?>) job.get("errors");
+        assertEquals(1, errors.size());
+        assertEquals("fakeId", ((Map<?, ?>) errors.get(0)).get("nodeId"));
+        assertEquals(404, ((Map<?, ?>) errors.get(0)).get("statusCode"));
+
+        Paging paging = getPaging(0, 100);
+        HttpResponse response = getAll(getNodeChildrenUrl(targetId), paging, 200);
+        assertEquals(30, RestApiUtil.parseRestApiEntries(response.getJsonResponse(), Node.class).size());
+
+        // copy the other half
+        job = runBulkNodeJob("copy", nodeIds.subList(30, 60), targetId);
+        assertEquals(30, job.get("succeededItems"));
+        assertEquals(0, job.get("failedItems"));
+        response = getAll(getNodeChildrenUrl(targetId), paging, 200);
+        assertEquals(60, RestApiUtil.parseRestApiEntries(response.getJsonResponse(), Node.class).size());
+
+        // and delete them
+        job = runBulkNodeJob("delete", nodeIds.subList(30, 60), null);
+        assertEquals(30, job.get("succeededItems"));
+        response = getAll(getNodeChildrenUrl(sourceId), paging, 200);
+        assertEquals(0, RestApiUtil.parseRestApiEntries(response.getJsonResponse(), Node.class).size());
+
+        // -ve tests
+        String jobId = (String) job.get("id");
+        setRequestContext(user2);
+        getSingle(URL_BULK_NODE_JOBS, jobId, 404);
+        setRequestContext(user1);
+        getSingle(URL_BULK_NODE_JOBS, "fakeId", 404);
+
+        Map<String, Object> body = new HashMap<>();
+        body.put("action", "rename");
+        body.put("nodeIds", nodeIds);
+        post(URL_BULK_NODE_JOBS, toJsonAsStringNonNull(body), 400);
+        body.put("action", "move");
+        post(URL_BULK_NODE_JOBS, toJsonAsStringNonNull(body), 400); // no target
+        body.put("targetParentId", "fakeId");
+        post(URL_BULK_NODE_JOBS, toJsonAsStringNonNull(body), 404);
+        body.put("nodeIds", Collections.emptyList());
+        post(URL_BULK_NODE_JOBS, toJsonAsStringNonNull(body), 400);
+
+        deleteNode(sourceId, true, 204);
+        deleteNode(targetId, true, 204);
+    }
+
+    /**
+     * Tests upload with the request read as it arrives (ie. the file written straight into the content store).
+     *
+     * <p>POST:</p>
+     * {@literal <host>:<port>/alfresco/api/-default-/public/alfresco/versions/1/nodes/<nodeId>/children}
+     */
+    @Test
+    public void testUploadStreamed() throws Exception
+    {
+        setRequestContext(user1);
+
+        String folderId = createFolder(Nodes.PATH_MY, "streamed" + RUNID).getId();
+        String fileName = "example-1.txt";
+        File file = getResourceFile(fileName);
+        String expectedDigest = Base64.getEncoder().encodeToString(MessageDigest.getInstance("SHA-256").digest(Files.readAllBytes(file.toPath())));
+
+        ResourceWebScriptPost postWebScript = applicationContext.getBean("webscript.org.alfresco.api.ResourceWebScript.post", ResourceWebScriptPost.class);
+        postWebScript.setStreamMultiPart(true);
+        try
+        {
+            Map<String, String> props = new HashMap<>(1);
+            props.put("cm:title", "test title");
+            MultiPartRequest reqBody = MultiPartBuilder.create()
+                        .setFileData(new FileData(fileName, file))
+                        .setProperties(props)
+                        .build();
+
+            HttpResponse response = post(getNodeChildrenUrl(folderId), reqBody.getBody(), null, reqBody.getContentType(), 201);
+            Document document = RestApiUtil.parseRestApiEntry(response.getJsonResponse(), Document.class);
+            assertEquals(fileName, document.getName());
+            assertEquals(MimetypeMap.MIMETYPE_TEXT_PLAIN, document.getContent().getMimeType());
+            assertEquals("ISO-8859-1", document.getContent().getEncoding());
+            assertEquals(file.length(), document.getContent().getSizeInBytes().longValue());
+            assertEquals("test title", document.getProperties().get("cm:title"));
+            assertEquals("SHA-256=" + expectedDigest, response.getHeaders().get("Digest"));
+
+            response = getSingle(NodesEntityResource.class, document.getId() + "/content", null, 200);
+            assertArrayEquals(Files.readAllBytes(file.toPath()), response.getResponseAsBytes());
+
+            // name clash => 409, unless autoRename
+            post(getNodeChildrenUrl(folderId), reqBody.getBody(), null, reqBody.getContentType(), 409);
+
+            // autoRename after the file
+            reqBody = MultiPartBuilder.create()
+                        .setFileData(new FileData(fileName, file))
+                        .setAutoRename(true)
+                        .build();
+            response = post(getNodeChildrenUrl(folderId), reqBody.getBody(), null, reqBody.getContentType(), 201);
+            assertEquals("example-1-1.txt", RestApiUtil.parseRestApiEntry(response.getJsonResponse(), Document.class).getName());
+
+            // autoRename before the file
+            reqBody = MultiPartBuilder.create()
+                        .setFileData(new FileData(fileName, file))
+                        .setAutoRename(true)
+                        .setFileDataLast(true)
+                        .build();
+            response = post(getNodeChildrenUrl(folderId), reqBody.getBody(), null, reqBody.getContentType(), 201);
+            assertEquals("example-1-2.txt", RestApiUtil.parseRestApiEntry(response.getJsonResponse(), Document.class).getName());
+
+            // name clash with the flags before the file => 409 (before the file is read)
+            reqBody = MultiPartBuilder.create()
+                        .setFileData(new FileData(fileName, file))
+                        .setAutoRename(false)
+                        .setOverwrite(false)
+                        .setFileDataLast(true)
+                        .build();
+            post(getNodeChildrenUrl(folderId), reqBody.getBody(), null, reqBody.getContentType(), 409);
+
+            // name clash with the flags after the file => 409 (once the file has been read)
+            reqBody = MultiPartBuilder.create()
+                        .setFileData(new FileData(fileName, file))
+                        .setAutoRename(false)
+                        .setOverwrite(false)
+                        .build();
+            post(getNodeChildrenUrl(folderId), reqBody.getBody(), null, reqBody.getContentType(), 409);
+        }
+        finally
+        {
+            postWebScript.setStreamMultiPart(false);
+        }
+
+        deleteNode(folderId, true, 204);
+    }
+
+    /**
+     * Tests upload of the content of a file in chunks, sent out of order, then committed.
+     *
+     * <p>POST:</p>
+     * {@literal <host>:<port>/alfresco/api/-default-/public/alfresco/versions/1/upload-sessions}
+     *
+     * <p>PUT:</p>
+     * {@literal <host>:<port>/alfresco/api/-default-/public/alfresco/versions/1/upload-sessions/<sessionId>/content?offset=<offset>}
+     *
+     * <p>POST:</p>
+     * {@literal <host>:<port>/alfresco/api/-default-/public/alfresco/versions/1/upload-sessions/<sessionId>/commit}
+     */
+    @Test
+    public void testUploadSessions() throws Exception
+    {
+        setRequestContext(user1);
+
+        String folderId = createFolder(Nodes.PATH_MY, "sessions" + RUNID).getId();
+        String docId = createTextFile(folderId, "chunked.txt", "old content").getId();
+
+        byte[] content = new byte[3000];
+        for (int i = 0; i < content.length; i++)
+        {
+            content[i] = (byte) ('a' + (i % 26));
+        }
+
+        Map<String, Object> body = new HashMap<>();
+        body.put("nodeId", docId);
+        body.put("size", content.length);
+        body.put("mimeType", MimetypeMap.MIMETYPE_TEXT_PLAIN);
+        HttpResponse response = post(URL_UPLOAD_SESSIONS, toJsonAsStringNonNull(body), 201);
+        String sessionId = (String) RestApiUtil.parseRestApiEntry(response.getJsonResponse(), Map.class).get("id");
+        String chunkUrl = URL_UPLOAD_SESSIONS + "/" + sessionId + "/content";
+        String commitUrl = URL_UPLOAD_SESSIONS + "/" + sessionId + "/commit";
+
+        // last chunk first
+        putChunk(chunkUrl, content, 2000, 1000, 200);
+        putChunk(chunkUrl, content, 0, 1000, 200);
+
+        response = getSingle(URL_UPLOAD_SESSIONS, sessionId, 200);
+        Map<?, ?> session = RestApiUtil.parseRestApiEntry(response.getJsonResponse(), Map.class);
+        assertEquals(2000, session.get("receivedBytes"));
+        assertEquals(Arrays.asList("0-999", "2000-2999"), session.get("receivedRanges"));
+
+        // incomplete => 409, overlap => 409
+        post(commitUrl, null, null, 409);
+        putChunk(chunkUrl, content, 500, 1000, 409);
+
+        putChunk(chunkUrl, content, 1000, 1000, 200);
+        response = getSingle(URL_UPLOAD_SESSIONS, sessionId, 200);
+        session = RestApiUtil.parseRestApiEntry(response.getJsonResponse(), Map.class);
+        assertEquals(Collections.singletonList("0-2999"), session.get("receivedRanges"));
+
+        // other user => 404
+        setRequestContext(user2);
+        getSingle(URL_UPLOAD_SESSIONS, sessionId, 404);
+        setRequestContext(user1);
+
+        response = post(commitUrl, null, "?name=chunked-renamed.txt", 200);
+        Document document = RestApiUtil.parseRestApiEntry(response.getJsonResponse(), Document.class);
+        assertEquals("chunked-renamed.txt", document.getName());
+        assertEquals(content.length, document.getContent().getSizeInBytes().longValue());
+
+        response = getSingle(NodesEntityResource.class, docId + "/content", null, 200);
+        assertArrayEquals(content, response.getResponseAsBytes());
+
+        // the session is gone once committed
+        getSingle(URL_UPLOAD_SESSIONS, sessionId, 404);
+
+        // -ve tests
+        body.put("size", -1);
+        post(URL_UPLOAD_SESSIONS, toJsonAsStringNonNull(body), 400);
+        body.put("size", 10);
+        body.put("nodeId", folderId);
+        post(URL_UPLOAD_SESSIONS, toJsonAsStringNonNull(body), 400);
+        body.put("nodeId", "fakeId");
+        post(URL_UPLOAD_SESSIONS, toJsonAsStringNonNull(body), 404);
+
+        // cancel
+        body.put("nodeId", docId);
+        response = post(URL_UPLOAD_SESSIONS, toJsonAsStringNonNull(body), 201);
+        sessionId = (String) RestApiUtil.parseRestApiEntry(response.getJsonResponse(), Map.class).get("id");
+        putChunk(URL_UPLOAD_SESSIONS + "/" + sessionId + "/content", content, 5, 10, 413); // beyond the size
+        delete(URL_UPLOAD_SESSIONS, sessionId, 204);
+        getSingle(URL_UPLOAD_SESSIONS, sessionId, 404);
+
+        deleteNode(folderId, true, 204);
+    }
+
+    private void putChunk(String chunkUrl, byte[] content, int offset, int length, int expectedStatus) throws Exception
+    {
+        File chunk = File.createTempFile("chunk", ".bin");
+        try
+        {
+            Files.write(chunk.toPath(), Arrays.copyOfRange(content, offset, offset + length));
+            Map<String, String> params = Collections.singletonMap("offset", Integer.toString(offset));
+            putBinary(chunkUrl, new BinaryPayload(chunk), null, params, expectedStatus);
+        }
+        finally
+        {
+            chunk.delete();
+        }
+    }
+
+    private Map<String, Object> runBulkNodeJob(String action, List<String> nodeIds, String targetParentId) throws Exception
+    {
+        Map<String, Object> body = new HashMap<>();
+        body.put("action", action);
+        body.put("nodeIds", nodeIds);
+        body.put("targetParentId", targetParentId);
+        HttpResponse response = post(URL_BULK_NODE_JOBS, toJsonAsStringNonNull(body), 202);
+        String jobId = (String) RestApiUtil.parseRestApiEntry(response.getJsonResponse(), Map.class).get("id");
+
+        Map<String, Object> job = null;
+        for (int i = 0; i < 100; i++)
+        {
+            response = getSingle(URL_BULK_NODE_JOBS, jobId, 200);
+            job = RestApiUtil.parseRestApiEntry(response.getJsonResponse(), Map.class);
+            if ("DONE".equals(job.get("status")))
+            {
+                return job;
+            }
+            Thread.sleep(100);
+        }
+        fail("Bulk node job not done: " + job);
+        return job;
+    }
+
     /**
      * Tests creation and listing of children using assoc type other than "cm:contains".
      *
@@ -4092,6 +4686,110 @@ public class NodeApiTest extends AbstractSingleNetworkSiteTest
         deleteNode(folderId, true, 204);
     }
 
+    /**
+     * Tests that listing children with allowable operations and permissions returns, for each child,
+     * the same values as retrieving that child on its own - whether the siblings share an ACL or not.
+     * <p>GET:</p>
+     * {@literal <host>:<port>/alfresco/api/-default-/public/alfresco/versions/1/nodes/<nodeId>/children?include=allowableOperations,permissions}
+     */
+    @Test
+    public void testListChildrenAllowableOpsAndPermissions() throws Exception
+    {
+        setRequestContext(user1);
+
+        String folderId = createFolder(Nodes.PATH_MY, "folder" + RUNID + "_ops").getId();
+
+        // siblings sharing the ACL inherited from the folder
+        String d1Id = createTextFile(folderId, "content" + RUNID + "_1", "The quick brown fox jumps over the lazy dog 1.").getId();
+        String d2Id = createTextFile(folderId, "content" + RUNID + "_2", "The quick brown fox jumps over the lazy dog 2.").getId();
+        String f1Id = createFolder(folderId, "folder" + RUNID + "_1").getId();
+
+        // sibling with a locally set permission
+        String d3Id = createTextFile(folderId, "content" + RUNID + "_3", "The quick brown fox jumps over the lazy dog 3.").getId();
+        Document dUpdate = new Document();
+        NodePermissions nodePermissions = new NodePermissions();
+        List<NodePermissions.NodePermission> locallySetPermissions = new ArrayList<>();
+        locallySetPermissions.add(new NodePermissions.NodePermission(user2, PermissionService.CONSUMER, AccessStatus.ALLOWED.toString()));
+        nodePermissions.setLocallySet(locallySetPermissions);
+        dUpdate.setPermissions(nodePermissions);
+        put(URL_NODES, d3Id, toJsonAsStringNonNull(dUpdate), null, 200);
+
+        // sibling owned by another user
+        String d4Id = createTextFile(folderId, "content" + RUNID + "_4", "The quick brown fox jumps over the lazy dog 4.").getId();
+        Map<String, Object> props = new HashMap<>();
+        props.put(PROP_OWNER, user2);
+        Node nUpdate = new Node();
+        nUpdate.setProperties(props);
+        put(URL_NODES, d4Id, toJsonAsStringNonNull(nUpdate), null, 200);
+
+        // locked sibling
+        String d5Id = createTextFile(folderId, "content" + RUNID + "_5", "The quick brown fox jumps over the lazy dog 5.").getId();
+        LockInfo lockInfo = new LockInfo();
+        lockInfo.setType("FULL");
+        lockInfo.setLifetime("PERSISTENT");
+        post(getNodeOperationUrl(d5Id, "lock"), toJsonAsStringNonNull(lockInfo), null, 200);
+
+        Map<String, String> params = new HashMap<>();
+        params.put("include", "allowableOperations,permissions");
+
+        HttpResponse response = getAll(getNodeChildrenUrl(folderId), getPaging(0, 100), params, 200);
+        List<Node> nodes = RestApiUtil.parseRestApiEntries(response.getJsonResponse(), Node.class);
+        assertEquals(6, nodes.size());
+
+        Set<String> expectedIds = new HashSet<>(Arrays.asList(d1Id, d2Id, f1Id, d3Id, d4Id, d5Id));
+        Set<String> listedIds = new HashSet<>();
+        for (Node listed : nodes)
+        {
+            listedIds.add(listed.getId());
+
+            response = getSingle(NodesEntityResource.class, listed.getId(), params, 200);
+            Node single = RestApiUtil.parseRestApiEntry(response.getJsonResponse(), Node.class);
+
+            assertNotNull(listed.getAllowableOperations());
+            assertEquals(listed.getId(), new HashSet<>(single.getAllowableOperations()), new HashSet<>(listed.getAllowableOperations()));
+            assertPermissionsEquals(listed.getId(), single.getPermissions(), listed.getPermissions());
+        }
+        assertEquals(expectedIds, listedIds);
+
+        // the sibling with a local permission differs from the ones sharing the ACL
+        Node listedD3 = getListedNode(nodes, d3Id);
+        assertTrue(listedD3.getPermissions().getLocallySet().contains(
+                new NodePermissions.NodePermission(user2, PermissionService.CONSUMER, AccessStatus.ALLOWED.toString())));
+        assertNull(getListedNode(nodes, d1Id).getPermissions().getLocallySet());
+
+        // some cleanup
+        post(getNodeOperationUrl(d5Id, "unlock"), null, null, 200);
+        deleteNode(folderId, true, 204);
+    }
+
+    private Node getListedNode(List<Node> nodes, String nodeId)
+    {
+        for (Node node : nodes)
+        {
+            if (node.getId().equals(nodeId))
+            {
+                return node;
+            }
+        }
+        fail("Node not listed: " + nodeId);
+        return null;
+    }
+
+    private void assertPermissionsEquals(String nodeId, NodePermissions expected, NodePermissions actual)
+    {
+        assertNotNull(nodeId, actual);
+        assertEquals(nodeId, expected.getIsInheritanceEnabled(), actual.getIsInheritanceEnabled());
+        assertEquals(nodeId, toSet(expected.getInherited()), toSet(actual.getInherited()));
+        assertEquals(nodeId, toSet(expected.getLocallySet()), toSet(actual.getLocallySet()));
+        assertEquals(nodeId, expected.getSettable() == null ? null : new HashSet<>(expected.getSettable()),
+                actual.getSettable() == null ? null : new HashSet<>(actual.getSettable()));
+    }
+
+    private static <T> Set<T> toSet(List<T> list)
+    {
+        return list == null ? null : new HashSet<>(list);
+    }
+
     /**
      * Tests lock of a node
      * <p>POST:</p>
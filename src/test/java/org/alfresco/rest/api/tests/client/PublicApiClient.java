@@ -1677,6 +1677,7 @@ public class PublicApiClient
         private Integer totalItems;
         private boolean hasMoreItems;
         private int count;
+        private String nextCursor;
 
         public ExpectedPaging()
         {
@@ -1717,11 +1718,21 @@ public class PublicApiClient
             return count;
         }
 
+        public String getNextCursor()
+        {
+            return nextCursor;
+        }
+
         public void setCount(Integer count)
         {
             this.count = count;
         }
 
+        public void setNextCursor(String nextCursor)
+        {
+            this.nextCursor = nextCursor;
+        }
+
         public void setHasMoreItems(Boolean hasMoreItems)
         {
             this.hasMoreItems = hasMoreItems;
@@ -1818,6 +1829,8 @@ public class PublicApiClient
 
                 Long skipCount = (Long)jsonPagination.get("skipCount");
                 paging.setSkipCount(skipCount.intValue());
+
+                paging.setNextCursor((String)jsonPagination.get("nextCursor"));
             }
             return paging;
         }
@@ -64,6 +64,7 @@ public class MultiPartBuilder
     private String nodeType;
     private List<String> renditionIds = Collections.emptyList(); // initially single rendition name/id (in the future we may support multiple)
     private Map<String, String> properties = Collections.emptyMap();
+    private boolean fileDataLast; // by default the file comes first, followed by the other fields
 
     private MultiPartBuilder()
     {
@@ -83,6 +84,7 @@ public class MultiPartBuilder
         this.nodeType = that.nodeType;
         this.renditionIds = that.renditionIds;
         this.properties = new HashMap<>(that.properties);
+        this.fileDataLast = that.fileDataLast;
     }
 
     public static MultiPartBuilder create()
@@ -167,6 +169,12 @@ public class MultiPartBuilder
         return this;
     }
 
+    public MultiPartBuilder setFileDataLast(boolean fileDataLast)
+    {
+        this.fileDataLast = fileDataLast;
+        return this;
+    }
+
     private String getCommaSeparated(List<String> names)
     {
         if (! names.isEmpty())
@@ -265,13 +273,17 @@ public class MultiPartBuilder
     {
         List<Part> parts = new ArrayList<>();
 
+        FilePart fp = null;
         if (fileData != null)
         {
-            FilePart fp = new FilePart("filedata", fileData.getFileName(), fileData.getFile(), fileData.getMimetype(), null);
+            fp = new FilePart("filedata", fileData.getFileName(), fileData.getFile(), fileData.getMimetype(), null);
             // Get rid of the default values added upon FilePart instantiation
             fp.setCharSet(fileData.getEncoding());
             fp.setContentType(fileData.getMimetype());
-            parts.add(fp);
+            if (! fileDataLast)
+            {
+                parts.add(fp);
+            }
             addPartIfNotNull(parts, "name", fileData.getFileName());
         }
         addPartIfNotNull(parts, "relativepath", relativePath);
@@ -312,6 +324,11 @@ public class MultiPartBuilder
             }
         }
 
+        if ((fp != null) && fileDataLast)
+        {
+            parts.add(fp);
+        }
+
         MultipartRequestEntity req = new MultipartRequestEntity(parts.toArray(new Part[parts.size()]), new HttpMethodParams());
 
         ByteArrayOutputStream os = new ByteArrayOutputStream();
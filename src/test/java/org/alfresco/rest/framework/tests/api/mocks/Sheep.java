@@ -25,7 +25,9 @@
  */
 package org.alfresco.rest.framework.tests.api.mocks;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import org.alfresco.rest.framework.resource.EntityTag;
 import org.alfresco.rest.framework.resource.UniqueId;
 
 /**
@@ -76,4 +78,11 @@ public class Sheep implements Animal
     {
         this.age = age;
     }
+
+    @JsonIgnore
+    @EntityTag
+    public String getVersion()
+    {
+        return this.name + ":" + this.age;
+    }
 }
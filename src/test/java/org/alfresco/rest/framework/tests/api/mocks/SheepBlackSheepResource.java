@@ -27,7 +27,9 @@
 package org.alfresco.rest.framework.tests.api.mocks;
 
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.alfresco.rest.framework.WebApiDescription;
 import org.alfresco.rest.framework.WebApiParam;
@@ -46,7 +48,8 @@ import org.springframework.extensions.webscripts.Status;
 @RelationshipResource(name = "blacksheep",entityResource=SheepEntityResource.class, title = "BlackSheep")
 public class SheepBlackSheepResource implements RelationshipResourceAction.Read<Sheep>,
             RelationshipResourceAction.Update<Sheep>, RelationshipResourceAction.Delete,
-            RelationshipResourceAction.Create<Sheep>, RelationshipResourceAction.DeleteSet
+            RelationshipResourceAction.Create<Sheep>, RelationshipResourceAction.DeleteSet,
+            RelationshipResourceAction.ReadForEntities<Sheep>
 {
 
 
@@ -56,6 +59,20 @@ public class SheepBlackSheepResource implements RelationshipResourceAction.Read<
         return CollectionWithPagingInfo.asPaged(params.getPaging(),Arrays.asList(new Sheep("D1"), new Sheep("Z2"), new Sheep("4X"), new Sheep("S4")));
     }
 
+    @Override
+    public Map<String, CollectionWithPagingInfo<Sheep>> readAllForEntities(List<String> entityResourceIds, Parameters params)
+    {
+        Map<String, CollectionWithPagingInfo<Sheep>> blackSheep = new HashMap<String, CollectionWithPagingInfo<Sheep>>();
+        for (String entityResourceId : entityResourceIds)
+        {
+            if (!entityResourceId.startsWith("2"))
+            {
+                blackSheep.put(entityResourceId, CollectionWithPagingInfo.asPaged(params.getPaging(), Arrays.asList(new Sheep(entityResourceId + "B"))));
+            }
+        }
+        return blackSheep;
+    }
+
     @Override
     @WebApiDescription(title = "Deletes only black Sheep", successStatus = Status.STATUS_CONFLICT)
     public void delete(String entityResourceId, String id, Parameters parameters)
@@ -26,6 +26,7 @@
 package org.alfresco.rest.framework.tests.core;
 
 import org.alfresco.rest.framework.tools.RecognizedParamsExtractorTest;
+import org.alfresco.rest.framework.tools.RequestPhaseMetricsTest;
 import org.junit.runner.RunWith;
 import org.junit.runners.Suite;
 import org.junit.runners.Suite.SuiteClasses;
@@ -38,7 +39,8 @@ import org.junit.runners.Suite.SuiteClasses;
 @SuiteClasses({ InspectorTests.class, JsonJacksonTests.class, ParamsExtractorTests.class,
             ResourceLocatorTests.class, SerializeTests.class,
             WhereTests.class, ExecutionTests.class, WithResponseTest.class,
-            ExceptionResolverTests.class, RecognizedParamsExtractorTest.class})
+            ExceptionResolverTests.class, RecognizedParamsExtractorTest.class,
+            RequestPhaseMetricsTest.class})
 public class AllRestFrameworkTest
 {
 
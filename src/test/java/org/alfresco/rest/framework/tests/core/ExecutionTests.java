@@ -28,6 +28,7 @@ package org.alfresco.rest.framework.tests.core;
 
 import static org.junit.Assert.*;
 import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyBoolean;
 import static org.mockito.Matchers.anyInt;
 import static org.mockito.Matchers.anyString;
 import static org.mockito.Mockito.mock;
@@ -35,6 +36,7 @@ import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import org.alfresco.repo.transaction.RetryingTransactionHelper;
 import org.alfresco.rest.framework.Api;
 import org.alfresco.rest.framework.core.ResourceLocator;
 import org.alfresco.rest.framework.core.ResourceLookupDictionary;
@@ -54,12 +56,15 @@ import org.alfresco.rest.framework.tools.ApiAssistant;
 import org.alfresco.rest.framework.tools.ResponseWriter;
 import org.alfresco.rest.framework.webscripts.AbstractResourceWebScript;
 import org.alfresco.rest.framework.webscripts.ApiWebScript;
+import org.alfresco.rest.framework.webscripts.batch.BatchWebScript;
+import org.alfresco.service.transaction.TransactionService;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.invocation.InvocationOnMock;
 import org.mockito.stubbing.Answer;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.ApplicationContext;
+import org.springframework.extensions.surf.util.Content;
 import org.springframework.extensions.webscripts.Cache;
 import org.springframework.extensions.webscripts.Match;
 import org.springframework.extensions.webscripts.Status;
@@ -70,8 +75,10 @@ import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
 
 import javax.servlet.http.HttpServletResponse;
+import java.io.BufferedReader;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.StringReader;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
@@ -282,6 +289,59 @@ public class ExecutionTests extends AbstractContextTest implements ResponseWrite
 
     }
 
+    @SuppressWarnings("unchecked")
+    @Test
+    public void testInvokeBatch() throws IOException
+    {
+        BatchWebScript batch = new BatchWebScript();
+        batch.setAssistant(apiAssistant);
+        batch.setExecutors(Arrays.asList(getExecutor(), getExecutor("executorOfPost"), getExecutor("executorOfDelete")));
+        TransactionService transerv = mock(TransactionService.class);
+        RetryingTransactionHelper tHelper = mock(RetryingTransactionHelper.class);
+        when(transerv.getRetryingTransactionHelper()).thenReturn(tHelper);
+        when(tHelper.doInTransaction(any(RetryingTransactionHelper.RetryingTransactionCallback.class), anyBoolean(), anyBoolean())).thenAnswer(new Answer<Object>() {
+            @SuppressWarnings("rawtypes")
+            @Override
+            public Object answer(InvocationOnMock invocation) throws Throwable {
+                return ((RetryingTransactionHelper.RetryingTransactionCallback) invocation.getArguments()[0]).execute();
+            }
+        });
+        batch.setTransactionService(transerv);
+
+        Map<String, String> templateVars = new HashMap();
+        templateVars.put("apiScope", "private");
+        templateVars.put("apiVersion", "1");
+        templateVars.put("apiName", "alfrescomock");
+        WebScriptRequest request = mockRequest(templateVars, new HashMap<String, List<String>>(1));
+        final String json = "[{\"id\":\"1\",\"path\":\"/sheep\"},"
+                    + "{\"id\":\"2\",\"method\":\"GET\",\"path\":\"/sheep/1234?fields=id\"},"
+                    + "{\"id\":\"3\",\"method\":\"GET\",\"path\":\"/sheep/badId\"},"
+                    + "{\"id\":\"4\",\"method\":\"GET\",\"path\":\"/blah:\"},"
+                    + "{\"id\":\"5\",\"method\":\"PATCH\",\"path\":\"/sheep\"}]";
+        Content content = mock(Content.class);
+        when(content.getReader()).thenReturn(new BufferedReader(new StringReader(json)));
+        when(request.getContent()).thenReturn(content);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        WebScriptResponse response = mockResponse(out);
+        batch.execute(api, request, response);
+        verify(response, times(1)).setStatus(207);
+
+        String result = out.toString();
+        assertTrue(result.contains("\"count\":5"));
+        assertTrue(result.contains("\"id\":\"1234\""));
+        assertTrue("IntegrityException so 422", result.contains("\"status\":422"));
+        assertTrue("Can't find it so a 404", result.contains("\"status\":404"));
+        assertTrue("PATCH isn't supported so a 405", result.contains("\"status\":405"));
+        assertTrue(result.contains("\"status\":200"));
+
+        batch.setMaxRequests(2);
+        when(content.getReader()).thenReturn(new BufferedReader(new StringReader(json)));
+        response = mockResponse();
+        batch.execute(api, request, response);
+        verify(response, times(1)).setStatus(HttpServletResponse.SC_BAD_REQUEST);
+    }
+
     @Test
     public void testInvalidUrls() throws IOException
     {
@@ -43,6 +43,7 @@ import org.alfresco.rest.api.model.Comment;
 import org.alfresco.rest.api.nodes.NodeCommentsRelation;
 import org.alfresco.rest.framework.Api;
 import org.alfresco.rest.framework.core.OperationResourceMetaData;
+import org.alfresco.rest.framework.core.ResourceClassMetadata;
 import org.alfresco.rest.framework.core.ResourceInspector;
 import org.alfresco.rest.framework.core.ResourceInspectorUtil;
 import org.alfresco.rest.framework.core.ResourceMetadata;
@@ -294,6 +295,42 @@ public class InspectorTests
         assertTrue("SlimGoat has no embedded entities", embeds.isEmpty());
     }
     
+    @Test
+    public void testClassMetadataIsCached()
+    {
+        ResourceClassMetadata metadata = ResourceClassMetadata.forClass(Farmer.class);
+        assertTrue("Class metadata should be built once per class", metadata == ResourceClassMetadata.forClass(Farmer.class));
+        assertTrue(metadata.getEmbeddedResources() == ResourceInspector.findEmbeddedResources(Farmer.class));
+        assertEquals(ResourceInspector.findUniqueIdMethod(Farmer.class), metadata.getUniqueIdMethod());
+
+        Farmer farmer = new Farmer("789");
+        farmer.setSheepId("sheep1");
+        farmer.setGoatId("goat1");
+        assertEquals("789", metadata.invokeUniqueId(farmer));
+        assertEquals("sheep1", metadata.invokeEmbedded("sheep", farmer));
+        assertEquals("goat1", metadata.invokeEmbedded("goat", farmer));
+        assertNull(metadata.invokeEmbedded("notEmbedded", farmer));
+
+        try
+        {
+            ResourceClassMetadata.forClass(FarmersDaughter.class).getUniqueIdMethod();
+            fail("Should throw an IllegalArgumentException");
+        }
+        catch (IllegalArgumentException error)
+        {
+            //this is correct, and the error is reported each time
+        }
+        try
+        {
+            ResourceInspector.findUniqueId(new FarmersDaughter("21"));
+            fail("Should throw an IllegalArgumentException");
+        }
+        catch (IllegalArgumentException error)
+        {
+            //this is correct
+        }
+    }
+
     @Test
     public void testWebDeletedAnnotationOnMethods()
     {
@@ -0,0 +1,323 @@
+/*
+ * #%L
+ * Alfresco Remote API
+ * %%
+ * Copyright (C) 2005 - 2020 Alfresco Software Limited
+ * %%
+ * This file is part of the Alfresco software.
+ * If the software was purchased under a paid Alfresco license, the terms of
+ * the paid license agreement will prevail.  Otherwise, the software is
+ * provided under the following open source license terms:
+ *
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+package org.alfresco.rest.framework.tests.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.alfresco.repo.security.authentication.AuthenticationUtil;
+import org.alfresco.repo.tenant.TenantUtil;
+import org.alfresco.repo.transaction.RetryingTransactionHelper;
+import org.alfresco.repo.transaction.RetryingTransactionHelper.RetryingTransactionCallback;
+import org.alfresco.rest.framework.Api;
+import org.alfresco.rest.framework.core.ResourceLocator;
+import org.alfresco.rest.framework.core.ResourceWithMetadata;
+import org.alfresco.rest.framework.jacksonextensions.BeanPropertiesFilter;
+import org.alfresco.rest.framework.jacksonextensions.ExecutionResult;
+import org.alfresco.rest.framework.resource.actions.ActionExecutor;
+import org.alfresco.rest.framework.resource.parameters.CollectionWithPagingInfo;
+import org.alfresco.rest.framework.resource.parameters.Params;
+import org.alfresco.rest.framework.tests.api.mocks.Farmer;
+import org.alfresco.rest.framework.webscripts.ResourceWebScriptHelper;
+import org.alfresco.rest.framework.webscripts.WithResponse;
+import org.alfresco.service.transaction.TransactionService;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.extensions.webscripts.WebScriptResponse;
+import org.springframework.http.HttpMethod;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Tests the concurrent execution of the embedded and related resources of a response by the {@link ResourceWebScriptHelper}
+ */
+public class ParallelResourcesTest
+{
+    private static final Api API = Api.valueOf("alfrescomock", "private", "1");
+    private static final String FARMERS = "farmers";
+
+    private ResourceWebScriptHelper helper;
+    private ResourceLocator locator;
+    private ActionExecutor actionExecutor;
+    private RetryingTransactionHelper txnHelper;
+    private ExecutorService pool;
+
+    /** What each resource (by name) returns when it is executed */
+    private final Map<String, Callable<Object>> resources = new ConcurrentHashMap<>();
+
+    @Before
+    public void setUp() throws Throwable
+    {
+        locator = mock(ResourceLocator.class);
+        actionExecutor = mock(ActionExecutor.class);
+        when(actionExecutor.executeAction(any(ResourceWithMetadata.class), any(Params.class), any(WithResponse.class))).thenAnswer(invocation -> {
+            String name = (String) ((ResourceWithMetadata) invocation.getArguments()[0]).getResource();
+            return resources.get(name).call();
+        });
+
+        txnHelper = mock(RetryingTransactionHelper.class);
+        when(txnHelper.doInTransaction(any(RetryingTransactionCallback.class), anyBoolean(), anyBoolean())).thenAnswer(invocation -> {
+            assertEquals("Each resource is read in its own read-only transaction", Boolean.TRUE, invocation.getArguments()[1]);
+            return ((RetryingTransactionCallback<?>) invocation.getArguments()[0]).execute();
+        });
+        TransactionService transactionService = mock(TransactionService.class);
+        when(transactionService.getRetryingTransactionHelper()).thenReturn(txnHelper);
+
+        pool = Executors.newFixedThreadPool(4);
+        helper = new ResourceWebScriptHelper();
+        helper.setLocator(locator);
+        helper.setExecutor(actionExecutor);
+        helper.setTransactionService(transactionService);
+        helper.setParallelResources(true);
+        helper.setParallelResourcesExecutor(pool);
+        helper.setParallelResourcesPerRequest(4);
+        helper.setParallelResourcesTimeout(30000L);
+
+        //resources are only executed concurrently for read-only requests
+        TransactionSynchronizationManager.initSynchronization();
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        AuthenticationUtil.setRunAsUserSystem();
+    }
+
+    @After
+    public void tearDown()
+    {
+        pool.shutdownNow();
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+        TransactionSynchronizationManager.clearSynchronization();
+        AuthenticationUtil.clearCurrentSecurityContext();
+    }
+
+    @Test
+    public void testUserAndTenantPropagated()
+    {
+        final Map<String, String> seen = new ConcurrentHashMap<>();
+        for (String name : Arrays.asList("a", "b"))
+        {
+            resources.put(name, () -> {
+                seen.put(name + ".user", AuthenticationUtil.getRunAsUser());
+                seen.put(name + ".tenant", TenantUtil.getCurrentDomain());
+                seen.put(name + ".thread", Thread.currentThread().getName());
+                return name;
+            });
+        }
+        relations("a", "b");
+
+        final Map<String, String> requestThread = new HashMap<>();
+        ExecutionResult result = TenantUtil.runAsUserTenant(() -> {
+            requestThread.put("user", AuthenticationUtil.getRunAsUser());
+            requestThread.put("tenant", TenantUtil.getCurrentDomain());
+            return (ExecutionResult) process(new Farmer("1"), "a", "b");
+        }, "bob", "acme.com");
+
+        assertEquals("a", result.getRelated().get("a"));
+        assertEquals("b", result.getRelated().get("b"));
+        for (String name : Arrays.asList("a", "b"))
+        {
+            assertNotEquals("Must be executed by the pool", Thread.currentThread().getName(), seen.get(name + ".thread"));
+            assertEquals(requestThread.get("user"), seen.get(name + ".user"));
+            assertEquals(requestThread.get("tenant"), seen.get(name + ".tenant"));
+        }
+    }
+
+    @Test
+    public void testTimeoutLeavesResultOut() throws Exception
+    {
+        helper.setParallelResourcesTimeout(300L);
+        final CountDownLatch release = new CountDownLatch(1);
+        resources.put("fast", () -> "fast");
+        resources.put("slow", () -> {
+            release.await(30, TimeUnit.SECONDS);
+            return "slow";
+        });
+        relations("fast", "slow");
+
+        try
+        {
+            long start = System.currentTimeMillis();
+            Object result = process(CollectionWithPagingInfo.asPaged(null, Arrays.asList(new Farmer("1"), new Farmer("2"), new Farmer("3"))),
+                                    "fast", "slow");
+            long elapsed = System.currentTimeMillis() - start;
+
+            List<ExecutionResult> farmers = new ArrayList<>();
+            for (Object farmer : ((CollectionWithPagingInfo<?>) result).getCollection())
+            {
+                farmers.add((ExecutionResult) farmer);
+            }
+            assertEquals(3, farmers.size());
+            assertEquals("fast", farmers.get(0).getRelated().get("fast"));
+            assertFalse("A resource that times out is left out", farmers.get(0).getRelated().containsKey("slow"));
+            assertTrue("The timeout applies to the whole response, not to each entity (" + elapsed + "ms)", elapsed < 900);
+            assertTrue("Once the response has timed out the resources are left out", farmers.get(2).getRelated().isEmpty());
+        }
+        finally
+        {
+            release.countDown();
+        }
+    }
+
+    @Test
+    public void testInFlightCappedPerResponse()
+    {
+        helper.setParallelResourcesPerRequest(2);
+        final AtomicInteger running = new AtomicInteger();
+        final AtomicInteger maxRunning = new AtomicInteger();
+        String[] names = {"a", "b", "c", "d"};
+        for (String name : names)
+        {
+            resources.put(name, () -> {
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                Thread.sleep(50);
+                running.decrementAndGet();
+                return name;
+            });
+        }
+        relations(names);
+
+        Object result = process(CollectionWithPagingInfo.asPaged(null, Arrays.asList(new Farmer("1"), new Farmer("2"))), names);
+        for (Object farmer : ((CollectionWithPagingInfo<?>) result).getCollection())
+        {
+            assertEquals(4, ((ExecutionResult) farmer).getRelated().size());
+        }
+        assertTrue("At most 2 resources are executed at the same time, not " + maxRunning.get(), maxRunning.get() <= 2);
+    }
+
+    @Test
+    public void testRejectedExecutesOnRequestThread() throws Throwable
+    {
+        ExecutorService full = mock(ExecutorService.class);
+        doThrow(new RejectedExecutionException("full")).when(full).execute(any(Runnable.class));
+        helper.setParallelResourcesExecutor(full);
+
+        final Map<String, String> threads = new ConcurrentHashMap<>();
+        for (String name : Arrays.asList("a", "b", "c"))
+        {
+            resources.put(name, () -> {
+                threads.put(name, Thread.currentThread().getName());
+                return name;
+            });
+        }
+        relations("a", "b", "c");
+
+        ExecutionResult result = (ExecutionResult) process(new Farmer("1"), "a", "b", "c");
+        assertEquals(3, result.getRelated().size());
+        for (String thread : threads.values())
+        {
+            assertEquals(Thread.currentThread().getName(), thread);
+        }
+        verify(txnHelper, never()).doInTransaction(any(RetryingTransactionCallback.class), anyBoolean(), anyBoolean());
+    }
+
+    @Test
+    public void testNoFanOutFromParallelTask() throws Throwable
+    {
+        //the related farmers have an embedded sheep and goat, they are executed by the thread executing the relation
+        final Collection<String> relationThreads = ConcurrentHashMap.newKeySet();
+        final Collection<String> embeddedThreads = ConcurrentHashMap.newKeySet();
+        when(locator.locateEntityResource(eq(API), anyString(), eq(HttpMethod.GET))).thenAnswer(invocation -> {
+            String name = (String) invocation.getArguments()[1];
+            resources.put(name, () -> {
+                embeddedThreads.add(Thread.currentThread().getName());
+                return name;
+            });
+            return new ResourceWithMetadata(name, null);
+        });
+        for (String name : Arrays.asList("neighbour", "landlord"))
+        {
+            resources.put(name, () -> {
+                relationThreads.add(Thread.currentThread().getName());
+                Farmer farmer = new Farmer(name);
+                farmer.setSheepId(name + "-sheep");
+                farmer.setGoatId(name + "-goat");
+                return farmer;
+            });
+        }
+        relations("neighbour", "landlord");
+
+        ExecutionResult result = (ExecutionResult) process(new Farmer("1"), "neighbour", "landlord");
+        for (String name : Arrays.asList("neighbour", "landlord"))
+        {
+            ExecutionResult related = (ExecutionResult) result.getRelated().get(name);
+            assertNotNull(related);
+            assertEquals(2, related.getEmbedded().size());
+        }
+        assertFalse(relationThreads.contains(Thread.currentThread().getName()));
+        assertTrue("Embedded resources of a related resource must not be handed to other threads " + embeddedThreads + " " + relationThreads,
+                   relationThreads.containsAll(embeddedThreads));
+        //only the two relations are executed in their own transaction
+        verify(txnHelper, times(2)).doInTransaction(any(RetryingTransactionCallback.class), anyBoolean(), anyBoolean());
+    }
+
+    private void relations(String... names)
+    {
+        Map<String, ResourceWithMetadata> located = new LinkedHashMap<>();
+        for (String name : names)
+        {
+            located.put(name, new ResourceWithMetadata(name, null));
+        }
+        when(locator.locateRelationResource(eq(API), eq(FARMERS), anyCollection(), eq(HttpMethod.GET))).thenReturn(located);
+    }
+
+    private Object process(Object entity, String... relations)
+    {
+        Map<String, BeanPropertiesFilter> rFilter = new HashMap<>();
+        for (String relation : relations)
+        {
+            rFilter.put(relation, BeanPropertiesFilter.ALLOW_ALL);
+        }
+        return helper.processAdditionsToTheResponse(mock(WebScriptResponse.class), API, FARMERS, ParamsExtender.valueOf(rFilter, "1"), entity);
+    }
+}
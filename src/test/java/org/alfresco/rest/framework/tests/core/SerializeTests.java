@@ -28,6 +28,7 @@ package org.alfresco.rest.framework.tests.core;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import static org.mockito.Mockito.mock;
@@ -43,6 +44,7 @@ import org.alfresco.rest.api.tests.util.MultiPartBuilder.FileData;
 import org.alfresco.rest.api.tests.util.MultiPartBuilder.MultiPartRequest;
 import org.alfresco.rest.framework.Api;
 import org.alfresco.rest.framework.core.ResourceWithMetadata;
+import org.alfresco.rest.framework.core.exceptions.InvalidArgumentException;
 import org.alfresco.rest.framework.core.exceptions.UnsupportedResourceOperationException;
 import org.alfresco.rest.framework.jacksonextensions.BeanPropertiesFilter;
 import org.alfresco.rest.framework.jacksonextensions.ExecutionResult;
@@ -55,6 +57,7 @@ import org.alfresco.rest.framework.resource.actions.interfaces.RelationshipResou
 import org.alfresco.rest.framework.resource.content.BinaryProperty;
 import org.alfresco.rest.framework.resource.parameters.CollectionWithPagingInfo;
 import org.alfresco.rest.framework.resource.parameters.Paging;
+import org.alfresco.rest.framework.resource.parameters.PagingCursor;
 import org.alfresco.rest.framework.resource.parameters.Params;
 import org.alfresco.rest.framework.tests.api.mocks.Farmer;
 import org.alfresco.rest.framework.tests.api.mocks.Goat;
@@ -64,6 +67,7 @@ import org.alfresco.rest.framework.tests.api.mocks3.Flock;
 import org.alfresco.rest.framework.tests.api.mocks3.SlimGoat;
 import org.alfresco.rest.framework.tools.RecognizedParamsExtractor;
 import org.alfresco.rest.framework.webscripts.AbstractResourceWebScript;
+import org.alfresco.rest.framework.webscripts.ResourceWebScriptHelper;
 import org.alfresco.service.cmr.repository.NodeRef;
 import org.alfresco.util.GUID;
 import org.alfresco.util.TempFileProvider;
@@ -83,9 +87,13 @@ import java.io.File;
 import java.io.IOException;
 import java.io.PrintWriter;
 import java.io.StringReader;
+import java.util.AbstractCollection;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
@@ -166,6 +174,85 @@ public class SerializeTests extends AbstractContextTest implements RecognizedPar
 
     }
        
+    @Test
+    public void testStreamingPagedCollection() throws IOException
+    {
+        List<Farmer> farmers = new ArrayList<>();
+        for (int i = 0; i < 3; i++)
+        {
+            Farmer aFarmer = new Farmer("18" + i);
+            aFarmer.setGoatId("111" + i);
+            aFarmer.setSheepId("222" + i);
+            farmers.add(aFarmer);
+        }
+        CollectionWithPagingInfo<Farmer> page = CollectionWithPagingInfo.asPaged(Paging.valueOf(0, 3), farmers, true, 10);
+        Params params = Params.valueOf("notUsed", null, null);
+        String expected = writeResponse(helper.processAdditionsToTheResponse(mock(WebScriptResponse.class), api, null, params, page));
+
+        CollectionWithPagingInfo<?> streamed = (CollectionWithPagingInfo<?>) helper.processAdditionsToTheResponse(mock(WebScriptResponse.class), api, null, params, page, true);
+        assertEquals(3, streamed.getCollection().size());
+        assertTrue(streamed.hasMoreItems());
+        assertEquals(10, streamed.getTotalItems().intValue());
+        ExecutionResult first = (ExecutionResult) streamed.getCollection().iterator().next();
+        assertTrue(first.getRoot() == farmers.get(0));
+        assertNotNull(first.getEmbedded().get("goat"));
+
+        assertEquals("Streaming must produce the same json output", expected, writeResponse(streamed));
+    }
+
+    @Test
+    public void testStreamingFailurePartWay() throws IOException, JSONException
+    {
+        final List<Farmer> farmers = Arrays.asList(new Farmer("180"), new Farmer("181"), new Farmer("182"), new Farmer("183"));
+        Collection<Farmer> failing = new AbstractCollection<Farmer>()
+        {
+            @Override
+            public Iterator<Farmer> iterator()
+            {
+                final Iterator<Farmer> iterator = farmers.iterator();
+                return new Iterator<Farmer>()
+                {
+                    @Override
+                    public boolean hasNext()
+                    {
+                        return iterator.hasNext();
+                    }
+
+                    @Override
+                    public Farmer next()
+                    {
+                        Farmer farmer = iterator.next();
+                        if ("182".equals(farmer.getId()))
+                        {
+                            throw new IllegalStateException("Failed to read farmer 182");
+                        }
+                        return farmer;
+                    }
+                };
+            }
+
+            @Override
+            public int size()
+            {
+                return farmers.size();
+            }
+        };
+        CollectionWithPagingInfo<Farmer> page = CollectionWithPagingInfo.asPaged(Paging.valueOf(0, 4), failing, false, 4);
+        Object streamed = helper.processAdditionsToTheResponse(mock(WebScriptResponse.class), api, null, Params.valueOf("notUsed", null, null), page, true);
+
+        String out = writeResponse(streamed);
+        assertFalse(StringUtils.contains(out, "\"183\""));
+        try
+        {
+            new JSONObject(new JSONTokener(out));
+            fail("A truncated page must not be valid json: " + out);
+        }
+        catch (JSONException expected)
+        {
+            // the entries are left unterminated
+        }
+    }
+
     @Test
     public void testExpandEmbedded() throws IOException
     {
@@ -211,6 +298,51 @@ public class SerializeTests extends AbstractContextTest implements RecognizedPar
         assertTrue("There must be json output", StringUtils.isNotBlank(out));
     }
 
+    @Test
+    public void testExpandRelationsForEntities() throws IOException
+    {
+        Map<String, BeanPropertiesFilter> rFilter = getRelationFilter("blacksheep");
+        Paging pageRequest = Paging.valueOf(0, 10);
+
+        //blacksheep implements ReadForEntities so it is read once for the page
+        Object resultCollection =  helper.processAdditionsToTheResponse(mock(WebScriptResponse.class), api,"sheep",ParamsExtender.valueOf(rFilter,"1"),CollectionWithPagingInfo.asPaged(pageRequest,Arrays.asList(new Farmer("180"), new Farmer("190"), new Farmer("280"))));
+        assertNotNull(resultCollection);
+        String out = writeResponse(resultCollection);
+        assertTrue("There must be a related sheep for 180", StringUtils.contains(out, "\"sheepGuid\":\"180B\""));
+        assertTrue("There must be a related sheep for 190", StringUtils.contains(out, "\"sheepGuid\":\"190B\""));
+        assertFalse("Related sheep must not be read per entity", StringUtils.contains(out, "\"sheepGuid\":\"D1\""));
+        assertFalse("280 has no related sheep", StringUtils.contains(out, "\"sheepGuid\":\"280B\""));
+
+        //A single entity is read as before
+        ExecutionResult res = (ExecutionResult) helper.processAdditionsToTheResponse(mock(WebScriptResponse.class), api,"sheep",ParamsExtender.valueOf(rFilter,"1"),new Farmer("180"));
+        out = writeResponse(res);
+        assertTrue("A single entity reads the relation itself", StringUtils.contains(out, "\"sheepGuid\":\"D1\""));
+    }
+
+    @Test
+    public void testEntityTag()
+    {
+        Params params = Params.valueOf("notUsed", null, null);
+        Sheep sheep = new Sheep("1");
+        String etag = helper.getEntityTag(params, sheep);
+        assertNotNull("Sheep has an @EntityTag", etag);
+        assertTrue("It must be a weak ETag", etag.startsWith("W/\""));
+        assertEquals(etag, helper.getEntityTag(params, new Sheep("1")));
+        assertFalse("A different sheep has a different ETag", etag.equals(helper.getEntityTag(params, new Sheep("2"))));
+        sheep.setAge(4);
+        assertFalse("A changed sheep has a different ETag", etag.equals(helper.getEntityTag(params, sheep)));
+
+        assertNull("Farmer has no @EntityTag", helper.getEntityTag(params, new Farmer("180")));
+        assertNull("Related resources aren't covered by the ETag", helper.getEntityTag(ParamsExtender.valueOf(getRelationFilter("blacksheep"),"1"), sheep));
+        assertNull(helper.getEntityTag(params, CollectionWithPagingInfo.asPaged(null, Arrays.asList(sheep))));
+
+        assertTrue(ResourceWebScriptHelper.matchesEntityTag(etag, etag));
+        assertTrue(ResourceWebScriptHelper.matchesEntityTag("\"abc\", " + etag.substring(2), etag));
+        assertTrue(ResourceWebScriptHelper.matchesEntityTag("*", etag));
+        assertFalse(ResourceWebScriptHelper.matchesEntityTag(null, etag));
+        assertFalse(ResourceWebScriptHelper.matchesEntityTag("W/\"abc\"", etag));
+    }
+
     @Test
     public void testIncludeSource() throws IOException
     {
@@ -278,8 +410,47 @@ public class SerializeTests extends AbstractContextTest implements RecognizedPar
         paged = CollectionWithPagingInfo.asPaged(pageRequest,Arrays.asList(new Goat(), new Sheep("ABCD"), new Sheep("XYZ")),true,5000);
         out = writeResponse(helper.processAdditionsToTheResponse(mock(WebScriptResponse.class), api,null, Params.valueOf("notUsed", null, null), paged));
         assertTrue("There must be json output as List with pagination", StringUtils.startsWith(out, "{\"list\":{\"pagination\":{\"count\":3,\"hasMoreItems\":true,\"totalItems\":5000"));
+        assertFalse("No cursor unless the resource returns one", StringUtils.contains(out, "nextCursor"));
        
     }
+
+    @Test
+    public void testSerializeNextCursor() throws IOException
+    {
+        String nextCursor = PagingCursor.encode("2020-01-01T00:00:00.000+0000", "XYZ");
+        Paging pageRequest = Paging.valueOf(0, 3, PagingCursor.encode("ABCD"));
+        CollectionWithPagingInfo<Sheep> paged = CollectionWithPagingInfo.asPaged(pageRequest, Arrays.asList(new Sheep("ABCD"), new Sheep("XYZ")), true, null, null, null, nextCursor);
+        String out = writeResponse(helper.processAdditionsToTheResponse(mock(WebScriptResponse.class), api, null, Params.valueOf("notUsed", null, null), paged));
+        assertTrue("There must be json output with the next cursor", StringUtils.contains(out, "\"nextCursor\":\"" + nextCursor + "\""));
+
+        assertEquals(Arrays.asList("2020-01-01T00:00:00.000+0000", "XYZ"), PagingCursor.decode(nextCursor));
+        assertEquals(Long.valueOf(42), PagingCursor.decodeId(PagingCursor.encode("42")));
+        assertNull(PagingCursor.decodeId(null));
+
+        RecognizedParamsExtractor extractor = new RecognizedParamsExtractor() {};
+        assertEquals(nextCursor, extractor.getPaging(null, "3", nextCursor).getCursor());
+        assertNull(extractor.getPaging(null, "3", null).getCursor());
+
+        try
+        {
+            PagingCursor.decodeId(PagingCursor.encode("notanid"));
+            fail("Should not get here");
+        }
+        catch (InvalidArgumentException error)
+        {
+            assertNotNull(error);
+        }
+
+        try
+        {
+            Paging.valueOf(10, 3, nextCursor);
+            fail("skipCount can't be used with a cursor");
+        }
+        catch (InvalidArgumentException error)
+        {
+            assertNotNull(error);
+        }
+    }
   
     @Test
     public void testSerializeMap() throws IOException
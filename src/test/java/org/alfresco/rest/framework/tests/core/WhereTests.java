@@ -27,15 +27,22 @@ package org.alfresco.rest.framework.tests.core;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 import org.alfresco.rest.antlr.WhereClauseParser;
 import org.alfresco.rest.framework.resource.parameters.where.InvalidQueryException;
 import org.alfresco.rest.framework.resource.parameters.where.Query;
+import org.alfresco.rest.framework.resource.parameters.where.QueryCache;
 import org.alfresco.rest.framework.resource.parameters.where.QueryHelper;
+import org.alfresco.rest.framework.resource.parameters.where.QueryHelper.WalkerCallback;
 import org.alfresco.rest.framework.resource.parameters.where.QueryHelper.WalkerCallbackAdapter;
 import org.alfresco.rest.framework.tools.RecognizedParamsExtractor;
 import org.antlr.runtime.tree.CommonTree;
@@ -569,6 +576,97 @@ public class WhereTests implements RecognizedParamsExtractor
 		});
 	}
 	
+    @Test
+    public void cachedQueryTest()
+    {
+        String where = "(EXISTS(target/file) AND NOT dueAt between (5,8) AND fred > 4 AND nextOne in (5,'fred') AND niceone matches ('bob%'))";
+        Query theQuery = getWhereClause(where);
+        assertSame("The parsed query should be cached", theQuery, getWhereClause(where));
+
+        // The compiled walk makes the same calls, in the same order, as the walk of the tree
+        List<String> compiledCalls = new ArrayList<>();
+        QueryHelper.walk(theQuery, recorder(compiledCalls));
+        List<String> treeCalls = new ArrayList<>();
+        final CommonTree tree = theQuery.getTree();
+        QueryHelper.walk(() -> tree, recorder(treeCalls));
+        assertTrue(treeCalls.containsAll(Arrays.asList("and", "exists target/file false", "between dueAt 5 8 true",
+                    "comparison " + WhereClauseParser.GREATERTHAN + " fred 4 false", "in nextOne false [5, fred]", "matches niceone bob% false")));
+        assertEquals(treeCalls, compiledCalls);
+
+        compiledCalls.clear();
+        QueryHelper.walk(theQuery, recorder(compiledCalls));
+        assertEquals(treeCalls, compiledCalls);
+
+        // Large where clauses aren't cached
+        StringBuilder largeWhere = new StringBuilder("(nextOne in (");
+        for (int i = 0; largeWhere.length() <= QueryCache.MAX_KEY_LENGTH; i++)
+        {
+            largeWhere.append(i).append(',');
+        }
+        largeWhere.append("0))");
+        Query largeQuery = getWhereClause(largeWhere.toString());
+        assertNotNull(largeQuery);
+        assertNotSame("Large where clauses should not be cached", largeQuery, getWhereClause(largeWhere.toString()));
+
+        try
+        {
+            QueryHelper.walk(theQuery, new WalkerCallbackAdapter());
+            fail("Should throw an InvalidQueryException");
+        }
+        catch (InvalidQueryException error)
+        {
+            //this is correct
+        }
+    }
+
+    private static WalkerCallback recorder(final List<String> calls)
+    {
+        return new WalkerCallback()
+        {
+            @Override
+            public void exists(String propertyName, boolean negated)
+            {
+                calls.add("exists " + propertyName + " " + negated);
+            }
+
+            @Override
+            public void between(String propertyName, String firstValue, String secondValue, boolean negated)
+            {
+                calls.add("between " + propertyName + " " + firstValue + " " + secondValue + " " + negated);
+            }
+
+            @Override
+            public void comparison(int type, String propertyName, String propertyValue, boolean negated)
+            {
+                calls.add("comparison " + type + " " + propertyName + " " + propertyValue + " " + negated);
+            }
+
+            @Override
+            public void in(String property, boolean negated, String... propertyValues)
+            {
+                calls.add("in " + property + " " + negated + " " + Arrays.toString(propertyValues));
+            }
+
+            @Override
+            public void matches(String property, String propertyValue, boolean negated)
+            {
+                calls.add("matches " + property + " " + propertyValue + " " + negated);
+            }
+
+            @Override
+            public void and()
+            {
+                calls.add("and");
+            }
+
+            @Override
+            public void or()
+            {
+                calls.add("or");
+            }
+        };
+    }
+
     /**
      * Helper class for walking the query.
      */
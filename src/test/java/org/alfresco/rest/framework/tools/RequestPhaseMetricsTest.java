@@ -0,0 +1,136 @@
+/*
+ * #%L
+ * Alfresco Remote API
+ * %%
+ * Copyright (C) 2005 - 2020 Alfresco Software Limited
+ * %%
+ * This file is part of the Alfresco software.
+ * If the software was purchased under a paid Alfresco license, the terms of
+ * the paid license agreement will prevail.  Otherwise, the software is
+ * provided under the following open source license terms:
+ *
+ * Alfresco is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Alfresco is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Alfresco. If not, see <http://www.gnu.org/licenses/>.
+ * #L%
+ */
+package org.alfresco.rest.framework.tools;
+
+import static org.junit.Assert.*;
+
+import org.alfresco.rest.framework.tools.RequestPhaseTimings.Phase;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Test the LatencyHistogram, RequestPhaseTimings and RequestPhaseMetrics
+ */
+public class RequestPhaseMetricsTest
+{
+    @Test
+    public void histogramTest()
+    {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getValueAtPercentile(99));
+
+        for (long value = 1; value <= 1000; value++)
+        {
+            histogram.record(value * 1000);
+        }
+        assertEquals(1000, histogram.getCount());
+        assertEquals(1000000, histogram.getMax());
+        assertEquals(500500, histogram.getMean());
+        assertWithinPrecision(500000, histogram.getValueAtPercentile(50));
+        assertWithinPrecision(900000, histogram.getValueAtPercentile(90));
+        assertWithinPrecision(990000, histogram.getValueAtPercentile(99));
+        assertEquals(1000000, histogram.getValueAtPercentile(100));
+
+        // Small values are exact, big ones end up in the last buckets
+        histogram = new LatencyHistogram();
+        histogram.record(-5);
+        histogram.record(7);
+        histogram.record(Long.MAX_VALUE);
+        assertEquals(0, histogram.getValueAtPercentile(10));
+        assertEquals(7, histogram.getValueAtPercentile(50));
+        assertEquals(Long.MAX_VALUE, histogram.getValueAtPercentile(100));
+
+        for (long value : Arrays.asList(0L, 31L, 32L, 33L, 1023L, 1024L, 123456789L, Long.MAX_VALUE))
+        {
+            int index = LatencyHistogram.indexOf(value);
+            assertTrue(LatencyHistogram.highestValueOf(index) >= value);
+            assertTrue(index == 0 || LatencyHistogram.highestValueOf(index - 1) < value);
+        }
+    }
+
+    @Test
+    public void timingsTest() throws InterruptedException
+    {
+        RequestPhaseTimings timings = new RequestPhaseTimings();
+        long txnStart = timings.start();
+        long recordedAtStart = timings.getRecorded();
+        long start = timings.start();
+        Thread.sleep(2);
+        timings.record(Phase.ACTION, start);
+        timings.recordRemainder(Phase.TRANSACTION, txnStart, recordedAtStart);
+
+        assertTrue(timings.getNanos(Phase.ACTION) >= TimeUnit.MILLISECONDS.toNanos(2));
+        assertTrue(timings.getNanos(Phase.TRANSACTION) < timings.getNanos(Phase.ACTION));
+        assertEquals(0, timings.getNanos(Phase.LOCATE));
+        assertEquals(timings.getNanos(Phase.ACTION) + timings.getNanos(Phase.TRANSACTION), timings.getRecorded());
+
+        String serverTiming = timings.toServerTiming();
+        assertTrue(serverTiming, serverTiming.matches("(txn;dur=\\d+\\.\\d{3}, )?action;dur=\\d+\\.\\d{3}"));
+
+        // Nothing is recorded when disabled
+        start = RequestPhaseTimings.NONE.start();
+        RequestPhaseTimings.NONE.record(Phase.ACTION, start);
+        assertFalse(RequestPhaseTimings.NONE.isEnabled());
+        assertEquals(0, RequestPhaseTimings.NONE.getNanos(Phase.ACTION));
+        assertEquals("", RequestPhaseTimings.NONE.toServerTiming());
+    }
+
+    @Test
+    public void metricsTest()
+    {
+        RequestPhaseMetrics metrics = new RequestPhaseMetrics();
+        RequestPhaseTimings timings = new RequestPhaseTimings();
+        timings.record(Phase.ACTION, timings.start() - 5000);
+        timings.record(Phase.TOTAL, timings.start() - 9000);
+
+        metrics.record("GET sheep", timings);
+        assertTrue("Disabled by default", metrics.getOperations().isEmpty());
+
+        metrics.setEnabled(true);
+        metrics.record("GET sheep", timings);
+        metrics.record("GET sheep", timings);
+        metrics.record("POST goat", timings);
+        assertEquals(Arrays.asList("GET sheep", "POST goat"), metrics.getOperations());
+
+        LatencyHistogram action = metrics.getHistogram("GET sheep", Phase.ACTION);
+        assertEquals(2, action.getCount());
+        assertTrue(action.getMax() >= 5000);
+        assertEquals(2, metrics.getHistogram("GET sheep", Phase.TOTAL).getCount());
+        assertEquals(0, metrics.getHistogram("GET sheep", Phase.LOCATE).getCount());
+        assertNull(metrics.getHistogram("DELETE cow", Phase.TOTAL));
+
+        metrics.reset();
+        assertTrue(metrics.getOperations().isEmpty());
+    }
+
+    private static void assertWithinPrecision(long expected, long actual)
+    {
+        assertTrue("Expected about " + expected + " but was " + actual, actual >= expected && actual <= expected * 1.07);
+    }
+}